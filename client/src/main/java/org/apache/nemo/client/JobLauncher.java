@@ -444,8 +444,20 @@ public final class JobLauncher {
     cl.registerShortNameOfClass(JobConf.MaxNumDownloadsForARuntimeEdge.class);
     cl.registerShortNameOfClass(JobConf.SchedulerImplClassName.class);
     cl.registerShortNameOfClass(JobConf.ScheduleSerThread.class);
+    cl.registerShortNameOfClass(JobConf.BatchTaskDispatch.class);
+    cl.registerShortNameOfClass(JobConf.TaskDispatchRetryDelayMs.class);
+    cl.registerShortNameOfClass(JobConf.ShuffleLocalityWaitMs.class);
+    cl.registerShortNameOfClass(JobConf.PipelinedStageExecution.class);
     cl.registerShortNameOfClass(JobConf.MaxOffheapRatio.class);
     cl.registerShortNameOfClass(JobConf.ChunkSizeKb.class);
+    cl.registerShortNameOfClass(JobConf.DataFetcherReadinessNotification.class);
+    cl.registerShortNameOfClass(JobConf.PipeCreditWindowKb.class);
+    cl.registerShortNameOfClass(JobConf.LocalPipeQueueCapacity.class);
+    cl.registerShortNameOfClass(JobConf.PipeReaderThreads.class);
+    cl.registerShortNameOfClass(JobConf.PipeFetcherQueueCapacity.class);
+    cl.registerShortNameOfClass(JobConf.SortShuffleSpillThreshold.class);
+    cl.registerShortNameOfClass(JobConf.VertexMetricSamplingPeriodMs.class);
+    cl.registerShortNameOfClass(JobConf.VertexMetricBroadcastPeriodMs.class);
     cl.processCommandLine(args);
     return confBuilder.build();
   }
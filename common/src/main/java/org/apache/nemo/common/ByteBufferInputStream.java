@@ -56,6 +56,73 @@ public final class ByteBufferInputStream extends InputStream {
     return getBuffer().get() & BITMASK;
   }
 
+  /**
+   * Reads up to {@code length} bytes from the list of {@code ByteBuffer}s, in bulk.
+   *
+   * @param bytes  the buffer into which the data is read.
+   * @param offset the start offset in {@code bytes}.
+   * @param length the maximum number of bytes to read.
+   * @return the number of bytes read, or -1 if there is no more data.
+   * @throws IOException exception.
+   */
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+    if (offset < 0 || length < 0 || length > bytes.length - offset) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (length == 0) {
+      return 0;
+    }
+    int readBytes = 0;
+    while (readBytes < length && hasRemaining()) {
+      final ByteBuffer buffer = getBuffer();
+      final int toRead = Math.min(buffer.remaining(), length - readBytes);
+      buffer.get(bytes, offset + readBytes, toRead);
+      readBytes += toRead;
+    }
+    return readBytes == 0 ? -1 : readBytes;
+  }
+
+  /**
+   * Skips up to {@code n} bytes.
+   *
+   * @param n the number of bytes to skip.
+   * @return the number of bytes skipped.
+   * @throws IOException exception.
+   */
+  @Override
+  public long skip(final long n) throws IOException {
+    long skippedBytes = 0;
+    while (skippedBytes < n && hasRemaining()) {
+      final ByteBuffer buffer = getBuffer();
+      final int toSkip = (int) Math.min(buffer.remaining(), n - skippedBytes);
+      buffer.position(buffer.position() + toSkip);
+      skippedBytes += toSkip;
+    }
+    return skippedBytes;
+  }
+
+  /**
+   * @return the number of bytes remaining in the current {@code ByteBuffer}.
+   * @throws IOException exception.
+   */
+  @Override
+  public int available() throws IOException {
+    return hasRemaining() ? getBuffer().remaining() : 0;
+  }
+
+  /**
+   * @return whether any of the remaining {@code ByteBuffer}s has data to read.
+   */
+  private boolean hasRemaining() {
+    for (int i = current; i < bufList.size(); i++) {
+      if (bufList.get(i).hasRemaining()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Return next non-empty @code{ByteBuffer}.
    *
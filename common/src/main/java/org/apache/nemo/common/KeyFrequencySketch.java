@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common;
+
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.coder.EncoderFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded-size key frequency statistics: a count-min sketch plus a Misra-Gries summary of the heavy hitters.
+ * The size of the sketch does not depend on the number of distinct keys, unlike a map of key to count.
+ * <p>
+ * The first row of the sketch hashes keys in the same way as the
+ * {@link org.apache.nemo.common.partitioner.HashPartitioner}, and the width of the sketch is a multiple of the
+ * number of partitions. Thus, folding the first row gives the exact size of each hash partition.
+ * The other rows are only used to estimate the counts of the heavy hitter candidates.
+ * <p>
+ * Sketches built with the same dimensions can be merged, and the result is the sketch of the union of their inputs.
+ */
+public final class KeyFrequencySketch implements Serializable {
+  private final int depth;
+  private final int width;
+  private final int numOfPartitions;
+  private final int maxHeavyHitters;
+  private final long[] cells;
+  private final Map<Object, Long> heavyHitterCounters;
+  private long totalCount;
+
+  /**
+   * Private constructor.
+   *
+   * @param depth           the number of rows of the sketch.
+   * @param width           the number of cells in each row of the sketch.
+   * @param numOfPartitions the number of hash partitions to report the sizes of.
+   * @param maxHeavyHitters the number of heavy hitters to keep track of.
+   */
+  private KeyFrequencySketch(final int depth,
+                             final int width,
+                             final int numOfPartitions,
+                             final int maxHeavyHitters) {
+    if (depth < 1 || numOfPartitions < 1 || maxHeavyHitters < 0 || width % numOfPartitions != 0) {
+      throw new IllegalArgumentException(depth + ", " + width + ", " + numOfPartitions + ", " + maxHeavyHitters);
+    }
+    this.depth = depth;
+    this.width = width;
+    this.numOfPartitions = numOfPartitions;
+    this.maxHeavyHitters = maxHeavyHitters;
+    this.cells = new long[depth * width];
+    this.heavyHitterCounters = new HashMap<>();
+    this.totalCount = 0;
+  }
+
+  /**
+   * @param depth           the number of rows of the sketch.
+   * @param minWidth        the minimum number of cells in each row, rounded up to a multiple of the partitions.
+   * @param numOfPartitions the number of hash partitions to report the sizes of.
+   * @param maxHeavyHitters the number of heavy hitters to keep track of.
+   * @return an empty sketch.
+   */
+  public static KeyFrequencySketch of(final int depth,
+                                      final int minWidth,
+                                      final int numOfPartitions,
+                                      final int maxHeavyHitters) {
+    final int width = Math.max(1, (minWidth + numOfPartitions - 1) / numOfPartitions) * numOfPartitions;
+    return new KeyFrequencySketch(depth, width, numOfPartitions, maxHeavyHitters);
+  }
+
+  /**
+   * Counts an occurrence of the key.
+   *
+   * @param key to count.
+   */
+  public void add(final Object key) {
+    final int keyHash = Objects.hashCode(key);
+    for (int row = 0; row < depth; row++) {
+      cells[row * width + cellIndex(keyHash, row)]++;
+    }
+    totalCount++;
+
+    final Long counter = heavyHitterCounters.get(key);
+    if (counter != null) {
+      heavyHitterCounters.put(key, counter + 1);
+    } else if (heavyHitterCounters.size() < maxHeavyHitters) {
+      heavyHitterCounters.put(key, 1L);
+    } else {
+      // Misra-Gries: the decrements are paid for by earlier increments, so this is amortized O(1).
+      heavyHitterCounters.replaceAll((k, count) -> count - 1);
+      heavyHitterCounters.values().removeIf(count -> count == 0);
+    }
+  }
+
+  /**
+   * Merges another sketch into this sketch.
+   *
+   * @param other sketch with the same dimensions.
+   * @return this sketch.
+   */
+  public KeyFrequencySketch merge(final KeyFrequencySketch other) {
+    if (depth != other.depth || width != other.width || numOfPartitions != other.numOfPartitions) {
+      throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+    }
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] += other.cells[i];
+    }
+    totalCount += other.totalCount;
+
+    other.heavyHitterCounters.forEach((key, count) -> heavyHitterCounters.merge(key, count, Long::sum));
+    if (heavyHitterCounters.size() > maxHeavyHitters) {
+      // Subtract the (k+1)-th largest counter, which keeps the merged summary within the Misra-Gries error bound.
+      final long[] counts = heavyHitterCounters.values().stream().mapToLong(Long::longValue).toArray();
+      Arrays.sort(counts);
+      final long offset = counts[counts.length - maxHeavyHitters - 1];
+      heavyHitterCounters.replaceAll((k, count) -> count - offset);
+      heavyHitterCounters.values().removeIf(count -> count <= 0);
+    }
+    return this;
+  }
+
+  /**
+   * @param key to estimate the count of.
+   * @return the estimated count of the key, which is never smaller than the actual count.
+   */
+  public long estimateCount(final Object key) {
+    final int keyHash = Objects.hashCode(key);
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, cells[row * width + cellIndex(keyHash, row)]);
+    }
+    return estimate;
+  }
+
+  /**
+   * @return the size of each hash partition, indexed by the partition key.
+   */
+  public long[] getPartitionSizes() {
+    final long[] partitionSizes = new long[numOfPartitions];
+    for (int cell = 0; cell < width; cell++) {
+      partitionSizes[cell % numOfPartitions] += cells[cell];
+    }
+    return partitionSizes;
+  }
+
+  /**
+   * @param key to get the partition of.
+   * @return the key of the hash partition that the key belongs to.
+   */
+  public int getPartition(final Object key) {
+    return Math.abs(Objects.hashCode(key) % numOfPartitions);
+  }
+
+  /**
+   * @return the heavy hitter candidates and their estimated counts, in descending order of the count.
+   */
+  public Map<Object, Long> getHeavyHitters() {
+    final List<Pair<Object, Long>> estimates = new ArrayList<>(heavyHitterCounters.size());
+    heavyHitterCounters.keySet().forEach(key -> estimates.add(Pair.of(key, estimateCount(key))));
+    estimates.sort(Comparator.comparing((Pair<Object, Long> pair) -> pair.right()).reversed());
+
+    final Map<Object, Long> heavyHitters = new LinkedHashMap<>();
+    estimates.forEach(pair -> heavyHitters.put(pair.left(), pair.right()));
+    return heavyHitters;
+  }
+
+  /**
+   * @return the number of keys counted by this sketch.
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * Writes this sketch.
+   *
+   * @param outputStream to write to.
+   * @param keyEncoder   to write the heavy hitter keys with.
+   * @throws IOException if fail to write.
+   */
+  public void encode(final DataOutputStream outputStream,
+                     final EncoderFactory.Encoder<Object> keyEncoder) throws IOException {
+    outputStream.writeInt(depth);
+    outputStream.writeInt(width);
+    outputStream.writeInt(numOfPartitions);
+    outputStream.writeInt(maxHeavyHitters);
+    outputStream.writeLong(totalCount);
+    for (final long cell : cells) {
+      outputStream.writeLong(cell);
+    }
+    outputStream.writeInt(heavyHitterCounters.size());
+    for (final Map.Entry<Object, Long> entry : heavyHitterCounters.entrySet()) {
+      keyEncoder.encode(entry.getKey());
+      outputStream.writeLong(entry.getValue());
+    }
+  }
+
+  /**
+   * Reads a sketch written by {@link #encode(DataOutputStream, EncoderFactory.Encoder)}.
+   *
+   * @param inputStream to read from.
+   * @param keyDecoder  to read the heavy hitter keys with.
+   * @return the sketch.
+   * @throws IOException if fail to read.
+   */
+  public static KeyFrequencySketch decode(final DataInputStream inputStream,
+                                          final DecoderFactory.Decoder<Object> keyDecoder) throws IOException {
+    final int depth = inputStream.readInt();
+    final int width = inputStream.readInt();
+    final int numOfPartitions = inputStream.readInt();
+    final int maxHeavyHitters = inputStream.readInt();
+    final KeyFrequencySketch sketch = new KeyFrequencySketch(depth, width, numOfPartitions, maxHeavyHitters);
+    sketch.totalCount = inputStream.readLong();
+    for (int i = 0; i < sketch.cells.length; i++) {
+      sketch.cells[i] = inputStream.readLong();
+    }
+    final int numOfHeavyHitters = inputStream.readInt();
+    for (int i = 0; i < numOfHeavyHitters; i++) {
+      final Object key = keyDecoder.decode();
+      sketch.heavyHitterCounters.put(key, inputStream.readLong());
+    }
+    return sketch;
+  }
+
+  /**
+   * @param keyHash hash code of the key.
+   * @param row     of the sketch.
+   * @return the index of the cell in the row.
+   */
+  private int cellIndex(final int keyHash, final int row) {
+    if (row == 0) {
+      // Same as the HashPartitioner, so that each cell belongs to the partition (cell % numOfPartitions).
+      return Math.abs(keyHash % width);
+    }
+    int hash = keyHash ^ (row * 0x9e3779b9);
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return Math.floorMod(hash, width);
+  }
+
+  @Override
+  public String toString() {
+    return "KeyFrequencySketch{depth=" + depth + ", width=" + width + ", numOfPartitions=" + numOfPartitions
+      + ", totalCount=" + totalCount + ", heavyHitters=" + heavyHitterCounters.keySet() + "}";
+  }
+}
@@ -32,7 +32,8 @@ public final class StateMachine {
   private static final Logger LOG = LoggerFactory.getLogger(StateMachine.class.getName());
 
   private final Map<Enum, State> stateMap;
-  private State currentState;
+  // Volatile, as the current state is read without the lock of this state machine.
+  private volatile State currentState;
 
   /**
    * Private constructor.
@@ -106,7 +107,7 @@ public final class StateMachine {
   /**
    * @return the name of the current state.
    */
-  public synchronized Enum getCurrentState() {
+  public Enum getCurrentState() {
     return currentState.stateEnum;
   }
 
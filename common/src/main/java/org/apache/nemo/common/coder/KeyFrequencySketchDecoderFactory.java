@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.coder;
+
+import org.apache.nemo.common.KeyFrequencySketch;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A DecoderFactory for {@link KeyFrequencySketch}.
+ */
+public final class KeyFrequencySketchDecoderFactory implements DecoderFactory<KeyFrequencySketch> {
+  private final DecoderFactory<Object> keyDecoderFactory;
+
+  /**
+   * Private constructor.
+   *
+   * @param keyDecoderFactory coder for the heavy hitter keys.
+   */
+  private KeyFrequencySketchDecoderFactory(final DecoderFactory<Object> keyDecoderFactory) {
+    this.keyDecoderFactory = keyDecoderFactory;
+  }
+
+  /**
+   * Static initializer of the coder.
+   *
+   * @param keyDecoderFactory coder for the heavy hitter keys.
+   * @return the new KeyFrequencySketchDecoderFactory.
+   */
+  public static KeyFrequencySketchDecoderFactory of(final DecoderFactory<Object> keyDecoderFactory) {
+    return new KeyFrequencySketchDecoderFactory(keyDecoderFactory);
+  }
+
+  @Override
+  public Decoder<KeyFrequencySketch> create(final InputStream inputStream) throws IOException {
+    return new KeyFrequencySketchDecoder(inputStream, keyDecoderFactory);
+  }
+
+  @Override
+  public String toString() {
+    return "KeyFrequencySketch(" + keyDecoderFactory.toString() + ")";
+  }
+
+  /**
+   * KeyFrequencySketchDecoder.
+   */
+  private final class KeyFrequencySketchDecoder implements Decoder<KeyFrequencySketch> {
+    private final transient DataInputStream inputStream;
+    private final Decoder<Object> keyDecoder;
+
+    /**
+     * Constructor.
+     *
+     * @param inputStream       the input stream to decode.
+     * @param keyDecoderFactory the decoder to use for the heavy hitter keys.
+     * @throws IOException if fail to instantiate coders.
+     */
+    private KeyFrequencySketchDecoder(final InputStream inputStream,
+                                      final DecoderFactory<Object> keyDecoderFactory) throws IOException {
+      // The DataInputStream does not buffer, so the keys read by the key decoder stay in order.
+      this.inputStream = new DataInputStream(inputStream);
+      this.keyDecoder = keyDecoderFactory.create(inputStream);
+    }
+
+    @Override
+    public KeyFrequencySketch decode() throws IOException {
+      return KeyFrequencySketch.decode(inputStream, keyDecoder);
+    }
+  }
+}
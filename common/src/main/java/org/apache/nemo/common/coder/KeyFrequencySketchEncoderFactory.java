@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.coder;
+
+import org.apache.nemo.common.KeyFrequencySketch;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An EncoderFactory for {@link KeyFrequencySketch}.
+ */
+public final class KeyFrequencySketchEncoderFactory implements EncoderFactory<KeyFrequencySketch> {
+  private final EncoderFactory<Object> keyEncoderFactory;
+
+  /**
+   * Private constructor.
+   *
+   * @param keyEncoderFactory coder for the heavy hitter keys.
+   */
+  private KeyFrequencySketchEncoderFactory(final EncoderFactory<Object> keyEncoderFactory) {
+    this.keyEncoderFactory = keyEncoderFactory;
+  }
+
+  /**
+   * Static initializer of the coder.
+   *
+   * @param keyEncoderFactory coder for the heavy hitter keys.
+   * @return the new KeyFrequencySketchEncoderFactory.
+   */
+  public static KeyFrequencySketchEncoderFactory of(final EncoderFactory<Object> keyEncoderFactory) {
+    return new KeyFrequencySketchEncoderFactory(keyEncoderFactory);
+  }
+
+  @Override
+  public Encoder<KeyFrequencySketch> create(final OutputStream outputStream) throws IOException {
+    return new KeyFrequencySketchEncoder(outputStream, keyEncoderFactory);
+  }
+
+  @Override
+  public String toString() {
+    return "KeyFrequencySketch(" + keyEncoderFactory.toString() + ")";
+  }
+
+  /**
+   * KeyFrequencySketchEncoder.
+   */
+  private final class KeyFrequencySketchEncoder implements Encoder<KeyFrequencySketch> {
+    private final transient DataOutputStream outputStream;
+    private final Encoder<Object> keyEncoder;
+
+    /**
+     * Constructor.
+     *
+     * @param outputStream      the output stream to store the encoded bytes.
+     * @param keyEncoderFactory the encoder to use for the heavy hitter keys.
+     * @throws IOException if fail to instantiate coders.
+     */
+    private KeyFrequencySketchEncoder(final OutputStream outputStream,
+                                      final EncoderFactory<Object> keyEncoderFactory) throws IOException {
+      // The DataOutputStream does not buffer, so the keys written by the key encoder stay in order.
+      this.outputStream = new DataOutputStream(outputStream);
+      this.keyEncoder = keyEncoderFactory.create(outputStream);
+    }
+
+    @Override
+    public void encode(final KeyFrequencySketch sketch) throws IOException {
+      sketch.encode(outputStream, keyEncoder);
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.nemo.common.dag;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.exception.IllegalEdgeOperationException;
 import org.apache.nemo.common.exception.IllegalVertexOperationException;
 import org.apache.nemo.common.ir.vertex.LoopVertex;
@@ -51,6 +52,12 @@ public final class DAG<V extends Vertex, E extends Edge<V>> implements DAGInterf
   private final Map<String, LoopVertex> assignedLoopVertexMap;
   private final Map<String, Integer> loopStackDepthMap;
 
+  // Indices and orders derived from the above at construction, so that lookups and traversals do not rescan the DAG.
+  private final Map<String, V> idToVertex;
+  private final Map<String, E> idToEdge;
+  private final List<E> edges;
+  private final List<V> topologicalOrder;
+
   /**
    * Constructor of DAG, called by the DAGBuilder.
    *
@@ -87,24 +94,42 @@ public final class DAG<V extends Vertex, E extends Edge<V>> implements DAGInterf
     this.loopStackDepthMap = new HashMap<>();
     assignedLoopVertexMap.forEach((v, loopVertex) -> this.assignedLoopVertexMap.put(v.getId(), loopVertex));
     loopStackDepthMap.forEach(((v, integer) -> this.loopStackDepthMap.put(v.getId(), integer)));
+
+    this.idToVertex = new HashMap<>();
+    this.idToEdge = new HashMap<>();
+    final List<E> edgeList = new ArrayList<>();
+    for (final V vertex : this.vertices) {
+      this.idToVertex.putIfAbsent(vertex.getId(), vertex);
+      for (final E edge : this.incomingEdges.get(vertex.getId())) {
+        this.idToEdge.putIfAbsent(edge.getId(), edge);
+        edgeList.add(edge);
+      }
+    }
+    this.edges = Collections.unmodifiableList(edgeList);
+
+    // The reverse post-order of the DFS from the root vertices.
+    final List<V> postOrder = new ArrayList<>(this.vertices.size());
+    dfsTraverse(postOrder::add, TraversalOrder.PostOrder);
+    Collections.reverse(postOrder);
+    this.topologicalOrder = Collections.unmodifiableList(postOrder);
   }
 
   @Override
   public V getVertexById(final String id) {
-    for (final V vertex : vertices) {
-      if (vertex.getId().equals(id)) {
-        return vertex;
-      }
+    final V vertex = idToVertex.get(id);
+    if (vertex == null) {
+      throw new IllegalVertexOperationException("There is no vertex of id: " + id);
     }
-    throw new IllegalVertexOperationException("There is no vertex of id: " + id);
+    return vertex;
   }
 
   @Override
   public E getEdgeById(final String id) {
-    return incomingEdges.values().stream().flatMap(List::stream)
-      .filter(e -> e.getId().equals(id))
-      .findFirst()
-      .orElseThrow(() -> new IllegalEdgeOperationException("There is no edge of id: " + id));
+    final E edge = idToEdge.get(id);
+    if (edge == null) {
+      throw new IllegalEdgeOperationException("There is no edge of id: " + id);
+    }
+    return edge;
   }
 
   @Override
@@ -114,7 +139,7 @@ public final class DAG<V extends Vertex, E extends Edge<V>> implements DAGInterf
 
   @Override
   public List<E> getEdges() {
-    return incomingEdges.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    return edges;
   }
 
   @Override
@@ -165,29 +190,37 @@ public final class DAG<V extends Vertex, E extends Edge<V>> implements DAGInterf
 
   @Override
   public List<V> getTopologicalSort() {
-    final List<V> sortedList = new ArrayList<>(vertices.size());
-    topologicalDo(sortedList::add);
-    return sortedList;
+    // Callers may modify the returned list, so we hand out a copy of the cached order.
+    return new ArrayList<>(topologicalOrder);
   }
 
   @Override
   public List<V> getAncestors(final String vertexId) {
     final List<V> ancestors = new ArrayList<>();
-    addAncestors(ancestors, vertexId);
+    final Set<V> visited = new HashSet<>();
+    final Deque<V> stack = new ArrayDeque<>();
+    pushParents(stack, vertexId);
+    while (!stack.isEmpty()) {
+      final V ancestor = stack.pop();
+      if (visited.add(ancestor)) {
+        ancestors.add(ancestor);
+        pushParents(stack, ancestor.getId());
+      }
+    }
     return ancestors;
   }
 
   /**
-   * Recursively adds ancestors of a vertex to the given list.
+   * Pushes the parents of a vertex to the given stack, so that they are popped in the order of the incoming edges.
    *
-   * @param ancestorList to accumulate the ancestors.
-   * @param vertexId     to find the ancestors for.
+   * @param stack    to push the parents to.
+   * @param vertexId to find the parents for.
    */
-  private void addAncestors(final List<V> ancestorList, final String vertexId) {
-    getParents(vertexId).forEach(parent -> {
-      ancestorList.add(parent);
-      addAncestors(ancestorList, parent.getId());
-    });
+  private void pushParents(final Deque<V> stack, final String vertexId) {
+    final List<E> inEdges = incomingEdges.get(vertexId);
+    for (int i = inEdges.size() - 1; i >= 0; i--) {
+      stack.push(inEdges.get(i).getSrc());
+    }
   }
 
   @Override
@@ -208,19 +241,17 @@ public final class DAG<V extends Vertex, E extends Edge<V>> implements DAGInterf
 
   @Override
   public void topologicalDo(final Consumer<V> function) {
-    final Stack<V> stack = new Stack<>();
-    dfsTraverse(stack::push, TraversalOrder.PostOrder);
-    while (!stack.isEmpty()) {
-      function.accept(stack.pop());
-    }
+    topologicalOrder.forEach(function);
   }
 
   @Override
   public void dfsTraverse(final Consumer<V> function, final TraversalOrder traversalOrder) {
     final Set<V> visited = new HashSet<>();
-    getVertices().stream().filter(vertex -> incomingEdges.get(vertex.getId()).isEmpty()) // root Operators
-      .filter(vertex -> !visited.contains(vertex))
-      .forEachOrdered(vertex -> dfsDo(vertex, function, traversalOrder, visited));
+    for (final V vertex : vertices) {
+      if (incomingEdges.get(vertex.getId()).isEmpty() && !visited.contains(vertex)) { // root Operators
+        dfsDo(vertex, function, traversalOrder, visited);
+      }
+    }
   }
 
   @Override
@@ -228,18 +259,29 @@ public final class DAG<V extends Vertex, E extends Edge<V>> implements DAGInterf
                     final Consumer<V> vertexConsumer,
                     final TraversalOrder traversalOrder,
                     final Set<V> visited) {
+    // An explicit stack of (vertex, its remaining outgoing edges), to avoid overflowing the call stack on deep DAGs.
+    final Deque<Pair<V, Iterator<E>>> stack = new ArrayDeque<>();
     visited.add(vertex);
     if (traversalOrder == TraversalOrder.PreOrder) {
       vertexConsumer.accept(vertex);
     }
-    final List<E> outEdges = getOutgoingEdgesOf(vertex);
-    if (!outEdges.isEmpty()) {
-      outEdges.stream().map(Edge::getDst)
-        .filter(outOperator -> !visited.contains(outOperator))
-        .forEachOrdered(outOperator -> dfsDo(outOperator, vertexConsumer, traversalOrder, visited));
-    }
-    if (traversalOrder == TraversalOrder.PostOrder) {
-      vertexConsumer.accept(vertex);
+    stack.push(Pair.of(vertex, getOutgoingEdgesOf(vertex).iterator()));
+    while (!stack.isEmpty()) {
+      final Pair<V, Iterator<E>> top = stack.peek();
+      if (top.right().hasNext()) {
+        final V outOperator = top.right().next().getDst();
+        if (visited.add(outOperator)) {
+          if (traversalOrder == TraversalOrder.PreOrder) {
+            vertexConsumer.accept(outOperator);
+          }
+          stack.push(Pair.of(outOperator, getOutgoingEdgesOf(outOperator).iterator()));
+        }
+      } else {
+        stack.pop();
+        if (traversalOrder == TraversalOrder.PostOrder) {
+          vertexConsumer.accept(top.left());
+        }
+      }
     }
   }
 
@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.common.dag;
 
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.Util;
 import org.apache.nemo.common.exception.CompileTimeOptimizationException;
 import org.apache.nemo.common.exception.IllegalVertexOperationException;
@@ -335,24 +336,48 @@ public final class DAGBuilder<V extends Vertex, E extends Edge<V>> implements Se
 
   /**
    * Helper method to guarantee that there are no cycles in the DAG.
+   * The DFS keeps its own stack rather than recursing, so that deep DAGs do not overflow the call stack.
    *
-   * @param stack   stack to push the vertices to.
+   * @param onStack set of the vertices on the current DFS path.
    * @param visited set to keep track of visited vertices.
-   * @param vertex  vertex to check.
+   * @param root    vertex to start the check from.
    */
-  private void cycleCheck(final Stack<V> stack, final Set<V> visited, final V vertex) {
-    // We check in a DFS manner.
+  private void cycleCheck(final Set<V> onStack, final Set<V> visited, final V root) {
+    final Deque<Pair<V, Iterator<E>>> stack = new ArrayDeque<>();
+    enterCycleCheck(stack, onStack, visited, root);
+    while (!stack.isEmpty()) {
+      final Pair<V, Iterator<E>> top = stack.peek();
+      if (top.right().hasNext()) {
+        final V child = top.right().next().getDst();
+        if (!visited.contains(child)) {
+          enterCycleCheck(stack, onStack, visited, child);
+        }
+      } else {
+        stack.pop();
+        onStack.remove(top.left());
+      }
+    }
+  }
+
+  /**
+   * Visits a vertex during the cycle check.
+   *
+   * @param stack   DFS stack of vertices with their remaining outgoing edges.
+   * @param onStack set of the vertices on the current DFS path.
+   * @param visited set to keep track of visited vertices.
+   * @param vertex  vertex to visit.
+   */
+  private void enterCycleCheck(final Deque<Pair<V, Iterator<E>>> stack,
+                               final Set<V> onStack,
+                               final Set<V> visited,
+                               final V vertex) {
     visited.add(vertex);
-    stack.push(vertex);
+    onStack.add(vertex);
     // When we encounter a vertex that we've already gone through, then there is a cycle.
-    if (outgoingEdges.get(vertex).stream().map(Edge::getDst).anyMatch(stack::contains)) {
+    if (outgoingEdges.get(vertex).stream().map(Edge::getDst).anyMatch(onStack::contains)) {
       throw getException("DAG contains a cycle", vertex.toString());
-    } else {
-      outgoingEdges.get(vertex).stream().map(Edge::getDst)
-        .filter(v -> !visited.contains(v))
-        .forEachOrdered(v -> cycleCheck(stack, visited, v));
     }
-    stack.pop();
+    stack.push(Pair.of(vertex, outgoingEdges.get(vertex).iterator()));
   }
 
   /**
@@ -422,10 +447,10 @@ public final class DAGBuilder<V extends Vertex, E extends Edge<V>> implements Se
                               final boolean sink,
                               final boolean executionProperty) {
     if (cycle) {
-      final Stack<V> stack = new Stack<>();
+      final Set<V> onStack = new HashSet<>();
       final Set<V> visited = new HashSet<>();
       vertices.stream().filter(v -> incomingEdges.get(v).isEmpty()) // source operators
-        .forEachOrdered(v -> cycleCheck(stack, visited, v));
+        .forEachOrdered(v -> cycleCheck(onStack, visited, v));
     }
     if (source) {
       sourceCheck();
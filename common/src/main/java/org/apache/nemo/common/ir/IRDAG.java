@@ -577,6 +577,44 @@ public final class IRDAG implements DAGInterface<IRVertex, IREdge> {
     modifiedDAG = builder.build(); // update the DAG.
   }
 
+  /**
+   * Inserts a new vertex that analyzes the data of an edge in a sampled run, and triggers a dynamic optimization.
+   * <p>
+   * The statistics are taken from the output of the sampling vertex, which processes a subset of the data of the
+   * source of the edge before the source itself is executed (see {@link #insert(Set, Set)}).
+   * <p>
+   * Before: samplingVertex, src - edge - dst
+   * After: samplingVertex - oneToOneEdge - triggerVertex(sampling) -
+   * shuffleEdge - messageAggregatorVertex - controlEdge - dst
+   * (the "Before" relationships are unmodified)
+   *
+   * @param messageGeneratorVertex  to insert.
+   * @param messageAggregatorVertex to insert.
+   * @param triggerOutputEncoder    to use.
+   * @param triggerOutputDecoder    to use.
+   * @param samplingVertex          that samples the source of the edge.
+   * @param edgeToGetStatisticsOf   to examine in the sampled run.
+   * @param edgesToOptimize         to optimize.
+   */
+  public void insert(final MessageGeneratorVertex messageGeneratorVertex,
+                     final MessageAggregatorVertex messageAggregatorVertex,
+                     final EncoderProperty triggerOutputEncoder,
+                     final DecoderProperty triggerOutputDecoder,
+                     final SamplingVertex samplingVertex,
+                     final IREdge edgeToGetStatisticsOf,
+                     final Set<IREdge> edgesToOptimize) {
+    assertExistence(samplingVertex);
+    assertNonControlEdge(edgeToGetStatisticsOf);
+    if (!getIncomingEdgesOf(edgeToGetStatisticsOf.getDst()).contains(edgeToGetStatisticsOf)
+      || !samplingVertex.getOriginalVertexId().equals(edgeToGetStatisticsOf.getSrc().getId())) {
+      throw new IllegalArgumentException("Not sampling the source of " + edgeToGetStatisticsOf.getId());
+    }
+
+    // The sampled output stands in for the output of the source, only to be examined by the trigger vertex.
+    insert(messageGeneratorVertex, messageAggregatorVertex, triggerOutputEncoder, triggerOutputDecoder,
+      Collections.singleton(samplingVertex.getCloneOfOriginalEdge(edgeToGetStatisticsOf)), edgesToOptimize);
+  }
+
   /**
    * Inserts new vertex which calls for runtime pass.
    *
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.ir.edge.executionproperty;
+
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+
+/**
+ * The maximum number of bytes of encoded elements to accumulate before sending them as a single frame
+ * on a pipe (i.e., {@link DataStoreProperty.Value#PIPE}) edge.
+ * Elements are sent one by one, each in its own frame, if this property is absent or not positive.
+ *
+ * @see PipeBatchLingerProperty
+ */
+public final class PipeBatchSizeProperty extends EdgeExecutionProperty<Integer> {
+  /**
+   * Constructor.
+   *
+   * @param value value of the execution property.
+   */
+  private PipeBatchSizeProperty(final Integer value) {
+    super(value);
+  }
+
+  /**
+   * Static method exposing the constructor.
+   *
+   * @param value value of the new execution property.
+   * @return the newly created execution property.
+   */
+  public static PipeBatchSizeProperty of(final Integer value) {
+    return new PipeBatchSizeProperty(value);
+  }
+}
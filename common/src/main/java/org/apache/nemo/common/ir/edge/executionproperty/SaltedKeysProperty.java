@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.ir.edge.executionproperty;
+
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+
+/**
+ * This property decides which keys of a hash-partitioned edge are salted, i.e., spread over several partitions.
+ * <p>
+ * A source of salted keys writes two such edges, one for each route (see {@link SaltedKeysPropertyValue.Route}).
+ * The elements of a salted key are only written to the edge that carries the salted keys,
+ * round-robin to the salted partitions of the key.
+ * The elements of the other keys are only written to the edge that carries the other keys, hash-partitioned as usual.
+ * The edge of the salted keys carries the keyed accumulators of a partial aggregation, and its destination must only
+ * merge them, as the downstream has to merge the accumulators of a salted key again after another shuffle
+ * (see {@link org.apache.nemo.common.ir.vertex.transform.PartialAggregationTransform}).
+ * A value without salted keys writes every element to the edge of the other keys.
+ */
+public final class SaltedKeysProperty extends EdgeExecutionProperty<SaltedKeysPropertyValue> {
+  /**
+   * Constructor.
+   *
+   * @param value value of the execution property.
+   */
+  private SaltedKeysProperty(final SaltedKeysPropertyValue value) {
+    super(value);
+  }
+
+  /**
+   * Static method exposing the constructor.
+   *
+   * @param value value of the new execution property.
+   * @return the newly created execution property.
+   */
+  public static SaltedKeysProperty of(final SaltedKeysPropertyValue value) {
+    return new SaltedKeysProperty(value);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.ir.edge.executionproperty;
+
+import org.apache.nemo.common.Pair;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Value of {@link SaltedKeysProperty}.
+ * The salted keys are identified by their encoded bytes, written by the key encoder of the edge
+ * (see {@link KeyEncoderProperty}), and each of them is mapped to its number of salts.
+ * The route decides whether the edge carries only the salted keys, or only the other keys.
+ */
+public final class SaltedKeysPropertyValue implements Serializable {
+  /**
+   * The keys that an edge carries.
+   */
+  public enum Route {
+    SALTED_KEYS,
+    OTHER_KEYS
+  }
+
+  private final Route route;
+  private final ArrayList<Pair<byte[], Integer>> saltedKeys;
+
+  /**
+   * Constructor.
+   *
+   * @param route      the keys that the edge carries.
+   * @param saltedKeys the encoded salted keys and their numbers of salts.
+   */
+  private SaltedKeysPropertyValue(final Route route, final List<Pair<byte[], Integer>> saltedKeys) {
+    this.route = route;
+    this.saltedKeys = new ArrayList<>(saltedKeys);
+  }
+
+  /**
+   * @param route the keys that the edge carries.
+   * @return a value that salts no key.
+   */
+  public static SaltedKeysPropertyValue of(final Route route) {
+    return new SaltedKeysPropertyValue(route, Collections.emptyList());
+  }
+
+  /**
+   * @param saltedKeys the encoded salted keys and their numbers of salts.
+   * @return a value with the same route, that salts the given keys.
+   */
+  public SaltedKeysPropertyValue withSaltedKeys(final List<Pair<byte[], Integer>> saltedKeys) {
+    return new SaltedKeysPropertyValue(route, saltedKeys);
+  }
+
+  /**
+   * @return the keys that the edge carries.
+   */
+  public Route getRoute() {
+    return route;
+  }
+
+  /**
+   * @return the encoded salted keys and their numbers of salts.
+   */
+  public List<Pair<byte[], Integer>> getSaltedKeys() {
+    return Collections.unmodifiableList(saltedKeys);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SaltedKeysPropertyValue)) {
+      return false;
+    }
+    final SaltedKeysPropertyValue other = (SaltedKeysPropertyValue) obj;
+    if (route != other.route || saltedKeys.size() != other.saltedKeys.size()) {
+      return false;
+    }
+    for (int i = 0; i < saltedKeys.size(); i++) {
+      if (!Arrays.equals(saltedKeys.get(i).left(), other.saltedKeys.get(i).left())
+        || !saltedKeys.get(i).right().equals(other.saltedKeys.get(i).right())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = Objects.hashCode(route);
+    for (final Pair<byte[], Integer> saltedKey : saltedKeys) {
+      hash = 31 * hash + Arrays.hashCode(saltedKey.left()) * 17 + saltedKey.right();
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SaltedKeys(%s, %d keys)", route, saltedKeys.size());
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.ir.edge.executionproperty;
+
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+
+/**
+ * Whether to push the partitions of the outputs of the tasks on a {@link DataStoreProperty.Value#LOCAL_FILE_STORE}
+ * push shuffle edge to the executors of the destination tasks, where they are merged into a block per destination
+ * task, so that a destination task can read a single local block instead of a small block per source task.
+ * The outputs are not merged if this property is absent.
+ */
+public final class ShuffleMergeProperty extends EdgeExecutionProperty<Boolean> {
+  /**
+   * Constructor.
+   *
+   * @param value value of the execution property.
+   */
+  private ShuffleMergeProperty(final Boolean value) {
+    super(value);
+  }
+
+  /**
+   * Static method exposing the constructor.
+   *
+   * @param value value of the new execution property.
+   * @return the newly created execution property.
+   */
+  public static ShuffleMergeProperty of(final Boolean value) {
+    return new ShuffleMergeProperty(value);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.ir.edge.executionproperty;
+
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+
+/**
+ * The strategy of writing the output of a task to a block on a file-backed
+ * (i.e., {@link DataStoreProperty.Value#LOCAL_FILE_STORE} or {@link DataStoreProperty.Value#GLUSTER_FILE_STORE}) edge.
+ * Elements are written with the {@link Value#HASH} strategy if this property is absent.
+ */
+public final class ShuffleWriterProperty extends EdgeExecutionProperty<ShuffleWriterProperty.Value> {
+  /**
+   * Constructor.
+   *
+   * @param value value of the execution property.
+   */
+  private ShuffleWriterProperty(final Value value) {
+    super(value);
+  }
+
+  /**
+   * Static method exposing the constructor.
+   *
+   * @param value value of the new execution property.
+   * @return the newly created execution property.
+   */
+  public static ShuffleWriterProperty of(final Value value) {
+    return new ShuffleWriterProperty(value);
+  }
+
+  /**
+   * Possible options for the shuffle writing strategy.
+   */
+  public enum Value {
+    // Keeps a serialized buffer per partition until the block is committed.
+    HASH,
+    // Buffers the elements, and spills them sorted by partition into runs that are merged on commit.
+    SORT
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.ir.vertex.transform;
+
+/**
+ * A transform that partially aggregates the inputs of each key into an accumulator,
+ * which the downstream transform merges with the other accumulators of the key.
+ * The accumulators of a key can thus be merged in several steps, e.g., to salt a hot key,
+ * without changing the result of the aggregation.
+ *
+ * @param <I> input type.
+ * @param <O> output type, i.e., the keyed accumulators.
+ */
+public interface PartialAggregationTransform<I, O> extends Transform<I, O> {
+  /**
+   * @return a new transform that merges the keyed accumulators of each key into one, and emits them as keyed
+   * accumulators again, e.g., to merge the accumulators of a salted key before the downstream transform.
+   */
+  Transform<O, O> getAccumulatorMergeTransform();
+}
@@ -62,6 +62,17 @@ public interface Transform<I, O> extends Serializable {
    */
   void close();
 
+  /**
+   * Cancel the transform, when the task stops without closing it, e.g., because another transform
+   * of the task failed or the task input could not be read.
+   * It releases the resources of the transform, such as the threads that it has started.
+   * The runtime calls it on every exit path of the task for the transforms it has not closed,
+   * including the transform whose close failed.
+   */
+  default void cancel() {
+    // Nothing to release by default.
+  }
+
   /**
    * Context of the transform.
    */
@@ -85,5 +96,10 @@ public interface Transform<I, O> extends Serializable {
      * @return the serialized data.
      */
     Optional<String> getSerializedData();
+
+    /**
+     * @return the index of the task that runs the transform.
+     */
+    int getTaskIndex();
   }
 }
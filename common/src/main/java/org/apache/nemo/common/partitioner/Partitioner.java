@@ -20,14 +20,18 @@ package org.apache.nemo.common.partitioner;
 
 import org.apache.nemo.common.KeyExtractor;
 import org.apache.nemo.common.exception.UnsupportedPartitionerException;
+import org.apache.nemo.common.ir.edge.executionproperty.KeyDecoderProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.KeyExtractorProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.PartitionerProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysPropertyValue;
 import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
 import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
 import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
 import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
 
 import java.io.Serializable;
+import java.util.Optional;
 
 /**
  * This interface represents the way of partitioning output data from a source task.
@@ -42,7 +46,8 @@ public interface Partitioner<K extends Serializable> {
    * Divides the output data from a task into multiple blocks.
    *
    * @param element the output element from a source task.
-   * @return the key of the partition in the block to write the element.
+   * @return the key of the partition in the block to write the element,
+   * or null if the element is not written to the edge (see {@link SaltedHashPartitioner}).
    */
   K partition(Object element);
 
@@ -73,7 +78,14 @@ public interface Partitioner<K extends Serializable> {
           : numOfPartitions;
         final KeyExtractor keyExtractor = edgeProperties.get(KeyExtractorProperty.class)
           .orElseThrow(IllegalStateException::new);
-        partitioner = new HashPartitioner(actualNumOfPartitions, keyExtractor);
+        final Optional<SaltedKeysPropertyValue> saltedKeys = edgeProperties.get(SaltedKeysProperty.class);
+        if (saltedKeys.isPresent() && (saltedKeys.get().getRoute() == SaltedKeysPropertyValue.Route.SALTED_KEYS
+          || !saltedKeys.get().getSaltedKeys().isEmpty())) {
+          partitioner = new SaltedHashPartitioner(actualNumOfPartitions, keyExtractor, saltedKeys.get(),
+            edgeProperties.get(KeyDecoderProperty.class).orElseThrow(IllegalStateException::new));
+        } else {
+          partitioner = new HashPartitioner(actualNumOfPartitions, keyExtractor);
+        }
         break;
       default:
         throw new UnsupportedPartitionerException(
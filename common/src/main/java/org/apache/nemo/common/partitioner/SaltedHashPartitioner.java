@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.partitioner;
+
+import org.apache.nemo.common.KeyExtractor;
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysPropertyValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An implementation of {@link Partitioner} for an edge with a {@link SaltedKeysProperty}.
+ * On the edge of the salted keys, the elements of a salted key are written round-robin to the salted partitions of
+ * the key (see {@link #getSaltedPartition(int, int, int, int)}), starting from a random salt in each task.
+ * On the edge of the other keys, the elements of the other keys are hashed as {@link HashPartitioner} does.
+ * The elements that the edge does not carry are not written, i.e., they are not assigned any partition.
+ */
+public final class SaltedHashPartitioner implements Partitioner<Integer> {
+  private final int numOfPartitions;
+  private final KeyExtractor keyExtractor;
+  private final boolean saltedKeysOnly;
+  private final Map<Object, Integer> numOfSaltsOfKeys;
+  private final Map<Object, Integer> nextSalts;
+
+  /**
+   * Constructor.
+   *
+   * @param numOfPartitions   the number of partitions.
+   * @param keyExtractor      the key extractor that extracts keys from elements.
+   * @param saltedKeys        the salted keys, see {@link SaltedKeysProperty}.
+   * @param keyDecoderFactory the decoder of the salted keys.
+   */
+  public SaltedHashPartitioner(final int numOfPartitions,
+                               final KeyExtractor keyExtractor,
+                               final SaltedKeysPropertyValue saltedKeys,
+                               final DecoderFactory keyDecoderFactory) {
+    this.numOfPartitions = numOfPartitions;
+    this.keyExtractor = keyExtractor;
+    this.saltedKeysOnly = SaltedKeysPropertyValue.Route.SALTED_KEYS.equals(saltedKeys.getRoute());
+    // The keys are decoded once, and then looked up by their hash codes and equality.
+    this.numOfSaltsOfKeys = new HashMap<>();
+    for (final Pair<byte[], Integer> saltedKey : saltedKeys.getSaltedKeys()) {
+      try {
+        numOfSaltsOfKeys.put(
+          keyDecoderFactory.create(new ByteArrayInputStream(saltedKey.left())).decode(), saltedKey.right());
+      } catch (final IOException e) {
+        throw new IllegalStateException("Failed to decode a salted key", e);
+      }
+    }
+    this.nextSalts = new HashMap<>();
+  }
+
+  /**
+   * @param element the output element from a source task.
+   * @return the key of the partition to write the element, or null if the edge does not carry the key of the element.
+   */
+  @Override
+  public Integer partition(final Object element) {
+    final Object key = keyExtractor.extractKey(element);
+    final int partition = Math.abs(key.hashCode() % numOfPartitions);
+    final Integer numOfSalts = numOfSaltsOfKeys.get(key);
+    if (numOfSalts == null) {
+      return saltedKeysOnly ? null : partition;
+    } else if (!saltedKeysOnly) {
+      return null;
+    }
+    final int salt = nextSalts.compute(key, (k, previousSalt) -> previousSalt == null
+      ? ThreadLocalRandom.current().nextInt(numOfSalts)
+      : Math.floorMod(previousSalt + 1, numOfSalts));
+    return getSaltedPartition(partition, salt, numOfSalts, numOfPartitions);
+  }
+
+  /**
+   * The salted partitions of a key are spread evenly over the partitions, starting from the hash partition of the key.
+   *
+   * @param partition       the hash partition of the key.
+   * @param salt            the salt, between 0 (inclusive) and the number of salts (exclusive).
+   * @param numOfSalts      the number of salts of the key, at most the number of partitions.
+   * @param numOfPartitions the number of partitions.
+   * @return the partition for the salt.
+   */
+  public static int getSaltedPartition(final int partition,
+                                       final int salt,
+                                       final int numOfSalts,
+                                       final int numOfPartitions) {
+    return (partition + salt * (numOfPartitions / numOfSalts)) % numOfPartitions;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test {@link ByteBufferInputStream}.
+ */
+public class ByteBufferInputStreamTest {
+
+  @Test
+  public void testBulkReadAcrossBuffers() throws IOException {
+    final ByteBuffer direct = ByteBuffer.allocateDirect(2);
+    direct.put(new byte[]{4, 5});
+    direct.flip();
+    final ByteBufferInputStream in = new ByteBufferInputStream(Arrays.asList(
+      ByteBuffer.wrap(new byte[]{1, 2, 3}),
+      ByteBuffer.allocate(0),
+      direct.asReadOnlyBuffer()));
+
+    final byte[] bytes = new byte[4];
+    assertEquals(4, in.read(bytes, 0, 4));
+    assertArrayEquals(new byte[]{1, 2, 3, 4}, bytes);
+    assertEquals(1, in.available());
+    assertEquals(1, in.read(bytes, 0, 4));
+    assertEquals(5, bytes[0]);
+    assertEquals(-1, in.read(bytes, 0, 4));
+  }
+
+  @Test
+  public void testSkip() throws IOException {
+    final ByteBufferInputStream in = new ByteBufferInputStream(Arrays.asList(
+      ByteBuffer.wrap(new byte[]{1, 2}),
+      ByteBuffer.wrap(new byte[]{3, 4})));
+
+    assertEquals(3, in.skip(3));
+    assertEquals(4, in.read());
+    assertEquals(0, in.skip(1));
+    assertEquals(0, in.available());
+  }
+}
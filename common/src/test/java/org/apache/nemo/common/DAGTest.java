@@ -24,6 +24,8 @@ import org.apache.nemo.common.dag.Edge;
 import org.apache.nemo.common.dag.Vertex;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
@@ -36,6 +38,8 @@ import static org.junit.Assert.assertTrue;
  * and the basic methods to retrieve components of the DAG using {@link DAG}.
  */
 public final class DAGTest {
+  private static final Logger LOG = LoggerFactory.getLogger(DAGTest.class.getName());
+  private static final int NUM_LARGE_DAG_VERTICES = 10000;
   private DAGBuilder<IntegerVertex, Edge<IntegerVertex>> dagBuilder;
 
   @Before
@@ -144,6 +148,69 @@ public final class DAGTest {
     assertTrue(descendants.contains(new IntegerVertex(3)));
   }
 
+  @Test
+  public void testDiamondAncestors() {
+    dagBuilder.connectVertices(new Edge<>("1", new IntegerVertex(1), new IntegerVertex(2)));
+    dagBuilder.connectVertices(new Edge<>("2", new IntegerVertex(1), new IntegerVertex(3)));
+    dagBuilder.connectVertices(new Edge<>("3", new IntegerVertex(2), new IntegerVertex(4)));
+    dagBuilder.connectVertices(new Edge<>("4", new IntegerVertex(3), new IntegerVertex(4)));
+    dagBuilder.connectVertices(new Edge<>("5", new IntegerVertex(4), new IntegerVertex(5)));
+
+    final DAG<IntegerVertex, Edge<IntegerVertex>> dag = dagBuilder.build();
+
+    // Vertex 1 is reachable from vertex 4 through two paths, but is an ancestor only once.
+    final List<IntegerVertex> ancestors = dag.getAncestors("5");
+    assertEquals(4, ancestors.size());
+    assertEquals(4, ancestors.stream().distinct().count());
+
+    assertEquals(new IntegerVertex(3), dag.getEdgeById("4").getSrc());
+    assertEquals(5, dag.getEdges().size());
+  }
+
+  /**
+   * Builds a synthetic DAG of {@link #NUM_LARGE_DAG_VERTICES} vertices, which is a chain with skip edges,
+   * and checks that the lookups and traversals neither overflow the call stack nor take super-linear time.
+   */
+  @Test(timeout = 10000)
+  public void testLargeDAG() {
+    final DAGBuilder<IntegerVertex, Edge<IntegerVertex>> largeDagBuilder = new DAGBuilder<>();
+    for (int i = 1; i <= NUM_LARGE_DAG_VERTICES; i++) {
+      largeDagBuilder.addVertex(new IntegerVertex(i));
+    }
+    int edgeId = 0;
+    for (int i = 1; i < NUM_LARGE_DAG_VERTICES; i++) {
+      largeDagBuilder.connectVertices(new Edge<>(String.valueOf(edgeId++),
+        new IntegerVertex(i), new IntegerVertex(i + 1)));
+      if (i + 2 <= NUM_LARGE_DAG_VERTICES) {
+        largeDagBuilder.connectVertices(new Edge<>(String.valueOf(edgeId++),
+          new IntegerVertex(i), new IntegerVertex(i + 2)));
+      }
+    }
+
+    final long startNanos = System.nanoTime();
+    final DAG<IntegerVertex, Edge<IntegerVertex>> dag = largeDagBuilder.build();
+
+    final List<IntegerVertex> topologicalOrder = dag.getTopologicalSort();
+    assertEquals(NUM_LARGE_DAG_VERTICES, topologicalOrder.size());
+    for (int i = 0; i < NUM_LARGE_DAG_VERTICES; i++) {
+      assertEquals(i + 1, topologicalOrder.get(i).getValue());
+    }
+
+    for (int i = 1; i <= NUM_LARGE_DAG_VERTICES; i++) {
+      assertEquals(i, dag.getVertexById(String.valueOf(i)).getValue());
+    }
+    for (int i = 0; i < edgeId; i++) {
+      assertEquals(String.valueOf(i), dag.getEdgeById(String.valueOf(i)).getId());
+    }
+    assertEquals(edgeId, dag.getEdges().size());
+
+    assertEquals(NUM_LARGE_DAG_VERTICES - 1, dag.getAncestors(String.valueOf(NUM_LARGE_DAG_VERTICES)).size());
+    assertEquals(NUM_LARGE_DAG_VERTICES - 1, dag.getDescendants("1").size());
+    assertTrue(dag.pathExistsBetween(new IntegerVertex(1), new IntegerVertex(NUM_LARGE_DAG_VERTICES)));
+    LOG.info("Built and traversed a DAG of {} vertices and {} edges in {} ms",
+      NUM_LARGE_DAG_VERTICES, edgeId, (System.nanoTime() - startNanos) / 1000000);
+  }
+
   final class IntegerVertex extends Vertex {
     private final int value;
 
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common;
+
+import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.common.coder.KeyFrequencySketchEncoderFactory;
+import org.apache.nemo.common.partitioner.HashPartitioner;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link KeyFrequencySketch}.
+ */
+public class KeyFrequencySketchTest {
+  private static final Logger LOG = LoggerFactory.getLogger(KeyFrequencySketchTest.class.getName());
+  private static final int NUM_PARTITIONS = 10;
+  private static final int NUM_KEYS = 100000;
+  private static final String HOT_KEY = "hot";
+
+  @Test
+  public void testPartitionSizesAndHeavyHitters() {
+    final KeyFrequencySketch sketch = KeyFrequencySketch.of(4, 1000, NUM_PARTITIONS, 20);
+    final long[] expectedPartitionSizes = add(sketch, 0, NUM_KEYS);
+
+    // The partition sizes are exact, although the sketch is much smaller than the number of distinct keys.
+    assertArrayEquals(expectedPartitionSizes, sketch.getPartitionSizes());
+    assertEquals(NUM_KEYS + NUM_KEYS / 10, sketch.getTotalCount());
+
+    // The hot key is found, and its count is never underestimated.
+    final Map<Object, Long> heavyHitters = sketch.getHeavyHitters();
+    assertEquals(HOT_KEY, heavyHitters.keySet().iterator().next());
+    assertTrue(heavyHitters.get(HOT_KEY) >= NUM_KEYS / 10);
+  }
+
+  @Test
+  public void testMerge() {
+    final KeyFrequencySketch left = KeyFrequencySketch.of(4, 1000, NUM_PARTITIONS, 20);
+    final KeyFrequencySketch right = KeyFrequencySketch.of(4, 1000, NUM_PARTITIONS, 20);
+    final long[] expectedPartitionSizes = add(left, 0, NUM_KEYS / 2);
+    final long[] rightPartitionSizes = add(right, NUM_KEYS / 2, NUM_KEYS);
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      expectedPartitionSizes[i] += rightPartitionSizes[i];
+    }
+
+    left.merge(right);
+    assertArrayEquals(expectedPartitionSizes, left.getPartitionSizes());
+    assertEquals(HOT_KEY, left.getHeavyHitters().keySet().iterator().next());
+    assertTrue(left.estimateCount(HOT_KEY) >= NUM_KEYS / 10);
+  }
+
+  /**
+   * Measures the size of the messages and the time to merge them, for 10M distinct keys over 10 generator tasks.
+   * The dimensions are the ones used by the skew handling passes.
+   * A map of exact counts would have an entry per distinct key, while the size of a sketch does not grow with them.
+   *
+   * @throws IOException on encoding.
+   */
+  @Test(timeout = 120000)
+  public void testMessageSizeAndMergeTime() throws IOException {
+    final int numOfTasks = 10;
+    final int numOfKeysPerTask = 1000000;
+    final int depth = 4;
+    final int minWidth = 2048;
+    final int numOfPartitions = 64;
+    final int maxHeavyHitters = 100;
+    final Integer hotKey = -1;
+    final EncoderFactory keyEncoderFactory = IntEncoderFactory.of();
+    final EncoderFactory sketchEncoderFactory = KeyFrequencySketchEncoderFactory.of(keyEncoderFactory);
+    final HashPartitioner partitioner = new HashPartitioner(numOfPartitions, element -> element);
+    final long[] expectedPartitionSizes = new long[numOfPartitions];
+
+    final long buildStartNano = System.nanoTime();
+    final List<KeyFrequencySketch> sketches = new ArrayList<>(numOfTasks);
+    for (int task = 0; task < numOfTasks; task++) {
+      final KeyFrequencySketch sketch = KeyFrequencySketch.of(depth, minWidth, numOfPartitions, maxHeavyHitters);
+      for (int key = task * numOfKeysPerTask; key < (task + 1) * numOfKeysPerTask; key++) {
+        sketch.add(key);
+        expectedPartitionSizes[partitioner.partition(key)]++;
+        if (key % 10 == 0) {
+          sketch.add(hotKey);
+          expectedPartitionSizes[partitioner.partition(hotKey)]++;
+        }
+      }
+      sketches.add(sketch);
+    }
+    final long buildTimeMs = (System.nanoTime() - buildStartNano) / 1000000;
+
+    // The size of a message is bounded by the dimensions, not by the 1M distinct keys of each task.
+    final int width = (minWidth + numOfPartitions - 1) / numOfPartitions * numOfPartitions;
+    final long maxMessageBytes = 4 * Integer.BYTES + Long.BYTES + (long) depth * width * Long.BYTES
+      + Integer.BYTES + (long) maxHeavyHitters * (Integer.BYTES + Long.BYTES);
+    final long[] messageBytes = new long[numOfTasks];
+    for (int task = 0; task < numOfTasks; task++) {
+      messageBytes[task] = encodedSize(sketchEncoderFactory, sketches.get(task));
+      assertTrue(messageBytes[task] <= maxMessageBytes);
+    }
+
+    final long mergeStartNano = System.nanoTime();
+    final KeyFrequencySketch merged = sketches.get(0);
+    for (int task = 1; task < numOfTasks; task++) {
+      merged.merge(sketches.get(task));
+    }
+    final long mergeTimeMs = (System.nanoTime() - mergeStartNano) / 1000000;
+    final long mergedMessageBytes = encodedSize(sketchEncoderFactory, merged);
+    LOG.info("{} distinct keys: build {} ms, message {} bytes per task (max {}), merge {} ms, "
+        + "merged message {} bytes",
+      numOfTasks * numOfKeysPerTask, buildTimeMs, Arrays.stream(messageBytes).max().getAsLong(), maxMessageBytes,
+      mergeTimeMs, mergedMessageBytes);
+
+    assertTrue(mergedMessageBytes <= maxMessageBytes);
+    assertArrayEquals(expectedPartitionSizes, merged.getPartitionSizes());
+    assertEquals(hotKey, merged.getHeavyHitters().keySet().iterator().next());
+    assertTrue(merged.estimateCount(hotKey) >= numOfTasks * numOfKeysPerTask / 10);
+  }
+
+  private static long encodedSize(final EncoderFactory encoderFactory,
+                                  final KeyFrequencySketch sketch) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    encoderFactory.create(outputStream).encode(sketch);
+    return outputStream.size();
+  }
+
+  /**
+   * Adds distinct keys in the given range, and a hot key for every tenth of them.
+   *
+   * @param sketch to add the keys to.
+   * @param from   the first key (inclusive).
+   * @param to     the last key (exclusive).
+   * @return the expected size of each partition.
+   */
+  private long[] add(final KeyFrequencySketch sketch, final int from, final int to) {
+    final HashPartitioner partitioner = new HashPartitioner(NUM_PARTITIONS, element -> element);
+    final long[] partitionSizes = new long[NUM_PARTITIONS];
+    for (int i = from; i < to; i++) {
+      final String key = "key" + i;
+      sketch.add(key);
+      partitionSizes[partitioner.partition(key)]++;
+      if (i % 10 == 0) {
+        sketch.add(HOT_KEY);
+        partitionSizes[partitioner.partition(HOT_KEY)]++;
+      }
+    }
+    return partitionSizes;
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.common.coder;
 
+import org.apache.nemo.common.KeyFrequencySketch;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -45,6 +46,23 @@ public class CoderFactoryTest {
     Assert.assertArrayEquals(elementToTest, decodedBytes);
   }
 
+  @Test
+  public void testKeyFrequencySketchCoderFactories() throws Exception {
+    final EncoderFactory keyEncoderFactory = IntEncoderFactory.of();
+    final DecoderFactory keyDecoderFactory = IntDecoderFactory.of();
+    final KeyFrequencySketchEncoderFactory encoderFactory = KeyFrequencySketchEncoderFactory.of(keyEncoderFactory);
+    final KeyFrequencySketchDecoderFactory decoderFactory = KeyFrequencySketchDecoderFactory.of(keyDecoderFactory);
+
+    final KeyFrequencySketch elementToTest = KeyFrequencySketch.of(3, 64, 8, 4);
+    for (int i = 0; i < 1000; i++) {
+      elementToTest.add(i % 10 == 0 ? 7 : i);
+    }
+    final KeyFrequencySketch decodedSketch = encodeAndDecodeElement(encoderFactory, decoderFactory, elementToTest);
+    Assert.assertEquals(elementToTest.getTotalCount(), decodedSketch.getTotalCount());
+    Assert.assertArrayEquals(elementToTest.getPartitionSizes(), decodedSketch.getPartitionSizes());
+    Assert.assertEquals(elementToTest.getHeavyHitters(), decodedSketch.getHeavyHitters());
+  }
+
   /**
    * Encode and decode an element through the given factories and return the result elements.
    *
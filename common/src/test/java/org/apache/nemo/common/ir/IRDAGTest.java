@@ -46,7 +46,10 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link IRDAG}.
@@ -309,6 +312,37 @@ public class IRDAGTest {
     mustPass();
   }
 
+  @Test
+  public void testTriggerVertexOnSampledRun() {
+    final SamplingVertex sv = new SamplingVertex(firstOperatorVertex, 0.1f);
+    irdag.insert(Sets.newHashSet(sv), Sets.newHashSet(firstOperatorVertex));
+    mustPass();
+
+    irdag.insert(
+      new MessageGeneratorVertex<>((l, r) -> null),
+      new MessageAggregatorVertex<>(() -> new Object(), (l, r) -> null),
+      EncoderProperty.of(EncoderFactory.DUMMY_ENCODER_FACTORY),
+      DecoderProperty.of(DecoderFactory.DUMMY_DECODER_FACTORY),
+      sv,
+      shuffleEdge,
+      Sets.newHashSet(shuffleEdge));
+    mustPass();
+    assertTrue(shuffleEdge.getPropertyValue(MessageIdEdgeProperty.class).isPresent());
+    // a control edge to the original vertex, and the edge to the trigger vertex that reads the sampled output
+    assertEquals(2, irdag.getOutgoingEdgesOf(sv).size());
+    assertEquals(1, irdag.getOutgoingEdgesOf(firstOperatorVertex).size()); // the original shuffle edge only
+
+    // The statistics of an edge can only be taken from a sampled run of its source.
+    assertThrows(IllegalArgumentException.class, () -> irdag.insert(
+      new MessageGeneratorVertex<>((l, r) -> null),
+      new MessageAggregatorVertex<>(() -> new Object(), (l, r) -> null),
+      EncoderProperty.of(EncoderFactory.DUMMY_ENCODER_FACTORY),
+      DecoderProperty.of(DecoderFactory.DUMMY_DECODER_FACTORY),
+      sv,
+      oneToOneEdge,
+      Sets.newHashSet(shuffleEdge)));
+  }
+
   @Test
   public void testSplitterVertex() {
     final TaskSizeSplitterVertex sp = new TaskSizeSplitterVertex(
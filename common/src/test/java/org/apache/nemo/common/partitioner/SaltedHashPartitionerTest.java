@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.common.partitioner;
+
+import org.apache.nemo.common.KeyExtractor;
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysPropertyValue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test {@link SaltedHashPartitioner}.
+ */
+public class SaltedHashPartitionerTest {
+  private static final int NUM_PARTITIONS = 10;
+  private static final int NUM_SALTS = 3;
+  private static final int HOT_KEY = 3;
+  private static final KeyExtractor AS_IS_EXTRACTOR = element -> element;
+
+  /**
+   * Test whether the salted key is written round-robin to its salted partitions,
+   * and the edge of the salted keys does not carry the other keys.
+   */
+  @Test
+  public void testSaltedPartitions() throws IOException {
+    final SaltedHashPartitioner saltedPartitioner = new SaltedHashPartitioner(NUM_PARTITIONS, AS_IS_EXTRACTOR,
+      getValue(SaltedKeysPropertyValue.Route.SALTED_KEYS), IntDecoderFactory.of());
+
+    // The partition 3 holds the keys 3 and 13, but only the key 3 is salted.
+    for (int key = 0; key < 2 * NUM_PARTITIONS; key++) {
+      if (key != HOT_KEY) {
+        assertNull(saltedPartitioner.partition(key));
+      }
+    }
+
+    final Set<Integer> partitionsOfHotKey = new HashSet<>();
+    for (int i = 0; i < NUM_SALTS; i++) {
+      partitionsOfHotKey.add(saltedPartitioner.partition(HOT_KEY));
+    }
+    final Set<Integer> saltedPartitions = new HashSet<>();
+    for (int salt = 0; salt < NUM_SALTS; salt++) {
+      saltedPartitions.add(
+        SaltedHashPartitioner.getSaltedPartition(HOT_KEY % NUM_PARTITIONS, salt, NUM_SALTS, NUM_PARTITIONS));
+    }
+    assertEquals(NUM_SALTS, saltedPartitions.size());
+    assertEquals(saltedPartitions, partitionsOfHotKey);
+  }
+
+  /**
+   * Test whether the other keys are hash-partitioned as usual, and the edge of the other keys does not carry
+   * the salted key.
+   */
+  @Test
+  public void testOtherPartitions() throws IOException {
+    final SaltedHashPartitioner otherPartitioner = new SaltedHashPartitioner(NUM_PARTITIONS, AS_IS_EXTRACTOR,
+      getValue(SaltedKeysPropertyValue.Route.OTHER_KEYS), IntDecoderFactory.of());
+    final HashPartitioner hashPartitioner = new HashPartitioner(NUM_PARTITIONS, AS_IS_EXTRACTOR);
+
+    for (int key = 0; key < 2 * NUM_PARTITIONS; key++) {
+      if (key == HOT_KEY) {
+        assertNull(otherPartitioner.partition(key));
+      } else {
+        assertEquals(hashPartitioner.partition(key), otherPartitioner.partition(key));
+      }
+    }
+  }
+
+  /**
+   * @param route of the keys.
+   * @return the value that salts the hot key, encoded as the key encoder of an edge would.
+   * @throws IOException on encoding failure.
+   */
+  private SaltedKeysPropertyValue getValue(final SaltedKeysPropertyValue.Route route) throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    IntEncoderFactory.of().create(outputStream).encode(HOT_KEY);
+    final List<Pair<byte[], Integer>> saltedKeys =
+      Collections.singletonList(Pair.of(outputStream.toByteArray(), NUM_SALTS));
+    return SaltedKeysPropertyValue.of(route).withSaltedKeys(saltedKeys);
+  }
+}
@@ -18,8 +18,12 @@
  */
 package org.apache.nemo.compiler.backend.nemo;
 
+import org.apache.nemo.common.KeyFrequencySketch;
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.coder.KeyFrequencySketchDecoderFactory;
 import org.apache.nemo.common.ir.IRDAG;
 import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.KeyDecoderProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.MessageIdEdgeProperty;
 import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
 import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
@@ -38,6 +42,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
@@ -63,6 +69,7 @@ public final class NemoPlanRewriter implements PlanRewriter {
   private final NemoOptimizer nemoOptimizer;
   private final NemoBackend nemoBackend;
   private final Map<Integer, Map<Object, Long>> messageIdToAggregatedData;
+  private final Map<Integer, KeyFrequencySketch> messageIdToSketch;
   private CountDownLatch readyToRewriteLatch;
   private final InjectionFuture<SimulationScheduler> simulationSchedulerInjectionFuture;
   private final PhysicalPlanGenerator physicalPlanGenerator;
@@ -80,6 +87,7 @@ public final class NemoPlanRewriter implements PlanRewriter {
     this.simulationSchedulerInjectionFuture = simulationSchedulerInjectionFuture;
     this.physicalPlanGenerator = physicalPlanGenerator;
     this.messageIdToAggregatedData = new HashMap<>();
+    this.messageIdToSketch = new HashMap<>();
     this.readyToRewriteLatch = new CountDownLatch(1);
   }
 
@@ -101,7 +109,10 @@ public final class NemoPlanRewriter implements PlanRewriter {
     if (currentIRDAG == null) {
       throw new IllegalStateException();
     }
-    final Map<Object, Long> aggregatedData = messageIdToAggregatedData.remove(messageId); // remove for GC
+    // remove for GC
+    final Object aggregatedData = messageIdToSketch.containsKey(messageId)
+      ? messageIdToSketch.remove(messageId)
+      : messageIdToAggregatedData.remove(messageId);
     if (aggregatedData == null) {
       throw new IllegalStateException();
     }
@@ -120,7 +131,7 @@ public final class NemoPlanRewriter implements PlanRewriter {
     }
 
     // Optimize using the Message
-    final Message message = new Message(messageId, examiningEdges, aggregatedData);
+    final Message<Object> message = new Message<>(messageId, examiningEdges, aggregatedData);
     final IRDAG newIRDAG = nemoOptimizer.optimizeAtRunTime(currentIRDAG, message);
     this.setCurrentIRDAG(newIRDAG);
 
@@ -149,15 +160,24 @@ public final class NemoPlanRewriter implements PlanRewriter {
    * DATA_NOT_AUGMENTED indicates that the information need in rewrite is not stored in RunTimePassMessageEntry,
    * and we should explicitly generate it using Prophet class. In this case, the data will contain only one entry with
    * key as DATA_NOT_AUGMENTED.
+   * A message that carries a {@link KeyFrequencySketch} is merged into the sketch of the rewrite instead.
    *
    * @param messageId     of the rewrite.
    * @param targetEdges   edges to change during rewrite.
-   * @param data          to accumulate.
+   * @param data          to accumulate, a {@link ControlMessage.RunTimePassMessageMsg}.
    */
   @Override
   public void accumulate(final int messageId, final Set<StageEdge> targetEdges, final Object data) {
+    final ControlMessage.RunTimePassMessageMsg runTimePassMessage = (ControlMessage.RunTimePassMessageMsg) data;
+    if (runTimePassMessage.hasSketch()) {
+      final KeyFrequencySketch sketch = decodeSketch(runTimePassMessage, targetEdges);
+      messageIdToSketch.merge(messageId, sketch, KeyFrequencySketch::merge);
+      this.readyToRewriteLatch.countDown();
+      return;
+    }
+
     final Prophet prophet;
-    final List<ControlMessage.RunTimePassMessageEntry> parsedData = (List<ControlMessage.RunTimePassMessageEntry>) data;
+    final List<ControlMessage.RunTimePassMessageEntry> parsedData = runTimePassMessage.getEntryList();
     if (!parsedData.isEmpty() && parsedData.get(0).getKey().equals(DATA_NOT_AUGMENTED)) {
       prophet = new ParallelismProphet(currentIRDAG, currentPhysicalPlan, simulationSchedulerInjectionFuture.get(),
         physicalPlanGenerator, targetEdges);
@@ -169,4 +189,24 @@ public final class NemoPlanRewriter implements PlanRewriter {
     this.messageIdToAggregatedData.get(messageId).putAll(aggregatedData);
     this.readyToRewriteLatch.countDown();
   }
+
+  /**
+   * @param runTimePassMessage that carries a sketch.
+   * @param targetEdges        edges to change during rewrite, of which the keys are counted by the sketch.
+   * @return the sketch.
+   */
+  private KeyFrequencySketch decodeSketch(final ControlMessage.RunTimePassMessageMsg runTimePassMessage,
+                                          final Set<StageEdge> targetEdges) {
+    final DecoderFactory<Object> keyDecoderFactory = targetEdges.iterator().next()
+      .getPropertyValue(KeyDecoderProperty.class)
+      .orElseThrow(() -> new IllegalStateException("No key decoder for the sketch of "
+        + runTimePassMessage.getTaskId()));
+    try {
+      return KeyFrequencySketchDecoderFactory.of(keyDecoderFactory)
+        .create(new ByteArrayInputStream(runTimePassMessage.getSketch().toByteArray()))
+        .decode();
+    } catch (final IOException e) {
+      throw new IllegalStateException("Failed to decode the sketch of " + runTimePassMessage.getTaskId(), e);
+    }
+  }
 }
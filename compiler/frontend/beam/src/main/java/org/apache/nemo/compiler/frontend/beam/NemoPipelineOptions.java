@@ -49,4 +49,17 @@ public interface NemoPipelineOptions extends PipelineOptions {
    * @param time the maximum time to wait before finalising a bundle (in milliseconds).
    */
   void setMaxBundleTimeMills(Long time);
+
+  /**
+   * @return the estimated size of the data a global-window GroupByKey holds in memory before spilling (in MB).
+   */
+  @Description("The estimated size of the data a global-window GroupByKey holds in memory before spilling to "
+    + "local disk (in MB). 0 uses a fraction of the executor heap.")
+  @Default.Long(0)
+  Long getGroupByKeyMemoryBudgetMb();
+
+  /**
+   * @param budget the estimated size of the data a global-window GroupByKey holds in memory before spilling (in MB).
+   */
+  void setGroupByKeyMemoryBudgetMb(Long budget);
 }
@@ -561,7 +561,8 @@ final class PipelineTranslator {
 
     if (isGlobalWindow(beamNode, ctx.getPipeline())) {
       // GroupByKey Transform when using a global windowing strategy.
-      return new GroupByKeyTransform();
+      final long memoryBudgetMb = ctx.getPipelineOptions().as(NemoPipelineOptions.class).getGroupByKeyMemoryBudgetMb();
+      return new GroupByKeyTransform((KvCoder) mainInput.getCoder(), memoryBudgetMb * 1024 * 1024);
     } else {
       // GroupByKey Transform when using a non-global windowing strategy.
       return new GBKTransform<>(
@@ -25,6 +25,7 @@ import org.apache.beam.sdk.util.WindowedValue;
 import org.apache.beam.sdk.values.KV;
 import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.vertex.transform.NoWatermarkEmitTransform;
+import org.apache.nemo.common.ir.vertex.transform.PartialAggregationTransform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,13 +44,15 @@ import java.util.Map;
  * @param <A> Accum type.
  */
 public final class CombineFnPartialTransform<K, I, A>
-  extends NoWatermarkEmitTransform<WindowedValue<KV<K, I>>, WindowedValue<KV<K, A>>> {
+  extends NoWatermarkEmitTransform<WindowedValue<KV<K, I>>, WindowedValue<KV<K, A>>>
+  implements PartialAggregationTransform<WindowedValue<KV<K, I>>, WindowedValue<KV<K, A>>> {
   private static final Logger LOG = LoggerFactory.getLogger(CombineFnPartialTransform.class.getName());
   private final Map<K, A> keyToAcuumulator;
   private OutputCollector<WindowedValue<KV<K, A>>> outputCollector;
 
   // null arguments when calling methods of this variable, since we don't support sideinputs yet.
   private final GlobalCombineFnRunner<I, A, ?> combineFnRunner;
+  private final CombineFnBase.GlobalCombineFn<I, A, ?> combineFn;
 
   /**
    * Constructor.
@@ -58,6 +61,7 @@ public final class CombineFnPartialTransform<K, I, A>
    */
   public CombineFnPartialTransform(final CombineFnBase.GlobalCombineFn<I, A, ?> combineFn) {
     this.combineFnRunner = GlobalCombineFnRunners.create(combineFn);
+    this.combineFn = combineFn;
     this.keyToAcuumulator = new HashMap<>();
   }
 
@@ -79,7 +83,7 @@ public final class CombineFnPartialTransform<K, I, A>
     final A accumulatorForThisElement = keyToAcuumulator.get(key);
 
     // Update the accumulator
-    keyToAcuumulator.putIfAbsent(
+    keyToAcuumulator.put(
       key,
       combineFnRunner.addInput(accumulatorForThisElement, val, null, null, null));
   }
@@ -97,6 +101,11 @@ public final class CombineFnPartialTransform<K, I, A>
     }
   }
 
+  @Override
+  public CombineFnMergeTransform<K, A> getAccumulatorMergeTransform() {
+    return new CombineFnMergeTransform<>(combineFn);
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder();
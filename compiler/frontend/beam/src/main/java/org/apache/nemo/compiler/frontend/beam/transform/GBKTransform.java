@@ -51,7 +51,8 @@ public final class GBKTransform<K, InputT, OutputT>
   private final SystemReduceFn reduceFn;
   private transient InMemoryTimerInternalsFactory<K> inMemoryTimerInternalsFactory;
   private transient InMemoryStateInternalsFactory<K> inMemoryStateInternalsFactory;
-  private final Map<K, Watermark> keyOutputWatermarkMap = new HashMap<>();
+  // Watermark holds of the keys, ordered by their timestamps.
+  private final KeyTimestampIndex<K> keyOutputWatermarkHolds = new KeyTimestampIndex<>();
   private Watermark prevOutputWatermark = new Watermark(Long.MIN_VALUE);
   private Watermark inputWatermark = new Watermark(Long.MIN_VALUE);
   private boolean dataReceived = false;
@@ -134,6 +135,7 @@ public final class GBKTransform<K, InputT, OutputT>
         KeyedWorkItems.elementsWorkItem(kv.getKey(),
           Collections.singletonList(element.withValue(kv.getValue())));
       getDoFnRunner().processElement(WindowedValue.valueInGlobalWindow(keyedWorkItem));
+      inMemoryTimerInternalsFactory.updateTimerIndex(kv.getKey());
       checkAndFinishBundle();
     } catch (final Exception e) {
       e.printStackTrace();
@@ -182,6 +184,7 @@ public final class GBKTransform<K, InputT, OutputT>
 
   /**
    * Trigger eligible timers. When triggering, it emits the output to downstream operators.
+   * Only the keys whose next timers are eligible are visited, rather than all keys.
    * @param processingTime processing time
    * @param synchronizedTime synchronized time
    * @param watermark watermark
@@ -189,25 +192,20 @@ public final class GBKTransform<K, InputT, OutputT>
   private void triggerTimers(final Instant processingTime,
                              final Instant synchronizedTime,
                              final Watermark watermark) {
-    final Iterator<Map.Entry<K, InMemoryTimerInternals>> iter =
-      inMemoryTimerInternalsFactory.getTimerInternalsMap().entrySet().iterator();
-    while (iter.hasNext()) {
-      final Map.Entry<K, InMemoryTimerInternals> curr = iter.next();
-      try {
-        curr.getValue().advanceInputWatermark(new Instant(watermark.getTimestamp()));
-        curr.getValue().advanceProcessingTime(processingTime);
-        curr.getValue().advanceSynchronizedProcessingTime(synchronizedTime);
-      } catch (final Exception e) {
-        e.printStackTrace();
-        throw new RuntimeException();
-      }
+    inMemoryTimerInternalsFactory.advanceTime(new Instant(watermark.getTimestamp()), processingTime, synchronizedTime);
+    for (final K key : inMemoryTimerInternalsFactory.getKeysToTrigger()) {
+      // This advances the time of the timer internals of the key.
+      final InMemoryTimerInternals timerInternals =
+        (InMemoryTimerInternals) inMemoryTimerInternalsFactory.timerInternalsForKey(key);
       for (final TimeDomain domain : TimeDomain.values()) {
-        processTrigger(curr.getKey(), curr.getValue(), domain);
+        processTrigger(key, timerInternals, domain);
       }
       // Remove timerInternals and stateInternals that are no longer needed.
-      if (inMemoryTimerInternalsFactory.isEmpty(curr.getValue())) {
-        iter.remove();
-        inMemoryStateInternalsFactory.getStateInternalMap().remove(curr.getKey());
+      if (inMemoryTimerInternalsFactory.isEmpty(timerInternals)) {
+        inMemoryTimerInternalsFactory.removeTimerInternals(key);
+        inMemoryStateInternalsFactory.getStateInternalMap().remove(key);
+      } else {
+        inMemoryTimerInternalsFactory.updateTimerIndex(key);
       }
     }
   }
@@ -234,32 +232,28 @@ public final class GBKTransform<K, InputT, OutputT>
    */
   private void emitOutputWatermark() {
     // Find min watermark hold
-    Watermark minWatermarkHold = keyOutputWatermarkMap.isEmpty()
-      ? new Watermark(dataReceived ? Long.MIN_VALUE : Long.MAX_VALUE)
-      : Collections.min(keyOutputWatermarkMap.values());
+    long minWatermarkHold = keyOutputWatermarkHolds.isEmpty()
+      ? (dataReceived ? Long.MIN_VALUE : Long.MAX_VALUE)
+      : keyOutputWatermarkHolds.getMinTimestamp();
 
-    Watermark outputWatermarkCandidate = new Watermark(
-      Math.max(prevOutputWatermark.getTimestamp(),
-        Math.min(minWatermarkHold.getTimestamp(), inputWatermark.getTimestamp())));
+    long outputWatermarkCandidate = Math.max(prevOutputWatermark.getTimestamp(),
+      Math.min(minWatermarkHold, inputWatermark.getTimestamp()));
 
-    while (outputWatermarkCandidate.getTimestamp() > prevOutputWatermark.getTimestamp()) {
+    while (outputWatermarkCandidate > prevOutputWatermark.getTimestamp()) {
       // Progress
-      prevOutputWatermark = outputWatermarkCandidate;
+      prevOutputWatermark = new Watermark(outputWatermarkCandidate);
       // Emit watermark
-      getOutputCollector().emitWatermark(outputWatermarkCandidate);
+      getOutputCollector().emitWatermark(prevOutputWatermark);
       // Remove minimum watermark holds
-      if (minWatermarkHold.getTimestamp() == outputWatermarkCandidate.getTimestamp()) {
-        final long minWatermarkTimestamp = minWatermarkHold.getTimestamp();
-        keyOutputWatermarkMap.entrySet()
-          .removeIf(entry -> entry.getValue().getTimestamp() == minWatermarkTimestamp);
+      if (minWatermarkHold == outputWatermarkCandidate) {
+        keyOutputWatermarkHolds.removeMinTimestampKeys();
       }
 
-      minWatermarkHold = keyOutputWatermarkMap.isEmpty()
-        ? new Watermark(Long.MAX_VALUE) : Collections.min(keyOutputWatermarkMap.values());
+      minWatermarkHold = keyOutputWatermarkHolds.isEmpty()
+        ? Long.MAX_VALUE : keyOutputWatermarkHolds.getMinTimestamp();
 
-      outputWatermarkCandidate = new Watermark(
-        Math.max(prevOutputWatermark.getTimestamp(),
-          Math.min(minWatermarkHold.getTimestamp(), inputWatermark.getTimestamp())));
+      outputWatermarkCandidate = Math.max(prevOutputWatermark.getTimestamp(),
+        Math.min(minWatermarkHold, inputWatermark.getTimestamp()));
     }
   }
 
@@ -292,8 +286,7 @@ public final class GBKTransform<K, InputT, OutputT>
           (InMemoryTimerInternals) inMemoryTimerInternalsFactory.timerInternalsForKey(key);
         // Add the output timestamp to the watermark hold of each key.
         // +1 to the output timestamp because if the window is [0-5000), the timestamp is 4999.
-        keyOutputWatermarkMap.put(key,
-          new Watermark(output.getTimestamp().getMillis() + 1));
+        keyOutputWatermarkHolds.put(key, output.getTimestamp().getMillis() + 1);
         timerInternals.advanceOutputWatermark(new Instant(output.getTimestamp().getMillis() + 1));
       }
       oc.emit(output);
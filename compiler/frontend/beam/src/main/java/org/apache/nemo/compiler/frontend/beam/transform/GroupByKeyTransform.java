@@ -18,6 +18,10 @@
  */
 package org.apache.nemo.compiler.frontend.beam.transform;
 
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.sdk.util.WindowedValue;
 import org.apache.beam.sdk.values.KV;
 import org.apache.nemo.common.ir.OutputCollector;
@@ -25,28 +29,67 @@ import org.apache.nemo.common.ir.vertex.transform.NoWatermarkEmitTransform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.*;
+import java.nio.file.Files;
 import java.util.*;
 
 /**
  * Group Beam KVs.
+ * <p>
+ * The values are grouped in memory, as long as their estimated encoded size stays within the memory budget.
+ * Once the budget is exceeded, the grouped values are sorted by their encoded keys and spilled to a local file as
+ * a sorted run. On {@link #close()}, the spilled runs and the data remaining in memory are merged by their
+ * encoded keys, so that only the values of a single key are held in memory at a time.
  *
  * @param <I> input type.
  */
 public final class GroupByKeyTransform<I> extends NoWatermarkEmitTransform<I, WindowedValue<KV<Object, List>>> {
   private static final Logger LOG = LoggerFactory.getLogger(GroupByKeyTransform.class.getName());
+  private static final double DEFAULT_MEMORY_BUDGET_HEAP_FRACTION = 0.1;
+  private static final int SIZE_SAMPLING_INTERVAL = 100;
+  private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+  private static final String SPILL_FILE_PREFIX = "nemo-gbk-spill-";
+
+  private final Coder<Object> keyCoder;
+  private final Coder<Object> valueCoder;
+  private final long memoryBudgetBytes;
   private final Map<Object, List> keyToValues;
   private OutputCollector<WindowedValue<KV<Object, List>>> outputCollector;
 
+  // Memory accounting
+  private long effectiveMemoryBudgetBytes;
+  private long estimatedBytesInMemory = 0;
+  private long numElements = 0;
+  private long numSampledElements = 0;
+  private long sampledBytes = 0;
+
+  // Spilled runs and spill metrics
+  private final List<File> spilledRuns;
+  private int numSpills = 0;
+  private long numSpilledBytes = 0;
+  private long spillTimeMs = 0;
+
   /**
    * GroupByKey constructor.
+   *
+   * @param kvCoder           the coder of the input KVs, used to spill and estimate the size of the data.
+   * @param memoryBudgetBytes the estimated encoded size of the data to hold in memory before spilling,
+   *                          or 0 to use a fraction of the maximum heap of the executor.
    */
-  public GroupByKeyTransform() {
+  public GroupByKeyTransform(final KvCoder<?, ?> kvCoder,
+                             final long memoryBudgetBytes) {
+    this.keyCoder = (Coder<Object>) kvCoder.getKeyCoder();
+    this.valueCoder = (Coder<Object>) kvCoder.getValueCoder();
+    this.memoryBudgetBytes = memoryBudgetBytes;
     this.keyToValues = new HashMap<>();
+    this.spilledRuns = new ArrayList<>();
   }
 
   @Override
   public void prepare(final Context context, final OutputCollector<WindowedValue<KV<Object, List>>> oc) {
     this.outputCollector = oc;
+    this.effectiveMemoryBudgetBytes = memoryBudgetBytes > 0
+      ? memoryBudgetBytes : (long) (Runtime.getRuntime().maxMemory() * DEFAULT_MEMORY_BUDGET_HEAP_FRACTION);
   }
 
   @Override
@@ -55,19 +98,288 @@ public final class GroupByKeyTransform<I> extends NoWatermarkEmitTransform<I, Wi
     final KV kv = windowedValue.getValue();
     keyToValues.putIfAbsent(kv.getKey(), new ArrayList());
     keyToValues.get(kv.getKey()).add(kv.getValue());
+
+    estimatedBytesInMemory += estimateEncodedSize(kv);
+    if (estimatedBytesInMemory > effectiveMemoryBudgetBytes) {
+      spill();
+    }
   }
 
   @Override
   public void close() {
-    if (keyToValues.isEmpty()) {
-      LOG.warn("Beam GroupByKeyTransform received no data!");
-    } else {
-      final Iterator<Map.Entry<Object, List>> iterator = keyToValues.entrySet().iterator();
-      while (iterator.hasNext()) {
-        final Map.Entry<Object, List> entry = iterator.next();
-        outputCollector.emit(WindowedValue.valueInGlobalWindow(KV.of(entry.getKey(), entry.getValue())));
-        iterator.remove();
+    if (spilledRuns.isEmpty()) {
+      if (keyToValues.isEmpty()) {
+        LOG.warn("Beam GroupByKeyTransform received no data!");
+      } else {
+        final Iterator<Map.Entry<Object, List>> iterator = keyToValues.entrySet().iterator();
+        while (iterator.hasNext()) {
+          final Map.Entry<Object, List> entry = iterator.next();
+          outputCollector.emit(WindowedValue.valueInGlobalWindow(KV.of(entry.getKey(), entry.getValue())));
+          iterator.remove();
+        }
+      }
+      return;
+    }
+
+    try {
+      mergeAndEmit();
+      LOG.info("Beam GroupByKeyTransform spilled {} runs ({} bytes) in {} ms",
+        getNumSpills(), getNumSpilledBytes(), getSpillTimeMs());
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      for (final File run : spilledRuns) {
+        if (!run.delete()) {
+          LOG.warn("Failed to delete the spilled run {}", run);
+        }
+      }
+      spilledRuns.clear();
+    }
+  }
+
+  /**
+   * @return the number of times the data in memory has been spilled.
+   */
+  public int getNumSpills() {
+    return numSpills;
+  }
+
+  /**
+   * @return the total size of the spilled runs, in bytes.
+   */
+  public long getNumSpilledBytes() {
+    return numSpilledBytes;
+  }
+
+  /**
+   * @return the total time spent on spilling, in milliseconds.
+   */
+  public long getSpillTimeMs() {
+    return spillTimeMs;
+  }
+
+  /**
+   * Estimates the encoded size of a KV, from the average encoded size of the sampled KVs.
+   *
+   * @param kv the KV.
+   * @return the estimated encoded size, in bytes.
+   */
+  private long estimateEncodedSize(final KV kv) {
+    if (numElements++ % SIZE_SAMPLING_INTERVAL == 0) {
+      try {
+        sampledBytes += CoderUtils.encodeToByteArray(keyCoder, kv.getKey()).length
+          + CoderUtils.encodeToByteArray(valueCoder, kv.getValue()).length;
+        numSampledElements++;
+      } catch (final CoderException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return sampledBytes / numSampledElements;
+  }
+
+  /**
+   * Writes the data in memory to a local file as a run sorted by the encoded keys, and clears the memory.
+   * A run consists of the number of keys, followed by the length and bytes of each encoded key,
+   * the number of values of the key, and the encoded values.
+   */
+  private void spill() {
+    final long startTime = System.currentTimeMillis();
+    try {
+      final File run = Files.createTempFile(SPILL_FILE_PREFIX, ".run").toFile();
+      spilledRuns.add(run);
+      numSpills++;
+      try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(run), SPILL_BUFFER_SIZE))) {
+        final List<RunEntry> entries = sortInMemoryData();
+        out.writeInt(entries.size());
+        for (final RunEntry entry : entries) {
+          out.writeInt(entry.encodedKey.length);
+          out.write(entry.encodedKey);
+          out.writeInt(entry.values.size());
+          for (final Object value : entry.values) {
+            valueCoder.encode(value, out);
+          }
+        }
       }
+      numSpilledBytes += run.length();
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+    keyToValues.clear();
+    estimatedBytesInMemory = 0;
+    spillTimeMs += System.currentTimeMillis() - startTime;
+  }
+
+  /**
+   * @return the data in memory, sorted by the encoded keys.
+   * @throws CoderException if failed to encode a key.
+   */
+  private List<RunEntry> sortInMemoryData() throws CoderException {
+    final List<RunEntry> entries = new ArrayList<>(keyToValues.size());
+    for (final Map.Entry<Object, List> entry : keyToValues.entrySet()) {
+      entries.add(new RunEntry(CoderUtils.encodeToByteArray(keyCoder, entry.getKey()), entry.getKey(),
+        entry.getValue()));
+    }
+    entries.sort(RunEntry::compareTo);
+    return entries;
+  }
+
+  /**
+   * Merges the spilled runs and the data remaining in memory, and emits the values grouped by key.
+   *
+   * @throws IOException if failed to read a spilled run.
+   */
+  private void mergeAndEmit() throws IOException {
+    final List<Iterator<RunEntry>> runs = new ArrayList<>();
+    final List<Closeable> runReaders = new ArrayList<>();
+    try {
+      for (final File run : spilledRuns) {
+        final SpilledRunIterator runIterator = new SpilledRunIterator(run);
+        runReaders.add(runIterator);
+        runs.add(runIterator);
+      }
+      runs.add(sortInMemoryData().iterator());
+      keyToValues.clear();
+
+      // The heads of the runs, ordered by their encoded keys
+      final PriorityQueue<PeekedRun> heads = new PriorityQueue<>();
+      for (final Iterator<RunEntry> run : runs) {
+        if (run.hasNext()) {
+          heads.add(new PeekedRun(run.next(), run));
+        }
+      }
+      while (!heads.isEmpty()) {
+        final PeekedRun smallest = heads.poll();
+        final Object key = smallest.head.key;
+        final List values = smallest.head.values;
+        advance(smallest, heads);
+        while (!heads.isEmpty() && heads.peek().head.compareTo(smallest.head) == 0) {
+          final PeekedRun sameKey = heads.poll();
+          values.addAll(sameKey.head.values);
+          advance(sameKey, heads);
+        }
+        outputCollector.emit(WindowedValue.valueInGlobalWindow(KV.of(key, values)));
+      }
+    } finally {
+      for (final Closeable runReader : runReaders) {
+        runReader.close();
+      }
+    }
+  }
+
+  /**
+   * Re-inserts a run to the heads with its next entry, if any.
+   *
+   * @param run   the run whose head has been consumed.
+   * @param heads the heads of the runs.
+   */
+  private static void advance(final PeekedRun run, final PriorityQueue<PeekedRun> heads) {
+    if (run.rest.hasNext()) {
+      heads.add(new PeekedRun(run.rest.next(), run.rest));
+    }
+  }
+
+  /**
+   * A key and its values in a sorted run.
+   */
+  private static final class RunEntry implements Comparable<RunEntry> {
+    private final byte[] encodedKey;
+    private final Object key;
+    private final List values;
+
+    /**
+     * @param encodedKey the encoded key.
+     * @param key        the key.
+     * @param values     the values of the key.
+     */
+    RunEntry(final byte[] encodedKey, final Object key, final List values) {
+      this.encodedKey = encodedKey;
+      this.key = key;
+      this.values = values;
+    }
+
+    /**
+     * Compares the encoded keys lexicographically, as unsigned bytes.
+     */
+    @Override
+    public int compareTo(final RunEntry other) {
+      final int minLength = Math.min(encodedKey.length, other.encodedKey.length);
+      for (int i = 0; i < minLength; i++) {
+        final int result = Integer.compare(encodedKey[i] & 0xff, other.encodedKey[i] & 0xff);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return Integer.compare(encodedKey.length, other.encodedKey.length);
+    }
+  }
+
+  /**
+   * A run whose next entry has been taken out.
+   */
+  private static final class PeekedRun implements Comparable<PeekedRun> {
+    private final RunEntry head;
+    private final Iterator<RunEntry> rest;
+
+    /**
+     * @param head the next entry of the run.
+     * @param rest the rest of the run.
+     */
+    PeekedRun(final RunEntry head, final Iterator<RunEntry> rest) {
+      this.head = head;
+      this.rest = rest;
+    }
+
+    @Override
+    public int compareTo(final PeekedRun other) {
+      return head.compareTo(other.head);
+    }
+  }
+
+  /**
+   * Reads the entries of a spilled run one at a time.
+   */
+  private final class SpilledRunIterator implements Iterator<RunEntry>, Closeable {
+    private final DataInputStream in;
+    private int remainingEntries;
+
+    /**
+     * @param run the spilled run to read.
+     * @throws IOException if failed to open the run.
+     */
+    SpilledRunIterator(final File run) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), SPILL_BUFFER_SIZE));
+      this.remainingEntries = in.readInt();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remainingEntries > 0;
+    }
+
+    @Override
+    public RunEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      try {
+        final byte[] encodedKey = new byte[in.readInt()];
+        in.readFully(encodedKey);
+        final int numValues = in.readInt();
+        final List values = new ArrayList(numValues);
+        for (int i = 0; i < numValues; i++) {
+          values.add(valueCoder.decode(in));
+        }
+        remainingEntries--;
+        return new RunEntry(encodedKey, CoderUtils.decodeFromByteArray(keyCoder, encodedKey), values);
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
     }
   }
 }
@@ -22,17 +22,40 @@ import org.apache.beam.runners.core.InMemoryTimerInternals;
 import org.apache.beam.runners.core.TimerInternals;
 import org.apache.beam.runners.core.TimerInternalsFactory;
 import org.apache.beam.sdk.state.TimeDomain;
+import org.joda.time.Instant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.*;
 
 /**
  * InMemoryTimerInternalsFactory.
+ * <p>
+ * Besides the timer internals of each key, this keeps a global index of the keys ordered by the time of their
+ * next timer in each time domain, so that advancing the time only visits the keys that have timers to fire.
+ * The time of the timer internals of the other keys is advanced lazily, when they are accessed next.
  * @param <K> key type
  */
 public final class InMemoryTimerInternalsFactory<K> implements TimerInternalsFactory<K> {
   private static final Logger LOG = LoggerFactory.getLogger(InMemoryTimerInternalsFactory.class.getName());
-  private Map<K, InMemoryTimerInternals> timerInternalsMap = new HashMap<>();
+  private Map<K, KeyTimerInternals> timerInternalsMap = new HashMap<>();
+  private final Map<TimeDomain, KeyTimestampIndex<K>> nextTimerIndex = new EnumMap<>(TimeDomain.class);
+  // Keys that have no timers left, to be cleaned up on the next trigger.
+  private final Set<K> keysWithoutTimers = new HashSet<>();
+
+  // The latest times, and the number of times they have been advanced.
+  private long timeAdvancements = 0;
+  private Instant inputWatermarkTime;
+  private Instant processingTime;
+  private Instant synchronizedProcessingTime;
+
+  /**
+   * Constructor.
+   */
+  public InMemoryTimerInternalsFactory() {
+    for (final TimeDomain domain : TimeDomain.values()) {
+      nextTimerIndex.put(domain, new KeyTimestampIndex<>());
+    }
+  }
 
   @Override
   public String toString() {
@@ -41,15 +64,93 @@ public final class InMemoryTimerInternalsFactory<K> implements TimerInternalsFac
 
   @Override
   public TimerInternals timerInternalsForKey(final K key) {
-    if (timerInternalsMap.get(key) != null) {
-      return timerInternalsMap.get(key);
+    final KeyTimerInternals keyTimerInternals = timerInternalsMap.get(key);
+    if (keyTimerInternals != null) {
+      catchUp(keyTimerInternals);
+      return keyTimerInternals.timerInternals;
     } else {
       final InMemoryTimerInternals internal = new InMemoryTimerInternals();
-      timerInternalsMap.put(key, internal);
+      timerInternalsMap.put(key, new KeyTimerInternals(internal, timeAdvancements));
       return internal;
     }
   }
 
+  /**
+   * Advances the time of all timer internals.
+   * The timer internals of each key catch up with the time when they are accessed next.
+   *
+   * @param newInputWatermarkTime          the input watermark time.
+   * @param newProcessingTime              the processing time.
+   * @param newSynchronizedProcessingTime  the synchronized processing time.
+   */
+  public void advanceTime(final Instant newInputWatermarkTime,
+                          final Instant newProcessingTime,
+                          final Instant newSynchronizedProcessingTime) {
+    this.inputWatermarkTime = newInputWatermarkTime;
+    this.processingTime = newProcessingTime;
+    this.synchronizedProcessingTime = newSynchronizedProcessingTime;
+    timeAdvancements++;
+  }
+
+  /**
+   * Gets the keys that may have eligible timers at the current time, and the keys with no timers left.
+   * The keys are ordered by the time of their next timer.
+   *
+   * @return the keys to trigger.
+   */
+  public Set<K> getKeysToTrigger() {
+    final Set<K> keys = new LinkedHashSet<>();
+    if (timeAdvancements > 0) {
+      nextTimerIndex.get(TimeDomain.EVENT_TIME).collectKeysUpTo(inputWatermarkTime.getMillis(), keys);
+      nextTimerIndex.get(TimeDomain.PROCESSING_TIME).collectKeysUpTo(processingTime.getMillis(), keys);
+      nextTimerIndex.get(TimeDomain.SYNCHRONIZED_PROCESSING_TIME)
+        .collectKeysUpTo(synchronizedProcessingTime.getMillis(), keys);
+    }
+    keys.addAll(keysWithoutTimers);
+    return keys;
+  }
+
+  /**
+   * Updates the index of the next timers of {@code key}.
+   * Must be called after the timers of the key may have been set, deleted or fired.
+   *
+   * @param key the key.
+   */
+  public void updateTimerIndex(final K key) {
+    final KeyTimerInternals keyTimerInternals = timerInternalsMap.get(key);
+    if (keyTimerInternals == null) {
+      return;
+    }
+    boolean hasTimers = false;
+    for (final TimeDomain domain : TimeDomain.values()) {
+      final Instant nextTimer = keyTimerInternals.timerInternals.getNextTimer(domain);
+      if (nextTimer == null) {
+        nextTimerIndex.get(domain).remove(key);
+      } else {
+        nextTimerIndex.get(domain).put(key, nextTimer.getMillis());
+        hasTimers = true;
+      }
+    }
+    if (hasTimers) {
+      keysWithoutTimers.remove(key);
+    } else {
+      keysWithoutTimers.add(key);
+    }
+  }
+
+  /**
+   * Removes the timer internals of {@code key}.
+   *
+   * @param key the key.
+   */
+  public void removeTimerInternals(final K key) {
+    timerInternalsMap.remove(key);
+    keysWithoutTimers.remove(key);
+    for (final KeyTimestampIndex<K> index : nextTimerIndex.values()) {
+      index.remove(key);
+    }
+  }
+
   /**
    * Remove the next eligible timer in {@code timeDomain}.
    *
@@ -70,15 +171,6 @@ public final class InMemoryTimerInternalsFactory<K> implements TimerInternalsFac
     }
   }
 
-  /**
-   * Accessor for timerInternalsMap.
-   *
-   * @return the timer internals map.
-   */
-  public Map<K, InMemoryTimerInternals> getTimerInternalsMap() {
-    return timerInternalsMap;
-  }
-
   /**
    * Helper method to check if {@code timerInternals} doesn't have any timers left.
    *
@@ -93,4 +185,41 @@ public final class InMemoryTimerInternalsFactory<K> implements TimerInternalsFac
     }
     return true;
   }
+
+  /**
+   * Advances the time of the timer internals of a key to the latest time, if it has been advanced since.
+   * Like the other timer internals, a newly created one only catches up after the next advancement.
+   *
+   * @param keyTimerInternals the timer internals of the key.
+   */
+  private void catchUp(final KeyTimerInternals keyTimerInternals) {
+    if (keyTimerInternals.timeAdvancements < timeAdvancements) {
+      try {
+        keyTimerInternals.timerInternals.advanceInputWatermark(inputWatermarkTime);
+        keyTimerInternals.timerInternals.advanceProcessingTime(processingTime);
+        keyTimerInternals.timerInternals.advanceSynchronizedProcessingTime(synchronizedProcessingTime);
+      } catch (final Exception e) {
+        throw new RuntimeException(e);
+      }
+      keyTimerInternals.timeAdvancements = timeAdvancements;
+    }
+  }
+
+  /**
+   * The timer internals of a key, and the number of time advancements it has caught up with.
+   */
+  private static final class KeyTimerInternals {
+    private final InMemoryTimerInternals timerInternals;
+    private long timeAdvancements;
+
+    KeyTimerInternals(final InMemoryTimerInternals timerInternals, final long timeAdvancements) {
+      this.timerInternals = timerInternals;
+      this.timeAdvancements = timeAdvancements;
+    }
+
+    @Override
+    public String toString() {
+      return timerInternals.toString();
+    }
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An index of keys ordered by a timestamp associated with each key.
+ * Each key has at most one timestamp, and updating, removing or looking up the minimum takes O(log(#timestamps)),
+ * so that the keys whose timestamps have passed can be found without scanning all keys.
+ *
+ * @param <K> key type.
+ */
+final class KeyTimestampIndex<K> implements Serializable {
+  private final Map<K, Long> keyToTimestamp;
+  private final TreeMap<Long, Set<K>> timestampToKeys;
+
+  KeyTimestampIndex() {
+    this.keyToTimestamp = new HashMap<>();
+    this.timestampToKeys = new TreeMap<>();
+  }
+
+  /**
+   * Sets the timestamp of a key, replacing its previous timestamp if any.
+   *
+   * @param key       the key.
+   * @param timestamp the timestamp.
+   */
+  void put(final K key, final long timestamp) {
+    final Long prevTimestamp = keyToTimestamp.put(key, timestamp);
+    if (prevTimestamp != null) {
+      if (prevTimestamp == timestamp) {
+        return;
+      }
+      removeFromTimestamp(key, prevTimestamp);
+    }
+    timestampToKeys.computeIfAbsent(timestamp, t -> new HashSet<>()).add(key);
+  }
+
+  /**
+   * Removes a key, if present.
+   *
+   * @param key the key.
+   */
+  void remove(final K key) {
+    final Long prevTimestamp = keyToTimestamp.remove(key);
+    if (prevTimestamp != null) {
+      removeFromTimestamp(key, prevTimestamp);
+    }
+  }
+
+  /**
+   * @return whether there is no key in this index.
+   */
+  boolean isEmpty() {
+    return keyToTimestamp.isEmpty();
+  }
+
+  /**
+   * @return the number of keys in this index.
+   */
+  int size() {
+    return keyToTimestamp.size();
+  }
+
+  /**
+   * @return the minimum timestamp among the keys.
+   * @throws NoSuchElementException if this index is empty.
+   */
+  long getMinTimestamp() {
+    return timestampToKeys.firstKey();
+  }
+
+  /**
+   * Removes the keys with the minimum timestamp.
+   *
+   * @return the removed keys (empty if this index is empty).
+   */
+  Set<K> removeMinTimestampKeys() {
+    final Map.Entry<Long, Set<K>> minEntry = timestampToKeys.pollFirstEntry();
+    if (minEntry == null) {
+      return Collections.emptySet();
+    }
+    minEntry.getValue().forEach(keyToTimestamp::remove);
+    return minEntry.getValue();
+  }
+
+  /**
+   * Collects the keys whose timestamps are less than or equal to the given timestamp, in timestamp order.
+   *
+   * @param timestamp the (inclusive) upper bound of the timestamps.
+   * @param keys      the collection to add the keys to.
+   */
+  void collectKeysUpTo(final long timestamp, final Collection<K> keys) {
+    for (final Set<K> keysAtTimestamp : timestampToKeys.headMap(timestamp, true).values()) {
+      keys.addAll(keysAtTimestamp);
+    }
+  }
+
+  /**
+   * Removes a key from the keys of a timestamp.
+   *
+   * @param key       the key.
+   * @param timestamp the timestamp.
+   */
+  private void removeFromTimestamp(final K key, final long timestamp) {
+    final Set<K> keysAtTimestamp = timestampToKeys.get(timestamp);
+    keysAtTimestamp.remove(key);
+    if (keysAtTimestamp.isEmpty()) {
+      timestampToKeys.remove(timestamp);
+    }
+  }
+}
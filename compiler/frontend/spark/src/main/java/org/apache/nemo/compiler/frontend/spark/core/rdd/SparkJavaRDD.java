@@ -203,6 +203,47 @@ public final class SparkJavaRDD<T> extends org.apache.spark.api.java.JavaRDD<T>
     return rdd.flatMap(func, ClassTag$.MODULE$.apply(Object.class)).toJavaRDD();
   }
 
+  /**
+   * Map partitions transform, which streams the elements of each partition to the function.
+   *
+   * @param f   function to apply to the iterator of each partition.
+   * @param <U> output type.
+   * @return the SparkJavaRDD with the extended DAG.
+   */
+  @Override
+  public <U> SparkJavaRDD<U> mapPartitions(final FlatMapFunction<Iterator<T>, U> f) {
+    return mapPartitionsWithIndex((index, iterator) -> f.call(iterator), false);
+  }
+
+  /**
+   * Map partitions transform. Nemo does not track the partitioner of RDDs, so preservesPartitioning is ignored.
+   *
+   * @param f                     function to apply to the iterator of each partition.
+   * @param preservesPartitioning ignored.
+   * @param <U>                   output type.
+   * @return the SparkJavaRDD with the extended DAG.
+   */
+  @Override
+  public <U> SparkJavaRDD<U> mapPartitions(final FlatMapFunction<Iterator<T>, U> f,
+                                           final boolean preservesPartitioning) {
+    return mapPartitions(f);
+  }
+
+  /**
+   * Map partitions with index transform, which streams the elements of each partition to the function.
+   * Nemo does not track the partitioner of RDDs, so preservesPartitioning is ignored.
+   *
+   * @param f                     function to apply to the index and the iterator of each partition.
+   * @param preservesPartitioning ignored.
+   * @param <R>                   output type.
+   * @return the SparkJavaRDD with the extended DAG.
+   */
+  @Override
+  public <R> SparkJavaRDD<R> mapPartitionsWithIndex(final Function2<Integer, Iterator<T>, Iterator<R>> f,
+                                                    final boolean preservesPartitioning) {
+    return rdd.mapPartitionsWithIndex(f, ClassTag$.MODULE$.apply(Object.class)).toJavaRDD();
+  }
+
   /////////////// TRANSFORMATION TO PAIR RDD ///////////////
 
   /**
@@ -295,23 +336,6 @@ public final class SparkJavaRDD<T> extends org.apache.spark.api.java.JavaRDD<T>
     throw new UnsupportedOperationException(NOT_YET_SUPPORTED);
   }
 
-  @Override
-  public <U> SparkJavaRDD<U> mapPartitions(final FlatMapFunction<Iterator<T>, U> f) {
-    throw new UnsupportedOperationException(NOT_YET_SUPPORTED);
-  }
-
-  @Override
-  public <U> SparkJavaRDD<U> mapPartitions(final FlatMapFunction<Iterator<T>, U> f,
-                                           final boolean preservesPartitioning) {
-    throw new UnsupportedOperationException(NOT_YET_SUPPORTED);
-  }
-
-  @Override
-  public <R> SparkJavaRDD<R> mapPartitionsWithIndex(final Function2<Integer, Iterator<T>, Iterator<R>> f,
-                                                    final boolean preservesPartitioning) {
-    throw new UnsupportedOperationException(NOT_YET_SUPPORTED);
-  }
-
   @Override
   public SparkJavaRDD<T>[] randomSplit(final double[] weights) {
     throw new UnsupportedOperationException(NOT_YET_SUPPORTED);
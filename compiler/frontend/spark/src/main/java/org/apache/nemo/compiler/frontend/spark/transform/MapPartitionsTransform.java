@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.spark.transform;
+
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.spark.api.java.function.Function2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transform for mapPartitions and mapPartitionsWithIndex, which hands the whole input of a task
+ * to the user function as a single iterator.
+ * The user function runs on its own thread and pulls the elements as they are pushed to this transform,
+ * through bounded queues, so that the input of a task is never materialized as a whole.
+ * The outputs are emitted on the task executor thread.
+ * If this transform fails, or if the task stops without closing it (see {@link #cancel()}), the thread of
+ * the user function is interrupted, as it would otherwise wait for the input or for the output queue forever.
+ *
+ * @param <T> input type.
+ * @param <U> output type.
+ */
+public final class MapPartitionsTransform<T, U> implements Transform<T, U> {
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final long POLL_INTERVAL_MS = 100;
+  // Markers for the end of the input/output, and for null elements which the queues cannot hold.
+  private static final Object END_OF_DATA = new Object();
+  private static final Object NULL_ELEMENT = new Object();
+
+  private final Function2<Integer, Iterator<T>, Iterator<U>> func;
+  private OutputCollector<U> outputCollector;
+  private BlockingQueue<Object> inputQueue;
+  private BlockingQueue<Object> outputQueue;
+  private Thread funcThread;
+  private volatile boolean funcDone;
+  private volatile boolean cancelled;
+  private volatile Throwable failure;
+  private boolean outputEnded;
+
+  /**
+   * Constructor.
+   *
+   * @param func function that maps the task index and the iterator of the task input to the output iterator.
+   */
+  public MapPartitionsTransform(final Function2<Integer, Iterator<T>, Iterator<U>> func) {
+    this.func = func;
+  }
+
+  @Override
+  public void prepare(final Context context, final OutputCollector<U> oc) {
+    this.outputCollector = oc;
+    this.inputQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    this.outputQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    this.funcDone = false;
+    this.cancelled = false;
+    this.failure = null;
+    this.outputEnded = false;
+
+    final int taskIndex = context.getTaskIndex();
+    this.funcThread = new Thread(() -> runFunc(taskIndex), "MapPartitionsTransform thread");
+    funcThread.setDaemon(true);
+    funcThread.start();
+  }
+
+  @Override
+  public void onData(final T element) {
+    try {
+      emitAvailableOutputs();
+      throwIfFailed();
+      enqueueInput(element == null ? NULL_ELEMENT : element);
+    } catch (final RuntimeException | Error e) {
+      cancel();
+      throw e;
+    }
+  }
+
+  @Override
+  public void onWatermark(final Watermark watermark) {
+    try {
+      emitAvailableOutputs();
+      outputCollector.emitWatermark(watermark);
+    } catch (final RuntimeException | Error e) {
+      cancel();
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      enqueueInput(END_OF_DATA);
+      while (!outputEnded) {
+        emitOutput(outputQueue.take());
+      }
+      throwIfFailed();
+    } catch (InterruptedException e) {
+      cancel();
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (final RuntimeException | Error e) {
+      cancel();
+      throw e;
+    }
+  }
+
+  /**
+   * Stops the user function, as the task executor thread no longer passes the input nor takes the outputs.
+   */
+  @Override
+  public void cancel() {
+    cancelled = true;
+    if (funcThread != null) {
+      funcThread.interrupt();
+    }
+  }
+
+  /**
+   * Runs the user function over the task input, and passes its outputs to the task executor thread.
+   *
+   * @param taskIndex the index of the task.
+   */
+  private void runFunc(final int taskIndex) {
+    try {
+      final Iterator<U> outputs = func.call(taskIndex, new InputIterator());
+      while (outputs.hasNext()) {
+        final U output = outputs.next();
+        outputQueue.put(output == null ? NULL_ELEMENT : output);
+      }
+    } catch (final Throwable t) {
+      failure = t;
+    } finally {
+      // From now on, the input is dropped as nobody will consume it.
+      funcDone = true;
+      if (!cancelled) {
+        try {
+          outputQueue.put(END_OF_DATA);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * Passes an input element to the user function, emitting the available outputs while the input queue is full.
+   *
+   * @param element the element or marker to pass.
+   */
+  private void enqueueInput(final Object element) {
+    try {
+      while (!funcDone && !inputQueue.offer(element, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+        emitAvailableOutputs();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Emits the outputs that the user function has produced so far, without blocking.
+   */
+  private void emitAvailableOutputs() {
+    Object output;
+    while ((output = outputQueue.poll()) != null) {
+      emitOutput(output);
+    }
+  }
+
+  /**
+   * @param output the output or marker taken from the output queue.
+   */
+  private void emitOutput(final Object output) {
+    if (output == END_OF_DATA) {
+      outputEnded = true;
+    } else {
+      outputCollector.emit(output == NULL_ELEMENT ? null : (U) output);
+    }
+  }
+
+  /**
+   * Rethrows the exception thrown by the user function, if any.
+   */
+  private void throwIfFailed() {
+    if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * The iterator of the task input given to the user function, which blocks until the next element arrives.
+   */
+  private final class InputIterator implements Iterator<T> {
+    private Object next = null;
+    private boolean ended = false;
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) {
+        return true;
+      }
+      if (ended) {
+        return false;
+      }
+      try {
+        final Object element = inputQueue.take();
+        if (element == END_OF_DATA) {
+          ended = true;
+          return false;
+        }
+        next = element;
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Object element = next;
+      next = null;
+      return element == NULL_ELEMENT ? null : (T) element;
+    }
+  }
+}
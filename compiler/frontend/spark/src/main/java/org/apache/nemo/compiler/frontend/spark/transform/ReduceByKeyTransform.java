@@ -25,13 +25,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * Transform for reduce by key transformation.
+ * Values are folded into the per-key result as they arrive, so that only one value per key is kept in memory.
+ * This transform receives the shuffled outputs of {@link PartialReduceByKeyTransform}s.
  *
  * @param <K> key type.
  * @param <V> value type.
@@ -40,7 +40,7 @@ public final class ReduceByKeyTransform<K, V> extends NoWatermarkEmitTransform<T
   private static final Logger LOG = LoggerFactory.getLogger(ReduceByKeyTransform.class.getName());
 
   // TODO #431: Handle states in Transforms better
-  private final Map<K, List<V>> keyToValues;
+  private final Map<K, V> keyToReducedValue;
   private final Function2<V, V, V> func;
   private OutputCollector<Tuple2<K, V>> outputCollector;
 
@@ -51,7 +51,7 @@ public final class ReduceByKeyTransform<K, V> extends NoWatermarkEmitTransform<T
    */
   public ReduceByKeyTransform(final Function2<V, V, V> func) {
     this.func = func;
-    this.keyToValues = new HashMap<>();
+    this.keyToReducedValue = new HashMap<>();
   }
 
   @Override
@@ -61,23 +61,42 @@ public final class ReduceByKeyTransform<K, V> extends NoWatermarkEmitTransform<T
 
   @Override
   public void onData(final Tuple2<K, V> element) {
-    final K key = element._1;
-    final V value = element._2;
-
-    keyToValues.putIfAbsent(key, new ArrayList<>());
-    keyToValues.get(key).add(value);
+    reduceInto(keyToReducedValue, element, func);
   }
 
   @Override
   public void close() {
-    if (keyToValues.isEmpty()) {
+    if (keyToReducedValue.isEmpty()) {
       LOG.warn("Spark ReduceByKeyTransform received no data!");
     } else {
-      keyToValues.entrySet().stream().map(entry -> {
-        final V value = ReduceTransform.reduceIterator(entry.getValue().iterator(), func);
-        return new Tuple2<>(entry.getKey(), value);
-      }).forEach(outputCollector::emit);
-      keyToValues.clear();
+      keyToReducedValue.forEach((key, value) -> outputCollector.emit(new Tuple2<>(key, value)));
+      keyToReducedValue.clear();
+    }
+  }
+
+  /**
+   * Folds the value of the element into the reduced value of its key.
+   *
+   * @param keyToReducedValue the reduced value of each key.
+   * @param element           the key-value pair to fold.
+   * @param func              reduce function.
+   * @param <K>               key type.
+   * @param <V>               value type.
+   */
+  static <K, V> void reduceInto(final Map<K, V> keyToReducedValue,
+                                final Tuple2<K, V> element,
+                                final Function2<V, V, V> func) {
+    final K key = element._1;
+    final V value = element._2;
+
+    if (keyToReducedValue.containsKey(key)) {
+      try {
+        keyToReducedValue.put(key, func.call(keyToReducedValue.get(key), value));
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    } else {
+      keyToReducedValue.put(key, value);
     }
   }
 }
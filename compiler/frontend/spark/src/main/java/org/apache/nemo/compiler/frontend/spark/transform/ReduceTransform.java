@@ -28,6 +28,7 @@ import java.util.Iterator;
 
 /**
  * Reduce Transform for Spark.
+ * It folds the elements of a task as they arrive, and emits the single reduced element when closed.
  *
  * @param <T> element type.
  */
@@ -42,7 +43,6 @@ public final class ReduceTransform<T> implements Transform<T, T> {
    *
    * @param func function to run for the reduce transform.
    */
-  // TODO #432: ReduceTransform Unit Test
   public ReduceTransform(final Function2<T, T, T> func) {
     this.func = func;
   }
@@ -59,17 +59,15 @@ public final class ReduceTransform<T> implements Transform<T, T> {
       return;
     }
 
-    try {
-      if (result == null) {
-        result = element;
+    if (result == null) {
+      result = element;
+    } else {
+      try {
+        result = func.call(result, element);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
       }
-
-      result = func.call(result, element);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
     }
-
-    outputCollector.emit(result);
   }
 
   @Override
@@ -104,6 +102,9 @@ public final class ReduceTransform<T> implements Transform<T, T> {
 
   @Override
   public void close() {
-    // Nothing to do in a SparkTransform.
+    if (result != null) {
+      outputCollector.emit(result);
+      result = null;
+    }
   }
 }
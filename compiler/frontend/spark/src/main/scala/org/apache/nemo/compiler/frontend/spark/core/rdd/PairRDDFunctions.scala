@@ -28,7 +28,7 @@ import org.apache.nemo.common.ir.vertex.{IRVertex, LoopVertex, OperatorVertex}
 import org.apache.nemo.compiler.frontend.spark.SparkKeyExtractor
 import org.apache.nemo.compiler.frontend.spark.coder.{SparkDecoderFactory, SparkEncoderFactory}
 import org.apache.nemo.compiler.frontend.spark.core.SparkFrontendUtils
-import org.apache.nemo.compiler.frontend.spark.transform.ReduceByKeyTransform
+import org.apache.nemo.compiler.frontend.spark.transform.{PartialReduceByKeyTransform, ReduceByKeyTransform}
 import org.apache.hadoop.conf.Configuration
 import org.apache.hadoop.io.compress.CompressionCodec
 import org.apache.hadoop.mapred.{JobConf, OutputFormat}
@@ -69,11 +69,28 @@ final class PairRDDFunctions[K: ClassTag, V: ClassTag] protected[rdd] (
   protected[rdd] def reduceByKey(javaFunc: Function2[V, V, V]): RDD[(K, V)] = {
     val builder = new DAGBuilder[IRVertex, IREdge](self.dag)
 
+    // Values are reduced within each task before the shuffle, and the partial results are reduced after it.
+    val partialReduceByKeyVertex = new OperatorVertex(new PartialReduceByKeyTransform[K, V](javaFunc))
+    builder.addVertex(partialReduceByKeyVertex, loopVertexStack)
+
+    val partialEdge = new IREdge(
+      SparkFrontendUtils.getEdgeCommunicationPattern(self.lastVertex, partialReduceByKeyVertex),
+      self.lastVertex, partialReduceByKeyVertex)
+    partialEdge.setProperty(
+      EncoderProperty.of(new SparkEncoderFactory[Tuple2[K, V]](self.serializer))
+        .asInstanceOf[EdgeExecutionProperty[_ <: Serializable]])
+    partialEdge.setProperty(
+      DecoderProperty.of(new SparkDecoderFactory[Tuple2[K, V]](self.serializer))
+        .asInstanceOf[EdgeExecutionProperty[_ <: Serializable]])
+    partialEdge.setProperty(KeyExtractorProperty.of(new SparkKeyExtractor))
+    builder.connectVertices(partialEdge)
+
     val reduceByKeyVertex = new OperatorVertex(new ReduceByKeyTransform[K, V](javaFunc))
     builder.addVertex(reduceByKeyVertex, loopVertexStack)
 
-    val newEdge = new IREdge(SparkFrontendUtils.getEdgeCommunicationPattern(self.lastVertex, reduceByKeyVertex),
-      self.lastVertex, reduceByKeyVertex)
+    val newEdge = new IREdge(
+      SparkFrontendUtils.getEdgeCommunicationPattern(partialReduceByKeyVertex, reduceByKeyVertex),
+      partialReduceByKeyVertex, reduceByKeyVertex)
     newEdge.setProperty(
       EncoderProperty.of(new SparkEncoderFactory[Tuple2[K, V]](self.serializer))
         .asInstanceOf[EdgeExecutionProperty[_ <: Serializable]])
@@ -178,6 +178,28 @@ final class RDD[T: ClassTag] protected[rdd] (
     new RDD[U](_sc, builder.buildWithoutSourceSinkCheck, flatMapVertex, Option.empty)
   }
 
+  /**
+   * Return a new RDD by applying a function to each partition of this RDD,
+   * while tracking the index of the original partition.
+   * The partition is streamed to the function, rather than being materialized.
+   */
+  protected[rdd] def mapPartitionsWithIndex[U: ClassTag](
+      javaFunc: Function2[Integer, util.Iterator[T], util.Iterator[U]]): RDD[U] = {
+    val builder = new DAGBuilder[IRVertex, IREdge](dag)
+
+    val mapPartitionsVertex = new OperatorVertex(new MapPartitionsTransform[T, U](javaFunc))
+    builder.addVertex(mapPartitionsVertex, loopVertexStack)
+
+    val newEdge = new IREdge(SparkFrontendUtils.getEdgeCommunicationPattern(lastVertex, mapPartitionsVertex),
+      lastVertex, mapPartitionsVertex)
+    newEdge.setProperty(encoderProperty)
+    newEdge.setProperty(decoderProperty)
+    newEdge.setProperty(keyExtractorProperty)
+    builder.connectVertices(newEdge)
+
+    new RDD[U](_sc, builder.buildWithoutSourceSinkCheck, mapPartitionsVertex, Option.empty)
+  }
+
   /////////////// ACTIONS ///////////////
 
   /**
@@ -206,8 +228,9 @@ final class RDD[T: ClassTag] protected[rdd] (
     newEdge.setProperty(keyExtractorProperty)
 
     builder.connectVertices(newEdge)
-    ReduceTransform.reduceIterator(
-      SparkFrontendUtils.collect(dag, loopVertexStack, lastVertex, serializer).iterator(), javaFunc)
+    // Each task reduces its own elements, so only one partial result per task is collected and reduced here.
+    ReduceTransform.reduceIterator(SparkFrontendUtils.collect(
+      builder.buildWithoutSourceSinkCheck, loopVertexStack, reduceVertex, serializer).iterator(), javaFunc)
   }
 
   /**
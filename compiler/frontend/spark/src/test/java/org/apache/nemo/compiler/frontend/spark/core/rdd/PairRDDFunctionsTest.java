@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.spark.core.rdd;
+
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.KeyExtractorProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.compiler.frontend.spark.transform.PartialReduceByKeyTransform;
+import org.apache.nemo.compiler.frontend.spark.transform.ReduceByKeyTransform;
+import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import scala.Tuple2;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the IR DAGs built by {@link PairRDDFunctions}.
+ */
+public final class PairRDDFunctionsTest {
+  private SparkContext sparkContext;
+
+  @Before
+  public void setUp() {
+    sparkContext = new SparkContext(new SparkConf()
+      .setMaster("local[1]")
+      .setAppName(PairRDDFunctionsTest.class.getSimpleName())
+      .set("spark.ui.enabled", "false"));
+  }
+
+  @After
+  public void tearDown() {
+    sparkContext.stop();
+  }
+
+  /**
+   * Tests that reduceByKey reduces the values within each task before the shuffle edge,
+   * and reduces the partial results after it.
+   */
+  @Test
+  public void testReduceByKeyDAG() {
+    final SparkJavaPairRDD<String, Integer> pairs = SparkJavaRDD.of(sparkContext, Arrays.asList("a", "b", "a"), 2)
+      .mapToPair(word -> new Tuple2<>(word, 1));
+    final RDD<Tuple2<String, Integer>> reduced = pairs.reduceByKey(Integer::sum).rdd();
+    final DAG<IRVertex, IREdge> dag = reduced.dag();
+
+    // map -(one-to-one)-> partial reduceByKey -(shuffle)-> reduceByKey
+    final IRVertex reduceByKeyVertex = reduced.lastVertex();
+    assertTrue(((OperatorVertex) reduceByKeyVertex).getTransform() instanceof ReduceByKeyTransform);
+    final IREdge shuffleEdge = getSingleIncomingEdge(dag, reduceByKeyVertex);
+    assertEquals(CommunicationPatternProperty.Value.SHUFFLE,
+      shuffleEdge.getPropertyValue(CommunicationPatternProperty.class).get());
+    assertTrue(shuffleEdge.getPropertyValue(KeyExtractorProperty.class).isPresent());
+
+    final IRVertex partialVertex = shuffleEdge.getSrc();
+    assertTrue(((OperatorVertex) partialVertex).getTransform() instanceof PartialReduceByKeyTransform);
+    final IREdge partialEdge = getSingleIncomingEdge(dag, partialVertex);
+    assertEquals(CommunicationPatternProperty.Value.ONE_TO_ONE,
+      partialEdge.getPropertyValue(CommunicationPatternProperty.class).get());
+    assertEquals(pairs.rdd().lastVertex(), partialEdge.getSrc());
+    assertEquals(1, dag.getOutgoingEdgesOf(partialVertex).size());
+  }
+
+  private static IREdge getSingleIncomingEdge(final DAG<IRVertex, IREdge> dag, final IRVertex vertex) {
+    final List<IREdge> incomingEdges = dag.getIncomingEdgesOf(vertex);
+    assertEquals(1, incomingEdges.size());
+    return incomingEdges.get(0);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.spark.transform;
+
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.punctuation.Watermark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test output collector that collects the outputs and the watermarks in lists.
+ *
+ * @param <O> output type.
+ */
+class ListOutputCollector<O> implements OutputCollector<O> {
+  final List<O> outputs = new ArrayList<>();
+  final List<Watermark> watermarks = new ArrayList<>();
+
+  @Override
+  public void emit(final O output) {
+    outputs.add(output);
+  }
+
+  @Override
+  public void emitWatermark(final Watermark watermark) {
+    watermarks.add(watermark);
+  }
+
+  @Override
+  public <T> void emit(final String dstVertexId, final T output) {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.spark.transform;
+
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.punctuation.Watermark;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link MapPartitionsTransform}.
+ */
+public final class MapPartitionsTransformTest {
+  private static final int TASK_INDEX = 3;
+  private static final int NUM_ELEMENTS = 10000;
+
+  /**
+   * Tests that the user function consumes the input as it arrives, and the outputs are emitted in order.
+   */
+  @Test(timeout = 10000)
+  public void testStreaming() {
+    final MapPartitionsTransform<Integer, Integer> transform = new MapPartitionsTransform<>((index, iterator) ->
+      new Iterator<Integer>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+          return iterator.next() + index;
+        }
+      });
+    final ListOutputCollector<Integer> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mockContext(), outputCollector);
+
+    // The input is larger than the queues, so the outputs are emitted before the input ends.
+    IntStream.range(0, NUM_ELEMENTS).forEach(transform::onData);
+    assertTrue(outputCollector.outputs.size() > 0);
+    transform.onWatermark(new Watermark(0));
+    assertEquals(Collections.singletonList(new Watermark(0)), outputCollector.watermarks);
+
+    transform.close();
+    assertEquals(IntStream.range(0, NUM_ELEMENTS).map(i -> i + TASK_INDEX).boxed().collect(Collectors.toList()),
+      outputCollector.outputs);
+  }
+
+  /**
+   * Tests that the rest of the input is dropped after the user function returns without consuming it.
+   */
+  @Test(timeout = 10000)
+  public void testEarlyExit() {
+    final MapPartitionsTransform<Integer, Integer> transform = new MapPartitionsTransform<>((index, iterator) ->
+      Arrays.asList(iterator.next(), iterator.next()).iterator());
+    final ListOutputCollector<Integer> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mockContext(), outputCollector);
+
+    IntStream.range(0, NUM_ELEMENTS).forEach(transform::onData);
+    transform.close();
+    assertEquals(Arrays.asList(0, 1), outputCollector.outputs);
+  }
+
+  /**
+   * Tests that the exceptions and errors thrown by the user function are rethrown on the task executor thread.
+   */
+  @Test(timeout = 10000)
+  public void testFailure() {
+    final Throwable[] failures = {new IllegalStateException("exception"), new AssertionError("error")};
+    for (final Throwable failure : failures) {
+      final MapPartitionsTransform<Integer, Integer> transform = new MapPartitionsTransform<>((index, iterator) -> {
+        while (iterator.hasNext()) {
+          if (iterator.next() == 2) {
+            if (failure instanceof Error) {
+              throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+          }
+        }
+        return Collections.emptyIterator();
+      });
+      transform.prepare(mockContext(), new ListOutputCollector<>());
+      try {
+        IntStream.range(0, NUM_ELEMENTS).forEach(transform::onData);
+        transform.close();
+        fail("The failure of the user function should be rethrown");
+      } catch (final RuntimeException e) {
+        assertSame(failure, e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Tests that null elements are passed to the user function and emitted.
+   */
+  @Test(timeout = 10000)
+  public void testNullElements() {
+    final MapPartitionsTransform<String, String> transform =
+      new MapPartitionsTransform<>((index, iterator) -> iterator);
+    final ListOutputCollector<String> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mockContext(), outputCollector);
+
+    final List<String> input = Arrays.asList("a", null, "b", null);
+    input.forEach(transform::onData);
+    transform.close();
+    assertEquals(input, outputCollector.outputs);
+  }
+
+  /**
+   * Tests that the user function waiting for the input is interrupted, when the task executor thread fails.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testCancel() throws Exception {
+    final CountDownLatch funcExited = new CountDownLatch(1);
+    final MapPartitionsTransform<Integer, Integer> transform = new MapPartitionsTransform<>((index, iterator) -> {
+      try {
+        while (iterator.hasNext()) {
+          iterator.next();
+        }
+      } finally {
+        funcExited.countDown();
+      }
+      return Collections.emptyIterator();
+    });
+    final ListOutputCollector<Integer> outputCollector = new ListOutputCollector<Integer>() {
+      @Override
+      public void emitWatermark(final Watermark watermark) {
+        throw new IllegalStateException("Downstream failure");
+      }
+    };
+    transform.prepare(mockContext(), outputCollector);
+
+    transform.onData(0);
+    try {
+      transform.onWatermark(new Watermark(0));
+      fail("The failure of the downstream should be rethrown");
+    } catch (final IllegalStateException e) {
+      assertTrue(funcExited.await(5, TimeUnit.SECONDS));
+    }
+  }
+
+  /**
+   * Tests that the user function waiting for the input is interrupted, when the task stops without closing
+   * the transform, e.g., because another transform of the task failed.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testCancelOnSiblingFailure() throws Exception {
+    final CountDownLatch funcExited = new CountDownLatch(1);
+    final MapPartitionsTransform<Integer, Integer> transform = new MapPartitionsTransform<>((index, iterator) -> {
+      try {
+        while (iterator.hasNext()) {
+          iterator.next();
+        }
+      } finally {
+        funcExited.countDown();
+      }
+      return Collections.emptyIterator();
+    });
+    transform.prepare(mockContext(), new ListOutputCollector<>());
+
+    transform.onData(0);
+    assertFalse(funcExited.await(100, TimeUnit.MILLISECONDS));
+    transform.cancel();
+    assertTrue(funcExited.await(5, TimeUnit.SECONDS));
+  }
+
+  private static Transform.Context mockContext() {
+    final Transform.Context context = mock(Transform.Context.class);
+    when(context.getTaskIndex()).thenReturn(TASK_INDEX);
+    return context;
+  }
+}
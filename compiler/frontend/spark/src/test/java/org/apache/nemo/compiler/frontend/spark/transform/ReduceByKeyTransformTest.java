@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.spark.transform;
+
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.spark.api.java.function.Function2;
+import org.junit.Test;
+import scala.Tuple2;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link PartialReduceByKeyTransform} and {@link ReduceByKeyTransform}.
+ */
+public final class ReduceByKeyTransformTest {
+  private static final Function2<Integer, Integer, Integer> SUM = Integer::sum;
+
+  /**
+   * Tests that the partial transform emits a single reduced value per key, when closed.
+   */
+  @Test
+  public void testPartialReduceByKey() {
+    final PartialReduceByKeyTransform<String, Integer> transform = new PartialReduceByKeyTransform<>(SUM);
+    final ListOutputCollector<Tuple2<String, Integer>> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+
+    pairs("a", 1, "b", 2, "a", 3, "c", 4, "a", 5).forEach(transform::onData);
+    assertTrue(outputCollector.outputs.isEmpty());
+
+    transform.close();
+    assertEquals(3, outputCollector.outputs.size());
+    assertEquals(toMap(pairs("a", 9, "b", 2, "c", 4)), toMap(outputCollector.outputs));
+  }
+
+  /**
+   * Tests that reducing the partial results of the tasks after the shuffle
+   * gives the same result as reducing all the values at once.
+   */
+  @Test
+  public void testPartialAndFinalReduceByKey() {
+    final List<Tuple2<String, Integer>> input = pairs("a", 1, "b", 2, "a", 3, "c", 4, "a", 5, "b", 6);
+
+    // Two tasks reduce the halves of the input.
+    final ListOutputCollector<Tuple2<String, Integer>> partialOutputCollector = new ListOutputCollector<>();
+    for (final List<Tuple2<String, Integer>> half : Arrays.asList(input.subList(0, 3), input.subList(3, 6))) {
+      final PartialReduceByKeyTransform<String, Integer> partial = new PartialReduceByKeyTransform<>(SUM);
+      partial.prepare(mock(Transform.Context.class), partialOutputCollector);
+      half.forEach(partial::onData);
+      partial.close();
+    }
+    assertEquals(5, partialOutputCollector.outputs.size());
+
+    final ReduceByKeyTransform<String, Integer> transform = new ReduceByKeyTransform<>(SUM);
+    final ListOutputCollector<Tuple2<String, Integer>> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    partialOutputCollector.outputs.forEach(transform::onData);
+    transform.close();
+    assertEquals(3, outputCollector.outputs.size());
+    assertEquals(toMap(pairs("a", 9, "b", 8, "c", 4)), toMap(outputCollector.outputs));
+  }
+
+  /**
+   * Tests that nothing is emitted for an empty input.
+   */
+  @Test
+  public void testEmpty() {
+    final ReduceByKeyTransform<String, Integer> transform = new ReduceByKeyTransform<>(SUM);
+    final ListOutputCollector<Tuple2<String, Integer>> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+    transform.close();
+    assertTrue(outputCollector.outputs.isEmpty());
+  }
+
+  /**
+   * @param keysAndValues the keys and the values, alternately.
+   * @return the key-value pairs.
+   */
+  private static List<Tuple2<String, Integer>> pairs(final Object... keysAndValues) {
+    final Tuple2<String, Integer>[] pairs = new Tuple2[keysAndValues.length / 2];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = new Tuple2<>((String) keysAndValues[2 * i], (Integer) keysAndValues[2 * i + 1]);
+    }
+    return Arrays.asList(pairs);
+  }
+
+  private static Map<String, Integer> toMap(final List<Tuple2<String, Integer>> pairs) {
+    final Map<String, Integer> map = new HashMap<>();
+    pairs.forEach(pair -> map.put(pair._1, pair._2));
+    return map;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.spark.transform;
+
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.spark.api.java.function.Function2;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link ReduceTransform}.
+ */
+public final class ReduceTransformTest {
+
+  /**
+   * Tests that the elements are folded as they arrive, and the reduced element is emitted once when closed.
+   */
+  @Test
+  public void testReduce() {
+    final AtomicInteger numOfCalls = new AtomicInteger(0);
+    final ReduceTransform<Integer> transform = new ReduceTransform<>((x, y) -> {
+      numOfCalls.incrementAndGet();
+      return x + y;
+    });
+    final ListOutputCollector<Integer> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+
+    Arrays.asList(1, null, 2, 3, null, 4).forEach(transform::onData);
+    transform.onWatermark(new Watermark(0));
+    assertTrue(outputCollector.outputs.isEmpty());
+    assertEquals(Collections.singletonList(new Watermark(0)), outputCollector.watermarks);
+
+    transform.close();
+    assertEquals(Collections.singletonList(10), outputCollector.outputs);
+    // The function is not applied to the first element.
+    assertEquals(3, numOfCalls.get());
+  }
+
+  /**
+   * Tests that nothing is emitted for an empty input.
+   */
+  @Test
+  public void testEmpty() {
+    final ReduceTransform<Integer> transform = new ReduceTransform<>(Integer::sum);
+    final ListOutputCollector<Integer> outputCollector = new ListOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+
+    transform.onData(null);
+    transform.close();
+    assertTrue(outputCollector.outputs.isEmpty());
+  }
+
+  /**
+   * Tests reducing the partial results of the tasks.
+   */
+  @Test
+  public void testReduceIterator() {
+    final Function2<String, String, String> concat = (x, y) -> x + y;
+    assertEquals("abc", ReduceTransform.reduceIterator(Arrays.asList("a", "b", "c").iterator(), concat));
+    assertEquals("a", ReduceTransform.reduceIterator(Collections.singletonList("a").iterator(), concat));
+    assertNull(ReduceTransform.reduceIterator(Collections.<String>emptyIterator(), concat));
+  }
+
+  /**
+   * Tests that a failure of the function is rethrown.
+   */
+  @Test(expected = RuntimeException.class)
+  public void testFailure() {
+    final ReduceTransform<Integer> transform = new ReduceTransform<>((x, y) -> {
+      throw new Exception("Fail");
+    });
+    transform.prepare(mock(Transform.Context.class), new ListOutputCollector<>());
+    transform.onData(1);
+    transform.onData(2); // checked by 'expected = RuntimeException.class'
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.optimizer.pass.compiletime.annotating;
+
+import org.apache.nemo.common.ir.IRDAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataFlowProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.ShuffleMergeProperty;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.Requires;
+
+/**
+ * A pass for merging the outputs of the tasks on the push shuffle edges that use local files.
+ * The sender tasks push the partitions of their outputs to the executors of the receiver tasks,
+ * which are scheduled along with the sender tasks, and each receiver task reads a single merged block
+ * from its own executor instead of a small block per sender task.
+ * Only the edges with at least a given number of sender tasks are merged, where the small reads outweigh the pushes.
+ */
+@Annotates(ShuffleMergeProperty.class)
+@Requires({CommunicationPatternProperty.class, DataFlowProperty.class, DataStoreProperty.class,
+  ParallelismProperty.class})
+public final class ShuffleMergePass extends AnnotatingPass {
+  private static final int DEFAULT_MIN_NUM_SRC_TASKS = 100;
+
+  private final int minNumOfSrcTasks;
+
+  /**
+   * Default constructor.
+   */
+  public ShuffleMergePass() {
+    this(DEFAULT_MIN_NUM_SRC_TASKS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param minNumOfSrcTasks the minimum parallelism of the source vertex of an edge to merge.
+   */
+  public ShuffleMergePass(final int minNumOfSrcTasks) {
+    super(ShuffleMergePass.class);
+    this.minNumOfSrcTasks = minNumOfSrcTasks;
+  }
+
+  @Override
+  public IRDAG apply(final IRDAG dag) {
+    dag.getVertices().forEach(vertex -> dag.getIncomingEdgesOf(vertex).forEach(edge -> {
+      if (isMergeable(edge)) {
+        edge.setProperty(ShuffleMergeProperty.of(true));
+      }
+    }));
+    return dag;
+  }
+
+  /**
+   * @param edge to check.
+   * @return whether the outputs on the edge are worth merging.
+   */
+  private boolean isMergeable(final IREdge edge) {
+    return CommunicationPatternProperty.Value.SHUFFLE
+      .equals(edge.getPropertyValue(CommunicationPatternProperty.class).get())
+      && DataFlowProperty.Value.PUSH.equals(edge.getPropertyValue(DataFlowProperty.class)
+      .orElse(DataFlowProperty.Value.PULL))
+      && edge.getPropertyValue(DataStoreProperty.class)
+      .map(DataStoreProperty.Value.LOCAL_FILE_STORE::equals).orElse(false)
+      && edge.getSrc().getPropertyValue(ParallelismProperty.class).orElse(0) >= minNumOfSrcTasks;
+  }
+}
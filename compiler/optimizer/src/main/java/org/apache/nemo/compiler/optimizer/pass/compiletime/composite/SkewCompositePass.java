@@ -31,8 +31,17 @@ public final class SkewCompositePass extends CompositePass {
    * Default constructor.
    */
   public SkewCompositePass() {
+    this(false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param useSketch whether to collect bounded-size sketches instead of exact counts of each key.
+   */
+  public SkewCompositePass(final boolean useSketch) {
     super(Arrays.asList(
-      new SkewReshapingPass(),
+      new SkewReshapingPass(useSketch),
       new SkewAnnotatingPass()
     ));
   }
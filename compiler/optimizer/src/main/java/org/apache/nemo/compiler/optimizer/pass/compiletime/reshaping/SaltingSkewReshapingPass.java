@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.optimizer.pass.compiletime.reshaping;
+
+import org.apache.nemo.common.KeyExtractor;
+import org.apache.nemo.common.Util;
+import org.apache.nemo.common.dag.DAGBuilder;
+import org.apache.nemo.common.dag.Edge;
+import org.apache.nemo.common.ir.IRDAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.KeyExtractorProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysPropertyValue;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.apache.nemo.common.ir.vertex.transform.PartialAggregationTransform;
+import org.apache.nemo.common.ir.vertex.utility.SamplingVertex;
+import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageAggregatorVertex;
+import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageGeneratorVertex;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.Requires;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.SkewAnnotatingPass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Pass to reshape the IR DAG for salting hot keys.
+ * <p>
+ * For each {@link PartialAggregationTransform} that consumes a oneToOne edge and feeds a shuffle edge,
+ * this pass adds a path through a vertex that merges the accumulators of each key
+ * (see {@link PartialAggregationTransform#getAccumulatorMergeTransform()}), next to the shuffle edge.
+ * The keys are routed by a {@link SaltedKeysProperty}: the accumulators of the hot keys are salted, i.e., spread over
+ * several tasks of the inserted vertex, and the downstream merges them again after the following shuffle.
+ * The other keys keep the normal hash partitioning on the original shuffle edge.
+ * <p>
+ * Before: P1 - oneToOne - partialAggregation - shuffle - finalAggregation
+ * After: P1' - P1 - oneToOne - partialAggregation - shuffle (other keys) - finalAggregation
+ *                                                 - shuffle (salted keys) - accumulatorMerge - shuffle -
+ * <p>
+ * As the keys are routed when the partial aggregation writes its output, the hot keys must be known beforehand:
+ * P1' clones P1 using SamplingVertex to collect a {@link org.apache.nemo.common.KeyFrequencySketch} of the input of
+ * the partial aggregation from sampled data, and the run-time pass salts the heavy hitters of the sketch, if any,
+ * before P1 is executed. If no key is hot, the inserted vertex receives no data.
+ */
+@Requires({CommunicationPatternProperty.class, ParallelismProperty.class})
+public final class SaltingSkewReshapingPass extends ReshapingPass {
+  private static final Logger LOG = LoggerFactory.getLogger(SaltingSkewReshapingPass.class.getName());
+  private static final float SAMPLE_RATE = 0.1f;
+
+  /**
+   * Default constructor.
+   */
+  public SaltingSkewReshapingPass() {
+    super(SaltingSkewReshapingPass.class);
+  }
+
+  @Override
+  public IRDAG apply(final IRDAG dag) {
+    final List<IRVertex> partialAggregations = dag.getTopologicalSort().stream()
+      .filter(v -> isSaltable(v, dag))
+      .collect(Collectors.toList());
+
+    for (final IRVertex partialAggregation : partialAggregations) {
+      final IREdge inputEdge = dag.getIncomingEdgesOf(partialAggregation).get(0);
+      final IREdge shuffleEdge = dag.getOutgoingEdgesOf(partialAggregation).get(0);
+
+      // Insert the accumulator merge vertex, which has the same parallelism as the destination of the shuffle.
+      final IRVertex accumulatorMerge = new OperatorVertex(
+        ((PartialAggregationTransform<?, ?>) ((OperatorVertex) partialAggregation).getTransform())
+          .getAccumulatorMergeTransform());
+      accumulatorMerge.setProperty(ParallelismProperty.of(shuffleEdge.getDst()
+        .getPropertyValue(ParallelismProperty.class).orElseThrow(IllegalStateException::new)));
+      final IREdge mergedEdge = Util.cloneEdge(shuffleEdge, accumulatorMerge, shuffleEdge.getDst());
+      final IREdge saltedEdge = Util.cloneEdge(shuffleEdge, partialAggregation, accumulatorMerge);
+      saltedEdge.setProperty(SaltedKeysProperty.of(
+        SaltedKeysPropertyValue.of(SaltedKeysPropertyValue.Route.SALTED_KEYS)));
+      shuffleEdge.setProperty(SaltedKeysProperty.of(
+        SaltedKeysPropertyValue.of(SaltedKeysPropertyValue.Route.OTHER_KEYS)));
+      LOG.info("Salting {} with {}", shuffleEdge.getId(), saltedEdge.getId());
+      dag.reshapeUnsafely(dagToReshape -> {
+        final DAGBuilder<IRVertex, IREdge> builder = new DAGBuilder<>(dagToReshape);
+        builder.addVertex(accumulatorMerge);
+        builder.connectVertices(saltedEdge);
+        builder.connectVertices(mergedEdge);
+        return builder.build();
+      });
+
+      // Compute the partition that writes the salted edge and its source vertices
+      final Set<IRVertex> partitionAll = SkewHandlingUtil.recursivelyBuildPartition(partialAggregation, dag);
+      final Set<IRVertex> partitionSources = partitionAll.stream().filter(vertexInPartition ->
+        !dag.getIncomingEdgesOf(vertexInPartition).stream()
+          .map(Edge::getSrc)
+          .anyMatch(partitionAll::contains)
+      ).collect(Collectors.toSet());
+
+      // Insert sampling vertices.
+      final Set<SamplingVertex> samplingVertices = partitionAll
+        .stream()
+        .map(vertexInPartition -> new SamplingVertex(vertexInPartition, SAMPLE_RATE))
+        .collect(Collectors.toSet());
+      dag.insert(samplingVertices, partitionSources);
+
+      // Insert the message vertices, to collect the sketch of the input of the partial aggregation
+      // from the sampling vertices. The partial aggregation does not change the keys.
+      final SamplingVertex rightBeforePartialAggregation = samplingVertices.stream()
+        .filter(sv -> sv.getOriginalVertexId().equals(inputEdge.getSrc().getId()))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+
+      // The SkewAnnotatingPass will set the number of partitions in the same way.
+      final int numOfPartitions = accumulatorMerge.getPropertyValue(ParallelismProperty.class)
+        .orElseThrow(IllegalStateException::new) * SkewAnnotatingPass.HASH_RANGE_MULTIPLIER;
+      final KeyExtractor keyExtractor = saltedEdge.getPropertyValue(KeyExtractorProperty.class)
+        .orElseThrow(IllegalStateException::new);
+      final MessageAggregatorVertex mav = new MessageAggregatorVertex<>(
+        SkewHandlingUtil.getSketchInitialState(numOfPartitions), SkewHandlingUtil.getSketchMessageAggregator());
+      dag.insert(
+        new MessageGeneratorVertex<>(SkewHandlingUtil.getSketchMessageGenerator(keyExtractor, numOfPartitions)),
+        mav,
+        SkewHandlingUtil.getSketchEncoder(saltedEdge),
+        SkewHandlingUtil.getSketchDecoder(saltedEdge),
+        rightBeforePartialAggregation,
+        inputEdge,
+        new HashSet<>(Arrays.asList(saltedEdge))); // we want to salt the accumulators, not the input
+
+      // The partition must write the salted edge after the run-time pass has chosen the salted keys.
+      dag.reshapeUnsafely(dagToReshape -> {
+        final DAGBuilder<IRVertex, IREdge> builder = new DAGBuilder<>(dagToReshape);
+        partitionSources.forEach(source -> builder.connectVertices(Util.createControlEdge(mav, source)));
+        return builder.build();
+      });
+    }
+
+    return dag;
+  }
+
+  /**
+   * @param vertex to check.
+   * @param dag    the IR DAG.
+   * @return whether the vertex partially aggregates the oneToOne output of its only parent in the same partition,
+   * for a single shuffle edge.
+   */
+  private boolean isSaltable(final IRVertex vertex, final IRDAG dag) {
+    if (!(vertex instanceof OperatorVertex)
+      || !(((OperatorVertex) vertex).getTransform() instanceof PartialAggregationTransform)) {
+      return false;
+    }
+    final List<IREdge> inEdges = dag.getIncomingEdgesOf(vertex);
+    final List<IREdge> outEdges = dag.getOutgoingEdgesOf(vertex);
+    return inEdges.size() == 1
+      && SkewHandlingUtil.recursivelyBuildPartition(vertex, dag).contains(inEdges.get(0).getSrc())
+      && outEdges.size() == 1
+      && CommunicationPatternProperty.Value.SHUFFLE
+      .equals(outEdges.get(0).getPropertyValue(CommunicationPatternProperty.class).orElse(null))
+      && outEdges.get(0).getPropertyValue(KeyExtractorProperty.class).isPresent();
+  }
+}
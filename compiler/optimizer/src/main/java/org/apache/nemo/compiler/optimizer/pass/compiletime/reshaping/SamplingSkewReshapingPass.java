@@ -23,7 +23,6 @@ import org.apache.nemo.common.dag.Edge;
 import org.apache.nemo.common.ir.IRDAG;
 import org.apache.nemo.common.ir.edge.IREdge;
 import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
-import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.KeyExtractorProperty;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageAggregatorVertex;
@@ -78,7 +77,7 @@ public final class SamplingSkewReshapingPass extends ReshapingPass {
           e.getPropertyValue(CommunicationPatternProperty.class).get())) {
           // Compute the partition and its source vertices
           final IRVertex shuffleWriter = e.getSrc();
-          final Set<IRVertex> partitionAll = recursivelyBuildPartition(shuffleWriter, dag);
+          final Set<IRVertex> partitionAll = SkewHandlingUtil.recursivelyBuildPartition(shuffleWriter, dag);
           final Set<IRVertex> partitionSources = partitionAll.stream().filter(vertexInPartition ->
             !dag.getIncomingEdgesOf(vertexInPartition).stream()
               .map(Edge::getSrc)
@@ -124,19 +123,4 @@ public final class SamplingSkewReshapingPass extends ReshapingPass {
 
     return dag;
   }
-
-  private Set<IRVertex> recursivelyBuildPartition(final IRVertex curVertex, final IRDAG dag) {
-    final Set<IRVertex> unionSet = new HashSet<>();
-    unionSet.add(curVertex);
-    for (final IREdge inEdge : dag.getIncomingEdgesOf(curVertex)) {
-      if (CommunicationPatternProperty.Value.ONE_TO_ONE
-        .equals(inEdge.getPropertyValue(CommunicationPatternProperty.class).orElseThrow(IllegalStateException::new))
-        && DataStoreProperty.Value.MEMORY_STORE
-        .equals(inEdge.getPropertyValue(DataStoreProperty.class).orElseThrow(IllegalStateException::new))
-        && dag.getIncomingEdgesOf(curVertex).size() == 1) {
-        unionSet.addAll(recursivelyBuildPartition(inEdge.getSrc(), dag));
-      }
-    }
-    return unionSet;
-  }
 }
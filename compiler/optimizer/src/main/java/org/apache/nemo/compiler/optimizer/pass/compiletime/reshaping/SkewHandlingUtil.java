@@ -19,24 +19,41 @@
 package org.apache.nemo.compiler.optimizer.pass.compiletime.reshaping;
 
 import org.apache.nemo.common.KeyExtractor;
+import org.apache.nemo.common.KeyFrequencySketch;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.common.coder.KeyFrequencySketchDecoderFactory;
+import org.apache.nemo.common.coder.KeyFrequencySketchEncoderFactory;
 import org.apache.nemo.common.coder.LongDecoderFactory;
 import org.apache.nemo.common.coder.LongEncoderFactory;
 import org.apache.nemo.common.coder.PairDecoderFactory;
 import org.apache.nemo.common.coder.PairEncoderFactory;
+import org.apache.nemo.common.ir.IRDAG;
 import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.DecoderProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.EncoderProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.KeyDecoderProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.KeyEncoderProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageAggregatorVertex;
 import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageGeneratorVertex;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A utility class for skew handling passes.
  */
 final class SkewHandlingUtil {
+  private static final int SKETCH_DEPTH = 4;
+  private static final int SKETCH_MIN_WIDTH = 2048;
+  private static final int SKETCH_NUM_HEAVY_HITTERS = 100;
+  // The generator keeps its sketch under this single key, so that it emits one fixed-size message per task.
+  private static final Integer SKETCH_KEY = 0;
+
   private SkewHandlingUtil() {
   }
 
@@ -66,6 +83,26 @@ final class SkewHandlingUtil {
     };
   }
 
+  static MessageAggregatorVertex.InitialStateSupplier<KeyFrequencySketch> getSketchInitialState(
+    final int numOfPartitions) {
+    return () -> KeyFrequencySketch.of(SKETCH_DEPTH, SKETCH_MIN_WIDTH, numOfPartitions, SKETCH_NUM_HEAVY_HITTERS);
+  }
+
+  static MessageGeneratorVertex.MessageGeneratorFunction<Object, Integer, KeyFrequencySketch> getSketchMessageGenerator(
+    final KeyExtractor keyExtractor, final int numOfPartitions) {
+    final MessageAggregatorVertex.InitialStateSupplier<KeyFrequencySketch> initialState =
+      getSketchInitialState(numOfPartitions);
+    return (element, dynOptData) -> {
+      dynOptData.computeIfAbsent(SKETCH_KEY, key -> initialState.get()).add(keyExtractor.extractKey(element));
+      return dynOptData;
+    };
+  }
+
+  static MessageAggregatorVertex.MessageAggregatorFunction<Integer, KeyFrequencySketch, KeyFrequencySketch>
+  getSketchMessageAggregator() {
+    return (element, aggregatedDynOptData) -> aggregatedDynOptData.merge(element.right());
+  }
+
   static EncoderProperty getEncoder(final IREdge irEdge) {
     return EncoderProperty.of(PairEncoderFactory
       .of(irEdge.getPropertyValue(KeyEncoderProperty.class)
@@ -79,4 +116,38 @@ final class SkewHandlingUtil {
           <IllegalStateException>orElseThrow(IllegalStateException::new),
         LongDecoderFactory.of()));
   }
+
+  static EncoderProperty getSketchEncoder(final IREdge irEdge) {
+    return EncoderProperty.of(PairEncoderFactory
+      .of(IntEncoderFactory.of(),
+        KeyFrequencySketchEncoderFactory.of(irEdge.getPropertyValue(KeyEncoderProperty.class)
+          .<IllegalStateException>orElseThrow(IllegalStateException::new))));
+  }
+
+  static DecoderProperty getSketchDecoder(final IREdge irEdge) {
+    return DecoderProperty.of(PairDecoderFactory
+      .of(IntDecoderFactory.of(),
+        KeyFrequencySketchDecoderFactory.of(irEdge.getPropertyValue(KeyDecoderProperty.class)
+          .<IllegalStateException>orElseThrow(IllegalStateException::new))));
+  }
+
+  /**
+   * @param curVertex the vertex to build the partition from.
+   * @param dag       the IR DAG.
+   * @return the vertices connected to the given vertex by oneToOne, in-memory edges, including the vertex itself.
+   */
+  static Set<IRVertex> recursivelyBuildPartition(final IRVertex curVertex, final IRDAG dag) {
+    final Set<IRVertex> unionSet = new HashSet<>();
+    unionSet.add(curVertex);
+    for (final IREdge inEdge : dag.getIncomingEdgesOf(curVertex)) {
+      if (CommunicationPatternProperty.Value.ONE_TO_ONE
+        .equals(inEdge.getPropertyValue(CommunicationPatternProperty.class).orElseThrow(IllegalStateException::new))
+        && DataStoreProperty.Value.MEMORY_STORE
+        .equals(inEdge.getPropertyValue(DataStoreProperty.class).orElseThrow(IllegalStateException::new))
+        && dag.getIncomingEdgesOf(curVertex).size() == 1) {
+        unionSet.addAll(recursivelyBuildPartition(inEdge.getSrc(), dag));
+      }
+    }
+    return unionSet;
+  }
 }
@@ -24,9 +24,11 @@ import org.apache.nemo.common.ir.edge.IREdge;
 import org.apache.nemo.common.ir.edge.executionproperty.AdditionalOutputTagProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.KeyExtractorProperty;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
 import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageAggregatorVertex;
 import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageGeneratorVertex;
 import org.apache.nemo.compiler.optimizer.pass.compiletime.Requires;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.SkewAnnotatingPass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,17 +42,31 @@ import java.util.stream.Collectors;
  * Pass to reshape the IR DAG for skew handling.
  * We insert a {@link MessageGeneratorVertex} for each shuffle edge,
  * and aggregate messages for multiple same-destination shuffle edges.
+ * The messages either count each key exactly, or summarize the keys with a bounded-size
+ * {@link org.apache.nemo.common.KeyFrequencySketch} whose size does not grow with the number of distinct keys.
  */
 @Requires(CommunicationPatternProperty.class)
 public final class SkewReshapingPass extends ReshapingPass {
   private static final Logger LOG = LoggerFactory.getLogger(SkewReshapingPass.class.getName());
   private static final String MAIN_OUTPUT_TAG = "MAIN_OUTPUT_TAG";
 
+  private final boolean useSketch;
+
   /**
    * Default constructor.
    */
   public SkewReshapingPass() {
+    this(false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param useSketch whether to collect bounded-size sketches instead of exact counts of each key.
+   */
+  public SkewReshapingPass(final boolean useSketch) {
     super(SkewReshapingPass.class);
+    this.useSketch = useSketch;
   }
 
   @Override
@@ -73,12 +89,24 @@ public final class SkewReshapingPass extends ReshapingPass {
         final KeyExtractor keyExtractor = representativeEdge.getPropertyValue(KeyExtractorProperty.class).get();
 
         // Insert the vertices
-        final MessageGeneratorVertex trigger = new MessageGeneratorVertex<>(
-          SkewHandlingUtil.getMessageGenerator(keyExtractor));
-        final MessageAggregatorVertex mav =
-          new MessageAggregatorVertex(HashMap::new, SkewHandlingUtil.getMessageAggregator());
-        dag.insert(trigger, mav, SkewHandlingUtil.getEncoder(representativeEdge),
-          SkewHandlingUtil.getDecoder(representativeEdge), shuffleEdgeGroup, shuffleEdgeGroup);
+        if (useSketch) {
+          // The SkewAnnotatingPass will set the number of partitions in the same way.
+          final int numOfPartitions = representativeEdge.getDst().getPropertyValue(ParallelismProperty.class)
+            .orElseThrow(IllegalStateException::new) * SkewAnnotatingPass.HASH_RANGE_MULTIPLIER;
+          final MessageGeneratorVertex trigger = new MessageGeneratorVertex<>(
+            SkewHandlingUtil.getSketchMessageGenerator(keyExtractor, numOfPartitions));
+          final MessageAggregatorVertex mav = new MessageAggregatorVertex<>(
+            SkewHandlingUtil.getSketchInitialState(numOfPartitions), SkewHandlingUtil.getSketchMessageAggregator());
+          dag.insert(trigger, mav, SkewHandlingUtil.getSketchEncoder(representativeEdge),
+            SkewHandlingUtil.getSketchDecoder(representativeEdge), shuffleEdgeGroup, shuffleEdgeGroup);
+        } else {
+          final MessageGeneratorVertex trigger = new MessageGeneratorVertex<>(
+            SkewHandlingUtil.getMessageGenerator(keyExtractor));
+          final MessageAggregatorVertex mav =
+            new MessageAggregatorVertex(HashMap::new, SkewHandlingUtil.getMessageAggregator());
+          dag.insert(trigger, mav, SkewHandlingUtil.getEncoder(representativeEdge),
+            SkewHandlingUtil.getDecoder(representativeEdge), shuffleEdgeGroup, shuffleEdgeGroup);
+        }
       }
     });
     return dag;
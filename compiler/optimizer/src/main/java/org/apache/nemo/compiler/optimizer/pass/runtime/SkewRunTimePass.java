@@ -19,19 +19,27 @@
 package org.apache.nemo.compiler.optimizer.pass.runtime;
 
 import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.KeyFrequencySketch;
 import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.ir.IRDAG;
 import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.KeyEncoderProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.PartitionSetProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.PartitionerProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysPropertyValue;
 import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
 import org.apache.nemo.common.ir.vertex.executionproperty.ResourceAntiAffinityProperty;
 import org.apache.nemo.common.partitioner.HashPartitioner;
 import org.apache.nemo.common.partitioner.Partitioner;
+import org.apache.nemo.common.partitioner.SaltedHashPartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -40,8 +48,12 @@ import java.util.stream.Collectors;
  * Using a map of key to partition size as a metric used for dynamic optimization,
  * this RunTimePass identifies a number of keys with big partition sizes(skewed key)
  * and evenly redistributes data via overwriting incoming edges of destination tasks.
+ * If the message is a {@link KeyFrequencySketch}, the partition sizes are read from the sketch as they are.
+ * If the examined edges carry the salted keys (see {@link SaltedKeysProperty}), each hot key, i.e., a heavy hitter
+ * with at least half of the ideal size per task, is salted into several partitions of the examined edges,
+ * and the other keys keep the hash partitioning on the edges from the same source that carry the other keys.
  */
-public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
+public final class SkewRunTimePass extends RunTimePass<Object> {
   private static final Logger LOG = LoggerFactory.getLogger(SkewRunTimePass.class.getName());
   private static final int DEFAULT_NUM_SKEWED_TASKS = 1;
 
@@ -56,7 +68,7 @@ public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
   }
 
   @Override
-  public IRDAG apply(final IRDAG irdag, final Message<Map<Object, Long>> message) {
+  public IRDAG apply(final IRDAG irdag, final Message<Object> message) {
     // The message was produced to examine this edge.
     final Set<IREdge> edges = message.getExaminedEdges();
     LOG.info("Examined edges {}", edges.stream().map(IREdge::getId).collect(Collectors.toList()));
@@ -70,19 +82,98 @@ public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
       .orElseThrow(IllegalStateException::new);
 
     // Compute the optimal partition distribution, using the message value.
-    final Map<Object, Long> messageValue = message.getMessageValue();
-    final Pair<PartitionSetProperty, ResourceAntiAffinityProperty> pair = analyzeMessage(
-      messageValue,
-      (HashPartitioner) Partitioner.getPartitioner(
-        representativeEdge.getExecutionProperties(), representativeEdge.getDst().getExecutionProperties()),
-      partitionerProperty.right() == PartitionerProperty.NUM_EQUAL_TO_DST_PARALLELISM
-        ? dstParallelism
-        : partitionerProperty.right(),
-      dstParallelism);
+    final Object messageValue = message.getMessageValue();
+    final int numOfPartitions = partitionerProperty.right() == PartitionerProperty.NUM_EQUAL_TO_DST_PARALLELISM
+      ? dstParallelism
+      : partitionerProperty.right();
+    if (messageValue instanceof KeyFrequencySketch
+      && representativeEdge.getPropertyValue(SaltedKeysProperty.class).isPresent()) {
+      saltHotKeys(irdag, edges, (KeyFrequencySketch) messageValue, numOfPartitions, dstParallelism);
+      return irdag;
+    }
 
-    LOG.info("Result of analysis: {}", pair);
+    final Pair<PartitionSetProperty, ResourceAntiAffinityProperty> pair;
+    if (messageValue instanceof KeyFrequencySketch) {
+      pair = analyzePartitionSizes(getPartitionSizes((KeyFrequencySketch) messageValue, numOfPartitions),
+        dstParallelism);
+    } else {
+      pair = analyzeMessage(
+        (Map<Object, Long>) messageValue,
+        (HashPartitioner) Partitioner.getPartitioner(
+          representativeEdge.getExecutionProperties(), representativeEdge.getDst().getExecutionProperties()),
+        numOfPartitions,
+        dstParallelism);
+    }
+    setPartitionSet(irdag, edges, pair);
+
+    // Return the IRDAG.
+    return irdag;
+  }
+
+  /**
+   * Salts the hot keys on the examined edges, which carry the salted keys (see {@link SaltedKeysProperty}),
+   * and sets the same salted keys on the edges from the same source that carry the other keys.
+   * The partitions of each route are redistributed according to the sizes of the keys that the route carries.
+   * If no key is hot, the edges of the salted keys keep their partitions, as they carry no data.
+   *
+   * @param irdag           the IR DAG.
+   * @param edges           the examined edges, which carry the salted keys.
+   * @param sketch          of the keys of the examined edges.
+   * @param numOfPartitions created.
+   * @param dstParallelism  of the destination vertex of the examined edges.
+   */
+  private void saltHotKeys(final IRDAG irdag,
+                           final Set<IREdge> edges,
+                           final KeyFrequencySketch sketch,
+                           final int numOfPartitions,
+                           final int dstParallelism) {
+    final IREdge representativeEdge = edges.iterator().next();
+    final Set<IREdge> otherKeyEdges = edges.stream()
+      .flatMap(edge -> irdag.getOutgoingEdgesOf(edge.getSrc()).stream())
+      .filter(edge -> edge.getPropertyValue(SaltedKeysProperty.class)
+        .map(value -> value.getRoute() == SaltedKeysPropertyValue.Route.OTHER_KEYS)
+        .orElse(false))
+      .collect(Collectors.toSet());
+
+    final List<Long> otherPartitionSizeList = getPartitionSizes(sketch, numOfPartitions);
+    final List<Long> saltedPartitionSizeList = new ArrayList<>(Collections.nCopies(numOfPartitions, 0L));
+    final Map<Object, Integer> saltedKeys =
+      saltHotKeys(sketch, otherPartitionSizeList, saltedPartitionSizeList, dstParallelism);
+    LOG.info("Salted keys: {}", saltedKeys);
+    final List<Pair<byte[], Integer>> encodedSaltedKeys = encodeKeys(saltedKeys, representativeEdge);
+    edges.forEach(edge -> edge.setPropertyPermanently(SaltedKeysProperty.of(edge
+      .getPropertyValue(SaltedKeysProperty.class).orElseThrow(IllegalStateException::new)
+      .withSaltedKeys(encodedSaltedKeys))));
+    otherKeyEdges.forEach(edge -> edge.setPropertyPermanently(SaltedKeysProperty.of(edge
+      .getPropertyValue(SaltedKeysProperty.class).orElseThrow(IllegalStateException::new)
+      .withSaltedKeys(encodedSaltedKeys))));
+
+    // The destination of the salted keys is an ancestor of the destination of the other keys.
+    if (!saltedKeys.isEmpty()) {
+      setPartitionSet(irdag, edges, analyzePartitionSizes(saltedPartitionSizeList, dstParallelism));
+    }
+    for (final IREdge otherKeyEdge : otherKeyEdges) {
+      final int otherDstParallelism = otherKeyEdge.getDst().getPropertyValue(ParallelismProperty.class)
+        .orElseThrow(IllegalStateException::new);
+      if (!otherKeyEdge.getPropertyValue(PartitionerProperty.class).equals(
+        representativeEdge.getPropertyValue(PartitionerProperty.class))) {
+        throw new IllegalStateException("Different partitions of " + otherKeyEdge.getId() + " and "
+          + representativeEdge.getId());
+      }
+      setPartitionSet(irdag, Collections.singleton(otherKeyEdge),
+        analyzePartitionSizes(otherPartitionSizeList, otherDstParallelism));
+    }
+  }
 
-    // Set the partitionSet property
+  /**
+   * @param irdag the IR DAG.
+   * @param edges to set the partition set of.
+   * @param pair  the partition set of the edges and the resource anti-affinity of their destination.
+   */
+  private void setPartitionSet(final IRDAG irdag,
+                               final Set<IREdge> edges,
+                               final Pair<PartitionSetProperty, ResourceAntiAffinityProperty> pair) {
+    LOG.info("Result of analysis: {}", pair);
     edges.forEach(edge -> {
       // PartitionSet property.
       edge.setPropertyPermanently(pair.left());
@@ -91,9 +182,27 @@ public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
       edge.getDst().setPropertyPermanently(pair.right());
       irdag.getDescendants(edge.getDst().getId()).forEach(v -> v.setProperty(pair.right()));
     });
+  }
 
-    // Return the IRDAG.
-    return irdag;
+  /**
+   * @param keys to encode, and their numbers of salts.
+   * @param edge of which the key encoder encodes the keys.
+   * @return the encoded keys, and their numbers of salts.
+   */
+  private List<Pair<byte[], Integer>> encodeKeys(final Map<Object, Integer> keys, final IREdge edge) {
+    final EncoderFactory keyEncoderFactory = edge.getPropertyValue(KeyEncoderProperty.class)
+      .orElseThrow(IllegalStateException::new);
+    final List<Pair<byte[], Integer>> encodedKeys = new ArrayList<>(keys.size());
+    for (final Map.Entry<Object, Integer> entry : keys.entrySet()) {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try {
+        keyEncoderFactory.create(outputStream).encode(entry.getKey());
+      } catch (final IOException e) {
+        throw new IllegalStateException("Failed to encode the salted key " + entry.getKey(), e);
+      }
+      encodedKeys.add(Pair.of(outputStream.toByteArray(), entry.getValue()));
+    }
+    return encodedKeys;
   }
 
   /**
@@ -114,7 +223,7 @@ public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
                                                                           final int numOfPartitions,
                                                                           final int dstParallelism) {
     final Map<Integer, Long> partitionKeyToPartitionCount = new HashMap<>();
-    int lastKey = numOfPartitions - 1;
+    final int lastKey = numOfPartitions - 1;
     // Aggregate the counts per each "partition key" assigned by Partitioner.
 
     for (final Map.Entry<Object, Long> entry : keyToCountMap.entrySet()) {
@@ -129,6 +238,20 @@ public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
       partitionSizeList.add(countsForKey);
     }
 
+    return analyzePartitionSizes(partitionSizeList, dstParallelism);
+  }
+
+  /**
+   * Evenly distribute the partitions of the given sizes to the destination tasks.
+   *
+   * @param partitionSizeList the size of each partition, indexed by the partition key.
+   * @param dstParallelism    of the destination vertex.
+   * @return an optimal PartitionSetProperty and a ResourceAntiAffinityProperty.
+   */
+  Pair<PartitionSetProperty, ResourceAntiAffinityProperty> analyzePartitionSizes(final List<Long> partitionSizeList,
+                                                                                 final int dstParallelism) {
+    final int lastKey = partitionSizeList.size() - 1;
+
     // Identify skewed sizes, which is top numSkewedKeys number of keys.
     final List<Long> topNSizes = getTopNLargeKeySizes(partitionSizeList);
     LOG.info("Top {} sizes: {}", numSkewedKeys, topNSizes);
@@ -195,6 +318,71 @@ public final class SkewRunTimePass extends RunTimePass<Map<Object, Long>> {
   }
 
 
+  /**
+   * Reads the partition sizes from a sketch.
+   *
+   * @param sketch          the sketch.
+   * @param numOfPartitions created.
+   * @return the size of each partition, indexed by the partition key.
+   */
+  List<Long> getPartitionSizes(final KeyFrequencySketch sketch, final int numOfPartitions) {
+    final long[] partitionSizes = sketch.getPartitionSizes();
+    if (partitionSizes.length != numOfPartitions) {
+      throw new IllegalStateException("Sketch of " + partitionSizes.length + " partitions, not " + numOfPartitions);
+    }
+    LOG.info("Heavy hitters: {}", sketch.getHeavyHitters());
+    return Arrays.stream(partitionSizes).boxed().collect(Collectors.toList());
+  }
+
+  /**
+   * Salts the hot keys of a sketch, and moves the size of each hot key from its partition of the other keys
+   * to its salted partitions of the salted keys.
+   * A hot key is salted into enough partitions for each of them to hold about half of the ideal size per task,
+   * but into no more partitions than the destination tasks.
+   *
+   * @param sketch                  the sketch.
+   * @param partitionSizeList       the size of each partition of the other keys, indexed by the partition key,
+   *                                which is initially the size of each partition of all keys, to update.
+   * @param saltedPartitionSizeList the size of each partition of the salted keys, indexed by the partition key,
+   *                                to update.
+   * @param dstParallelism          of the destination vertex.
+   * @return the salted keys, and their numbers of salts.
+   */
+  Map<Object, Integer> saltHotKeys(final KeyFrequencySketch sketch,
+                                   final List<Long> partitionSizeList,
+                                   final List<Long> saltedPartitionSizeList,
+                                   final int dstParallelism) {
+    final Map<Object, Integer> saltedKeys = new HashMap<>();
+    final int numOfPartitions = partitionSizeList.size();
+    final long idealSizePerTask = partitionSizeList.stream().mapToLong(n -> n).sum() / dstParallelism;
+    final int maxNumOfSalts = Math.min(dstParallelism, numOfPartitions);
+    if (maxNumOfSalts < 2 || idealSizePerTask == 0) {
+      return saltedKeys;
+    }
+
+    for (final Map.Entry<Object, Long> heavyHitter : sketch.getHeavyHitters().entrySet()) {
+      final long count = heavyHitter.getValue();
+      if (count < idealSizePerTask / 2) {
+        continue;
+      }
+      final int partitionKey = sketch.getPartition(heavyHitter.getKey());
+
+      final int numOfSalts = (int) Math.min(maxNumOfSalts,
+        Math.max(2, (2 * count + idealSizePerTask - 1) / idealSizePerTask));
+      // The count is an estimate, which may exceed the size of its partition.
+      final long sizeToMove = Math.min(count, partitionSizeList.get(partitionKey));
+      partitionSizeList.set(partitionKey, partitionSizeList.get(partitionKey) - sizeToMove);
+      for (int salt = 0; salt < numOfSalts; salt++) {
+        final int saltedPartitionKey =
+          SaltedHashPartitioner.getSaltedPartition(partitionKey, salt, numOfSalts, numOfPartitions);
+        final long saltedSize = sizeToMove / numOfSalts + (salt < sizeToMove % numOfSalts ? 1 : 0);
+        saltedPartitionSizeList.set(saltedPartitionKey, saltedPartitionSizeList.get(saltedPartitionKey) + saltedSize);
+      }
+      saltedKeys.put(heavyHitter.getKey(), numOfSalts);
+    }
+    return saltedKeys;
+  }
+
   private List<Long> getTopNLargeKeySizes(final List<Long> partitionSizeList) {
     return partitionSizeList.stream()
       .sorted(Comparator.reverseOrder())
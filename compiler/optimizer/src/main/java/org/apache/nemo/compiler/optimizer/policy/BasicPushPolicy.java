@@ -22,6 +22,7 @@ import org.apache.nemo.common.ir.IRDAG;
 import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.AggressiveSpeculativeCloningPass;
 import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.DefaultScheduleGroupPass;
 import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.ShuffleEdgePushPass;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.ShuffleMergePass;
 import org.apache.nemo.compiler.optimizer.pass.runtime.Message;
 
 /**
@@ -33,6 +34,7 @@ public final class BasicPushPolicy implements Policy {
     new PolicyBuilder()
       .registerCompileTimePass(new AggressiveSpeculativeCloningPass())
       .registerCompileTimePass(new ShuffleEdgePushPass())
+      .registerCompileTimePass(new ShuffleMergePass())
       .registerCompileTimePass(new DefaultScheduleGroupPass());
   private final Policy policy;
 
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link CombineFnPartialTransform}.
+ */
+public final class CombineFnPartialTransformTest {
+
+  /**
+   * Sums the inputs into an immutable accumulator, so the accumulator returned by addInput has to be kept.
+   */
+  private static final class ImmutableSumFn extends Combine.CombineFn<Integer, Integer, Integer> {
+    @Override
+    public Integer createAccumulator() {
+      return 0;
+    }
+
+    @Override
+    public Integer addInput(final Integer accum, final Integer input) {
+      return accum + input;
+    }
+
+    @Override
+    public Integer mergeAccumulators(final Iterable<Integer> accums) {
+      int merged = 0;
+      for (final Integer accum : accums) {
+        merged += accum;
+      }
+      return merged;
+    }
+
+    @Override
+    public Integer extractOutput(final Integer accum) {
+      return accum;
+    }
+  }
+
+  /**
+   * Tests that the inputs of a key are accumulated into the accumulator returned by addInput.
+   */
+  @Test
+  public void testImmutableAccumulator() {
+    final CombineFnPartialTransform<String, Integer, Integer> transform =
+      new CombineFnPartialTransform<>(new ImmutableSumFn());
+    final TestOutputCollector<KV<String, Integer>> outputCollector = new TestOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+
+    Arrays.asList(KV.of("a", 1), KV.of("b", 2), KV.of("a", 3), KV.of("a", 4))
+      .forEach(kv -> transform.onData(WindowedValue.valueInGlobalWindow(kv)));
+    transform.close();
+
+    final Map<String, Integer> keyToAccumulator = new HashMap<>();
+    outputCollector.getOutput().forEach(output ->
+      keyToAccumulator.put(output.getValue().getKey(), output.getValue().getValue()));
+    assertEquals(2, outputCollector.getOutput().size());
+    assertEquals(8, (int) keyToAccumulator.get("a"));
+    assertEquals(2, (int) keyToAccumulator.get("b"));
+  }
+
+  /**
+   * Tests that the inputs of a key are accumulated into a mutable accumulator.
+   */
+  @Test
+  public void testMutableAccumulator() {
+    final CombineFnPartialTransform<String, Integer, CombineFnTest.CountFn.Accum> transform =
+      new CombineFnPartialTransform<>(new CombineFnTest.CountFn());
+    final TestOutputCollector<KV<String, CombineFnTest.CountFn.Accum>> outputCollector = new TestOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+
+    Arrays.asList(KV.of("a", 1), KV.of("b", 2), KV.of("a", 3), KV.of("a", 4))
+      .forEach(kv -> transform.onData(WindowedValue.valueInGlobalWindow(kv)));
+    transform.close();
+
+    final Map<String, Integer> keyToSum = new HashMap<>();
+    outputCollector.getOutput().forEach(output ->
+      keyToSum.put(output.getValue().getKey(), output.getValue().getValue().sum));
+    assertEquals(2, outputCollector.getOutput().size());
+    assertEquals(8, (int) keyToSum.get("a"));
+    assertEquals(2, (int) keyToSum.get("b"));
+  }
+
+  /**
+   * Tests that the accumulator merge transform merges the accumulators of each key.
+   */
+  @Test
+  public void testAccumulatorMerge() {
+    final CombineFnMergeTransform<String, Integer> transform =
+      new CombineFnPartialTransform<String, Integer, Integer>(new ImmutableSumFn()).getAccumulatorMergeTransform();
+    final TestOutputCollector<KV<String, Integer>> outputCollector = new TestOutputCollector<>();
+    transform.prepare(mock(Transform.Context.class), outputCollector);
+
+    Arrays.asList(KV.of("a", 1), KV.of("b", 2), KV.of("a", 3), KV.of("a", 4))
+      .forEach(kv -> transform.onData(WindowedValue.valueInGlobalWindow(kv)));
+    transform.close();
+
+    final Map<String, Integer> keyToAccumulator = new HashMap<>();
+    outputCollector.getOutput().forEach(output ->
+      keyToAccumulator.put(output.getValue().getKey(), output.getValue().getValue()));
+    assertEquals(2, outputCollector.getOutput().size());
+    assertEquals(8, (int) keyToAccumulator.get("a"));
+    assertEquals(2, (int) keyToAccumulator.get("b"));
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import junit.framework.TestCase;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.apache.beam.sdk.values.KV;
+import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.mockito.Mockito.mock;
+
+public class GroupByKeyTransformTest extends TestCase {
+  private static final int NUM_KEYS = 100;
+  private static final int NUM_VALUES_PER_KEY = 50;
+
+  private Map<String, List<Integer>> runGroupByKey(
+    final GroupByKeyTransform<WindowedValue<KV<String, Integer>>> gbk) {
+    final TestOutputCollector<KV<Object, List>> oc = new TestOutputCollector<>();
+    gbk.prepare(mock(Transform.Context.class), (TestOutputCollector) oc);
+
+    for (int i = 0; i < NUM_VALUES_PER_KEY; i++) {
+      for (int key = 0; key < NUM_KEYS; key++) {
+        gbk.onData(WindowedValue.valueInGlobalWindow(KV.of("key" + key, i)));
+      }
+    }
+    gbk.close();
+
+    final Map<String, List<Integer>> result = new HashMap<>();
+    for (final WindowedValue<KV<Object, List>> output : oc.getOutput()) {
+      final KV<Object, List> kv = output.getValue();
+      // Each key must be emitted only once
+      assertNull(result.put((String) kv.getKey(), new ArrayList<Integer>(kv.getValue())));
+    }
+    return result;
+  }
+
+  private void checkGrouped(final Map<String, List<Integer>> result) {
+    assertEquals(NUM_KEYS, result.size());
+    for (int key = 0; key < NUM_KEYS; key++) {
+      final List<Integer> values = result.get("key" + key);
+      assertNotNull(values);
+      Collections.sort(values);
+      assertEquals(NUM_VALUES_PER_KEY, values.size());
+      for (int i = 0; i < NUM_VALUES_PER_KEY; i++) {
+        assertEquals(i, (int) values.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testGroupInMemory() {
+    final GroupByKeyTransform<WindowedValue<KV<String, Integer>>> gbk =
+      new GroupByKeyTransform<>(KvCoder.of(StringUtf8Coder.of(), VarIntCoder.of()), 1024 * 1024);
+    checkGrouped(runGroupByKey(gbk));
+    assertEquals(0, gbk.getNumSpills());
+  }
+
+  @Test
+  public void testGroupLargerThanMemoryBudget() {
+    // The input is around 50KB, which exceeds the budget many times
+    final GroupByKeyTransform<WindowedValue<KV<String, Integer>>> gbk =
+      new GroupByKeyTransform<>(KvCoder.of(StringUtf8Coder.of(), VarIntCoder.of()), 1024);
+    checkGrouped(runGroupByKey(gbk));
+    assertTrue(gbk.getNumSpills() > 1);
+    assertTrue(gbk.getNumSpilledBytes() > 0);
+  }
+}
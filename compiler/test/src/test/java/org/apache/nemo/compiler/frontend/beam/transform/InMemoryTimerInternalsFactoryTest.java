@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.frontend.beam.transform;
+
+import junit.framework.TestCase;
+import org.apache.beam.runners.core.InMemoryTimerInternals;
+import org.apache.beam.runners.core.StateNamespaces;
+import org.apache.beam.runners.core.TimerInternals;
+import org.apache.beam.sdk.state.TimeDomain;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.joda.time.Instant;
+import org.junit.Test;
+
+import java.util.*;
+
+public class InMemoryTimerInternalsFactoryTest extends TestCase {
+  private static final int NUM_KEYS = 100000;
+  private static final Instant PROCESSING_TIME = new Instant(0);
+
+  private InMemoryTimerInternalsFactory<Integer> createFactoryWithTimers() {
+    final InMemoryTimerInternalsFactory<Integer> factory = new InMemoryTimerInternalsFactory<>();
+    for (int key = 0; key < NUM_KEYS; key++) {
+      // The timer of each key fires at the time equal to the key
+      factory.timerInternalsForKey(key)
+        .setTimer(StateNamespaces.global(), "timer", new Instant(key), TimeDomain.EVENT_TIME);
+      factory.updateTimerIndex(key);
+    }
+    return factory;
+  }
+
+  private List<Integer> fireTimers(final InMemoryTimerInternalsFactory<Integer> factory) {
+    final List<Integer> firedKeys = new ArrayList<>();
+    for (final Integer key : factory.getKeysToTrigger()) {
+      final InMemoryTimerInternals timerInternals = (InMemoryTimerInternals) factory.timerInternalsForKey(key);
+      TimerInternals.TimerData timer;
+      while ((timer = factory.pollTimer(timerInternals, TimeDomain.EVENT_TIME)) != null) {
+        assertEquals(key.longValue(), timer.getTimestamp().getMillis());
+        firedKeys.add(key);
+      }
+      if (factory.isEmpty(timerInternals)) {
+        factory.removeTimerInternals(key);
+      } else {
+        factory.updateTimerIndex(key);
+      }
+    }
+    return firedKeys;
+  }
+
+  @Test
+  public void testWatermarkVisitsOnlyEligibleKeys() {
+    final InMemoryTimerInternalsFactory<Integer> factory = createFactoryWithTimers();
+
+    factory.advanceTime(new Instant(10), PROCESSING_TIME, PROCESSING_TIME);
+    // Only the keys with timers up to the watermark are visited, not all keys
+    assertTrue(factory.getKeysToTrigger().size() <= 11);
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), fireTimers(factory));
+
+    factory.advanceTime(new Instant(20), PROCESSING_TIME, PROCESSING_TIME);
+    assertEquals(Arrays.asList(10, 11, 12, 13, 14, 15, 16, 17, 18, 19), fireTimers(factory));
+
+    // The keys that were not visited catch up with the latest watermark when accessed
+    assertEquals(new Instant(20), factory.timerInternalsForKey(NUM_KEYS - 1).currentInputWatermarkTime());
+  }
+
+  @Test
+  public void testFireAllTimers() {
+    final InMemoryTimerInternalsFactory<Integer> factory = createFactoryWithTimers();
+
+    factory.advanceTime(BoundedWindow.TIMESTAMP_MAX_VALUE, PROCESSING_TIME, PROCESSING_TIME);
+    final List<Integer> firedKeys = fireTimers(factory);
+    assertEquals(NUM_KEYS, firedKeys.size());
+    // The keys are visited in the order of their timers
+    for (int i = 0; i < NUM_KEYS; i++) {
+      assertEquals(i, (int) firedKeys.get(i));
+    }
+    assertTrue(factory.getKeysToTrigger().isEmpty());
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.optimizer.pass.compiletime.annotating;
+
+import org.apache.nemo.common.dag.DAGBuilder;
+import org.apache.nemo.common.ir.IRDAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataFlowProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.ShuffleMergeProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.junit.Test;
+
+import static org.apache.nemo.common.test.EmptyComponents.EMPTY_TRANSFORM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link ShuffleMergePass}.
+ */
+public final class ShuffleMergePassTest {
+  private static final int MIN_NUM_SRC_TASKS = 10;
+
+  @Test
+  public void testAnnotatingPass() {
+    final AnnotatingPass shuffleMergePass = new ShuffleMergePass();
+    assertTrue(shuffleMergePass.getExecutionPropertiesToAnnotate().contains(ShuffleMergeProperty.class));
+  }
+
+  @Test
+  public void testMergeLargeFanInPushShuffle() {
+    final IREdge edge = buildEdge(CommunicationPatternProperty.Value.SHUFFLE, MIN_NUM_SRC_TASKS);
+    applyPass(edge);
+    assertEquals(true, edge.getPropertyValue(ShuffleMergeProperty.class).orElse(false));
+  }
+
+  @Test
+  public void testSkipSmallFanIn() {
+    final IREdge edge = buildEdge(CommunicationPatternProperty.Value.SHUFFLE, MIN_NUM_SRC_TASKS - 1);
+    applyPass(edge);
+    assertFalse(edge.getPropertyValue(ShuffleMergeProperty.class).isPresent());
+  }
+
+  @Test
+  public void testSkipPullShuffle() {
+    final IREdge edge = buildEdge(CommunicationPatternProperty.Value.SHUFFLE, MIN_NUM_SRC_TASKS);
+    edge.setProperty(DataFlowProperty.of(DataFlowProperty.Value.PULL));
+    applyPass(edge);
+    assertFalse(edge.getPropertyValue(ShuffleMergeProperty.class).isPresent());
+  }
+
+  @Test
+  public void testSkipOtherStores() {
+    final IREdge edge = buildEdge(CommunicationPatternProperty.Value.SHUFFLE, MIN_NUM_SRC_TASKS);
+    edge.setProperty(DataStoreProperty.of(DataStoreProperty.Value.MEMORY_STORE));
+    applyPass(edge);
+    assertFalse(edge.getPropertyValue(ShuffleMergeProperty.class).isPresent());
+  }
+
+  @Test
+  public void testSkipOtherPatterns() {
+    final IREdge edge = buildEdge(CommunicationPatternProperty.Value.BROADCAST, MIN_NUM_SRC_TASKS);
+    applyPass(edge);
+    assertFalse(edge.getPropertyValue(ShuffleMergeProperty.class).isPresent());
+  }
+
+  /**
+   * @param communicationPattern of the edge.
+   * @param srcParallelism       of the source vertex of the edge.
+   * @return a push edge between two vertices.
+   */
+  private static IREdge buildEdge(final CommunicationPatternProperty.Value communicationPattern,
+                                  final int srcParallelism) {
+    final IRVertex src = new OperatorVertex(EMPTY_TRANSFORM);
+    src.setProperty(ParallelismProperty.of(srcParallelism));
+    final IRVertex dst = new OperatorVertex(EMPTY_TRANSFORM);
+    dst.setProperty(ParallelismProperty.of(1));
+    final IREdge edge = new IREdge(communicationPattern, src, dst);
+    edge.setProperty(DataFlowProperty.of(DataFlowProperty.Value.PUSH));
+    return edge;
+  }
+
+  /**
+   * Applies the pass to the DAG of an edge.
+   *
+   * @param edge to apply the pass to.
+   */
+  private static void applyPass(final IREdge edge) {
+    final DAGBuilder<IRVertex, IREdge> dagBuilder = new DAGBuilder<>();
+    dagBuilder.addVertex(edge.getSrc());
+    dagBuilder.addVertex(edge.getDst());
+    dagBuilder.connectVertices(edge);
+    new ShuffleMergePass(MIN_NUM_SRC_TASKS).apply(new IRDAG(dagBuilder.buildWithoutSourceSinkCheck()));
+  }
+}
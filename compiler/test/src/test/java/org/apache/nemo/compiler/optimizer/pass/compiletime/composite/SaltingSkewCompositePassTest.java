@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.compiler.optimizer.pass.compiletime.composite;
+
+import org.apache.nemo.client.JobLauncher;
+import org.apache.nemo.common.Util;
+import org.apache.nemo.common.ir.IRDAG;
+import org.apache.nemo.common.ir.edge.IREdge;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.MessageIdEdgeProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.PartitionerProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.SaltedKeysPropertyValue;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.apache.nemo.common.ir.vertex.transform.PartialAggregationTransform;
+import org.apache.nemo.common.ir.vertex.utility.runtimepass.MessageAggregatorVertex;
+import org.apache.nemo.compiler.CompilerTestUtil;
+import org.apache.nemo.compiler.frontend.beam.transform.CombineFnFinalTransform;
+import org.apache.nemo.compiler.frontend.beam.transform.CombineFnMergeTransform;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.DefaultParallelismPass;
+import org.apache.nemo.compiler.optimizer.pass.compiletime.annotating.SkewAnnotatingPass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link SaltingSkewCompositePass} with MR workload.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(JobLauncher.class)
+public class SaltingSkewCompositePassTest {
+
+  /**
+   * Test for {@link SaltingSkewCompositePass} with MR workload.
+   * The partial combine should keep its oneToOne input and its shuffle edge to the final combine, and should also
+   * write a shuffle edge that salts the hot keys into a vertex that merges the accumulators before the final combine.
+   * The partial combine should be executed after the sampled run that collects the statistics of its input.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test
+  public void testSaltingSkewPass() throws Exception {
+    final IRDAG mrDAG = CompilerTestUtil.compileWordCountDAG();
+    final IRDAG processedDAG = new SaltingSkewCompositePass().apply(new DefaultParallelismPass().apply(mrDAG));
+
+    final List<IRVertex> partialCombines = processedDAG.filterVertices(v -> v instanceof OperatorVertex
+      && ((OperatorVertex) v).getTransform() instanceof PartialAggregationTransform);
+    assertEquals(1, partialCombines.size());
+    final IRVertex partialCombine = partialCombines.get(0);
+
+    // The map-side combine is kept.
+    final List<IREdge> inEdges = getDataEdges(processedDAG.getIncomingEdgesOf(partialCombine));
+    assertEquals(1, inEdges.size());
+    assertEquals(CommunicationPatternProperty.Value.ONE_TO_ONE,
+      inEdges.get(0).getPropertyValue(CommunicationPatternProperty.class).get());
+
+    // The accumulators of the hot keys are salted into the accumulator merge vertex,
+    // and the other keys keep the shuffle to the final combine.
+    final List<IREdge> outEdges = getDataEdges(processedDAG.getOutgoingEdgesOf(partialCombine));
+    assertEquals(2, outEdges.size());
+    final IREdge saltedEdge = getEdgeOfRoute(outEdges, SaltedKeysPropertyValue.Route.SALTED_KEYS);
+    final IREdge otherKeysEdge = getEdgeOfRoute(outEdges, SaltedKeysPropertyValue.Route.OTHER_KEYS);
+    assertEquals(CommunicationPatternProperty.Value.SHUFFLE,
+      saltedEdge.getPropertyValue(CommunicationPatternProperty.class).get());
+    assertTrue(saltedEdge.getPropertyValue(SaltedKeysProperty.class).get().getSaltedKeys().isEmpty());
+    assertTrue(saltedEdge.getPropertyValue(MessageIdEdgeProperty.class).isPresent());
+    final IRVertex accumulatorMerge = saltedEdge.getDst();
+    assertTrue(((OperatorVertex) accumulatorMerge).getTransform() instanceof CombineFnMergeTransform);
+    final int numOfPartitions = accumulatorMerge.getPropertyValue(ParallelismProperty.class).get()
+      * SkewAnnotatingPass.HASH_RANGE_MULTIPLIER;
+    assertEquals(numOfPartitions, (int) saltedEdge.getPropertyValue(PartitionerProperty.class).get().right());
+    assertEquals(CommunicationPatternProperty.Value.SHUFFLE,
+      otherKeysEdge.getPropertyValue(CommunicationPatternProperty.class).get());
+    assertTrue(((OperatorVertex) otherKeysEdge.getDst()).getTransform() instanceof CombineFnFinalTransform);
+    assertEquals(numOfPartitions, (int) otherKeysEdge.getPropertyValue(PartitionerProperty.class).get().right());
+
+    // The merged accumulators are not salted before the final combine.
+    final List<IREdge> mergedEdges = getDataEdges(processedDAG.getOutgoingEdgesOf(accumulatorMerge));
+    assertEquals(1, mergedEdges.size());
+    final IREdge mergedEdge = mergedEdges.get(0);
+    assertEquals(CommunicationPatternProperty.Value.SHUFFLE,
+      mergedEdge.getPropertyValue(CommunicationPatternProperty.class).get());
+    assertFalse(mergedEdge.getPropertyValue(SaltedKeysProperty.class).isPresent());
+    assertEquals(otherKeysEdge.getDst(), mergedEdge.getDst());
+    assertEquals(2, getDataEdges(processedDAG.getIncomingEdgesOf(mergedEdge.getDst())).size());
+
+    // The salted edge is written after the statistics of the sampled run are aggregated.
+    final List<IRVertex> aggregators = processedDAG.filterVertices(v -> v instanceof MessageAggregatorVertex);
+    assertEquals(1, aggregators.size());
+    assertTrue(processedDAG.pathExistsBetween(aggregators.get(0), inEdges.get(0).getSrc()));
+  }
+
+  /**
+   * @param edges to search.
+   * @param route of the keys.
+   * @return the only edge that carries the keys of the route.
+   */
+  private IREdge getEdgeOfRoute(final List<IREdge> edges, final SaltedKeysPropertyValue.Route route) {
+    final List<IREdge> edgesOfRoute = edges.stream()
+      .filter(e -> e.getPropertyValue(SaltedKeysProperty.class).map(v -> v.getRoute() == route).orElse(false))
+      .collect(Collectors.toList());
+    assertEquals(1, edgesOfRoute.size());
+    return edgesOfRoute.get(0);
+  }
+
+  /**
+   * @param edges to filter.
+   * @return the edges that are not control edges.
+   */
+  private List<IREdge> getDataEdges(final List<IREdge> edges) {
+    return edges.stream().filter(e -> !Util.isControlEdge(e)).collect(Collectors.toList());
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.nemo.compiler.optimizer.pass.runtime;
 
 import org.apache.nemo.common.KeyExtractor;
+import org.apache.nemo.common.KeyFrequencySketch;
 import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.ir.edge.executionproperty.PartitionSetProperty;
@@ -73,6 +74,74 @@ public class SkewRuntimePassTest {
     assertEquals(false, antiAfiinityGroup.contains(1));
   }
 
+  /**
+   * Test whether the partition sizes summarized by a {@link KeyFrequencySketch} lead to the same redistribution.
+   */
+  @Test
+  public void testSketchMessage() {
+    final KeyFrequencySketch sketch = KeyFrequencySketch.of(4, 100, NUM_PARTITIONS, 4);
+    testMetricData.forEach((key, count) -> {
+      for (long i = 0; i < count; i++) {
+        sketch.add(key);
+      }
+    });
+
+    final SkewRunTimePass skewRunTimePass = new SkewRunTimePass(1);
+    final List<Long> partitionSizes = skewRunTimePass.getPartitionSizes(sketch, NUM_PARTITIONS);
+    final List<Long> expectedPartitionSizes = new ArrayList<>();
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      expectedPartitionSizes.add(testMetricData.get(i));
+    }
+    assertEquals(expectedPartitionSizes, partitionSizes);
+
+    final Pair<PartitionSetProperty, ResourceAntiAffinityProperty> resultPair =
+      skewRunTimePass.analyzePartitionSizes(partitionSizes, DST_PARALLELISM);
+    final List<KeyRange> keyRanges = resultPair.left().getValue();
+    assertEquals(0, keyRanges.get(0).rangeBeginInclusive());
+    assertEquals(5, keyRanges.get(0).rangeEndExclusive());
+    assertEquals(5, keyRanges.get(1).rangeBeginInclusive());
+    assertEquals(10, keyRanges.get(1).rangeEndExclusive());
+    assertEquals(true, resultPair.right().getValue().contains(0));
+  }
+
+  /**
+   * Test whether a hot key is salted into several partitions of the salted keys, which are then spread across
+   * the tasks.
+   */
+  @Test
+  public void testHotKeySalting() {
+    final int dstParallelism = 3;
+    final KeyFrequencySketch sketch = KeyFrequencySketch.of(4, 100, NUM_PARTITIONS, 4);
+    for (int key = 0; key < NUM_PARTITIONS; key++) {
+      final int count = key == 3 ? 300 : 10;
+      for (int i = 0; i < count; i++) {
+        sketch.add(key);
+      }
+    }
+
+    final SkewRunTimePass skewRunTimePass = new SkewRunTimePass(1);
+    final List<Long> partitionSizes = skewRunTimePass.getPartitionSizes(sketch, NUM_PARTITIONS);
+    final List<Long> saltedPartitionSizes = new ArrayList<>(Collections.nCopies(NUM_PARTITIONS, 0L));
+    final Map<Object, Integer> saltedKeys =
+      skewRunTimePass.saltHotKeys(sketch, partitionSizes, saltedPartitionSizes, dstParallelism);
+
+    // Only the hot key is salted, into a partition for each task: 3, 6, and 9.
+    // The other keys keep their partitions on the edge of the other keys.
+    assertEquals(Collections.singletonMap(3, 3), saltedKeys);
+    assertEquals(Arrays.asList(10L, 10L, 10L, 0L, 10L, 10L, 10L, 10L, 10L, 10L), partitionSizes);
+    assertEquals(Arrays.asList(0L, 0L, 0L, 100L, 0L, 0L, 100L, 0L, 0L, 100L), saltedPartitionSizes);
+
+    final Pair<PartitionSetProperty, ResourceAntiAffinityProperty> resultPair =
+      skewRunTimePass.analyzePartitionSizes(saltedPartitionSizes, dstParallelism);
+    final List<KeyRange> keyRanges = resultPair.left().getValue();
+    assertEquals(0, keyRanges.get(0).rangeBeginInclusive());
+    assertEquals(4, keyRanges.get(0).rangeEndExclusive());
+    assertEquals(4, keyRanges.get(1).rangeBeginInclusive());
+    assertEquals(7, keyRanges.get(1).rangeEndExclusive());
+    assertEquals(7, keyRanges.get(2).rangeBeginInclusive());
+    assertEquals(10, keyRanges.get(2).rangeEndExclusive());
+  }
+
   /**
    * Builds a partition size metrics with given partition sizes for test.
    *
@@ -38,6 +38,13 @@ public final class DataPlaneConf {
   private final int listenThreads;
   private final int workThreads;
   private final int chunkSizeKb;
+  private final boolean fetcherReadinessNotification;
+  private final int pipeCreditWindowKb;
+  private final int localPipeQueueCapacity;
+  private final int sortShuffleSpillThreshold;
+  private final int pipeReaderThreads;
+  private final int pipeFetcherQueueCapacity;
+  private final long vertexMetricSamplingPeriodMs;
 
   @Inject
   private DataPlaneConf(@Parameter(JobConf.IORequestHandleThreadsTotal.class) final int numIOThreads,
@@ -48,7 +55,16 @@ public final class DataPlaneConf {
                         @Parameter(JobConf.PartitionTransportServerBacklog.class) final int serverBackLog,
                         @Parameter(JobConf.PartitionTransportServerNumListeningThreads.class) final int listenThreads,
                         @Parameter(JobConf.PartitionTransportServerNumWorkingThreads.class) final int workThreads,
-                        @Parameter(JobConf.ChunkSizeKb.class) final int chunkSizeKb) {
+                        @Parameter(JobConf.ChunkSizeKb.class) final int chunkSizeKb,
+                        @Parameter(JobConf.DataFetcherReadinessNotification.class)
+                        final boolean fetcherReadinessNotification,
+                        @Parameter(JobConf.PipeCreditWindowKb.class) final int pipeCreditWindowKb,
+                        @Parameter(JobConf.LocalPipeQueueCapacity.class) final int localPipeQueueCapacity,
+                        @Parameter(JobConf.SortShuffleSpillThreshold.class) final int sortShuffleSpillThreshold,
+                        @Parameter(JobConf.PipeReaderThreads.class) final int pipeReaderThreads,
+                        @Parameter(JobConf.PipeFetcherQueueCapacity.class) final int pipeFetcherQueueCapacity,
+                        @Parameter(JobConf.VertexMetricSamplingPeriodMs.class)
+                        final long vertexMetricSamplingPeriodMs) {
     this.numIOThreads = numIOThreads;
     this.maxNumDownloads = maxNumDownloads;
     this.scheduleSerThread = scheduleSerThread;
@@ -58,6 +74,13 @@ public final class DataPlaneConf {
     this.listenThreads = listenThreads;
     this.workThreads = workThreads;
     this.chunkSizeKb = chunkSizeKb;
+    this.fetcherReadinessNotification = fetcherReadinessNotification;
+    this.pipeCreditWindowKb = pipeCreditWindowKb;
+    this.localPipeQueueCapacity = localPipeQueueCapacity;
+    this.sortShuffleSpillThreshold = sortShuffleSpillThreshold;
+    this.pipeReaderThreads = pipeReaderThreads;
+    this.pipeFetcherQueueCapacity = pipeFetcherQueueCapacity;
+    this.vertexMetricSamplingPeriodMs = vertexMetricSamplingPeriodMs;
   }
 
   public Configuration getDataPlaneConfiguration() {
@@ -71,6 +94,14 @@ public final class DataPlaneConf {
       .bindNamedParameter(JobConf.PartitionTransportServerNumListeningThreads.class, Integer.toString(listenThreads))
       .bindNamedParameter(JobConf.PartitionTransportServerNumWorkingThreads.class, Integer.toString(workThreads))
       .bindNamedParameter(JobConf.ChunkSizeKb.class, Integer.toString(chunkSizeKb))
+      .bindNamedParameter(JobConf.DataFetcherReadinessNotification.class,
+        Boolean.toString(fetcherReadinessNotification))
+      .bindNamedParameter(JobConf.PipeCreditWindowKb.class, Integer.toString(pipeCreditWindowKb))
+      .bindNamedParameter(JobConf.LocalPipeQueueCapacity.class, Integer.toString(localPipeQueueCapacity))
+      .bindNamedParameter(JobConf.SortShuffleSpillThreshold.class, Integer.toString(sortShuffleSpillThreshold))
+      .bindNamedParameter(JobConf.PipeReaderThreads.class, Integer.toString(pipeReaderThreads))
+      .bindNamedParameter(JobConf.PipeFetcherQueueCapacity.class, Integer.toString(pipeFetcherQueueCapacity))
+      .bindNamedParameter(JobConf.VertexMetricSamplingPeriodMs.class, Long.toString(vertexMetricSamplingPeriodMs))
       .build();
   }
  }
@@ -276,6 +276,48 @@ public final class JobConf extends ConfigurationModuleBuilder {
   public final class ScheduleSerThread implements Name<Integer> {
   }
 
+  /**
+   * Whether the task dispatcher assigns the schedulable tasks in a single pass and sends the tasks assigned to
+   * each executor in a single control message.
+   */
+  @NamedParameter(doc = "Whether to dispatch tasks to executors in batches", short_name = "batch_task_dispatch",
+    default_value = "false")
+  public final class BatchTaskDispatch implements Name<Boolean> {
+  }
+
+  /**
+   * How long the task dispatcher waits before trying again to schedule the tasks that could not be scheduled,
+   * if no executor slot becomes available in the meantime,
+   * e.g., for the tasks waiting for the executors that hold their input to expire their wait.
+   * If {@link ShuffleLocalityWaitMs} is enabled, the tasks are retried at least as often as the wait,
+   * even if this is disabled.
+   * Disabled by default, so that an idle dispatcher only wakes up on scheduling events.
+   */
+  @NamedParameter(doc = "The time to wait before retrying to dispatch the tasks that could not be scheduled, in ms. "
+    + "0 disables it", short_name = "task_dispatch_retry_delay_ms", default_value = "0")
+  public final class TaskDispatchRetryDelayMs implements Name<Long> {
+  }
+
+  /**
+   * How long the consumer tasks of a shuffle wait for the executors that hold the largest share of their input,
+   * before waiting for the nodes that hold it for as long again, and then being scheduled to any executor.
+   * Disabled by default, as waiting only pays off when fetching the input takes longer than the wait.
+   */
+  @NamedParameter(doc = "The time to wait for a shuffle input-local executor, and then node, in ms. 0 disables it",
+    short_name = "shuffle_locality_wait_ms", default_value = "0")
+  public final class ShuffleLocalityWaitMs implements Name<Long> {
+  }
+
+  /**
+   * Whether the batch scheduler starts the consumer stages of pull edges with the free slots,
+   * once all tasks of the producer stages are running, instead of after the producer stages complete.
+   * The consumers then fetch the blocks of the producer tasks as they are committed.
+   */
+  @NamedParameter(doc = "Whether to start the consumer stages before the producer stages complete",
+    short_name = "pipelined_stage_execution", default_value = "false")
+  public final class PipelinedStageExecution implements Name<Boolean> {
+  }
+
   /**
    * The TCP port to which local block transfer binds. 0 means random port.
    */
@@ -325,6 +367,73 @@ public final class JobConf extends ConfigurationModuleBuilder {
   public final class ChunkSizeKb implements Name<Integer> {
   }
 
+  /**
+   * Whether a task executor thread waits on readiness notifications from its data fetchers,
+   * instead of sleeping and periodically polling the data fetchers that have no available element.
+   */
+  @NamedParameter(doc = "Whether to use readiness notification of data fetchers instead of periodic polling",
+    short_name = "fetcher_readiness_notification", default_value = "true")
+  public final class DataFetcherReadinessNotification implements Name<Boolean> {
+  }
+
+  /**
+   * The number of bytes a receiver of a pipe allows to be in flight without being consumed, per transfer context.
+   * A sender stops writing to a pipe when it runs out of the credits granted by the receiver.
+   */
+  @NamedParameter(doc = "The credit window of a pipe transfer context, in KB. 0 disables the flow control",
+    short_name = "pipe_credit_window_kb", default_value = "4096")
+  public final class PipeCreditWindowKb implements Name<Integer> {
+  }
+
+  /**
+   * The maximum number of elements buffered in a pipe between two tasks in the same executor.
+   */
+  @NamedParameter(doc = "The capacity of the queue of a local pipe, in elements",
+    short_name = "local_pipe_queue_capacity", default_value = "10000")
+  public final class LocalPipeQueueCapacity implements Name<Integer> {
+  }
+
+  /**
+   * The number of threads in an executor that read the pipes from the parent tasks, for all tasks in the executor.
+   */
+  @NamedParameter(doc = "The number of pipe reader threads in an executor. 0 means the number of cores",
+    short_name = "pipe_reader_threads", default_value = "0")
+  public final class PipeReaderThreads implements Name<Integer> {
+  }
+
+  /**
+   * The maximum number of data elements read from the pipes of a task edge but not processed by the task yet.
+   */
+  @NamedParameter(doc = "The capacity of the queue between the pipe readers and a task, in elements",
+    short_name = "pipe_fetcher_queue_capacity", default_value = "10000")
+  public final class PipeFetcherQueueCapacity implements Name<Integer> {
+  }
+
+  /**
+   * The number of records a sort-based shuffle writer buffers in memory before spilling them as a sorted run.
+   */
+  @NamedParameter(doc = "The number of records buffered by a sort-based shuffle writer before spilling a sorted run",
+    short_name = "sort_shuffle_spill_threshold", default_value = "100000")
+  public final class SortShuffleSpillThreshold implements Name<Integer> {
+  }
+
+  /**
+   * The period at which the executors sample the records in and out, the processing time and the watermark lag
+   * of each operator, e.g., to find the bottleneck operator of a streaming job.
+   */
+  @NamedParameter(doc = "The period of sampling the metrics of each operator, in ms. 0 disables the sampling",
+    short_name = "vertex_metric_sampling_period_ms", default_value = "0")
+  public final class VertexMetricSamplingPeriodMs implements Name<Long> {
+  }
+
+  /**
+   * The period at which the master pushes the updates of the operator metric time series to the web UI.
+   */
+  @NamedParameter(doc = "The period of broadcasting the operator metric updates to the WebSocket clients, in ms",
+    short_name = "vertex_metric_broadcast_period_ms", default_value = "1000")
+  public final class VertexMetricBroadcastPeriodMs implements Name<Long> {
+  }
+
   //////////////////////////////// Intermediate Configurations
 
   /**
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.conf;
+
+import org.apache.reef.tang.Configuration;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link DataPlaneConf}.
+ */
+public final class DataPlaneConfTest {
+
+  /**
+   * Checks that the executor-side parameters given to the driver arrive at the executor configuration.
+   */
+  @Test
+  public void testExecutorParametersAreForwarded() throws Exception {
+    final Configuration driverConf = Tang.Factory.getTang().newConfigurationBuilder()
+      .bindNamedParameter(JobConf.ChunkSizeKb.class, "64")
+      .bindNamedParameter(JobConf.DataFetcherReadinessNotification.class, "false")
+      .bindNamedParameter(JobConf.PipeCreditWindowKb.class, "128")
+      .bindNamedParameter(JobConf.LocalPipeQueueCapacity.class, "16")
+      .bindNamedParameter(JobConf.SortShuffleSpillThreshold.class, "1000")
+      .bindNamedParameter(JobConf.PipeReaderThreads.class, "3")
+      .bindNamedParameter(JobConf.PipeFetcherQueueCapacity.class, "32")
+      .bindNamedParameter(JobConf.VertexMetricSamplingPeriodMs.class, "500")
+      .build();
+    final DataPlaneConf dataPlaneConf = Tang.Factory.getTang().newInjector(driverConf)
+      .getInstance(DataPlaneConf.class);
+
+    final Injector executorInjector = Tang.Factory.getTang()
+      .newInjector(dataPlaneConf.getDataPlaneConfiguration());
+    assertEquals(64, (int) executorInjector.getNamedInstance(JobConf.ChunkSizeKb.class));
+    assertEquals(false, executorInjector.getNamedInstance(JobConf.DataFetcherReadinessNotification.class));
+    assertEquals(128, (int) executorInjector.getNamedInstance(JobConf.PipeCreditWindowKb.class));
+    assertEquals(16, (int) executorInjector.getNamedInstance(JobConf.LocalPipeQueueCapacity.class));
+    assertEquals(1000, (int) executorInjector.getNamedInstance(JobConf.SortShuffleSpillThreshold.class));
+    assertEquals(3, (int) executorInjector.getNamedInstance(JobConf.PipeReaderThreads.class));
+    assertEquals(32, (int) executorInjector.getNamedInstance(JobConf.PipeFetcherQueueCapacity.class));
+    assertEquals(500L, (long) executorInjector.getNamedInstance(JobConf.VertexMetricSamplingPeriodMs.class));
+  }
+}
@@ -113,6 +113,20 @@ public final class RuntimeIdManager {
     return runtimeEdgeId + SPLITTER + producerTaskIndex + SPLITTER + "*";
   }
 
+  /**
+   * Generates the ID for a merged block, whose data is the partitions pushed by the producer tasks
+   * to the executor of a consumer task.
+   * Merged block ids are local to each executor, and thus are not tracked by the block states.
+   *
+   * @param runtimeEdgeId     of the block
+   * @param consumerTaskIndex of the block
+   * @return the generated ID
+   */
+  public static String generateMergedBlockId(final String runtimeEdgeId,
+                                             final int consumerTaskIndex) {
+    return runtimeEdgeId + SPLITTER + "merged" + SPLITTER + consumerTaskIndex;
+  }
+
   /**
    * Generates the ID for a control message.
    *
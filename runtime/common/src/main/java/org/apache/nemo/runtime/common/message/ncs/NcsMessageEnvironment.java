@@ -207,6 +207,7 @@ public final class NcsMessageEnvironment implements MessageEnvironment {
     switch (controlMessage.getType()) {
       case TaskStateChanged:
       case ScheduleTask:
+      case ScheduleTasks:
       case BlockStateChanged:
       case ExecutorFailed:
       case RunTimePassMessage:
@@ -214,15 +215,24 @@ public final class NcsMessageEnvironment implements MessageEnvironment {
       case MetricMessageReceived:
       case RequestMetricFlush:
       case MetricFlushed:
+      case VertexMetricSamples:
       case PipeInit:
+      case MergedBlockAppended:
+      case RemoveMergedBlocks:
         return MessageType.Send;
       case RequestBlockLocation:
       case RequestBroadcastVariable:
       case RequestPipeLoc:
+      case RequestMergedBlockLocation:
+      case RequestMergerLocations:
+      case RequestIRDag:
         return MessageType.Request;
       case BlockLocationInfo:
       case InMasterBroadcastVariable:
       case PipeLocInfo:
+      case MergedBlockLocationInfo:
+      case MergerLocationsInfo:
+      case IRDagInfo:
         return MessageType.Reply;
       default:
         throw new IllegalArgumentException(controlMessage.toString());
@@ -237,6 +247,12 @@ public final class NcsMessageEnvironment implements MessageEnvironment {
         return controlMessage.getRequestbroadcastVariableMsg().getExecutorId();
       case RequestPipeLoc:
         return controlMessage.getRequestPipeLocMsg().getExecutorId();
+      case RequestMergedBlockLocation:
+        return controlMessage.getRequestMergedBlockLocationMsg().getExecutorId();
+      case RequestMergerLocations:
+        return controlMessage.getRequestMergerLocationsMsg().getExecutorId();
+      case RequestIRDag:
+        return controlMessage.getRequestIRDagMsg().getExecutorId();
       default:
         throw new IllegalArgumentException(controlMessage.toString());
     }
@@ -250,6 +266,12 @@ public final class NcsMessageEnvironment implements MessageEnvironment {
         return controlMessage.getBroadcastVariableMsg().getRequestId();
       case PipeLocInfo:
         return controlMessage.getPipeLocInfoMsg().getRequestId();
+      case MergedBlockLocationInfo:
+        return controlMessage.getMergedBlockLocationInfoMsg().getRequestId();
+      case MergerLocationsInfo:
+        return controlMessage.getMergerLocationsInfoMsg().getRequestId();
+      case IRDagInfo:
+        return controlMessage.getIrDagInfoMsg().getRequestId();
       default:
         throw new IllegalArgumentException(controlMessage.toString());
     }
@@ -161,6 +161,11 @@ public final class JobMetric implements StateMetric<PlanState.State> {
     stateTransitionEvents.add(new StateTransitionEvent<>(System.currentTimeMillis(), prevState, newState));
   }
 
+  @Override
+  public void addEvent(final StateTransitionEvent<PlanState.State> event) {
+    stateTransitionEvents.add(event);
+  }
+
   @Override
   public boolean processMetricMessage(final String metricField, final byte[] metricValue) {
     // do nothing
@@ -37,4 +37,15 @@ public interface Metric {
    * @return true if the metric was changed or false if not.
    */
   boolean processMetricMessage(String metricField, byte[] metricValue);
+
+  /**
+   * Process numeric metric message from evaluators, which is not Java-serialized.
+   *
+   * @param metricField field name of the metric.
+   * @param metricValue the numeric value.
+   * @return true if the metric was changed or false if not.
+   */
+  default boolean processNumericMetricMessage(final String metricField, final long metricValue) {
+    return false;
+  }
 }
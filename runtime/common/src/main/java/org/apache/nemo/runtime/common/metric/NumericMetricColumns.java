@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.common.metric;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps the numeric fields of the metrics of a type in columns of primitive arrays, one row per metric,
+ * so that aggregations over a field scan a single array instead of the metric objects.
+ * The metrics that keep their numeric fields here, e.g., {@link TaskMetric}, read and write them through their rows,
+ * so the columns are the only copy of the fields.
+ * Negative values, which the metrics use for unknown values, are excluded from the aggregations.
+ */
+@ThreadSafe
+public final class NumericMetricColumns {
+  /**
+   * The value of a field that has not been set.
+   */
+  public static final long UNKNOWN = -1;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Map<String, Integer> idToRow;
+  private final List<String> rowToId;
+  private final Map<String, long[]> fieldToColumn;
+  private int capacity;
+
+  /**
+   * Creates empty columns.
+   */
+  public NumericMetricColumns() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates empty columns.
+   *
+   * @param initialCapacity the number of rows to allocate the columns for at first.
+   */
+  public NumericMetricColumns(final int initialCapacity) {
+    this.idToRow = new HashMap<>();
+    this.rowToId = new ArrayList<>();
+    this.fieldToColumn = new HashMap<>();
+    this.capacity = Math.max(1, initialCapacity);
+  }
+
+  /**
+   * Adds the row of a metric, if absent.
+   *
+   * @param id of the metric.
+   * @return the row of the metric.
+   */
+  public synchronized int addRow(final String id) {
+    return idToRow.computeIfAbsent(id, k -> {
+      rowToId.add(k);
+      if (rowToId.size() > capacity) {
+        capacity *= 2;
+        fieldToColumn.replaceAll((f, column) -> grow(column, capacity));
+      }
+      return rowToId.size() - 1;
+    });
+  }
+
+  /**
+   * Sets a field of a metric.
+   *
+   * @param row   of the metric.
+   * @param field of the metric.
+   * @param value of the field.
+   */
+  public synchronized void set(final int row, final String field, final long value) {
+    fieldToColumn.computeIfAbsent(field, f -> grow(new long[0], capacity))[row] = value;
+  }
+
+  /**
+   * @param row   of the metric.
+   * @param field of the metric.
+   * @return the value of the field, or {@link #UNKNOWN} if not set.
+   */
+  public synchronized long get(final int row, final String field) {
+    final long[] column = fieldToColumn.get(field);
+    return column == null ? UNKNOWN : column[row];
+  }
+
+  /**
+   * Aggregates a field over the groups of metrics.
+   *
+   * @param field     to aggregate.
+   * @param idToGroup maps the id of a metric to the group of the metric.
+   * @return the statistics of the known values of the field in each group, in the order the groups first appear.
+   */
+  public synchronized Map<String, LongSummaryStatistics> aggregate(final String field,
+                                                                   final Function<String, String> idToGroup) {
+    final Map<String, LongSummaryStatistics> groupToStatistics = new LinkedHashMap<>();
+    final long[] column = fieldToColumn.get(field);
+    if (column == null) {
+      return groupToStatistics;
+    }
+    for (int row = 0; row < rowToId.size(); row++) {
+      if (column[row] >= 0) {
+        groupToStatistics.computeIfAbsent(idToGroup.apply(rowToId.get(row)), g -> new LongSummaryStatistics())
+          .accept(column[row]);
+      }
+    }
+    return groupToStatistics;
+  }
+
+  private static long[] grow(final long[] column, final int newCapacity) {
+    final long[] grown = Arrays.copyOf(column, newCapacity);
+    Arrays.fill(grown, column.length, newCapacity, UNKNOWN);
+    return grown;
+  }
+}
@@ -54,6 +54,11 @@ public class StageMetric implements StateMetric<StageState.State> {
     stateTransitionEvents.add(new StateTransitionEvent<>(System.currentTimeMillis(), prevState, newState));
   }
 
+  @Override
+  public final void addEvent(final StateTransitionEvent<StageState.State> event) {
+    stateTransitionEvents.add(event);
+  }
+
   @Override
   public final boolean processMetricMessage(final String metricField, final byte[] metricValue) {
     // do nothing
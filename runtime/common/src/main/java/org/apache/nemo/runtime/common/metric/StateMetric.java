@@ -41,4 +41,11 @@ public interface StateMetric<T extends Serializable> extends Metric {
    * @param newState  new state.
    */
   void addEvent(T prevState, T newState);
+
+  /**
+   * Add a {@link StateTransitionEvent}, timestamped when the transition happened, to the metric.
+   *
+   * @param event the event to add.
+   */
+  void addEvent(StateTransitionEvent<T> event);
 }
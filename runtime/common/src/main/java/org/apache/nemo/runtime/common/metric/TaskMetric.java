@@ -24,36 +24,53 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Metric class for {@link org.apache.nemo.runtime.common.plan.Task}.
+ * The numeric fields are kept in a row of {@link NumericMetricColumns}, which may be shared by the task metrics
+ * of a metric store for aggregations, instead of in fields of this object.
  */
 public class TaskMetric implements StateMetric<TaskState.State> {
+  private static final Set<String> NUMERIC_FIELDS = new HashSet<>(Arrays.asList(
+    "scheduleAttempt", "taskDuration", "taskCPUTime", "taskGCTime", "taskAllocatedBytes", "schedulingOverhead",
+    "serializedReadBytes", "encodedReadBytes", "taskOutputBytes", "taskSerializationTime", "taskDeserializationTime",
+    "boundedSourceReadTime", "peakExecutionMemory", "taskSizeRatio", "shuffleReadBytes", "shuffleReadTime",
+    "shuffleWriteBytes", "shuffleWriteTime"));
+
   private String id;
   private String containerId = "";
-  private int scheduleAttempt = -1;
   private List<StateTransitionEvent<TaskState.State>> stateTransitionEvents = new ArrayList<>();
-  private long taskDuration = -1;
-  private long taskCPUTime = -1;
-  private long schedulingOverhead = -1;
-  private long serializedReadBytes = -1;
-  private long encodedReadBytes = -1;
-  private long taskOutputBytes = -1;
-  private long taskSerializationTime = -1;
-  private long taskDeserializationTime = -1;
-  private long boundedSourceReadTime = -1;
-  private long peakExecutionMemory = -1;
-  private int taskSizeRatio = -1;
-  private long shuffleReadBytes = -1;
-  private long shuffleReadTime = -1;
-  private long shuffleWriteBytes = -1;
-  private long shuffleWriteTime = -1;
+  private final NumericMetricColumns numericColumns;
+  private final int row;
+  private Map<String, Map<String, Long>> pipeFlowControlStatistics = new HashMap<>();
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskMetric.class.getName());
 
+  /**
+   * Creates a metric that keeps its numeric fields to itself.
+   *
+   * @param id of the task.
+   */
   public TaskMetric(final String id) {
+    this(id, new NumericMetricColumns(1));
+  }
+
+  /**
+   * Creates a metric that keeps its numeric fields in a row of the given columns.
+   *
+   * @param id             of the task.
+   * @param numericColumns to keep the numeric fields in.
+   */
+  public TaskMetric(final String id, final NumericMetricColumns numericColumns) {
     this.id = id;
+    this.numericColumns = numericColumns;
+    this.row = numericColumns.addRow(id);
   }
 
   /**
@@ -71,11 +88,7 @@ public class TaskMetric implements StateMetric<TaskState.State> {
    * Method related to schedule attempt.
    */
   public final int getScheduleAttempt() {
-    return scheduleAttempt;
-  }
-
-  private void setScheduleAttempt(final int scheduleAttempt) {
-    this.scheduleAttempt = scheduleAttempt;
+    return (int) getNumericField("scheduleAttempt");
   }
 
   /**
@@ -91,7 +104,8 @@ public class TaskMetric implements StateMetric<TaskState.State> {
     stateTransitionEvents.add(new StateTransitionEvent<>(System.currentTimeMillis(), prevState, newState));
   }
 
-  private void addEvent(final StateTransitionEvent<TaskState.State> event) {
+  @Override
+  public final void addEvent(final StateTransitionEvent<TaskState.State> event) {
     stateTransitionEvents.add(event);
   }
 
@@ -99,33 +113,35 @@ public class TaskMetric implements StateMetric<TaskState.State> {
    * Method related to task duration.
    */
   public final long getTaskDuration() {
-    return this.taskDuration;
-  }
-
-  private void setTaskDuration(final long taskDuration) {
-    this.taskDuration = taskDuration;
+    return getNumericField("taskDuration");
   }
 
   /**
    * Method related to task CPU time.
    */
   public final long getTaskCPUTime() {
-    return this.taskCPUTime;
+    return getNumericField("taskCPUTime");
   }
 
-  private void setTaskCPUTime(final long taskCPUTime) {
-    this.taskCPUTime = taskCPUTime;
+  /**
+   * Method related to task GC time.
+   */
+  public final long getTaskGCTime() {
+    return getNumericField("taskGCTime");
   }
 
   /**
-   * Method related to scheduling overhead.
+   * Method related to task allocated bytes.
    */
-  public final long getSchedulingOverhead() {
-    return this.schedulingOverhead;
+  public final long getTaskAllocatedBytes() {
+    return getNumericField("taskAllocatedBytes");
   }
 
-  private void setSchedulingOverhead(final long schedulingOverhead) {
-    this.schedulingOverhead = schedulingOverhead;
+  /**
+   * Method related to scheduling overhead.
+   */
+  public final long getSchedulingOverhead() {
+    return getNumericField("schedulingOverhead");
   }
 
   /**
@@ -133,123 +149,90 @@ public class TaskMetric implements StateMetric<TaskState.State> {
    * serialized = encoded + compressed
    */
   public final long getSerializedReadBytes() {
-    return serializedReadBytes;
-  }
-
-  private void setSerializedReadBytes(final long serializedReadBytes) {
-    this.serializedReadBytes = serializedReadBytes;
+    return getNumericField("serializedReadBytes");
   }
 
   /**
    * Method related to encoded read bytes.
    */
   public final long getEncodedReadBytes() {
-    return encodedReadBytes;
-  }
-
-  private void setEncodedReadBytes(final long encodedReadBytes) {
-    this.encodedReadBytes = encodedReadBytes;
+    return getNumericField("encodedReadBytes");
   }
 
   /**
    * Method related to task output bytes.
    */
   public final long getTaskOutputBytes() {
-    return taskOutputBytes;
-  }
-
-  private void setTaskOutputBytes(final long taskOutputBytes) {
-    this.taskOutputBytes = taskOutputBytes;
+    return getNumericField("taskOutputBytes");
   }
 
   /**
    * Method related to task serialization time.
    */
   public final long getTaskSerializationTime() {
-    return taskSerializationTime;
-  }
-
-  private void setTaskSerializationTime(final long taskSerializationTime) {
-    this.taskSerializationTime = taskSerializationTime;
+    return getNumericField("taskSerializationTime");
   }
 
   /**
-   * Method related to task deserialization time.
+   * Method related to task deserialization time, i.e., the time to deserialize the IR DAG of the task
+   * in the executor, without the time to wait for the IR DAG to arrive.
    */
   public final long getTaskDeserializationTime() {
-    return taskDeserializationTime;
-  }
-
-  private void setTaskDeserializationTime(final long taskDeserializationTime) {
-    this.taskDeserializationTime = taskDeserializationTime;
+    return getNumericField("taskDeserializationTime");
   }
 
   /**
    * Method related to bounded source read time.
    */
   public final long getBoundedSourceReadTime() {
-    return boundedSourceReadTime;
-  }
-
-  private void setBoundedSourceReadTime(final long boundedSourceReadTime) {
-    this.boundedSourceReadTime = boundedSourceReadTime;
+    return getNumericField("boundedSourceReadTime");
   }
 
   /**
    * Method related to peak execution memory.
    */
   public final long getPeakExecutionMemory() {
-    return this.peakExecutionMemory;
-  }
-
-  private void setPeakExecutionMemory(final long peakExecutionMemory) {
-    this.peakExecutionMemory = peakExecutionMemory;
+    return getNumericField("peakExecutionMemory");
   }
 
   /**
    * Method related to task size ratio.
    */
   public final int getTaskSizeRatio() {
-    return this.taskSizeRatio;
-  }
-
-  private void setTaskSizeRatio(final int taskSizeRatio) {
-    this.taskSizeRatio = taskSizeRatio;
+    return (int) getNumericField("taskSizeRatio");
   }
 
   /**
    * Method related to shuffle.
    */
   public final long getShuffleReadBytes() {
-    return this.shuffleReadBytes;
-  }
-
-  private void setShuffleReadBytes(final long shuffleReadBytes) {
-    this.shuffleReadBytes = shuffleReadBytes;
+    return getNumericField("shuffleReadBytes");
   }
 
   public final long getShuffleReadTime() {
-    return this.shuffleReadTime;
-  }
-
-  private void setShuffleReadTime(final long shuffleReadTime) {
-    this.shuffleReadTime = shuffleReadTime;
+    return getNumericField("shuffleReadTime");
   }
 
   public final long getShuffleWriteBytes() {
-    return this.shuffleWriteBytes;
+    return getNumericField("shuffleWriteBytes");
   }
 
-  private void setShuffleWriteBytes(final long shuffleWriteBytes) {
-    this.shuffleWriteBytes = shuffleWriteBytes;
+  public final long getShuffleWriteTime() {
+    return getNumericField("shuffleWriteTime");
   }
 
-  public final long getShuffleWriteTime() {
-    return this.shuffleWriteTime;
+  /**
+   * Method related to the flow control of pipes.
+   *
+   * @return the flow control statistics of the pipe edges of this task as of its end, keyed by the edge ids.
+   * The statistics of an edge are aggregated over its pipes in the executor.
+   */
+  public final Map<String, Map<String, Long>> getPipeFlowControlStatistics() {
+    return this.pipeFlowControlStatistics;
   }
 
-  private void setShuffleWriteTime(final long shuffleWriteTime) {
-    this.shuffleWriteTime = shuffleWriteTime;
+  private void setPipeFlowControlStatistics(final Map<String, Map<String, Long>> pipeFlowControlStatistics) {
+    this.pipeFlowControlStatistics = pipeFlowControlStatistics;
   }
 
   @Override
@@ -260,62 +243,21 @@ public class TaskMetric implements StateMetric<TaskState.State> {
   @Override
   public final boolean processMetricMessage(final String metricField, final byte[] metricValue) {
     LOG.debug("metric {} has just arrived!", metricField);
+    if (NUMERIC_FIELDS.contains(metricField)) {
+      setNumericField(metricField, ((Number) SerializationUtils.deserialize(metricValue)).longValue());
+      return true;
+    }
     switch (metricField) {
-      case "taskDuration":
-        setTaskDuration(SerializationUtils.deserialize(metricValue));
-        break;
-      case "schedulingOverhead":
-        setSchedulingOverhead(SerializationUtils.deserialize(metricValue));
-        break;
-      case "serializedReadBytes":
-        setSerializedReadBytes(SerializationUtils.deserialize(metricValue));
-        break;
-      case "encodedReadBytes":
-        setEncodedReadBytes(SerializationUtils.deserialize(metricValue));
-        break;
-      case "boundedSourceReadTime":
-        setBoundedSourceReadTime(SerializationUtils.deserialize(metricValue));
-        break;
-      case "taskOutputBytes":
-        setTaskOutputBytes(SerializationUtils.deserialize(metricValue));
-        break;
-      case "taskDeserializationTime":
-        setTaskDeserializationTime(SerializationUtils.deserialize(metricValue));
-        break;
       case "stateTransitionEvent":
         final StateTransitionEvent<TaskState.State> newStateTransitionEvent =
           SerializationUtils.deserialize(metricValue);
         addEvent(newStateTransitionEvent);
         break;
-      case "scheduleAttempt":
-        setScheduleAttempt(SerializationUtils.deserialize(metricValue));
-        break;
       case "containerId":
         setContainerId(SerializationUtils.deserialize(metricValue));
         break;
-      case "taskCPUTime":
-        setTaskCPUTime(SerializationUtils.deserialize(metricValue));
-        break;
-      case "taskSerializationTime":
-        setTaskSerializationTime(SerializationUtils.deserialize(metricValue));
-        break;
-      case "peakExecutionMemory":
-        setPeakExecutionMemory(SerializationUtils.deserialize(metricValue));
-        break;
-      case "taskSizeRatio":
-        setTaskSizeRatio(SerializationUtils.deserialize(metricValue));
-        break;
-      case "shuffleReadBytes":
-        setShuffleReadBytes(SerializationUtils.deserialize(metricValue));
-        break;
-      case "shuffleReadTime":
-        setShuffleReadTime(SerializationUtils.deserialize(metricValue));
-        break;
-      case "shuffleWriteBytes":
-        setShuffleWriteBytes(SerializationUtils.deserialize(metricValue));
-        break;
-      case "shuffleWriteTime":
-        setShuffleWriteTime(SerializationUtils.deserialize(metricValue));
+      case "pipeFlowControlStatistics":
+        setPipeFlowControlStatistics(SerializationUtils.deserialize(metricValue));
         break;
       default:
         LOG.warn("metricField {} is not supported.", metricField);
@@ -323,4 +265,23 @@ public class TaskMetric implements StateMetric<TaskState.State> {
     }
     return true;
   }
+
+  @Override
+  public final boolean processNumericMetricMessage(final String metricField, final long metricValue) {
+    LOG.debug("metric {} has just arrived!", metricField);
+    if (!NUMERIC_FIELDS.contains(metricField)) {
+      LOG.warn("numeric metricField {} is not supported.", metricField);
+      return false;
+    }
+    setNumericField(metricField, metricValue);
+    return true;
+  }
+
+  private long getNumericField(final String metricField) {
+    return numericColumns.get(row, metricField);
+  }
+
+  private void setNumericField(final String metricField, final long metricValue) {
+    numericColumns.set(row, metricField, metricValue);
+  }
 }
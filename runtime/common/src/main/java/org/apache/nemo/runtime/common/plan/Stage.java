@@ -42,9 +42,12 @@ import java.util.Optional;
  */
 public final class Stage extends Vertex {
   private final List<Integer> taskIndices;
-  private final DAG<IRVertex, RuntimeEdge<IRVertex>> irDag;
-  private final byte[] serializedIRDag;
-  private final List<Map<String, Readable>> vertexIdToReadables;
+
+  // Not serialized with the stage edges of the tasks, as the executors only need the IR DAGs of their own tasks.
+  private final transient DAG<IRVertex, RuntimeEdge<IRVertex>> irDag;
+  private final transient byte[] serializedIRDag;
+  private final transient String irDagHash;
+  private final transient List<Map<String, Readable>> vertexIdToReadables;
 
   private ExecutionPropertyMap<VertexExecutionProperty> executionProperties;
 
@@ -66,6 +69,7 @@ public final class Stage extends Vertex {
     this.taskIndices = taskIndices;
     this.irDag = irDag;
     this.serializedIRDag = SerializationUtils.serialize(irDag);
+    this.irDagHash = Task.hashSerializedIRDag(serializedIRDag);
     this.executionProperties = executionProperties;
     this.vertexIdToReadables = vertexIdToReadables;
   }
@@ -84,6 +88,13 @@ public final class Stage extends Vertex {
     return serializedIRDag;
   }
 
+  /**
+   * @return the hash of the serialized DAG of the task.
+   */
+  public String getIRDagHash() {
+    return irDagHash;
+  }
+
   /**
    * @return task indices of this stage to execute.
    * For non-sampling vertices, returns [0, 1, 2, ..., parallelism-1].
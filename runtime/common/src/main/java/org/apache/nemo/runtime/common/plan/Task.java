@@ -24,6 +24,9 @@ import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 
 import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -37,7 +40,9 @@ public final class Task implements Serializable {
   private final List<StageEdge> taskIncomingEdges;
   private final List<StageEdge> taskOutgoingEdges;
   private final ExecutionPropertyMap<VertexExecutionProperty> executionProperties;
-  private final byte[] serializedIRDag;
+  private final String irDagHash;
+  // Sent to each executor only once per IR DAG, apart from the tasks. See Executor for details.
+  private final transient byte[] serializedIRDag;
   private final Map<String, Readable> irVertexIdToReadable;
 
   /**
@@ -58,10 +63,35 @@ public final class Task implements Serializable {
               final List<StageEdge> taskIncomingEdges,
               final List<StageEdge> taskOutgoingEdges,
               final Map<String, Readable> irVertexIdToReadable) {
+    this(planId, taskId, executionProperties, serializedIRDag, hashSerializedIRDag(serializedIRDag),
+      taskIncomingEdges, taskOutgoingEdges, irVertexIdToReadable);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param planId               the id of the physical plan.
+   * @param taskId               the ID of this task attempt.
+   * @param executionProperties  {@link VertexExecutionProperty} map for the corresponding stage
+   * @param serializedIRDag      the serialized DAG of the task.
+   * @param irDagHash            the hash of the serialized DAG of the task.
+   * @param taskIncomingEdges    the incoming edges of the task.
+   * @param taskOutgoingEdges    the outgoing edges of the task.
+   * @param irVertexIdToReadable the map between IRVertex id to readable.
+   */
+  public Task(final String planId,
+              final String taskId,
+              final ExecutionPropertyMap<VertexExecutionProperty> executionProperties,
+              final byte[] serializedIRDag,
+              final String irDagHash,
+              final List<StageEdge> taskIncomingEdges,
+              final List<StageEdge> taskOutgoingEdges,
+              final Map<String, Readable> irVertexIdToReadable) {
     this.planId = planId;
     this.taskId = taskId;
     this.executionProperties = executionProperties;
     this.serializedIRDag = serializedIRDag;
+    this.irDagHash = irDagHash;
     this.taskIncomingEdges = taskIncomingEdges;
     this.taskOutgoingEdges = taskOutgoingEdges;
     this.irVertexIdToReadable = irVertexIdToReadable;
@@ -75,12 +105,31 @@ public final class Task implements Serializable {
   }
 
   /**
-   * @return the serialized IR DAG of the task.
+   * @return the serialized IR DAG of the task. Only available where the task is created (i.e., in the master).
    */
   public byte[] getSerializedIRDag() {
     return serializedIRDag;
   }
 
+  /**
+   * @return the hash of the serialized IR DAG of the task, which identifies the IR DAG.
+   */
+  public String getIRDagHash() {
+    return irDagHash;
+  }
+
+  /**
+   * @param serializedIRDag the serialized IR DAG.
+   * @return the hash of the serialized IR DAG.
+   */
+  static String hashSerializedIRDag(final byte[] serializedIRDag) {
+    try {
+      return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(serializedIRDag));
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // Every Java platform supports SHA-256.
+    }
+  }
+
   /**
    * @return the ID of the task.
    */
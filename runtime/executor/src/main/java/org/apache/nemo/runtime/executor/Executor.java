@@ -20,7 +20,6 @@ package org.apache.nemo.runtime.executor;
 
 import com.google.protobuf.ByteString;
 import org.apache.commons.lang3.SerializationUtils;
-import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.nemo.common.coder.BytesDecoderFactory;
 import org.apache.nemo.common.coder.BytesEncoderFactory;
 import org.apache.nemo.common.coder.DecoderFactory;
@@ -42,32 +41,43 @@ import org.apache.nemo.runtime.common.message.MessageListener;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
 import org.apache.nemo.runtime.common.plan.RuntimeEdge;
 import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.common.state.TaskState;
+import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
+import org.apache.nemo.runtime.executor.data.MemoryPoolAssigner;
 import org.apache.nemo.runtime.executor.data.SerializerManager;
 import org.apache.nemo.runtime.executor.datatransfer.IntermediateDataIOFactory;
 import org.apache.nemo.runtime.executor.datatransfer.NemoEventDecoderFactory;
 import org.apache.nemo.runtime.executor.datatransfer.NemoEventEncoderFactory;
+import org.apache.nemo.runtime.executor.task.PipeReaderPool;
 import org.apache.nemo.runtime.executor.task.TaskExecutor;
+import org.apache.nemo.runtime.executor.transfer.PipeFlowControlMetrics;
 import org.apache.reef.tang.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Executor.
  */
 public final class Executor {
   private static final Logger LOG = LoggerFactory.getLogger(Executor.class.getName());
+  private static final long IR_DAG_CACHE_CAPACITY_BYTES = 64L * 1024 * 1024;
+  private static final long IR_DAG_WAIT_TIMEOUT_MS = 60000;
 
   private final String executorId;
 
   /**
    * To be used for a thread pool to execute tasks.
    */
-  private final ExecutorService executorService;
+  private final TaskThreadPool taskThreadPool;
 
   /**
    * In charge of this executor's intermediate data transfer.
@@ -85,6 +95,25 @@ public final class Executor {
 
   private final MetricMessageSender metricMessageSender;
 
+  private final boolean dataFetcherReadinessNotification;
+
+  private final PipeReaderPool pipeReaderPool;
+
+  private final MemoryPoolAssigner memoryPoolAssigner;
+
+  private final VertexMetricSampler vertexMetricSampler;
+
+  private final PipeFlowControlMetrics pipeFlowControlMetrics;
+
+  private final BlockManagerWorker blockManagerWorker;
+
+  /**
+   * The serialized IR DAGs of the tasks, by the hashes of the IR DAGs.
+   * The IR DAGs are deserialized for each task, as the transforms in an IR DAG keep the states of the task,
+   * and serialization is the only way to deep-copy the transforms.
+   */
+  private final SerializedIRDagCache serializedIRDagCache;
+
   @Inject
   private Executor(@Parameter(JobConf.ExecutorId.class) final String executorId,
                    final PersistentConnectionToMasterMap persistentConnectionToMasterMap,
@@ -92,16 +121,29 @@ public final class Executor {
                    final SerializerManager serializerManager,
                    final IntermediateDataIOFactory intermediateDataIOFactory,
                    final BroadcastManagerWorker broadcastManagerWorker,
-                   final MetricManagerWorker metricMessageSender) {
+                   final MetricManagerWorker metricMessageSender,
+                   final PipeReaderPool pipeReaderPool,
+                   final MemoryPoolAssigner memoryPoolAssigner,
+                   final VertexMetricSampler vertexMetricSampler,
+                   final PipeFlowControlMetrics pipeFlowControlMetrics,
+                   final BlockManagerWorker blockManagerWorker,
+                   @Parameter(JobConf.DataFetcherReadinessNotification.class)
+                   final boolean dataFetcherReadinessNotification) {
     this.executorId = executorId;
-    this.executorService = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
-      .namingPattern("TaskExecutor thread-%d")
-      .build());
+    this.taskThreadPool = new TaskThreadPool(Runtime.getRuntime().availableProcessors());
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
     this.serializerManager = serializerManager;
     this.intermediateDataIOFactory = intermediateDataIOFactory;
     this.broadcastManagerWorker = broadcastManagerWorker;
     this.metricMessageSender = metricMessageSender;
+    this.dataFetcherReadinessNotification = dataFetcherReadinessNotification;
+    this.pipeReaderPool = pipeReaderPool;
+    this.memoryPoolAssigner = memoryPoolAssigner;
+    this.vertexMetricSampler = vertexMetricSampler;
+    this.pipeFlowControlMetrics = pipeFlowControlMetrics;
+    this.blockManagerWorker = blockManagerWorker;
+    this.serializedIRDagCache = new SerializedIRDagCache(IR_DAG_CACHE_CAPACITY_BYTES, IR_DAG_WAIT_TIMEOUT_MS,
+      this::requestSerializedIRDag);
     messageEnvironment.setupListener(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID, new ExecutorMessageReceiver());
   }
 
@@ -112,7 +154,32 @@ public final class Executor {
   private synchronized void onTaskReceived(final Task task) {
     LOG.debug("Executor [{}] received Task [{}] to execute.",
       new Object[]{executorId, task.getTaskId()});
-    executorService.execute(() -> launchTask(task));
+    taskThreadPool.execute(task, () -> launchTask(task));
+  }
+
+  /**
+   * Requests an IR DAG from the master, e.g., after the IR DAG has been evicted from the cache.
+   *
+   * @param irDagHash the hash of the IR DAG.
+   * @return the future of the serialized IR DAG.
+   */
+  private CompletableFuture<byte[]> requestSerializedIRDag(final String irDagHash) {
+    return persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID)
+      .request(ControlMessage.Message.newBuilder()
+        .setId(RuntimeIdManager.generateMessageId())
+        .setListenerId(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID)
+        .setType(ControlMessage.MessageType.RequestIRDag)
+        .setRequestIRDagMsg(ControlMessage.RequestIRDagMsg.newBuilder()
+          .setExecutorId(executorId)
+          .setIrDagHash(irDagHash)
+          .build())
+        .build())
+      .thenApply(responseFromMaster -> {
+        if (!responseFromMaster.getIrDagInfoMsg().hasIrDag()) {
+          throw new IllegalStateException("The master does not have the IR DAG " + irDagHash);
+        }
+        return responseFromMaster.getIrDagInfoMsg().getIrDag().toByteArray();
+      });
   }
 
   /**
@@ -123,13 +190,25 @@ public final class Executor {
   private void launchTask(final Task task) {
     LOG.info("Launch task: {}", task.getTaskId());
     try {
+      final TaskStateManager taskStateManager =
+        new TaskStateManager(task, executorId, persistentConnectionToMasterMap, metricMessageSender, taskThreadPool);
+      // Tasks may arrive before the first task of their IR DAG, which brings the IR DAG.
+      final byte[] serializedIRDag;
+      try {
+        serializedIRDag = serializedIRDagCache.get(task.getIRDagHash());
+      } catch (final ExecutionException | TimeoutException | InterruptedException e) {
+        LOG.error("Failed to get the IR DAG of " + task.getTaskId(), e);
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        taskStateManager.onTaskStateChanged(TaskState.State.FAILED, Optional.empty(), Optional.empty());
+        return;
+      }
       final long deserializationStartTime = System.currentTimeMillis();
-      final DAG<IRVertex, RuntimeEdge<IRVertex>> irDag =
-        SerializationUtils.deserialize(task.getSerializedIRDag());
+      final DAG<IRVertex, RuntimeEdge<IRVertex>> irDag = SerializationUtils.deserialize(serializedIRDag);
+      // Only the deserialization of the IR DAG, as before the IR DAGs were cached, not the wait for the IR DAG.
       metricMessageSender.send("TaskMetric", task.getTaskId(), "taskDeserializationTime",
-        SerializationUtils.serialize(System.currentTimeMillis() - deserializationStartTime));
-      final TaskStateManager taskStateManager =
-        new TaskStateManager(task, executorId, persistentConnectionToMasterMap, metricMessageSender);
+        System.currentTimeMillis() - deserializationStartTime);
 
       task.getTaskIncomingEdges().forEach(e -> serializerManager.register(e.getId(),
         getEncoderFactory(e.getPropertyValue(EncoderProperty.class).get()),
@@ -149,7 +228,11 @@ public final class Executor {
           e.getPropertyValue(DecompressionProperty.class).orElse(null))));
 
       new TaskExecutor(task, irDag, taskStateManager, intermediateDataIOFactory, broadcastManagerWorker,
-        metricMessageSender, persistentConnectionToMasterMap).execute();
+        metricMessageSender, persistentConnectionToMasterMap, pipeReaderPool, memoryPoolAssigner,
+        vertexMetricSampler,
+        dataFetcherReadinessNotification)
+        .execute();
+      sendPipeFlowControlStatistics(task);
     } catch (final Exception e) {
       persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
         ControlMessage.Message.newBuilder()
@@ -165,6 +248,37 @@ public final class Executor {
     }
   }
 
+  /**
+   * Sends the flow control statistics of the pipe edges of a task, which has been executed.
+   *
+   * @param task the task.
+   */
+  private void sendPipeFlowControlStatistics(final Task task) {
+    final Map<String, PipeFlowControlMetrics.EdgeStatistics> edgeIdToStatistics =
+      pipeFlowControlMetrics.getAllEdgeStatistics();
+    final HashMap<String, HashMap<String, Long>> statistics = new HashMap<>();
+    task.getTaskIncomingEdges().forEach(e -> putEdgeStatistics(e.getId(), edgeIdToStatistics, statistics));
+    task.getTaskOutgoingEdges().forEach(e -> putEdgeStatistics(e.getId(), edgeIdToStatistics, statistics));
+    if (!statistics.isEmpty()) {
+      metricMessageSender.send("TaskMetric", task.getTaskId(), "pipeFlowControlStatistics",
+        SerializationUtils.serialize(statistics));
+    }
+  }
+
+  /**
+   * @param edgeId             the id of an edge.
+   * @param edgeIdToStatistics the statistics of the pipe edges in this executor.
+   * @param statistics         to put the snapshot of the statistics of the edge, if it is a pipe edge.
+   */
+  private static void putEdgeStatistics(final String edgeId,
+                                        final Map<String, PipeFlowControlMetrics.EdgeStatistics> edgeIdToStatistics,
+                                        final HashMap<String, HashMap<String, Long>> statistics) {
+    final PipeFlowControlMetrics.EdgeStatistics edgeStatistics = edgeIdToStatistics.get(edgeId);
+    if (edgeStatistics != null) {
+      statistics.put(edgeId, edgeStatistics.toMap());
+    }
+  }
+
   /**
    * This wraps the encoder with NemoEventEncoder.
    * If the encoder is BytesEncoderFactory, we do not wrap the encoder.
@@ -198,6 +312,7 @@ public final class Executor {
   }
 
   public void terminate() {
+    vertexMetricSampler.close();
     try {
       metricMessageSender.close();
     } catch (final UnknownFailureCauseException e) {
@@ -215,20 +330,35 @@ public final class Executor {
     public void onMessage(final ControlMessage.Message message) {
       switch (message.getType()) {
         case ScheduleTask:
-          final ControlMessage.ScheduleTaskMsg scheduleTaskMsg = message.getScheduleTaskMsg();
-          final Task task =
-            SerializationUtils.deserialize(scheduleTaskMsg.getTask().toByteArray());
-          onTaskReceived(task);
+          onScheduleTaskMsg(message.getScheduleTaskMsg());
+          break;
+        case ScheduleTasks:
+          message.getScheduleTasksMsg().getTasksList().forEach(this::onScheduleTaskMsg);
           break;
         case RequestMetricFlush:
           metricMessageSender.flush();
           break;
+        case RemoveMergedBlocks:
+          blockManagerWorker.removeMergedBlocks(message.getRemoveMergedBlocksMsg().getRuntimeEdgeId());
+          break;
         default:
           throw new IllegalMessageException(
             new Exception("This message should not be received by an executor :" + message.getType()));
       }
     }
 
+    /**
+     * @param scheduleTaskMsg the message of a task to launch.
+     */
+    private void onScheduleTaskMsg(final ControlMessage.ScheduleTaskMsg scheduleTaskMsg) {
+      final Task task =
+        SerializationUtils.deserialize(scheduleTaskMsg.getTask().toByteArray());
+      if (scheduleTaskMsg.hasIrDag()) {
+        serializedIRDagCache.put(task.getIRDagHash(), scheduleTaskMsg.getIrDag().toByteArray());
+      }
+      onTaskReceived(task);
+    }
+
     @Override
     public void onMessageWithContext(final ControlMessage.Message message, final MessageContext messageContext) {
       switch (message.getType()) {
@@ -28,16 +28,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
 /**
  * Metric sender that periodically flushes the collected metrics to Driver.
+ * Numeric metric values are sent as protobuf varints instead of Java-serialized objects.
+ * In each batch, the metrics of the same metric object are sent in a row, and the type and the id of the metric object
+ * are sent only with the first of them. Each numeric value is sent as the delta from the previous numeric value
+ * of the same metric object in the batch (the first as it is), as the values of a metric object, e.g., the bytes
+ * and the times of a task, tend to be close to each other. The master decodes them in MetricStore.
  */
 @EvaluatorSide
 public final class MetricManagerWorker implements MetricMessageSender {
 
   private final ScheduledExecutorService scheduledExecutorService;
-  private final BlockingQueue<ControlMessage.Metric> metricMessageQueue;
+  private final BlockingQueue<MetricRecord> metricMessageQueue;
   private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
 
   private static final int FLUSHING_PERIOD = 3000;
@@ -72,10 +81,30 @@ public final class MetricManagerWorker implements MetricMessageSender {
       final ControlMessage.MetricMsg.Builder metricMsgBuilder = ControlMessage.MetricMsg.newBuilder();
 
       LOG.debug("MetricManagerWorker Size: {}", size);
+      // Group the metrics by the metric objects, keeping the order of the metrics of each metric object
+      final Map<String, List<MetricRecord>> metricIdToRecords = new LinkedHashMap<>();
       for (int i = 0; i < size; i++) {
-        final ControlMessage.Metric metric = metricMessageQueue.poll();
-        LOG.debug("MetricManagerWorker addMetric: {}, {}, {}", size, i, metric);
-        metricMsgBuilder.addMetric(i, metric);
+        final MetricRecord record = metricMessageQueue.poll();
+        metricIdToRecords.computeIfAbsent(record.metricType + '/' + record.metricId, k -> new ArrayList<>())
+          .add(record);
+      }
+      for (final List<MetricRecord> records : metricIdToRecords.values()) {
+        long previousNumericValue = 0;
+        for (int i = 0; i < records.size(); i++) {
+          final MetricRecord record = records.get(i);
+          final ControlMessage.Metric.Builder metricBuilder = ControlMessage.Metric.newBuilder()
+            .setMetricField(record.metricField);
+          if (i == 0) {
+            metricBuilder.setMetricType(record.metricType).setMetricId(record.metricId);
+          }
+          if (record.serializedValue == null) {
+            metricBuilder.setNumericValue(record.numericValue - previousNumericValue);
+            previousNumericValue = record.numericValue;
+          } else {
+            metricBuilder.setMetricValue(ByteString.copyFrom(record.serializedValue));
+          }
+          metricMsgBuilder.addMetric(metricBuilder);
+        }
       }
 
       persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
@@ -91,13 +120,13 @@ public final class MetricManagerWorker implements MetricMessageSender {
   @Override
   public void send(final String metricType, final String metricId,
                    final String metricField, final byte[] metricValue) {
-    metricMessageQueue.add(
-      ControlMessage.Metric.newBuilder()
-        .setMetricType(metricType)
-        .setMetricId(metricId)
-        .setMetricField(metricField)
-        .setMetricValue(ByteString.copyFrom(metricValue))
-        .build());
+    metricMessageQueue.add(new MetricRecord(metricType, metricId, metricField, metricValue, 0));
+  }
+
+  @Override
+  public void send(final String metricType, final String metricId,
+                   final String metricField, final long metricValue) {
+    metricMessageQueue.add(new MetricRecord(metricType, metricId, metricField, null, metricValue));
   }
 
   @Override
@@ -105,4 +134,27 @@ public final class MetricManagerWorker implements MetricMessageSender {
     scheduledExecutorService.shutdownNow();
     flushMetricMessageQueueToMaster();
   }
+
+  /**
+   * A metric to send.
+   */
+  private static final class MetricRecord {
+    private final String metricType;
+    private final String metricId;
+    private final String metricField;
+    private final byte[] serializedValue; // null if numeric
+    private final long numericValue;
+
+    private MetricRecord(final String metricType,
+                         final String metricId,
+                         final String metricField,
+                         final byte[] serializedValue,
+                         final long numericValue) {
+      this.metricType = metricType;
+      this.metricId = metricId;
+      this.metricField = metricField;
+      this.serializedValue = serializedValue;
+      this.numericValue = numericValue;
+    }
+  }
 }
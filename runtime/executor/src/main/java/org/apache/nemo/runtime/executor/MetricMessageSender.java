@@ -36,6 +36,16 @@ public interface MetricMessageSender extends AutoCloseable {
    */
   void send(String metricType, String metricId, String metricField, byte[] metricValue);
 
+  /**
+   * Send numeric metric to master, without Java serialization.
+   *
+   * @param metricType  type of the metric
+   * @param metricId    id of the metric
+   * @param metricField field of the metric
+   * @param metricValue numeric value of the metric
+   */
+  void send(String metricType, String metricId, String metricField, long metricValue);
+
   /**
    * Flush all metric inside of the queue.
    */
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Estimates the total time spent in a frequent operation, e.g., writing or fetching an element,
+ * by reading the clock for only one out of every few calls to the operation.
+ */
+@NotThreadSafe
+public final class SampledTimer {
+  private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  private final int samplingInterval;
+  private long numOfCalls;
+  private long numOfSampledCalls;
+  private long sampledTimeNs;
+
+  /**
+   * Constructor.
+   *
+   * @param samplingInterval the number of calls per sampled call. 1 times every call.
+   */
+  public SampledTimer(final int samplingInterval) {
+    if (samplingInterval < 1) {
+      throw new IllegalArgumentException(String.valueOf(samplingInterval));
+    }
+    this.samplingInterval = samplingInterval;
+    this.numOfCalls = 0;
+    this.numOfSampledCalls = 0;
+    this.sampledTimeNs = 0;
+  }
+
+  /**
+   * Called before a call to the operation. The first call is always sampled.
+   *
+   * @return the value to pass to {@link #stop(long)} after the call.
+   */
+  public long start() {
+    return numOfCalls++ % samplingInterval == 0 ? System.nanoTime() : NOT_SAMPLED;
+  }
+
+  /**
+   * Called after a call to the operation.
+   *
+   * @param startTime the value returned by {@link #start()} before the call.
+   */
+  public void stop(final long startTime) {
+    if (startTime != NOT_SAMPLED) {
+      sampledTimeNs += System.nanoTime() - startTime;
+      numOfSampledCalls++;
+    }
+  }
+
+  /**
+   * @return the estimated time spent in all calls so far, in nanoseconds.
+   */
+  public long getEstimatedTimeNs() {
+    if (numOfSampledCalls == 0) {
+      return 0;
+    }
+    return (long) ((double) sampledTimeNs / numOfSampledCalls * numOfCalls);
+  }
+}
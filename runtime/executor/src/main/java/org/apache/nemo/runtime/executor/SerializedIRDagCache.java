@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.reef.annotations.audience.EvaluatorSide;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * The serialized IR DAGs of the tasks in an executor, by the hashes of the IR DAGs.
+ * The master sends each IR DAG only once, with the first task of the IR DAG, instead of with every task.
+ * This saves the serialization of the IR DAG on the master and its transfer for every task, but not its
+ * deserialization in the executor: the transforms of an IR DAG keep the states of a task, so each task still
+ * deserializes its own copy of the IR DAG.
+ * The least recently used IR DAGs are evicted once their total size exceeds the capacity,
+ * and fetched from the master again if more tasks of them arrive afterwards.
+ * A task that arrives before the first task of its IR DAG waits for the IR DAG, or fetches it from the master.
+ */
+@EvaluatorSide
+@ThreadSafe
+final class SerializedIRDagCache {
+  private final Cache<String, byte[]> irDagHashToSerializedIRDag;
+  private final ConcurrentMap<String, CompletableFuture<byte[]>> irDagHashToPendingIRDag;
+  private final Function<String, CompletableFuture<byte[]>> fetchFromMaster;
+  private final long waitTimeoutMs;
+
+  /**
+   * Constructor.
+   *
+   * @param capacityBytes   the maximum total size of the cached IR DAGs.
+   * @param waitTimeoutMs   how long to wait for an IR DAG, to arrive with another task or to be fetched.
+   * @param fetchFromMaster fetches the serialized IR DAG of a hash from the master.
+   */
+  SerializedIRDagCache(final long capacityBytes,
+                       final long waitTimeoutMs,
+                       final Function<String, CompletableFuture<byte[]>> fetchFromMaster) {
+    this.irDagHashToSerializedIRDag = CacheBuilder.newBuilder()
+      .concurrencyLevel(1) // not to split the capacity across segments
+      .maximumWeight(capacityBytes)
+      .weigher((String irDagHash, byte[] serializedIRDag) -> serializedIRDag.length)
+      .build();
+    this.irDagHashToPendingIRDag = new ConcurrentHashMap<>();
+    this.fetchFromMaster = fetchFromMaster;
+    this.waitTimeoutMs = waitTimeoutMs;
+  }
+
+  /**
+   * To be called when an IR DAG arrives with a task.
+   *
+   * @param irDagHash       the hash of the IR DAG.
+   * @param serializedIRDag the serialized IR DAG.
+   */
+  void put(final String irDagHash, final byte[] serializedIRDag) {
+    irDagHashToSerializedIRDag.put(irDagHash, serializedIRDag);
+    final CompletableFuture<byte[]> pendingIRDag = irDagHashToPendingIRDag.remove(irDagHash);
+    if (pendingIRDag != null) {
+      pendingIRDag.complete(serializedIRDag);
+    }
+  }
+
+  /**
+   * Gets an IR DAG. If the IR DAG is not in the cache, it is fetched from the master,
+   * unless it arrives with another task first.
+   *
+   * @param irDagHash the hash of the IR DAG.
+   * @return the serialized IR DAG.
+   * @throws ExecutionException   if failed to fetch the IR DAG.
+   * @throws TimeoutException     if the IR DAG does not arrive, nor is fetched, in time.
+   * @throws InterruptedException if interrupted while waiting for the IR DAG.
+   */
+  byte[] get(final String irDagHash) throws ExecutionException, TimeoutException, InterruptedException {
+    final byte[] cachedIRDag = irDagHashToSerializedIRDag.getIfPresent(irDagHash);
+    if (cachedIRDag != null) {
+      return cachedIRDag;
+    }
+    final CompletableFuture<byte[]> newPendingIRDag = new CompletableFuture<>();
+    final CompletableFuture<byte[]> existingPendingIRDag =
+      irDagHashToPendingIRDag.putIfAbsent(irDagHash, newPendingIRDag);
+    final CompletableFuture<byte[]> pendingIRDag =
+      existingPendingIRDag == null ? newPendingIRDag : existingPendingIRDag;
+    // Check again, in case the IR DAG has arrived in the meantime.
+    final byte[] arrivedIRDag = irDagHashToSerializedIRDag.getIfPresent(irDagHash);
+    if (arrivedIRDag != null) {
+      put(irDagHash, arrivedIRDag);
+      return arrivedIRDag;
+    }
+    if (existingPendingIRDag == null) {
+      // Only the first task waiting for the IR DAG fetches it.
+      fetchFromMaster.apply(irDagHash).whenComplete((fetchedIRDag, throwable) -> {
+        if (throwable == null) {
+          put(irDagHash, fetchedIRDag);
+        } else {
+          irDagHashToPendingIRDag.remove(irDagHash, pendingIRDag);
+          pendingIRDag.completeExceptionally(throwable);
+        }
+      });
+    }
+    try {
+      // let the pool of block tasks run another thread while waiting
+      TaskThreadPool.awaitDone(pendingIRDag, waitTimeoutMs, TimeUnit.MILLISECONDS);
+      return pendingIRDag.get(0, TimeUnit.MILLISECONDS);
+    } catch (final TimeoutException e) {
+      irDagHashToPendingIRDag.remove(irDagHash, pendingIRDag);
+      throw e;
+    }
+  }
+
+  /**
+   * @return the total size of the cached IR DAGs, for testing.
+   */
+  long getCachedBytes() {
+    return irDagHashToSerializedIRDag.asMap().values().stream().mapToLong(serializedIRDag -> serializedIRDag.length)
+      .sum();
+  }
+}
@@ -46,21 +46,24 @@ public final class TaskStateManager {
   private final String executorId;
   private final MetricMessageSender metricMessageSender;
   private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
+  private final TaskThreadPool taskThreadPool;
 
   private static final String METRIC = "TaskMetric";
 
   public TaskStateManager(final Task task,
                           final String executorId,
                           final PersistentConnectionToMasterMap persistentConnectionToMasterMap,
-                          final MetricMessageSender metricMessageSender) {
+                          final MetricMessageSender metricMessageSender,
+                          final TaskThreadPool taskThreadPool) {
     this.taskId = task.getTaskId();
     this.attemptIdx = task.getAttemptIdx();
     this.executorId = executorId;
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
     this.metricMessageSender = metricMessageSender;
+    this.taskThreadPool = taskThreadPool;
 
     metricMessageSender.send(METRIC, taskId, "containerId", SerializationUtils.serialize(executorId));
-    metricMessageSender.send(METRIC, taskId, "scheduleAttempt", SerializationUtils.serialize(attemptIdx));
+    metricMessageSender.send(METRIC, taskId, "scheduleAttempt", attemptIdx);
   }
 
   /**
@@ -116,7 +119,9 @@ public final class TaskStateManager {
         .setExecutorId(executorId)
         .setTaskId(taskId)
         .setAttemptIdx(attemptIdx)
-        .setState(MessageUtils.convertState(newState));
+        .setState(MessageUtils.convertState(newState))
+        // the load lets the master place the next tasks by the actual load of the executors
+        .setExecutorLoad(taskThreadPool.getLoad());
     vertexPutOnHold.ifPresent(msgBuilder::setVertexPutOnHoldId);
     cause.ifPresent(c -> msgBuilder.setFailureCause(MessageUtils.convertFailureCause(c)));
 
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.DataStoreProperty;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.reef.annotations.audience.EvaluatorSide;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs the tasks of an executor.
+ * Tasks that only read and write blocks run on a work-stealing pool with as many threads as the cores,
+ * so that many small tasks do not oversubscribe the cores, and idle threads steal queued tasks.
+ * Tasks with pipes run on their own threads, as they may run indefinitely and wait for each other.
+ * <p>
+ * Block tasks wait (e.g., for the blocks to fetch) through the static methods of this class,
+ * or through {@link ForkJoinPool#managedBlock}, so that the pool runs another thread while a thread waits.
+ */
+@EvaluatorSide
+@ThreadSafe
+public final class TaskThreadPool {
+  private final int numOfCores;
+  private final ForkJoinPool blockTaskThreads;
+  private final ExecutorService pipeTaskThreads;
+  private final AtomicInteger numOfRunningTasks;
+
+  /**
+   * Constructor.
+   *
+   * @param numOfCores the number of cores of the executor.
+   */
+  TaskThreadPool(final int numOfCores) {
+    this.numOfCores = numOfCores;
+    this.blockTaskThreads = new ForkJoinPool(numOfCores, pool -> {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("BlockTaskExecutor thread-" + thread.getPoolIndex());
+      return thread;
+    }, null, true);
+    this.pipeTaskThreads = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
+      .namingPattern("TaskExecutor thread-%d")
+      .build());
+    this.numOfRunningTasks = new AtomicInteger(0);
+  }
+
+  /**
+   * Runs a task.
+   *
+   * @param task     to run.
+   * @param launcher that runs the task to its end.
+   */
+  void execute(final Task task, final Runnable launcher) {
+    final Runnable countingLauncher = () -> {
+      numOfRunningTasks.incrementAndGet();
+      try {
+        launcher.run();
+      } finally {
+        numOfRunningTasks.decrementAndGet();
+      }
+    };
+    if (hasPipe(task)) {
+      pipeTaskThreads.execute(countingLauncher);
+    } else {
+      blockTaskThreads.execute(countingLauncher);
+    }
+  }
+
+  /**
+   * The load is the number of cores in use by this executor process,
+   * plus the number of tasks waiting for a thread.
+   * The master divides the load by the capacity of the executor, as the executor may share its machine.
+   *
+   * @return the current load of the executor.
+   */
+  double getLoad() {
+    final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    double coresInUse = -1;
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      // the fraction of the cores of the machine, or negative if not available
+      final double processCpuLoad = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad();
+      if (processCpuLoad >= 0) {
+        coresInUse = processCpuLoad * os.getAvailableProcessors();
+      }
+    }
+    if (coresInUse < 0) {
+      coresInUse = Math.min(numOfRunningTasks.get(), numOfCores);
+    }
+    return coresInUse + blockTaskThreads.getQueuedSubmissionCount();
+  }
+
+  /**
+   * Takes an element from the queue, waiting if necessary.
+   *
+   * @param queue to take from.
+   * @param <T>   the type of the elements.
+   * @return the head of the queue.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public static <T> T take(final BlockingQueue<T> queue) throws InterruptedException {
+    final ResultBlocker<T> blocker = new ResultBlocker<>(queue::poll, queue::take);
+    ForkJoinPool.managedBlock(blocker);
+    return blocker.result;
+  }
+
+  /**
+   * Polls an element from the queue, waiting up to the timeout if necessary.
+   *
+   * @param queue   to poll from.
+   * @param timeout the maximum time to wait.
+   * @param unit    the unit of the timeout.
+   * @param <T>     the type of the elements.
+   * @return the head of the queue, or {@code null} if the timeout elapses.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public static <T> T poll(final BlockingQueue<T> queue,
+                           final long timeout,
+                           final TimeUnit unit) throws InterruptedException {
+    final ResultBlocker<T> blocker = new ResultBlocker<>(queue::poll, () -> queue.poll(timeout, unit));
+    ForkJoinPool.managedBlock(blocker);
+    return blocker.result;
+  }
+
+  /**
+   * Waits for the future to complete, and returns its result.
+   *
+   * @param future to wait for.
+   * @param <T>    the type of the result.
+   * @return the result of the future.
+   */
+  public static <T> T join(final CompletableFuture<T> future) {
+    try {
+      awaitDone(future, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      // join() is not interruptible, so wait without letting the pool add a thread
+      Thread.currentThread().interrupt();
+    }
+    return future.join();
+  }
+
+  /**
+   * Waits for the future to complete, up to the timeout.
+   *
+   * @param future  to wait for.
+   * @param timeout the maximum time to wait.
+   * @param unit    the unit of the timeout.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public static void awaitDone(final Future<?> future,
+                               final long timeout,
+                               final TimeUnit unit) throws InterruptedException {
+    ForkJoinPool.managedBlock(new ResultBlocker<>(() -> future.isDone() ? future : null, () -> {
+      try {
+        future.get(timeout, unit);
+      } catch (final ExecutionException | TimeoutException e) {
+        // the caller gets the result or the exception from the future
+      }
+      return future;
+    }));
+  }
+
+  /**
+   * Sleeps for the given time.
+   *
+   * @param millis the time to sleep, in milliseconds.
+   * @throws InterruptedException if interrupted while sleeping.
+   */
+  public static void sleep(final long millis) throws InterruptedException {
+    ForkJoinPool.managedBlock(new ResultBlocker<>(() -> null, () -> {
+      Thread.sleep(millis);
+      return Boolean.TRUE;
+    }));
+  }
+
+  /**
+   * @param task to check.
+   * @return whether the task reads or writes any pipe.
+   */
+  private static boolean hasPipe(final Task task) {
+    return Stream.concat(task.getTaskIncomingEdges().stream(), task.getTaskOutgoingEdges().stream())
+      .anyMatch(edge -> edge.getPropertyValue(DataStoreProperty.class)
+        .map(DataStoreProperty.Value.PIPE::equals)
+        .orElse(false));
+  }
+
+  /**
+   * A blocking call.
+   *
+   * @param <T> the type of the result.
+   */
+  @FunctionalInterface
+  private interface BlockingCall<T> {
+    /**
+     * @return the result of the call.
+     * @throws InterruptedException if interrupted while blocking.
+     */
+    T call() throws InterruptedException;
+  }
+
+  /**
+   * Tries a call without blocking first, and makes the blocking call only if the first one returns {@code null}.
+   *
+   * @param <T> the type of the result.
+   */
+  private static final class ResultBlocker<T> implements ForkJoinPool.ManagedBlocker {
+    private final Supplier<T> nonBlockingCall;
+    private final BlockingCall<T> blockingCall;
+    private T result;
+    private boolean done;
+
+    private ResultBlocker(final Supplier<T> nonBlockingCall, final BlockingCall<T> blockingCall) {
+      this.nonBlockingCall = nonBlockingCall;
+      this.blockingCall = blockingCall;
+      this.done = false;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (!done) {
+        result = blockingCall.call();
+        done = true;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (!done) {
+        result = nonBlockingCall.get();
+        done = result != null;
+      }
+      return done;
+    }
+  }
+}
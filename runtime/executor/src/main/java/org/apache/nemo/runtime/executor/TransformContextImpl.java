@@ -29,15 +29,19 @@ import java.util.Optional;
  */
 public final class TransformContextImpl implements Transform.Context {
   private final BroadcastManagerWorker broadcastManagerWorker;
+  private final int taskIndex;
   private String data;
 
   /**
    * Constructor of Context Implementation.
    *
    * @param broadcastManagerWorker for broadcast variables.
+   * @param taskIndex              of the task that runs the transform.
    */
-  public TransformContextImpl(final BroadcastManagerWorker broadcastManagerWorker) {
+  public TransformContextImpl(final BroadcastManagerWorker broadcastManagerWorker,
+                              final int taskIndex) {
     this.broadcastManagerWorker = broadcastManagerWorker;
+    this.taskIndex = taskIndex;
     this.data = null;
   }
 
@@ -55,4 +59,9 @@ public final class TransformContextImpl implements Transform.Context {
   public Optional<String> getSerializedData() {
     return Optional.ofNullable(this.data);
   }
+
+  @Override
+  public int getTaskIndex() {
+    return taskIndex;
+  }
 }
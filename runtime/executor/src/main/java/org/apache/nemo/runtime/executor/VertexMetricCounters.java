@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of an operator, shared by the tasks of the operator in an executor.
+ * Updated by the task threads on each record, and sampled by the {@link VertexMetricSampler}.
+ */
+@ThreadSafe
+public final class VertexMetricCounters {
+  private static final long NO_WATERMARK = Long.MIN_VALUE;
+
+  private final LongAdder recordsIn;
+  private final LongAdder recordsOut;
+  private final LongAdder processingTimeNs;
+  private final AtomicLong latestWatermark;
+
+  VertexMetricCounters() {
+    this.recordsIn = new LongAdder();
+    this.recordsOut = new LongAdder();
+    this.processingTimeNs = new LongAdder();
+    this.latestWatermark = new AtomicLong(NO_WATERMARK);
+  }
+
+  /**
+   * Called when the operator receives a record.
+   */
+  public void onRecordIn() {
+    recordsIn.increment();
+  }
+
+  /**
+   * Called when the operator emits a record.
+   */
+  public void onRecordOut() {
+    recordsOut.increment();
+  }
+
+  /**
+   * Adds to the processing time of the operator.
+   * The time spent in the next operators is subtracted with a negative value, to exclude it.
+   *
+   * @param timeNs the time to add, in nanoseconds.
+   */
+  public void addProcessingTimeNs(final long timeNs) {
+    processingTimeNs.add(timeNs);
+  }
+
+  /**
+   * Called when the operator emits a watermark.
+   *
+   * @param watermarkTimestamp the timestamp of the watermark.
+   */
+  public void onWatermark(final long watermarkTimestamp) {
+    latestWatermark.accumulateAndGet(watermarkTimestamp, Math::max);
+  }
+
+  long sumThenResetRecordsIn() {
+    return recordsIn.sumThenReset();
+  }
+
+  long sumThenResetRecordsOut() {
+    return recordsOut.sumThenReset();
+  }
+
+  long sumThenResetProcessingTimeNs() {
+    return processingTimeNs.sumThenReset();
+  }
+
+  /**
+   * @return whether the operator has emitted a watermark.
+   */
+  boolean hasWatermark() {
+    return latestWatermark.get() != NO_WATERMARK;
+  }
+
+  long getLatestWatermark() {
+    return latestWatermark.get();
+  }
+}
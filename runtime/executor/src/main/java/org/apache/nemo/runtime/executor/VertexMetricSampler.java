@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
+import org.apache.reef.annotations.audience.EvaluatorSide;
+import org.apache.reef.tang.annotations.Parameter;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the {@link VertexMetricCounters} of the operators in this executor,
+ * and sends the samples of the operators that were active in the period to the master.
+ * The sampling periods are aligned to the wall clock, so that the master can merge the samples of the executors.
+ */
+@EvaluatorSide
+@ThreadSafe
+public final class VertexMetricSampler {
+  private final String executorId;
+  private final long samplingPeriodMs;
+  private final PersistentConnectionToMasterMap persistentConnectionToMasterMap;
+  private final ConcurrentMap<String, VertexMetricCounters> vertexIdToCounters;
+  private final ScheduledExecutorService samplingThread;
+  private long periodStartTime;
+
+  @Inject
+  private VertexMetricSampler(@Parameter(JobConf.ExecutorId.class) final String executorId,
+                              @Parameter(JobConf.VertexMetricSamplingPeriodMs.class) final long samplingPeriodMs,
+                              final PersistentConnectionToMasterMap persistentConnectionToMasterMap) {
+    this.executorId = executorId;
+    this.samplingPeriodMs = samplingPeriodMs;
+    this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
+    this.vertexIdToCounters = new ConcurrentHashMap<>();
+    if (samplingPeriodMs > 0) {
+      final long now = System.currentTimeMillis();
+      this.periodStartTime = now - now % samplingPeriodMs;
+      this.samplingThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "VertexMetricSampler thread");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.samplingThread.scheduleAtFixedRate(this::sample,
+        periodStartTime + samplingPeriodMs - now, samplingPeriodMs, TimeUnit.MILLISECONDS);
+    } else {
+      this.samplingThread = null;
+    }
+  }
+
+  /**
+   * Static constructor for manual usage.
+   *
+   * @param executorId                      the id of this executor.
+   * @param samplingPeriodMs                the sampling period. 0 disables the sampling.
+   * @param persistentConnectionToMasterMap for sending the samples to the master.
+   * @return a new instance.
+   */
+  public static VertexMetricSampler newInstance(final String executorId,
+                                                final long samplingPeriodMs,
+                                                final PersistentConnectionToMasterMap persistentConnectionToMasterMap) {
+    return new VertexMetricSampler(executorId, samplingPeriodMs, persistentConnectionToMasterMap);
+  }
+
+  /**
+   * @param vertexId of the operator.
+   * @return the counters of the operator, or null if the sampling is disabled.
+   */
+  @Nullable
+  public VertexMetricCounters getCounters(final String vertexId) {
+    if (samplingThread == null) {
+      return null;
+    }
+    return vertexIdToCounters.computeIfAbsent(vertexId, id -> new VertexMetricCounters());
+  }
+
+  /**
+   * Samples and resets the counters, and sends the samples of the operators active in the period to the master.
+   */
+  private void sample() {
+    final long periodEndTime = periodStartTime + samplingPeriodMs;
+    final ControlMessage.VertexMetricSamplesMsg.Builder samplesMsg = ControlMessage.VertexMetricSamplesMsg.newBuilder()
+      .setExecutorId(executorId)
+      .setTimestamp(periodStartTime);
+    for (final Map.Entry<String, VertexMetricCounters> entry : vertexIdToCounters.entrySet()) {
+      final VertexMetricCounters counters = entry.getValue();
+      final long recordsIn = counters.sumThenResetRecordsIn();
+      final long recordsOut = counters.sumThenResetRecordsOut();
+      final long processingTimeNs = counters.sumThenResetProcessingTimeNs();
+      if (recordsIn == 0 && recordsOut == 0 && processingTimeNs == 0) {
+        continue;
+      }
+      final ControlMessage.VertexMetricSampleMsg.Builder sample = ControlMessage.VertexMetricSampleMsg.newBuilder()
+        .setVertexId(entry.getKey())
+        .setRecordsIn(recordsIn)
+        .setRecordsOut(recordsOut)
+        .setProcessingTimeNs(processingTimeNs);
+      if (counters.hasWatermark()) {
+        sample.setWatermarkLagMs(periodEndTime - counters.getLatestWatermark());
+      }
+      samplesMsg.addSamples(sample);
+    }
+    periodStartTime = periodEndTime;
+
+    if (samplesMsg.getSamplesCount() > 0) {
+      persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
+        ControlMessage.Message.newBuilder()
+          .setId(RuntimeIdManager.generateMessageId())
+          .setListenerId(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID)
+          .setType(ControlMessage.MessageType.VertexMetricSamples)
+          .setVertexMetricSamplesMsg(samplesMsg)
+          .build());
+    }
+  }
+
+  /**
+   * Stops sampling.
+   */
+  public void close() {
+    if (samplingThread != null) {
+      samplingThread.shutdownNow();
+    }
+  }
+}
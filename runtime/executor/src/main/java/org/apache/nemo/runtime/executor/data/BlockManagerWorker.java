@@ -24,8 +24,11 @@ import com.google.common.cache.LoadingCache;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.apache.commons.lang3.SerializationUtils;
+import org.apache.nemo.common.ByteBufferInputStream;
 import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.exception.BlockFetchException;
+import org.apache.nemo.common.exception.BlockWriteException;
 import org.apache.nemo.common.exception.UnsupportedBlockStoreException;
 import org.apache.nemo.common.exception.UnsupportedExecutionPropertyException;
 import org.apache.nemo.common.ir.edge.executionproperty.BlockFetchFailureProperty;
@@ -51,13 +54,22 @@ import org.apache.reef.tang.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -88,6 +100,10 @@ public final class BlockManagerWorker {
   private final Map<String, AtomicInteger> blockToRemainingRead;
   private final BlockTransferThrottler blockTransferThrottler;
 
+  // Merged blocks, which hold the partitions pushed to this executor
+  private final Map<String, MergedBlock> mergedBlockIdToMergedBlock;
+  private final Set<String> removedMergedRuntimeEdgeIds;
+
   /**
    * Constructor.
    *
@@ -122,6 +138,8 @@ public final class BlockManagerWorker {
     this.byteTransfer = byteTransfer;
     this.backgroundExecutorService = Executors.newFixedThreadPool(numThreads);
     this.blockToRemainingRead = new ConcurrentHashMap<>();
+    this.mergedBlockIdToMergedBlock = new ConcurrentHashMap<>();
+    this.removedMergedRuntimeEdgeIds = ConcurrentHashMap.newKeySet();
     this.serializerManager = serializerManager;
     this.blockLocationResponseCache = CacheBuilder.newBuilder()
       // 2 seconds might be enough for "concurrent pending" fetch requests to reuse the same location
@@ -207,66 +225,206 @@ public final class BlockManagerWorker {
       // This is the executor id that we wanted to know
       final String blockId = blockLocationInfoMsg.getBlockId();
       final String targetExecutorId = blockLocationInfoMsg.getOwnerExecutorId();
-      final DataStoreProperty.Value blockStore = edgeProperties.get(DataStoreProperty.class).get();
-      if (targetExecutorId.equals(executorId) || targetExecutorId.equals(REMOTE_FILE_STORE)) {
-        // Block resides in the evaluator
-        return getDataFromLocalBlock(blockId, blockStore, keyRange);
-      } else {
-        final ControlMessage.BlockTransferContextDescriptor descriptor =
-          ControlMessage.BlockTransferContextDescriptor.newBuilder()
-            .setBlockId(blockId)
-            .setBlockStore(convertBlockStore(blockStore))
-            .setRuntimeEdgeId(runtimeEdgeId)
-            .setKeyRange(ByteString.copyFrom(SerializationUtils.serialize(keyRange)))
-            .build();
-        final CompletableFuture<ByteInputContext> contextFuture = blockTransferThrottler
-          .requestTransferPermission(runtimeEdgeId)
-          .thenCompose(obj -> byteTransfer.newInputContext(targetExecutorId, descriptor.toByteArray(), false));
-
-        // whenComplete() ensures that blockTransferThrottler.onTransferFinished() is always called,
-        // even on failures. Actual failure handling and Task retry will be done by DataFetcher.
-        contextFuture.whenComplete((connectionContext, connectionThrowable) -> {
-          if (connectionThrowable != null) {
-            // Something wrong with the connection. Notify blockTransferThrottler immediately.
-            blockTransferThrottler.onTransferFinished(runtimeEdgeId);
-          } else {
-            // Connection is okay. Notify blockTransferThrottler when the actual transfer is done, or fails.
-            connectionContext.getCompletedFuture().whenComplete((transferContext, transferThrowable) ->
-              blockTransferThrottler.onTransferFinished(runtimeEdgeId)
-            );
-          }
-        });
+      return readBlockFrom(blockId, targetExecutorId, runtimeEdgeId, edgeProperties, keyRange, 0);
+    });
+  }
+
+  /**
+   * Inquiries the executors of the consumer tasks of a runtime edge, which merge the partitions pushed to them.
+   * See {@link #pushToMergers(FileBlock, String, String, List, List)} for information on merged blocks.
+   *
+   * @param runtimeEdgeId    id of the runtime edge.
+   * @param numConsumerTasks the number of the consumer tasks of the runtime edge.
+   * @return the {@link CompletableFuture} of the executor ids indexed by the consumer task indices,
+   * each of which is empty if the partitions cannot be pushed to the consumer task.
+   */
+  public CompletableFuture<List<String>> getMergerLocations(final String runtimeEdgeId,
+                                                            final int numConsumerTasks) {
+    return persistentConnectionToMasterMap
+      .getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID).request(
+        ControlMessage.Message.newBuilder()
+          .setId(RuntimeIdManager.generateMessageId())
+          .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+          .setType(ControlMessage.MessageType.RequestMergerLocations)
+          .setRequestMergerLocationsMsg(
+            ControlMessage.RequestMergerLocationsMsg.newBuilder()
+              .setExecutorId(executorId)
+              .setRuntimeEdgeId(runtimeEdgeId)
+              .setNumConsumerTasks(numConsumerTasks)
+              .build())
+          .build())
+      .thenApply(responseFromMaster -> {
+        if (responseFromMaster.getType() != ControlMessage.MessageType.MergerLocationsInfo) {
+          throw new RuntimeException("Response message type mismatch!");
+        }
+        return responseFromMaster.getMergerLocationsInfoMsg().getExecutorIdsList();
+      });
+  }
+
+  /**
+   * Inquiries the location of the merged block of a consumer task, and the producer tasks whose partitions
+   * the merged block holds, once the blocks of all producer tasks are available.
+   * The master replies after the pushes of the available blocks to the merged block are done.
+   *
+   * @param runtimeEdgeId            id of the runtime edge.
+   * @param consumerTaskIndex        the index of the consumer task.
+   * @param producerBlockIdWildcards the block id wildcards of the producer tasks.
+   * @return the {@link CompletableFuture} of the location, without the owner executor if the merged block
+   * cannot be read.
+   */
+  public CompletableFuture<ControlMessage.MergedBlockLocationInfoMsg> getMergedBlockLocation(
+    final String runtimeEdgeId,
+    final int consumerTaskIndex,
+    final List<String> producerBlockIdWildcards) {
+    final CompletableFuture[] producerBlockLocationFutures = new CompletableFuture[producerBlockIdWildcards.size()];
+    try {
+      for (int index = 0; index < producerBlockIdWildcards.size(); index++) {
+        producerBlockLocationFutures[index] = blockLocationResponseCache.get(producerBlockIdWildcards.get(index));
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e); // This should never happen, since we're only getting a "future"
+    }
+
+    // Using thenCompose so that the request is sent after the blocks of all producer tasks are available.
+    final CompletableFuture<Void> allAvailableFuture = CompletableFuture.allOf(producerBlockLocationFutures);
+    return allAvailableFuture.thenCompose(allAvailable -> persistentConnectionToMasterMap
+      .getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID).request(
+        ControlMessage.Message.newBuilder()
+          .setId(RuntimeIdManager.generateMessageId())
+          .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+          .setType(ControlMessage.MessageType.RequestMergedBlockLocation)
+          .setRequestMergedBlockLocationMsg(
+            ControlMessage.RequestMergedBlockLocationMsg.newBuilder()
+              .setExecutorId(executorId)
+              .setRuntimeEdgeId(runtimeEdgeId)
+              .setConsumerTaskIndex(consumerTaskIndex)
+              .build())
+          .build()))
+      .thenApply(responseFromMaster -> {
+        if (responseFromMaster.getType() != ControlMessage.MessageType.MergedBlockLocationInfo) {
+          throw new RuntimeException("Response message type mismatch!");
+        }
+        return responseFromMaster.getMergedBlockLocationInfoMsg();
+      });
+  }
 
-        final BlockFetchFailureProperty.Value fetchFailure = edgeProperties.get(BlockFetchFailureProperty.class)
-          .orElse(BlockFetchFailureProperty.Value.CANCEL_TASK); // the default behavior.
-        if (!fetchFailure.equals(BlockFetchFailureProperty.Value.CANCEL_TASK)) {
-          /**
-           * Wait until fetching "all elements" of each block.
-           *
-           * Problem: If the task won't be cancelled upon fetch failure, then the task can potentially
-           * process blocks partially or process the same elements more than once.
-           *
-           * Solution: With this waiting, a task that fetches a block either
-           * - Processes all elements of the block
-           * - Processes no element of the block (i.e., Runs into a block fetch exception while waiting)
-           */
-          return contextFuture
-            .thenCompose(ByteInputContext::getCompletedFuture)
-            // thenApply waits for the future.
-            .thenApply(streams -> new DataUtil.InputStreamIterator<>(
-              streams, serializerManager.getSerializer(runtimeEdgeId)));
+  /**
+   * Reads the merged block of a consumer task from the executor that merged the partitions pushed to it.
+   * The merged block is sealed on the first read, and the read fails if the merged block does not hold
+   * the partitions of the given number of producer tasks (e.g., a late push of another attempt of a producer task
+   * has been appended to it).
+   *
+   * @param ownerExecutorId        id of the executor that holds the merged block.
+   * @param runtimeEdgeId          id of the runtime edge that corresponds to the block.
+   * @param consumerTaskIndex      the index of the consumer task.
+   * @param numMergedProducerTasks the number of the producer tasks whose partitions the merged block should hold.
+   * @param edgeProperties         for the edge.
+   * @param keyRange               the key range descriptor
+   * @return the {@link CompletableFuture} of the block.
+   */
+  public CompletableFuture<DataUtil.IteratorWithNumBytes> readMergedBlock(
+    final String ownerExecutorId,
+    final String runtimeEdgeId,
+    final int consumerTaskIndex,
+    final int numMergedProducerTasks,
+    final ExecutionPropertyMap<EdgeExecutionProperty> edgeProperties,
+    final KeyRange keyRange) {
+    final String mergedBlockId = RuntimeIdManager.generateMergedBlockId(runtimeEdgeId, consumerTaskIndex);
+    try {
+      if (ownerExecutorId.equals(executorId)) {
+        sealMergedBlock(mergedBlockId, numMergedProducerTasks);
+      }
+      return readBlockFrom(mergedBlockId, ownerExecutorId, runtimeEdgeId, edgeProperties, keyRange,
+        numMergedProducerTasks);
+    } catch (final RuntimeException e) {
+      // Fail the future as readBlock does, so that the failure is handled by DataFetcher.
+      final CompletableFuture<DataUtil.IteratorWithNumBytes> failedFuture = new CompletableFuture<>();
+      failedFuture.completeExceptionally(e);
+      return failedFuture;
+    }
+  }
+
+  /**
+   * Routes the request for a block to the local block manager worker or to the lower data plane.
+   *
+   * @param blockId                of the block.
+   * @param targetExecutorId       id of the executor that holds the block.
+   * @param runtimeEdgeId          id of the runtime edge that corresponds to the block.
+   * @param edgeProperties         for the edge.
+   * @param keyRange               the key range descriptor
+   * @param numMergedProducerTasks the number of the producer tasks whose partitions a merged block should hold,
+   *                               0 if the block is not a merged block.
+   * @return the {@link CompletableFuture} of the block.
+   */
+  private CompletableFuture<DataUtil.IteratorWithNumBytes> readBlockFrom(
+    final String blockId,
+    final String targetExecutorId,
+    final String runtimeEdgeId,
+    final ExecutionPropertyMap<EdgeExecutionProperty> edgeProperties,
+    final KeyRange keyRange,
+    final int numMergedProducerTasks) {
+    final DataStoreProperty.Value blockStore = edgeProperties.get(DataStoreProperty.class).get();
+    if (targetExecutorId.equals(executorId) || targetExecutorId.equals(REMOTE_FILE_STORE)) {
+      // Block resides in the evaluator
+      return getDataFromLocalBlock(blockId, runtimeEdgeId, blockStore, keyRange);
+    } else {
+      final ControlMessage.BlockTransferContextDescriptor.Builder descriptorBuilder =
+        ControlMessage.BlockTransferContextDescriptor.newBuilder()
+          .setBlockId(blockId)
+          .setBlockStore(convertBlockStore(blockStore))
+          .setRuntimeEdgeId(runtimeEdgeId)
+          .setKeyRange(ByteString.copyFrom(SerializationUtils.serialize(keyRange)));
+      if (numMergedProducerTasks > 0) {
+        descriptorBuilder.setNumMergedProducerTasks(numMergedProducerTasks);
+      }
+      final ControlMessage.BlockTransferContextDescriptor descriptor = descriptorBuilder.build();
+      final CompletableFuture<ByteInputContext> contextFuture = blockTransferThrottler
+        .requestTransferPermission(runtimeEdgeId)
+        .thenCompose(obj -> byteTransfer.newInputContext(targetExecutorId, descriptor.toByteArray(), false));
+
+      // whenComplete() ensures that blockTransferThrottler.onTransferFinished() is always called,
+      // even on failures. Actual failure handling and Task retry will be done by DataFetcher.
+      contextFuture.whenComplete((connectionContext, connectionThrowable) -> {
+        if (connectionThrowable != null) {
+          // Something wrong with the connection. Notify blockTransferThrottler immediately.
+          blockTransferThrottler.onTransferFinished(runtimeEdgeId);
         } else {
-          /**
-           * Process "each element" of a block as soon as the element comes in.
-           * No worries about partial/duplicate processing here, as the task will be cancelled and restarted cleanly.
-           * Probably best performance when there is no failure.
-           */
-          return contextFuture
-            .thenApply(context -> new DataUtil.InputStreamIterator<>(context.getInputStreams(),
-              serializerManager.getSerializer(runtimeEdgeId)));
+          // Connection is okay. Notify blockTransferThrottler when the actual transfer is done, or fails.
+          connectionContext.getCompletedFuture().whenComplete((transferContext, transferThrowable) ->
+            blockTransferThrottler.onTransferFinished(runtimeEdgeId)
+          );
         }
+      });
+
+      final BlockFetchFailureProperty.Value fetchFailure = edgeProperties.get(BlockFetchFailureProperty.class)
+        .orElse(BlockFetchFailureProperty.Value.CANCEL_TASK); // the default behavior.
+      if (!fetchFailure.equals(BlockFetchFailureProperty.Value.CANCEL_TASK)) {
+        /**
+         * Wait until fetching "all elements" of each block.
+         *
+         * Problem: If the task won't be cancelled upon fetch failure, then the task can potentially
+         * process blocks partially or process the same elements more than once.
+         *
+         * Solution: With this waiting, a task that fetches a block either
+         * - Processes all elements of the block
+         * - Processes no element of the block (i.e., Runs into a block fetch exception while waiting)
+         */
+        return contextFuture
+          .thenCompose(ByteInputContext::getCompletedFuture)
+          // thenApply waits for the future.
+          .thenApply(streams -> new DataUtil.InputStreamIterator<>(
+            streams, serializerManager.getSerializer(runtimeEdgeId)));
+      } else {
+        /**
+         * Process "each element" of a block as soon as the element comes in.
+         * No worries about partial/duplicate processing here, as the task will be cancelled and restarted cleanly.
+         * Probably best performance when there is no failure.
+         */
+        return contextFuture
+          .thenApply(context -> new DataUtil.InputStreamIterator<>(context.getInputStreams(),
+            serializerManager.getSerializer(runtimeEdgeId)));
       }
-    });
+    }
   }
 
   /**
@@ -276,11 +434,18 @@ public final class BlockManagerWorker {
    * @param blockStore        the store to save the block.
    * @param expectedReadTotal the expected number of read for this block.
    * @param persistence       how to handle the used block.
+   * @param partitionSizes    the committed sizes of the partitions to report to the master
+   *                          for locality-aware scheduling, empty if not needed.
+   * @param pushedConsumerTaskIndices the indices of the consumer tasks to which the partitions of the block
+   *                                  are going to be pushed, empty if none.
+   *                                  See {@link #pushToMergers(FileBlock, String, String, List, List)}.
    */
   public void writeBlock(final Block block,
                          final DataStoreProperty.Value blockStore,
                          final int expectedReadTotal,
-                         final DataPersistenceProperty.Value persistence) {
+                         final DataPersistenceProperty.Value persistence,
+                         final Map<Integer, Long> partitionSizes,
+                         final List<Integer> pushedConsumerTaskIndices) {
     final String blockId = block.getId();
     LOG.info("CommitBlock: {}", blockId);
 
@@ -307,6 +472,9 @@ public final class BlockManagerWorker {
       blockStateChangedMsgBuilder.setLocation(REMOTE_FILE_STORE);
     } else {
       blockStateChangedMsgBuilder.setLocation(executorId);
+      partitionSizes.forEach((key, size) -> blockStateChangedMsgBuilder.addPartitionSizes(
+        ControlMessage.PartitionSizeEntry.newBuilder().setKey(key).setSize(size)));
+      blockStateChangedMsgBuilder.addAllPushedConsumerTaskIndices(pushedConsumerTaskIndices);
     }
 
     persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
@@ -318,6 +486,64 @@ public final class BlockManagerWorker {
         .build());
   }
 
+  /**
+   * Pushes the partitions of the committed block of a producer task in background to the executors of the consumer
+   * tasks, each of which appends the partitions for a consumer task to the merged block of the consumer task.
+   * A consumer task can then read its merged block, instead of a block per producer task.
+   * The block of the producer task is still kept, for the case its partitions are not merged
+   * (e.g., the consumer task was not scheduled yet, the push failed, or another attempt of the producer task
+   * has been merged before), in which the consumer task reads the partitions from the block instead.
+   * <p>
+   * The pushes are announced to the master beforehand by {@link #writeBlock}, and the executor of each consumer
+   * task reports the outcome of the appends (see {@link #onInputContext(ByteInputContext)}), so that the master
+   * tells the consumer task which producer tasks its merged block holds once all pushes are done.
+   *
+   * @param block           the committed block of the producer task.
+   * @param runtimeEdgeId   id of the runtime edge that corresponds to the block.
+   * @param producerTaskId  id of the producer task.
+   * @param mergerLocations the executor ids indexed by the consumer task indices, empty for the consumer tasks
+   *                        to which the partitions are not pushed. See {@link #getMergerLocations(String, int)}.
+   * @param keyRanges       the key ranges of the consumer tasks.
+   */
+  public void pushToMergers(final FileBlock block,
+                            final String runtimeEdgeId,
+                            final String producerTaskId,
+                            final List<String> mergerLocations,
+                            final List<KeyRange> keyRanges) {
+    final Map<String, List<Integer>> mergerToConsumerTaskIndices = new HashMap<>();
+    for (int consumerTaskIndex = 0; consumerTaskIndex < mergerLocations.size(); consumerTaskIndex++) {
+      if (!mergerLocations.get(consumerTaskIndex).isEmpty()) {
+        mergerToConsumerTaskIndices
+          .computeIfAbsent(mergerLocations.get(consumerTaskIndex), merger -> new ArrayList<>())
+          .add(consumerTaskIndex);
+      }
+    }
+    mergerToConsumerTaskIndices.forEach((mergerExecutorId, consumerTaskIndices) ->
+      backgroundExecutorService.submit(() ->
+        push(block, runtimeEdgeId, producerTaskId, mergerExecutorId, consumerTaskIndices, keyRanges)));
+  }
+
+  /**
+   * Removes the merged blocks of a runtime edge in this executor, once the consumer stage has completed.
+   * No more partition of the edge is appended to merged blocks afterwards.
+   *
+   * @param runtimeEdgeId id of the runtime edge.
+   */
+  public void removeMergedBlocks(final String runtimeEdgeId) {
+    final List<MergedBlock> mergedBlocksToRemove = new ArrayList<>();
+    synchronized (mergedBlockIdToMergedBlock) {
+      removedMergedRuntimeEdgeIds.add(runtimeEdgeId);
+      mergedBlockIdToMergedBlock.values().removeIf(mergedBlock -> {
+        if (mergedBlock.runtimeEdgeId.equals(runtimeEdgeId)) {
+          mergedBlocksToRemove.add(mergedBlock);
+          return true;
+        }
+        return false;
+      });
+    }
+    mergedBlocksToRemove.forEach(MergedBlock::remove);
+  }
+
   /**
    * Remove the block from store.
    *
@@ -377,6 +603,9 @@ public final class BlockManagerWorker {
       @Override
       public void run() {
         try {
+          if (descriptor.hasNumMergedProducerTasks()) {
+            sealMergedBlock(blockId, descriptor.getNumMergedProducerTasks());
+          }
           final Optional<Block> optionalBlock = getBlockStore(blockStore).readBlock(blockId);
           if (optionalBlock.isPresent()) {
             if (DataStoreProperty.Value.LOCAL_FILE_STORE.equals(blockStore)
@@ -417,15 +646,19 @@ public final class BlockManagerWorker {
   }
 
   /**
-   * Respond to a block notification by another executor.
+   * Respond to the partitions pushed by another executor, by appending them to the merged blocks
+   * of the consumer tasks in background. See {@link #pushToMergers(FileBlock, String, String, List, List)}.
    * <p>
    * This method is executed by {org.apache.nemo.runtime.executor.data.blocktransfer.BlockTransport}
    * thread. Never execute a blocking call in this method!
    *
    * @param inputContext {@link ByteInputContext}
+   * @throws InvalidProtocolBufferException from errors during parsing context descriptor
    */
-  public void onInputContext(final ByteInputContext inputContext) {
-    throw new IllegalStateException("No logic here");
+  public void onInputContext(final ByteInputContext inputContext) throws InvalidProtocolBufferException {
+    final ControlMessage.ShufflePushContextDescriptor descriptor =
+      ControlMessage.ShufflePushContextDescriptor.PARSER.parseFrom(inputContext.getContextDescriptor());
+    backgroundExecutorService.submit(() -> appendPushedPartitions(descriptor, inputContext.getInputStreams()));
   }
 
   //////////////////////////////////////////////////////////// Private helper methods
@@ -433,13 +666,15 @@ public final class BlockManagerWorker {
   /**
    * Retrieves data from the stored block. A specific hash value range can be designated.
    *
-   * @param blockId    of the block.
-   * @param blockStore for the data storage.
-   * @param keyRange   the key range descriptor.
+   * @param blockId       of the block.
+   * @param runtimeEdgeId id of the runtime edge that corresponds to the block.
+   * @param blockStore    for the data storage.
+   * @param keyRange      the key range descriptor.
    * @return the result data in the block.
    */
   private CompletableFuture<DataUtil.IteratorWithNumBytes> getDataFromLocalBlock(
     final String blockId,
+    final String runtimeEdgeId,
     final DataStoreProperty.Value blockStore,
     final KeyRange keyRange) {
     final BlockStore store = getBlockStore(blockStore);
@@ -448,34 +683,301 @@ public final class BlockManagerWorker {
     final Optional<Block> optionalBlock = store.readBlock(blockId);
 
     if (optionalBlock.isPresent()) {
+      if (DataStoreProperty.Value.SERIALIZED_MEMORY_STORE.equals(blockStore)
+        || DataStoreProperty.Value.LOCAL_FILE_STORE.equals(blockStore)) {
+        // Decode straight from the stored bytes, without copying them to the heap.
+        try {
+          final Iterator<InputStream> inputStreams = withDataPersistenceHandling(
+            getZeroCopyInputStreams(optionalBlock.get(), keyRange).iterator(), blockStore, blockId);
+          return CompletableFuture.completedFuture(new DataUtil.InputStreamIterator<>(
+            inputStreams, serializerManager.getSerializer(runtimeEdgeId)));
+        } catch (final IOException e) {
+          throw new BlockFetchException(e);
+        }
+      }
+
+      // Block resides in this evaluator! The partitions are read one at a time, as the iteration proceeds.
       final Iterable<NonSerializedPartition> partitions = optionalBlock.get().readPartitions(keyRange);
-      handleDataPersistence(blockStore, blockId);
+      return CompletableFuture.completedFuture(new DataUtil.NonSerializedPartitionIterator<>(
+        withDataPersistenceHandling(partitions.iterator(), blockStore, blockId)));
+    } else {
+      // We don't have the block here...
+      throw new RuntimeException(String.format("Block %s not found in local BlockManagerWorker", blockId));
+    }
+  }
 
-      // Block resides in this evaluator!
-      try {
-        final Iterator innerIterator = DataUtil.concatNonSerPartitions(partitions).iterator();
-        long numSerializedBytes = 0;
-        long numEncodedBytes = 0;
+
+  /**
+   * Wraps an iterator over the data of a local block, to handle the used block once the iterator is exhausted.
+   * Since the data may be read lazily from the block, the block must not be discarded before then.
+   *
+   * @param iterator   the iterator over the data of the block.
+   * @param blockStore the store which contains the block.
+   * @param blockId    the ID of the block.
+   * @param <T>        the type of the data.
+   * @return the wrapped iterator.
+   */
+  private <T> Iterator<T> withDataPersistenceHandling(final Iterator<T> iterator,
+                                                      final DataStoreProperty.Value blockStore,
+                                                      final String blockId) {
+    return new Iterator<T>() {
+      private boolean handled = false;
+
+      @Override
+      public boolean hasNext() {
+        final boolean hasNext = iterator.hasNext();
+        if (!hasNext && !handled) {
+          handled = true;
+          handleDataPersistence(blockStore, blockId);
+        }
+        return hasNext;
+      }
+
+      @Override
+      public T next() {
+        return iterator.next();
+      }
+    };
+  }
+
+  /**
+   * Gets the input streams that read the serialized partitions of a {@link SerializedMemoryBlock} or a
+   * {@link FileBlock} in place: read-only views of the memory chunks, or memory-mapped regions of the file.
+   * The streams of a {@link SerializedMemoryBlock} are valid only until the block is removed.
+   *
+   * @param block    the block to read.
+   * @param keyRange the key range descriptor.
+   * @return the input streams, one per partition.
+   * @throws IOException if failed to map the file.
+   */
+  private List<InputStream> getZeroCopyInputStreams(final Block block,
+                                                    final KeyRange keyRange) throws IOException {
+    final List<InputStream> inputStreams = new ArrayList<>();
+    if (block instanceof FileBlock) {
+      for (final FileArea fileArea : ((FileBlock) block).asFileAreas(keyRange)) {
+        inputStreams.add(new ByteBufferInputStream(fileArea.mapReadOnly()));
+      }
+    } else {
+      final Iterable<SerializedPartition> partitions = block.readSerializedPartitions(keyRange);
+      for (final SerializedPartition partition : partitions) {
+        inputStreams.add(partition.isOffheap()
+          ? new ByteBufferInputStream(partition.getReadOnlyBufferList())
+          : new ByteArrayInputStream(partition.getData(), 0, partition.getLength()));
+      }
+    }
+    return inputStreams;
+  }
+
+  /**
+   * Pushes the partitions of a block for some consumer tasks to the executor of the consumer tasks,
+   * or appends them to the merged blocks right away if the consumer tasks run in this executor.
+   * Each partition is sent as a sub-stream, in the order of the partitions in the context descriptor.
+   *
+   * @param block               the committed block of the producer task.
+   * @param runtimeEdgeId       id of the runtime edge that corresponds to the block.
+   * @param producerTaskId      id of the producer task.
+   * @param mergerExecutorId    id of the executor of the consumer tasks.
+   * @param consumerTaskIndices the indices of the consumer tasks.
+   * @param keyRanges           the key ranges of the consumer tasks.
+   */
+  private void push(final FileBlock<Integer> block,
+                    final String runtimeEdgeId,
+                    final String producerTaskId,
+                    final String mergerExecutorId,
+                    final List<Integer> consumerTaskIndices,
+                    final List<KeyRange> keyRanges) {
+    final ControlMessage.ShufflePushContextDescriptor.Builder descriptorBuilder =
+      ControlMessage.ShufflePushContextDescriptor.newBuilder()
+        .setRuntimeEdgeId(runtimeEdgeId)
+        .setProducerTaskId(producerTaskId)
+        .addAllConsumerTaskIndices(consumerTaskIndices);
+    final List<FileArea> fileAreas = new ArrayList<>();
+    try {
+      for (final int consumerTaskIndex : consumerTaskIndices) {
+        for (final Pair<Integer, FileArea> keyedFileArea : block.asKeyedFileAreas(keyRanges.get(consumerTaskIndex))) {
+          if (keyedFileArea.right().getCount() > 0) {
+            descriptorBuilder.addPartitions(ControlMessage.PushedPartition.newBuilder()
+              .setConsumerTaskIndex(consumerTaskIndex)
+              .setKey(keyedFileArea.left())
+              .setSize((int) keyedFileArea.right().getCount()));
+            fileAreas.add(keyedFileArea.right());
+          }
+        }
+      }
+    } catch (final IOException e) {
+      LOG.warn("Failed to push " + block.getId() + " to " + mergerExecutorId, e);
+      reportMergedBlockAppended(mergerExecutorId, runtimeEdgeId, producerTaskId,
+        Collections.emptyList(), Collections.emptyList(), consumerTaskIndices);
+      return;
+    }
+    final ControlMessage.ShufflePushContextDescriptor descriptor = descriptorBuilder.build();
+
+    if (mergerExecutorId.equals(executorId)) {
+      final Iterator<FileArea> fileAreaIterator = fileAreas.iterator();
+      appendPushedPartitions(descriptor, new Iterator<InputStream>() {
+        @Override
+        public boolean hasNext() {
+          return fileAreaIterator.hasNext();
+        }
+
+        @Override
+        public InputStream next() {
+          try {
+            return new FileAreaInputStream(fileAreaIterator.next());
+          } catch (final IOException e) {
+            throw new BlockFetchException(e);
+          }
+        }
+      });
+      return;
+    }
+
+    byteTransfer.newOutputContext(mergerExecutorId, descriptor.toByteArray(), false)
+      .thenAcceptAsync(outputContext -> {
         try {
-          for (final NonSerializedPartition partition : partitions) {
-            numSerializedBytes += partition.getNumSerializedBytes();
-            numEncodedBytes += partition.getNumEncodedBytes();
+          for (final FileArea fileArea : fileAreas) {
+            try (ByteOutputContext.ByteOutputStream os = outputContext.newOutputStream()) {
+              os.writeFileArea(fileArea);
+            }
           }
+          outputContext.close();
+        } catch (final IOException e) {
+          outputContext.onChannelError(e);
+          throw new CompletionException(e);
+        }
+      }, backgroundExecutorService)
+      .exceptionally(throwable -> {
+        // The executor of the consumer tasks may have appended a part of the partitions, or none of them.
+        LOG.warn("Failed to push " + block.getId() + " to " + mergerExecutorId, throwable);
+        reportMergedBlockAppended(mergerExecutorId, runtimeEdgeId, producerTaskId,
+          Collections.emptyList(), Collections.emptyList(), consumerTaskIndices);
+        return null;
+      });
+  }
+
+  /**
+   * Appends the partitions pushed by a producer task to the merged blocks of the consumer tasks in this executor,
+   * and reports the outcome to the master.
+   * The partitions for a consumer task are skipped if the merged block of the consumer task already holds
+   * the partitions of another attempt of the producer task, or if the merged block has been read or removed.
+   *
+   * @param descriptor   the descriptor of the push.
+   * @param inputStreams the streams of the pushed partitions, in the order of the partitions in the descriptor.
+   */
+  private void appendPushedPartitions(final ControlMessage.ShufflePushContextDescriptor descriptor,
+                                      final Iterator<InputStream> inputStreams) {
+    final String runtimeEdgeId = descriptor.getRuntimeEdgeId();
+    final int producerTaskIndex = RuntimeIdManager.getIndexFromTaskId(descriptor.getProducerTaskId());
+    final Map<Integer, MergedBlock> reservedMergedBlocks = new HashMap<>();
+    final List<Integer> skippedConsumerTaskIndices = new ArrayList<>();
+    for (final int consumerTaskIndex : descriptor.getConsumerTaskIndicesList()) {
+      final MergedBlock mergedBlock = getOrCreateMergedBlock(runtimeEdgeId, consumerTaskIndex);
+      if (mergedBlock != null && mergedBlock.reserve(producerTaskIndex)) {
+        reservedMergedBlocks.put(consumerTaskIndex, mergedBlock);
+      } else {
+        skippedConsumerTaskIndices.add(consumerTaskIndex);
+      }
+    }
 
-          return CompletableFuture.completedFuture(DataUtil.IteratorWithNumBytes.of(innerIterator, numSerializedBytes,
-            numEncodedBytes));
-        } catch (final DataUtil.IteratorWithNumBytes.NumBytesNotSupportedException e) {
-          return CompletableFuture.completedFuture(DataUtil.IteratorWithNumBytes.of(innerIterator));
+    final Set<Integer> failedConsumerTaskIndices = new HashSet<>();
+    try {
+      for (final ControlMessage.PushedPartition partition : descriptor.getPartitionsList()) {
+        try (InputStream inputStream = inputStreams.next()) {
+          final MergedBlock mergedBlock = reservedMergedBlocks.get(partition.getConsumerTaskIndex());
+          if (mergedBlock != null && !failedConsumerTaskIndices.contains(partition.getConsumerTaskIndex())) {
+            try {
+              mergedBlock.append(partition.getKey(), inputStream, partition.getSize());
+              continue;
+            } catch (final IOException e) {
+              LOG.warn("Failed to append a partition to " + mergedBlock.block.getId(), e);
+              failedConsumerTaskIndices.add(partition.getConsumerTaskIndex());
+            }
+          }
+          // Release the bytes of the partition that is not appended
+          inputStream.skip(Long.MAX_VALUE);
         }
-      } catch (final IOException e) {
-        throw new BlockFetchException(e);
       }
-    } else {
-      // We don't have the block here...
-      throw new RuntimeException(String.format("Block %s not found in local BlockManagerWorker", blockId));
+    } catch (final IOException | RuntimeException e) {
+      // The push broke off (e.g., the executor of the producer task is lost)
+      LOG.warn("Failed to receive the partitions of " + descriptor.getProducerTaskId() + " on " + runtimeEdgeId, e);
+      failedConsumerTaskIndices.addAll(reservedMergedBlocks.keySet());
     }
+
+    final List<Integer> appendedConsumerTaskIndices = new ArrayList<>();
+    reservedMergedBlocks.forEach((consumerTaskIndex, mergedBlock) -> {
+      final boolean succeeded = !failedConsumerTaskIndices.contains(consumerTaskIndex);
+      mergedBlock.onAppended(succeeded);
+      if (succeeded) {
+        appendedConsumerTaskIndices.add(consumerTaskIndex);
+      }
+    });
+    reportMergedBlockAppended(executorId, runtimeEdgeId, descriptor.getProducerTaskId(),
+      appendedConsumerTaskIndices, skippedConsumerTaskIndices, new ArrayList<>(failedConsumerTaskIndices));
   }
 
+  /**
+   * Reports the outcome of a push to the master.
+   *
+   * @param mergerExecutorId            id of the executor of the consumer tasks.
+   * @param runtimeEdgeId               id of the runtime edge.
+   * @param producerTaskId              id of the producer task.
+   * @param appendedConsumerTaskIndices the consumer tasks whose merged blocks hold the pushed partitions.
+   * @param skippedConsumerTaskIndices  the consumer tasks whose merged blocks skipped the pushed partitions.
+   * @param failedConsumerTaskIndices   the consumer tasks whose merged blocks may hold a part of the partitions.
+   */
+  private void reportMergedBlockAppended(final String mergerExecutorId,
+                                         final String runtimeEdgeId,
+                                         final String producerTaskId,
+                                         final List<Integer> appendedConsumerTaskIndices,
+                                         final List<Integer> skippedConsumerTaskIndices,
+                                         final List<Integer> failedConsumerTaskIndices) {
+    persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+      .send(ControlMessage.Message.newBuilder()
+        .setId(RuntimeIdManager.generateMessageId())
+        .setListenerId(MessageEnvironment.BLOCK_MANAGER_MASTER_MESSAGE_LISTENER_ID)
+        .setType(ControlMessage.MessageType.MergedBlockAppended)
+        .setMergedBlockAppendedMsg(ControlMessage.MergedBlockAppendedMsg.newBuilder()
+          .setExecutorId(mergerExecutorId)
+          .setRuntimeEdgeId(runtimeEdgeId)
+          .setProducerTaskId(producerTaskId)
+          .addAllAppendedConsumerTaskIndices(appendedConsumerTaskIndices)
+          .addAllSkippedConsumerTaskIndices(skippedConsumerTaskIndices)
+          .addAllFailedConsumerTaskIndices(failedConsumerTaskIndices)
+          .build())
+        .build());
+  }
+
+  /**
+   * @param runtimeEdgeId     id of the runtime edge.
+   * @param consumerTaskIndex the index of the consumer task.
+   * @return the merged block of the consumer task, or {@code null} if the merged blocks of the edge are removed.
+   */
+  @Nullable
+  private MergedBlock getOrCreateMergedBlock(final String runtimeEdgeId, final int consumerTaskIndex) {
+    synchronized (mergedBlockIdToMergedBlock) {
+      if (removedMergedRuntimeEdgeIds.contains(runtimeEdgeId)) {
+        return null;
+      }
+      return mergedBlockIdToMergedBlock.computeIfAbsent(
+        RuntimeIdManager.generateMergedBlockId(runtimeEdgeId, consumerTaskIndex),
+        mergedBlockId -> new MergedBlock(runtimeEdgeId, (FileBlock) localFileStore.createBlock(mergedBlockId)));
+    }
+  }
+
+  /**
+   * Seals a merged block, so that it can be read from the local file store.
+   *
+   * @param mergedBlockId          the ID of the merged block.
+   * @param numMergedProducerTasks the number of the producer tasks whose partitions the merged block should hold.
+   * @throws BlockFetchException if the merged block cannot be read.
+   */
+  private void sealMergedBlock(final String mergedBlockId, final int numMergedProducerTasks) {
+    final MergedBlock mergedBlock = mergedBlockIdToMergedBlock.get(mergedBlockId);
+    if (mergedBlock == null) {
+      throw new BlockFetchException(new Throwable("Merged block " + mergedBlockId + " not found"));
+    }
+    mergedBlock.seal(numMergedProducerTasks);
+  }
 
   /**
    * Handles used {@link org.apache.nemo.runtime.executor.data.block.Block}.
@@ -568,4 +1070,147 @@ public final class BlockManagerWorker {
         throw new UnsupportedBlockStoreException(new Exception("This block store is not yet supported"));
     }
   }
+
+  /**
+   * The merged block of a consumer task in this executor, which holds the partitions pushed by the producer tasks.
+   * See {@link #pushToMergers(FileBlock, String, String, List, List)}.
+   * The pushes of multiple producer tasks are appended concurrently, each to the area it has reserved in the file,
+   * while sealing waits for the appends in progress.
+   */
+  private final class MergedBlock {
+    private final String runtimeEdgeId;
+    private final FileBlock<Integer> block;
+    private final Set<Integer> producerTaskIndices; // appended or being appended, guarded by this
+    private int numAppendsInProgress; // guarded by this
+    private FileChannel fileChannel; // opened on the first append, guarded by this
+    private boolean sealed; // guarded by this
+    private boolean removed; // guarded by this
+    private boolean failed; // guarded by this
+
+    /**
+     * Constructor.
+     *
+     * @param runtimeEdgeId id of the runtime edge.
+     * @param block         the empty file block to append to.
+     */
+    MergedBlock(final String runtimeEdgeId, final FileBlock<Integer> block) {
+      this.runtimeEdgeId = runtimeEdgeId;
+      this.block = block;
+      this.producerTaskIndices = new HashSet<>();
+      this.numAppendsInProgress = 0;
+      this.sealed = false;
+      this.removed = false;
+      this.failed = false;
+    }
+
+    /**
+     * Reserves this block for the partitions of a producer task, to be appended by {@link #append}.
+     * {@link #onAppended(boolean)} must be called afterwards if reserved.
+     *
+     * @param producerTaskIndex the index of the producer task.
+     * @return whether reserved, or the partitions are to be skipped.
+     */
+    synchronized boolean reserve(final int producerTaskIndex) {
+      if (sealed || removed || failed || producerTaskIndices.contains(producerTaskIndex)) {
+        return false;
+      }
+      try {
+        if (fileChannel == null) {
+          fileChannel = block.openFileChannelToAppend();
+        }
+      } catch (final IOException e) {
+        LOG.warn("Failed to open " + block.getId(), e);
+        failed = true;
+        return false;
+      }
+      producerTaskIndices.add(producerTaskIndex);
+      numAppendsInProgress++;
+      return true;
+    }
+
+    /**
+     * Appends a pushed partition. It does not lock this block, to let the other pushes append concurrently.
+     *
+     * @param key         the key of the partition.
+     * @param inputStream the stream of the serialized partition.
+     * @param size        the size of the serialized partition in bytes.
+     * @throws IOException if failed to append.
+     */
+    void append(final int key, final InputStream inputStream, final int size) throws IOException {
+      block.appendPartition(fileChannel, key, inputStream, size);
+    }
+
+    /**
+     * @param succeeded whether all partitions of the reserved push are appended. If not, this block may hold
+     *                  partially appended data, and thus must not be read.
+     */
+    synchronized void onAppended(final boolean succeeded) {
+      numAppendsInProgress--;
+      if (!succeeded) {
+        failed = true;
+      }
+      notifyAll();
+    }
+
+    /**
+     * Commits this block and writes it to the local file store, once the appends in progress are done,
+     * to prevent further append.
+     *
+     * @param numMergedProducerTasks the number of the producer tasks whose partitions this block should hold.
+     * @throws BlockFetchException if this block cannot be read.
+     */
+    synchronized void seal(final int numMergedProducerTasks) {
+      try {
+        while (numAppendsInProgress > 0) {
+          wait();
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BlockFetchException(e);
+      }
+      if (removed || failed) {
+        throw new BlockFetchException(new Throwable("Merged block " + block.getId() + " cannot be read"));
+      }
+      if (!sealed) {
+        sealed = true;
+        try {
+          if (fileChannel != null) {
+            fileChannel.close();
+          }
+          block.commit();
+          localFileStore.writeBlock(block);
+        } catch (final IOException | BlockWriteException e) {
+          failed = true;
+          throw new BlockFetchException(e);
+        }
+      }
+      if (producerTaskIndices.size() != numMergedProducerTasks) {
+        throw new BlockFetchException(new Throwable("Merged block " + block.getId() + " holds the partitions of "
+          + producerTaskIndices.size() + " producer tasks, not " + numMergedProducerTasks));
+      }
+    }
+
+    /**
+     * Deletes this block, and prevents further append.
+     * The appends in progress fail afterwards, as the file is closed.
+     */
+    synchronized void remove() {
+      if (removed) {
+        return;
+      }
+      removed = true;
+      try {
+        if (sealed) {
+          localFileStore.deleteBlock(block.getId());
+        } else {
+          if (fileChannel != null) {
+            fileChannel.close();
+          }
+          block.deleteFile();
+        }
+      } catch (final IOException | BlockFetchException e) {
+        LOG.warn("Failed to delete the merged block " + block.getId(), e);
+      }
+    }
+  }
 }
@@ -33,6 +33,8 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.*;
 import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -306,6 +308,83 @@ public final class DataUtil {
     }
   }
 
+  /**
+   * An iterator that emits the elements of {@link NonSerializedPartition}s,
+   * pulling the next partition from the given iterator only when the elements of the current partition run out.
+   *
+   * @param <T> The type of elements.
+   */
+  @NotThreadSafe
+  public static final class NonSerializedPartitionIterator<T> implements IteratorWithNumBytes<T> {
+
+    private final Iterator<NonSerializedPartition> partitions;
+
+    private Iterator<T> currentElements = Collections.emptyIterator();
+    private long numSerializedBytes = 0;
+    private long numEncodedBytes = 0;
+    private boolean numBytesSupported = true;
+
+    /**
+     * Construct {@link Iterator} from the {@link Iterator} of {@link NonSerializedPartition}s.
+     *
+     * @param partitions The partitions to read elements from.
+     */
+    NonSerializedPartitionIterator(final Iterator<NonSerializedPartition> partitions) {
+      this.partitions = partitions;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!currentElements.hasNext()) {
+        if (!partitions.hasNext()) {
+          return false;
+        }
+        final NonSerializedPartition<?> partition = partitions.next();
+        try {
+          numSerializedBytes += partition.getNumSerializedBytes();
+          numEncodedBytes += partition.getNumEncodedBytes();
+        } catch (final IteratorWithNumBytes.NumBytesNotSupportedException e) {
+          numBytesSupported = false;
+        }
+        try {
+          currentElements = ((Iterable<T>) partition.getData()).iterator();
+        } catch (final IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (hasNext()) {
+        return currentElements.next();
+      } else {
+        throw new NoSuchElementException();
+      }
+    }
+
+    @Override
+    public long getNumSerializedBytes() throws NumBytesNotSupportedException {
+      if (hasNext()) {
+        throw new IllegalStateException("Iteration not completed.");
+      } else if (!numBytesSupported) {
+        throw new NumBytesNotSupportedException();
+      }
+      return numSerializedBytes;
+    }
+
+    @Override
+    public long getNumEncodedBytes() throws NumBytesNotSupportedException {
+      if (hasNext()) {
+        throw new IllegalStateException("Iteration not completed.");
+      } else if (!numBytesSupported) {
+        throw new NumBytesNotSupportedException();
+      }
+      return numEncodedBytes;
+    }
+  }
+
   /**
    * Chain {@link InputStream} with {@link DecodeStreamChainer}s.
    *
@@ -448,4 +527,69 @@ public final class DataUtil {
      */
     long getNumEncodedBytes() throws NumBytesNotSupportedException;
   }
+
+  /**
+   * {@link IteratorWithNumBytes} that tells whether it can advance without waiting for more data to arrive,
+   * and notifies a listener when more data arrives.
+   *
+   * @param <T> the type of decoded object
+   */
+  public interface ReadinessAwareIterator<T> extends IteratorWithNumBytes<T> {
+    /**
+     * Create a {@link ReadinessAwareIterator}.
+     *
+     * @param innerIterator {@link IteratorWithNumBytes} to wrap
+     * @param readiness     tells whether the inner iterator can advance without waiting for more data to arrive
+     * @param registrar     registers the listener to notify when more data arrives, or the data ends
+     * @param <E>           the type of decoded object
+     * @return a {@link ReadinessAwareIterator}
+     */
+    static <E> ReadinessAwareIterator<E> of(final IteratorWithNumBytes<E> innerIterator,
+                                            final BooleanSupplier readiness,
+                                            final Consumer<Runnable> registrar) {
+      return new ReadinessAwareIterator<E>() {
+        @Override
+        public boolean isReady() {
+          return readiness.getAsBoolean();
+        }
+
+        @Override
+        public void setReadinessListener(final Runnable listener) {
+          registrar.accept(listener);
+        }
+
+        @Override
+        public long getNumSerializedBytes() throws NumBytesNotSupportedException {
+          return innerIterator.getNumSerializedBytes();
+        }
+
+        @Override
+        public long getNumEncodedBytes() throws NumBytesNotSupportedException {
+          return innerIterator.getNumEncodedBytes();
+        }
+
+        @Override
+        public boolean hasNext() {
+          return innerIterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+          return innerIterator.next();
+        }
+      };
+    }
+
+    /**
+     * A ready iterator may still wait shortly, for the rest of an element that has partially arrived.
+     *
+     * @return whether {@link #hasNext()} can return without waiting for more data to arrive.
+     */
+    boolean isReady();
+
+    /**
+     * @param listener to notify when more data arrives, or the data ends. It may be called by any thread.
+     */
+    void setReadinessListener(Runnable listener);
+  }
 }
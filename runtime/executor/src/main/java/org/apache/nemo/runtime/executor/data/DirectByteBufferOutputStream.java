@@ -29,13 +29,16 @@ import java.util.List;
 /**
  * This class is a customized output stream implementation backed by
  * {@link ByteBuffer}, which utilizes off heap memory when writing the data via MemoryPoolAssigner.
+ * It starts with a chunk of the smallest size and doubles the size of each new chunk up to the largest chunk size,
+ * so that small data wastes little memory while large data is held in a short list of chunks.
  * Deletion of {@code dataList}, which is the memory this outputstream holds, occurs
  * when the corresponding block is deleted.
  */
 public final class DirectByteBufferOutputStream extends OutputStream {
 
   private LinkedList<MemoryChunk> dataList = new LinkedList<>();
-  private final int chunkSize;
+  // The total capacity of the chunks before the last one
+  private int fullChunksSize = 0;
   private ByteBuffer currentBuf;
   private final MemoryPoolAssigner memoryPoolAssigner;
 
@@ -46,19 +49,25 @@ public final class DirectByteBufferOutputStream extends OutputStream {
    * @throws MemoryAllocationException  if fails to allocate new memory.
    */
   public DirectByteBufferOutputStream(final MemoryPoolAssigner memoryPoolAssigner) throws MemoryAllocationException {
-    this.chunkSize = memoryPoolAssigner.getChunkSize();
     this.memoryPoolAssigner = memoryPoolAssigner;
     newLastBuffer();
     currentBuf = dataList.getLast().getBuffer();
   }
 
   /**
-   * Allocates new {@link ByteBuffer} with the capacity equal to {@code pageSize}.
+   * Allocates new {@link ByteBuffer} with twice the capacity of the last one, up to the largest chunk size.
    *
    * @throws MemoryAllocationException  if fail to allocate memory chunk.
    */
   private void newLastBuffer() throws MemoryAllocationException {
-    dataList.addLast(memoryPoolAssigner.allocateChunk());
+    if (dataList.isEmpty()) {
+      dataList.addLast(memoryPoolAssigner.allocateChunk(memoryPoolAssigner.getMinChunkSize()));
+    } else {
+      final int lastCapacity = dataList.getLast().getBuffer().capacity();
+      fullChunksSize += lastCapacity;
+      dataList.addLast(memoryPoolAssigner.allocateChunk(
+        (int) Math.min((long) lastCapacity * 2, memoryPoolAssigner.getChunkSize())));
+    }
   }
 
   /**
@@ -138,10 +147,9 @@ public final class DirectByteBufferOutputStream extends OutputStream {
       return new byte[0];
     }
     MemoryChunk lastBuf = dataList.getLast();
-    // pageSize equals the size of the data filled in the ByteBuffers
-    // except for the last ByteBuffer. The size of the data in the
-    // ByteBuffer can be obtained by calling MemoryChunk.position().
-    final int arraySize = chunkSize * (dataList.size() - 1) + lastBuf.getBuffer().position();
+    // The ByteBuffers except for the last one are filled up to their capacity.
+    // The size of the data in the last ByteBuffer can be obtained by calling MemoryChunk.position().
+    final int arraySize = fullChunksSize + lastBuf.getBuffer().position();
     final byte[] byteArray = new byte[arraySize];
     int start = 0;
 
@@ -184,7 +192,7 @@ public final class DirectByteBufferOutputStream extends OutputStream {
    * @return the size of the data
    */
   public int size() {
-    return chunkSize * (dataList.size() - 1) + dataList.getLast().getBuffer().position();
+    return fullChunksSize + dataList.getLast().getBuffer().position();
   }
 
   /**
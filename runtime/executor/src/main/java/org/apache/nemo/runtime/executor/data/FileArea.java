@@ -18,7 +18,14 @@
  */
 package org.apache.nemo.runtime.executor.data;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A file area descriptor. Used to send file contents without copying or encoding/decoding.
@@ -62,6 +69,28 @@ public final class FileArea implements Serializable {
     return count;
   }
 
+  /**
+   * Maps this area of the file into memory in read-only mode, so that it can be read without copying it to the heap.
+   * The mapping stays valid even after the file is deleted.
+   *
+   * @return the mapped buffers, each of which is at most {@link Integer#MAX_VALUE} bytes long
+   * @throws IOException if failed to open or map the file
+   */
+  public List<ByteBuffer> mapReadOnly() throws IOException {
+    final List<ByteBuffer> buffers = new ArrayList<>();
+    try (FileChannel fileChannel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      long cursor = position;
+      long bytesToMap = count;
+      while (bytesToMap > 0) {
+        final long size = Math.min(bytesToMap, Integer.MAX_VALUE);
+        buffers.add(fileChannel.map(FileChannel.MapMode.READ_ONLY, cursor, size));
+        cursor += size;
+        bytesToMap -= size;
+      }
+    }
+    return buffers;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) {
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link InputStream} that reads a {@link FileArea} with positional reads on a {@link FileChannel},
+ * so that a reader can go straight to the area instead of reading and skipping the preceding bytes.
+ * The bytes are read in chunks, and the stream never reads beyond the end of the area.
+ */
+@NotThreadSafe
+public final class FileAreaInputStream extends InputStream {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int BITMASK = 0xff;
+
+  private final FileChannel fileChannel;
+  private final ByteBuffer buffer;
+  private final long endPosition;
+  private long nextPosition;
+
+  /**
+   * Opens the file of a {@link FileArea}.
+   *
+   * @param fileArea the area to read.
+   * @throws IOException if failed to open the file.
+   */
+  public FileAreaInputStream(final FileArea fileArea) throws IOException {
+    this.fileChannel = FileChannel.open(Paths.get(fileArea.getPath()), StandardOpenOption.READ);
+    this.buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(fileArea.getCount(), 1)));
+    this.buffer.flip();
+    this.nextPosition = fileArea.getPosition();
+    this.endPosition = fileArea.getPosition() + fileArea.getCount();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fillBuffer()) {
+      return -1;
+    }
+    return buffer.get() & BITMASK;
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+    if (offset < 0 || length < 0 || length > bytes.length - offset) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (length == 0) {
+      return 0;
+    }
+    if (!fillBuffer()) {
+      return -1;
+    }
+    final int toRead = Math.min(length, buffer.remaining());
+    buffer.get(bytes, offset, toRead);
+    return toRead;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    final long skippedInBuffer = Math.min(n, buffer.remaining());
+    buffer.position(buffer.position() + (int) skippedInBuffer);
+    final long skippedInFile = Math.min(n - skippedInBuffer, endPosition - nextPosition);
+    nextPosition += skippedInFile;
+    return skippedInBuffer + skippedInFile;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    fileChannel.close();
+  }
+
+  /**
+   * Reads the next chunk of the area into the buffer, if the buffer has been consumed.
+   *
+   * @return {@code false} if the end of the area has been reached.
+   * @throws IOException if failed to read the file.
+   */
+  private boolean fillBuffer() throws IOException {
+    if (buffer.hasRemaining()) {
+      return true;
+    }
+    if (nextPosition >= endPosition) {
+      return false;
+    }
+    buffer.clear();
+    buffer.limit((int) Math.min(buffer.capacity(), endPosition - nextPosition));
+    while (buffer.hasRemaining()) {
+      final int readBytes = fileChannel.read(buffer, nextPosition);
+      if (readBytes < 0) {
+        throw new IOException("The file ended before the end of the file area.");
+      }
+      nextPosition += readBytes;
+    }
+    buffer.flip();
+    return true;
+  }
+}
@@ -50,4 +50,23 @@ public final class LimitedInputStream extends InputStream {
       return -1;
     }
   }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+    if (limit <= 0) {
+      return -1;
+    }
+    final int readBytes = in.read(bytes, offset, (int) Math.min(length, limit));
+    if (readBytes > 0) {
+      limit -= readBytes;
+    }
+    return readBytes;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    final long skippedBytes = in.skip(Math.min(n, limit));
+    limit -= skippedBytes;
+    return skippedBytes;
+  }
 }
@@ -50,6 +50,8 @@ public class MemoryChunk {
   private long address;
   private final long addressLimit;
   private final int size;
+  // The tracker of the thread that acquired this chunk from the memory pool, if any.
+  private final MemoryPoolAssigner.PeakMemoryTracker tracker;
 
   /**
    * Creates a new memory chunk that represents the off-heap memory at the absolute address.
@@ -58,8 +60,11 @@ public class MemoryChunk {
    *
    * @param offHeapAddress the address of the off-heap memory, {@link ByteBuffer}, of this MemoryChunk
    * @param buffer         the off-heap memory of this MemoryChunk
+   * @param tracker        the tracker that this chunk is charged to, or null
    */
-  MemoryChunk(final long offHeapAddress, final ByteBuffer buffer) {
+  MemoryChunk(final long offHeapAddress,
+              final ByteBuffer buffer,
+              final MemoryPoolAssigner.PeakMemoryTracker tracker) {
     if (offHeapAddress <= 0) {
       throw new IllegalArgumentException("negative pointer or size");
     }
@@ -70,6 +75,7 @@ public class MemoryChunk {
     this.size = buffer.capacity();
     this.address = offHeapAddress;
     this.addressLimit = this.address + this.size;
+    this.tracker = tracker;
   }
 
   /**
@@ -78,7 +84,17 @@ public class MemoryChunk {
    * @param buffer  the off-heap memory of this MemoryChunk
    */
   MemoryChunk(final ByteBuffer buffer) {
-    this(getAddress(buffer), buffer);
+    this(buffer, null);
+  }
+
+  /**
+   * Creates a new memory chunk that represents the off-heap memory at the absolute address.
+   *
+   * @param buffer  the off-heap memory of this MemoryChunk
+   * @param tracker the tracker that this chunk is charged to, or null
+   */
+  MemoryChunk(final ByteBuffer buffer, final MemoryPoolAssigner.PeakMemoryTracker tracker) {
+    this(getAddress(buffer), buffer, tracker);
   }
 
   /**
@@ -99,7 +115,14 @@ public class MemoryChunk {
    * @return the MemoryChunk with the same content of the caller instance
    */
   public final MemoryChunk duplicate() {
-    return new MemoryChunk(buffer.duplicate());
+    return new MemoryChunk(buffer.duplicate(), tracker);
+  }
+
+  /**
+   * @return the tracker that this chunk is charged to, or null.
+   */
+  final MemoryPoolAssigner.PeakMemoryTracker getTracker() {
+    return tracker;
   }
 
   /**
@@ -479,7 +502,11 @@ public class MemoryChunk {
     }
   }
 
-  private static long getAddress(final ByteBuffer buffer) {
+  /**
+   * @param buffer the direct buffer.
+   * @return the absolute address of the off-heap memory of the buffer.
+   */
+  static long getAddress(final ByteBuffer buffer) {
     if (buffer == null) {
       throw new NullPointerException("Buffer null");
     }
@@ -24,25 +24,41 @@ import org.apache.nemo.conf.JobConf;
 
 import javax.inject.Inject;
 import java.nio.ByteBuffer;
-import java.util.NoSuchElementException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The MemoryPoolAssigner assigns the memory that Nemo uses for writing data blocks from the {@link MemoryPool}.
- * Memory is represented in chunks of equal size. Consumers of off-heap memory acquire the memory by requesting
- * a number of {@link MemoryChunk} they need.
+ * Memory is represented in chunks of several size classes: powers-of-two fractions of the configured chunk size,
+ * down to 4KB. Consumers of off-heap memory acquire the memory by requesting {@link MemoryChunk}s of the size
+ * they need, so that small data does not occupy a whole chunk of the largest size.
  *
  * MemoryPoolAssigner currently supports allocation of off-heap memory only.
  *
- * MemoryChunks are allocated on-demand, but if the total allocated memory exceeds the maxOffheapMb,
- * MemoryAllocationException is thrown and the job fails.
+ * The memory is allocated on-demand in chunks of the largest size, which are split into buddies of the smaller
+ * size classes as needed. A returned chunk is coalesced with its buddy whenever both are idle, so that idle memory
+ * can serve the requests of the larger size classes again. If the total allocated memory would exceed the
+ * maxOffheapMb and no idle memory can serve a request, MemoryAllocationException is thrown and the job fails.
+ * The allocated memory is never freed, as views of the idle chunks may still be reachable,
+ * e.g., duplicates handed out by {@link DirectByteBufferOutputStream}.
  * TODO #397: Separation of JVM heap region and off-heap memory region
  */
 @ThreadSafe
 public final class MemoryPoolAssigner {
   private final int chunkSize;
+  private final int minChunkSize;
 
   private static final int MIN_CHUNK_SIZE_KB = 4;
+  // The number of returned chunks of each size class that a thread keeps to reuse by itself.
+  private static final int MAGAZINE_CAPACITY = 8;
 
   private final MemoryPool memoryPool;
 
@@ -63,17 +79,30 @@ public final class MemoryPoolAssigner {
       throw new IllegalArgumentException("The given amount of memory amounted to less than one chunk.");
     }
     this.chunkSize = chunkSizeKb * 1024;
-    this.memoryPool = new MemoryPool((int) maxNumChunks, this.chunkSize);
+    this.memoryPool = new MemoryPool(maxNumChunks * this.chunkSize, this.chunkSize);
+    this.minChunkSize = memoryPool.getChunkSize(0);
   }
 
   /**
-   * Returns a single {@link MemoryChunk} from {@link MemoryPool}.
+   * Returns a single {@link MemoryChunk} of the largest size from {@link MemoryPool}.
    *
    * @return a MemoryChunk
    * @throws MemoryAllocationException if fails to allocate MemoryChunk.
    */
   public MemoryChunk allocateChunk() throws MemoryAllocationException {
-    return memoryPool.requestChunkFromPool();
+    return allocateChunk(chunkSize);
+  }
+
+  /**
+   * Returns a single {@link MemoryChunk} of the smallest size class that can hold {@code size} bytes,
+   * or of the largest size if no size class can hold it.
+   *
+   * @param size the number of bytes to hold.
+   * @return a MemoryChunk
+   * @throws MemoryAllocationException if fails to allocate MemoryChunk.
+   */
+  public MemoryChunk allocateChunk(final int size) throws MemoryAllocationException {
+    return memoryPool.requestChunkFromPool(memoryPool.getSizeClass(size));
   }
 
   /**
@@ -88,7 +117,7 @@ public final class MemoryPoolAssigner {
   }
 
   /**
-   * Returns the chunk size of the memory pool.
+   * Returns the largest chunk size of the memory pool.
    *
    * @return the chunk size in bytes.
    */
@@ -97,8 +126,35 @@ public final class MemoryPoolAssigner {
   }
 
   /**
-   * Returns the number of chunks in the pool. This is unrecommended since it is very complex to
-   * check the size of {@link ConcurrentLinkedQueue}.
+   * Returns the smallest chunk size of the memory pool.
+   *
+   * @return the chunk size in bytes.
+   */
+  public int getMinChunkSize() {
+    return minChunkSize;
+  }
+
+  /**
+   * @return a snapshot of the memory usage statistics of the memory pool.
+   */
+  public Statistics getStatistics() {
+    return memoryPool.getStatistics();
+  }
+
+  /**
+   * Starts tracking the peak of the memory that the calling thread acquires, e.g., while the thread runs a task.
+   * The chunks that the thread acquires are charged to the tracker until they are returned to the pool.
+   * The tracker must be closed by the calling thread when done.
+   *
+   * @return the tracker.
+   */
+  public PeakMemoryTracker trackPeakInUseBytes() {
+    return memoryPool.trackPeakInUseBytes();
+  }
+
+  /**
+   * Returns the number of idle chunks in the pool, including the chunks kept by the threads.
+   * This is unrecommended since it synchronizes on the pool and on each of the threads' caches.
    *
    * @return the pool size.
    */
@@ -108,45 +164,188 @@ public final class MemoryPoolAssigner {
 
   /**
    * Memory pool that utilizes off-heap memory.
-   * Supports pre-allocation of memory according to user specification.
+   * The memory is managed by a buddy allocator, the arena, which is synchronized on the pool.
+   * In front of the arena, each thread keeps a {@link Magazine} of the chunks it returned, from which it reuses chunks
+   * without synchronizing on the pool. The chunks in the magazine of a thread do not serve the other threads and are
+   * not coalesced, until the arena runs out of memory and the pool returns the chunks of all magazines to the arena.
    */
   @ThreadSafe
   private class MemoryPool {
 
-    private final ConcurrentLinkedQueue<ByteBuffer> pool;
-    private final int chunkSize;
-    private long maxNumChunks;
-    private long numChunks;
+    // Chunk sizes of the size classes, in ascending order.
+    private final int[] chunkSizes;
+    private final int maxSizeClass;
+    // The idle blocks of the arena of each size class, by their addresses.
+    private final Map<Long, Block>[] idleBlocks;
+    // The blocks of the arena handed out to the magazines or to the consumers, by their addresses.
+    private final Map<Long, Block> usedBlocks;
+    private final long maxBytes;
+    private long allocatedBytes;
+    private long highWaterMarkBytes;
+    private final AtomicLong inUseBytes;
+    private final AtomicLong peakInUseBytes;
+    private final ThreadLocal<PeakMemoryTracker> peakMemoryTrackers;
+    private final ThreadLocal<Magazine> magazines;
+    // The magazines of all threads, including the terminated ones, to return their chunks to the arena.
+    private final Queue<Magazine> allMagazines;
+
+    MemoryPool(final long maxBytes, final int maxChunkSize) {
+      final List<Integer> sizes = new ArrayList<>();
+      for (int size = maxChunkSize; size >= MIN_CHUNK_SIZE_KB * 1024; size /= 2) {
+        sizes.add(0, size);
+      }
+      this.chunkSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+      this.maxSizeClass = chunkSizes.length - 1;
+      this.idleBlocks = new LinkedHashMap[chunkSizes.length];
+      for (int sizeClass = 0; sizeClass < idleBlocks.length; sizeClass++) {
+        idleBlocks[sizeClass] = new LinkedHashMap<>();
+      }
+      this.usedBlocks = new HashMap<>();
+      this.maxBytes = maxBytes;
+      this.inUseBytes = new AtomicLong();
+      this.peakInUseBytes = new AtomicLong();
+      this.peakMemoryTrackers = new ThreadLocal<>();
+      this.allMagazines = new ConcurrentLinkedQueue<>();
+      this.magazines = ThreadLocal.withInitial(() -> {
+        final Magazine magazine = new Magazine(chunkSizes.length);
+        allMagazines.add(magazine);
+        return magazine;
+      });
+    }
+
+    int getChunkSize(final int sizeClass) {
+      return chunkSizes[sizeClass];
+    }
 
-    MemoryPool(final long maxNumChunks, final int chunkSize) {
-      this.chunkSize = chunkSize;
-      this.pool = new ConcurrentLinkedQueue<>();
-      this.maxNumChunks = maxNumChunks;
+    int getSizeClass(final int size) {
+      for (int sizeClass = 0; sizeClass < chunkSizes.length; sizeClass++) {
+        if (size <= chunkSizes[sizeClass]) {
+          return sizeClass;
+        }
+      }
+      return maxSizeClass;
     }
 
-    synchronized MemoryChunk allocateNewChunk() throws MemoryAllocationException {
-      if (maxNumChunks <= numChunks) {
+    MemoryChunk requestChunkFromPool(final int sizeClass) throws MemoryAllocationException {
+      // Try to reuse a chunk that this thread returned first
+      ByteBuffer byteBuffer = magazines.get().poll(sizeClass);
+      if (byteBuffer == null) {
+        byteBuffer = allocateFromArena(sizeClass);
+      }
+      if (byteBuffer == null) {
+        // No more memory to allocate, so we coalesce the chunks that the threads keep to serve the request
+        allMagazines.forEach(this::returnToArena);
+        byteBuffer = allocateFromArena(sizeClass);
+      }
+      if (byteBuffer == null) {
         throw new MemoryAllocationException("Exceeded maximum off-heap memory");
       }
-      ByteBuffer memory = ByteBuffer.allocateDirect(chunkSize);
-      numChunks += 1;
-      return new MemoryChunk(memory);
+      return onChunkAcquired(byteBuffer);
     }
 
-    MemoryChunk requestChunkFromPool() throws MemoryAllocationException {
+    /**
+     * Allocates a chunk of the size class from the arena, splitting an idle block of a larger size class if needed.
+     * If there is no such block, a new chunk of the largest size is allocated, if the memory is within the maximum.
+     * The memory is reserved while holding the monitor, but allocated without holding it.
+     *
+     * @param sizeClass the size class.
+     * @return the chunk, or null if there is no idle block to split and the memory would exceed the maximum.
+     * @throws MemoryAllocationException if the JVM fails to allocate the memory.
+     */
+    private ByteBuffer allocateFromArena(final int sizeClass) throws MemoryAllocationException {
+      final int size = chunkSizes[maxSizeClass];
+      synchronized (this) {
+        final ByteBuffer idleChunk = allocateIdleBlock(sizeClass);
+        if (idleChunk != null || !reserve(size)) {
+          return idleChunk;
+        }
+      }
+
+      final ByteBuffer newChunk;
       try {
-        // Try to reuse a byte buffer in the current pool
-        // Return the byte buffer if there's one that we can reuse
-        final ByteBuffer byteBufferThatWeCanReuse = pool.remove(); // this can throw NoSuchElementException
-        return new MemoryChunk(byteBufferThatWeCanReuse);
-      } catch (final NoSuchElementException e) {
-        // No more byte buffer to reuse in the current pool
-        // So we try to allocate a new chunk
-        // This method is synchronized :)
-        return allocateNewChunk();
+        newChunk = ByteBuffer.allocateDirect(size);
       } catch (final OutOfMemoryError e) {
+        unreserve(size);
         throw new MemoryAllocationException("Memory allocation failed due to lack of memory");
       }
+      synchronized (this) {
+        final Block block = new Block(newChunk, MemoryChunk.getAddress(newChunk), 0, maxSizeClass);
+        idleBlocks[maxSizeClass].put(block.getAddress(), block);
+        return allocateIdleBlock(sizeClass);
+      }
+    }
+
+    private synchronized boolean reserve(final int size) {
+      if (allocatedBytes + size > maxBytes) {
+        return false;
+      }
+      allocatedBytes += size;
+      highWaterMarkBytes = Math.max(highWaterMarkBytes, allocatedBytes);
+      return true;
+    }
+
+    private synchronized void unreserve(final int size) {
+      allocatedBytes -= size;
+    }
+
+    /**
+     * Takes an idle block of the smallest size class, at least the given one, that has one,
+     * and halves it down to the size class. The upper half of each split stays idle in the size class of the half.
+     *
+     * @param sizeClass the size class that needs a chunk.
+     * @return a chunk of the size class, or null if there is no idle block to serve it.
+     */
+    private synchronized ByteBuffer allocateIdleBlock(final int sizeClass) {
+      for (int idleClass = sizeClass; idleClass <= maxSizeClass; idleClass++) {
+        final Iterator<Block> iterator = idleBlocks[idleClass].values().iterator();
+        if (iterator.hasNext()) {
+          Block block = iterator.next();
+          iterator.remove();
+          while (block.sizeClass > sizeClass) {
+            final int halfClass = block.sizeClass - 1;
+            final Block upperHalf = new Block(block.root, block.rootAddress,
+              block.offset + chunkSizes[halfClass], halfClass);
+            idleBlocks[halfClass].put(upperHalf.getAddress(), upperHalf);
+            block = new Block(block.root, block.rootAddress, block.offset, halfClass);
+          }
+          usedBlocks.put(block.getAddress(), block);
+          return block.getBuffer();
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Returns a chunk to the arena, coalescing it with its buddy as long as the buddy is idle.
+     *
+     * @param byteBuffer the chunk, or a duplicate of it.
+     */
+    private synchronized void releaseBlock(final ByteBuffer byteBuffer) {
+      Block block = usedBlocks.remove(MemoryChunk.getAddress(byteBuffer));
+      if (block == null) {
+        throw new IllegalStateException("The chunk has not been acquired from the pool, or is already returned");
+      }
+      while (block.sizeClass < maxSizeClass) {
+        final int buddyOffset = block.offset ^ chunkSizes[block.sizeClass];
+        final Block buddy = idleBlocks[block.sizeClass].remove(block.rootAddress + buddyOffset);
+        if (buddy == null) {
+          break;
+        }
+        block = new Block(block.root, block.rootAddress, Math.min(block.offset, buddyOffset), block.sizeClass + 1);
+      }
+      idleBlocks[block.sizeClass].put(block.getAddress(), block);
+    }
+
+    /**
+     * Returns the chunks in a magazine to the arena.
+     *
+     * @param magazine the magazine to empty.
+     */
+    private void returnToArena(final Magazine magazine) {
+      final List<ByteBuffer> chunks = magazine.drain();
+      synchronized (this) {
+        chunks.forEach(this::releaseBlock);
+      }
     }
 
     /**
@@ -157,11 +356,260 @@ public final class MemoryPoolAssigner {
     void returnChunkToPool(final MemoryChunk chunk) {
       ByteBuffer buf = chunk.getBuffer();
       chunk.release();
-      pool.add(buf);
+      inUseBytes.addAndGet(-buf.capacity());
+      if (chunk.getTracker() != null) {
+        chunk.getTracker().onReturned(buf.capacity());
+      }
+      if (!magazines.get().offer(getSizeClass(buf.capacity()), buf)) {
+        releaseBlock(buf);
+      }
+    }
+
+    /**
+     * Hands out a buffer to the calling thread, charging it to the tracker of the thread, if any.
+     *
+     * @param buffer the buffer to hand out.
+     * @return the chunk of the buffer.
+     */
+    private MemoryChunk onChunkAcquired(final ByteBuffer buffer) {
+      final long inUse = inUseBytes.addAndGet(buffer.capacity());
+      peakInUseBytes.accumulateAndGet(inUse, Math::max);
+      final PeakMemoryTracker tracker = peakMemoryTrackers.get();
+      if (tracker != null) {
+        tracker.onAcquired(buffer.capacity());
+      }
+      return new MemoryChunk(buffer, tracker);
+    }
+
+    PeakMemoryTracker trackPeakInUseBytes() {
+      final PeakMemoryTracker tracker = new PeakMemoryTracker(peakMemoryTrackers::remove);
+      peakMemoryTrackers.set(tracker);
+      return tracker;
+    }
+
+    synchronized Statistics getStatistics() {
+      return new Statistics(allocatedBytes, highWaterMarkBytes, inUseBytes.get(), peakInUseBytes.get());
     }
 
     int size() {
-      return pool.size();
+      int size = 0;
+      for (final Magazine magazine : allMagazines) {
+        size += magazine.size();
+      }
+      synchronized (this) {
+        for (final Map<Long, Block> blocks : idleBlocks) {
+          size += blocks.size();
+        }
+      }
+      return size;
+    }
+
+    /**
+     * A block of the arena: a part of a chunk of the largest size, whose offset is a multiple of its size.
+     * The buddy of a block is the other half of the block of the next size class that contains it.
+     */
+    private final class Block {
+      private final ByteBuffer root;
+      private final long rootAddress;
+      private final int offset;
+      private final int sizeClass;
+
+      /**
+       * @param root        the chunk of the largest size that contains the block.
+       * @param rootAddress the address of the root.
+       * @param offset      of the block in the root.
+       * @param sizeClass   of the block.
+       */
+      Block(final ByteBuffer root, final long rootAddress, final int offset, final int sizeClass) {
+        this.root = root;
+        this.rootAddress = rootAddress;
+        this.offset = offset;
+        this.sizeClass = sizeClass;
+      }
+
+      long getAddress() {
+        return rootAddress + offset;
+      }
+
+      /**
+       * @return the buffer of the block, which shares the memory of the root.
+       */
+      ByteBuffer getBuffer() {
+        final ByteBuffer duplicate = root.duplicate();
+        duplicate.clear();
+        duplicate.position(offset);
+        duplicate.limit(offset + chunkSizes[sizeClass]);
+        return duplicate.slice();
+      }
+    }
+  }
+
+  /**
+   * The chunks that a thread returned to the pool, of each size class, up to {@link #MAGAZINE_CAPACITY} chunks each.
+   * A magazine is accessed by the other threads only when the pool returns the chunks of all magazines to the arena,
+   * so its monitor is uncontended otherwise.
+   */
+  @ThreadSafe
+  private static final class Magazine {
+    private final ArrayDeque<ByteBuffer>[] chunks;
+
+    /**
+     * @param numOfSizeClasses the number of size classes.
+     */
+    Magazine(final int numOfSizeClasses) {
+      this.chunks = new ArrayDeque[numOfSizeClasses];
+      for (int sizeClass = 0; sizeClass < numOfSizeClasses; sizeClass++) {
+        chunks[sizeClass] = new ArrayDeque<>(MAGAZINE_CAPACITY);
+      }
+    }
+
+    /**
+     * @param sizeClass the size class.
+     * @return the chunk of the size class returned last, or null if there is none.
+     */
+    synchronized ByteBuffer poll(final int sizeClass) {
+      return chunks[sizeClass].pollLast();
+    }
+
+    /**
+     * @param sizeClass the size class of the chunk.
+     * @param chunk     the chunk to keep.
+     * @return whether the chunk is kept, i.e., the magazine is not full for the size class.
+     */
+    synchronized boolean offer(final int sizeClass, final ByteBuffer chunk) {
+      if (chunks[sizeClass].size() >= MAGAZINE_CAPACITY) {
+        return false;
+      }
+      chunks[sizeClass].addLast(chunk);
+      return true;
+    }
+
+    /**
+     * @return all the chunks in the magazine, which is emptied.
+     */
+    synchronized List<ByteBuffer> drain() {
+      final List<ByteBuffer> drained = new ArrayList<>();
+      for (final ArrayDeque<ByteBuffer> chunksOfSizeClass : chunks) {
+        drained.addAll(chunksOfSizeClass);
+        chunksOfSizeClass.clear();
+      }
+      return drained;
+    }
+
+    synchronized int size() {
+      int size = 0;
+      for (final ArrayDeque<ByteBuffer> chunksOfSizeClass : chunks) {
+        size += chunksOfSizeClass.size();
+      }
+      return size;
+    }
+  }
+
+  /**
+   * Tracks the peak of the memory held by the chunks that a thread acquires from the memory pool,
+   * from the creation of the tracker until closed. A chunk is charged to the tracker until it is returned,
+   * even by another thread. The chunks acquired by the other threads, e.g., by the other tasks of the executor
+   * or by the threads that receive data on behalf of the thread, are not charged.
+   */
+  public static final class PeakMemoryTracker implements AutoCloseable {
+    private final AtomicLong inUseBytes;
+    private final AtomicLong peakInUseBytes;
+    private final Runnable onClose;
+
+    /**
+     * @param onClose to call when closed.
+     */
+    private PeakMemoryTracker(final Runnable onClose) {
+      this.inUseBytes = new AtomicLong();
+      this.peakInUseBytes = new AtomicLong();
+      this.onClose = onClose;
+    }
+
+    private void onAcquired(final int size) {
+      peakInUseBytes.accumulateAndGet(inUseBytes.addAndGet(size), Math::max);
+    }
+
+    private void onReturned(final int size) {
+      inUseBytes.addAndGet(-size);
+    }
+
+    /**
+     * @return the maximum memory held by the chunks charged to this tracker, in bytes.
+     */
+    public long getPeakInUseBytes() {
+      return peakInUseBytes.get();
+    }
+
+    @Override
+    public void close() {
+      onClose.run();
+    }
+  }
+
+  /**
+   * A snapshot of the memory usage statistics of the memory pool.
+   */
+  public static final class Statistics {
+    private final long allocatedBytes;
+    private final long highWaterMarkBytes;
+    private final long inUseBytes;
+    private final long peakInUseBytes;
+
+    /**
+     * @param allocatedBytes     the off-heap memory currently allocated by the pool, including the idle chunks.
+     * @param highWaterMarkBytes the maximum off-heap memory allocated by the pool so far.
+     * @param inUseBytes         the memory currently handed out to the consumers.
+     * @param peakInUseBytes     the maximum memory handed out to the consumers so far.
+     */
+    Statistics(final long allocatedBytes,
+               final long highWaterMarkBytes,
+               final long inUseBytes,
+               final long peakInUseBytes) {
+      this.allocatedBytes = allocatedBytes;
+      this.highWaterMarkBytes = highWaterMarkBytes;
+      this.inUseBytes = inUseBytes;
+      this.peakInUseBytes = peakInUseBytes;
+    }
+
+    /**
+     * @return the off-heap memory currently allocated by the pool, in bytes.
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    /**
+     * @return the maximum off-heap memory allocated by the pool so far, in bytes.
+     */
+    public long getHighWaterMarkBytes() {
+      return highWaterMarkBytes;
+    }
+
+    /**
+     * @return the memory currently handed out to the consumers, in bytes.
+     */
+    public long getInUseBytes() {
+      return inUseBytes;
+    }
+
+    /**
+     * @return the maximum memory handed out to the consumers so far, in bytes.
+     */
+    public long getPeakInUseBytes() {
+      return peakInUseBytes;
+    }
+
+    /**
+     * @return the fraction of the allocated memory that sits idle in the pool.
+     */
+    public double getFragmentation() {
+      return allocatedBytes == 0 ? 0 : (double) (allocatedBytes - inUseBytes) / allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return "allocated: " + allocatedBytes + "B (high-water mark: " + highWaterMarkBytes + "B), in use: "
+        + inUseBytes + "B (peak: " + peakInUseBytes + "B), fragmentation: " + getFragmentation();
     }
   }
 }
@@ -61,12 +61,16 @@ public final class PipeManagerWorker {
 
   private final PersistentConnectionToMasterMap toMaster;
 
+  private final int localPipeQueueCapacity;
+
   @Inject
   private PipeManagerWorker(@Parameter(JobConf.ExecutorId.class) final String executorId,
+                            @Parameter(JobConf.LocalPipeQueueCapacity.class) final int localPipeQueueCapacity,
                             final ByteTransfer byteTransfer,
                             final SerializerManager serializerManager,
                             final PersistentConnectionToMasterMap toMaster) {
     this.executorId = executorId;
+    this.localPipeQueueCapacity = localPipeQueueCapacity;
     this.byteTransfer = byteTransfer;
     this.serializerManager = serializerManager;
     this.pipeContainer = new PipeContainer();
@@ -109,13 +113,14 @@ public final class PipeManagerWorker {
 
         // initialize a local output context
         final LocalOutputContext outputContext =
-          new LocalOutputContext(executorId, runtimeEdgeId, srcTaskIndex, dstTaskIndex);
+          new LocalOutputContext(executorId, runtimeEdgeId, srcTaskIndex, dstTaskIndex, localPipeQueueCapacity);
         pipeContainer.putPipe(pairKey, dstTaskIndex, outputContext);
 
         // Initialize a local input context and connect it to the corresponding local output context
         final LocalInputContext inputContext = new LocalInputContext(outputContext);
         final CompletableFuture<DataUtil.IteratorWithNumBytes> result = new CompletableFuture<>();
-        result.complete(DataUtil.IteratorWithNumBytes.of(inputContext.getIterator()));
+        result.complete(DataUtil.ReadinessAwareIterator.of(DataUtil.IteratorWithNumBytes.of(inputContext.getIterator()),
+          inputContext::isDataAvailable, inputContext::setDataAvailableListener));
         return result;
       } else {
         // Read from the remote executor
@@ -127,9 +132,17 @@ public final class PipeManagerWorker {
             .setNumPipeToWait(getNumOfPipeToWait(runtimeEdge))
             .build();
 
+        final Serializer serializer = serializerManager.getSerializer(runtimeEdge.getId());
         return byteTransfer.newInputContext(targetExecutorId, descriptor.toByteArray(), true)
-          .thenApply(context -> new DataUtil.InputStreamIterator(context.getInputStreams(),
-            serializerManager.getSerializer(runtimeEdge.getId())));
+          .thenApply(context -> {
+            final DataUtil.IteratorWithNumBytes iterator =
+              new DataUtil.InputStreamIterator(context.getInputStreams(), serializer);
+            // The readiness of the context does not tell whether decode streams (e.g., decompression) buffer data.
+            return serializer.getDecodeStreamChainers().isEmpty()
+              ? DataUtil.ReadinessAwareIterator.of(iterator,
+                context::isDataAvailable, context::setDataAvailableListener)
+              : iterator;
+          });
       }
     });
   }
@@ -19,13 +19,14 @@
 package org.apache.nemo.runtime.executor.data.block;
 
 import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.runtime.executor.data.MemoryAllocationException;
 import org.apache.nemo.runtime.executor.data.MemoryPoolAssigner;
-import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.common.exception.BlockWriteException;
 import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.data.FileArea;
+import org.apache.nemo.runtime.executor.data.FileAreaInputStream;
 import org.apache.nemo.runtime.executor.data.metadata.FileMetadata;
 import org.apache.nemo.runtime.executor.data.metadata.PartitionMetadata;
 import org.apache.nemo.runtime.executor.data.partition.NonSerializedPartition;
@@ -34,9 +35,7 @@ import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -45,8 +44,11 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -54,6 +56,12 @@ import java.util.Optional;
 /**
  * This class represents a block which is stored in (local or remote) file.
  * Concurrent read is supported, but concurrent write is not supported.
+ * <p>
+ * By default, the elements written to this block are serialized into a buffer per partition until the partitions
+ * are committed. If sort-based write is enabled, the elements are buffered without a buffer per partition,
+ * and are spilled sorted by their partition keys into runs whenever the number of buffered elements reaches
+ * the spill threshold. On commit, the runs are merged into the single file of this block, so that the file
+ * holds the partitions in the order of their keys.
  *
  * @param <K> the key type of its partitions.
  */
@@ -65,11 +73,16 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
   private final String filePath;
   private final FileMetadata<K> metadata;
   private final MemoryPoolAssigner memoryPoolAssigner;
+  private final int sortSpillThreshold;
+  // The elements buffered by the sort-based write, and the runs spilled so far (null if not enabled).
+  private List<Pair<K, Object>> sortBuffer;
+  private List<SortedRun<K>> sortedRuns;
+  private static final int APPEND_BUFFER_SIZE = 64 * 1024;
   private static final String ALREADY_COMMITED = "The partition is already committed!";
   private static final String CANNOT_RETRIEVE_BEFORE_COMMITED = "Cannot retrieve elements before a block is committed!";
 
   /**
-   * Constructor.
+   * Constructor of a block whose sort-based write, if enabled, never spills.
    *
    * @param blockId    the ID of this block.
    * @param serializer the {@link Serializer}.
@@ -82,12 +95,48 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
                    final String filePath,
                    final FileMetadata<K> metadata,
                    final MemoryPoolAssigner memoryPoolAssigner) {
+    this(blockId, serializer, filePath, metadata, memoryPoolAssigner, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param blockId    the ID of this block.
+   * @param serializer the {@link Serializer}.
+   * @param filePath   the path of the file that this block will be stored.
+   * @param metadata   the metadata for this block.
+   * @param memoryPoolAssigner  the MemoryPoolAssigner for memory allocation.
+   * @param sortSpillThreshold  the number of elements to buffer before spilling a sorted run, if sort-based write
+   *                            is enabled.
+   */
+  public FileBlock(final String blockId,
+                   final Serializer serializer,
+                   final String filePath,
+                   final FileMetadata<K> metadata,
+                   final MemoryPoolAssigner memoryPoolAssigner,
+                   final int sortSpillThreshold) {
     this.id = blockId;
     this.nonCommittedPartitionsMap = new HashMap<>();
     this.serializer = serializer;
     this.filePath = filePath;
     this.metadata = metadata;
     this.memoryPoolAssigner = memoryPoolAssigner;
+    this.sortSpillThreshold = sortSpillThreshold;
+  }
+
+  /**
+   * Enables the sort-based write for the elements written to this block with {@link #write(Serializable, Object)}.
+   * The keys of the partitions must be {@link Comparable}.
+   * Invariant: This should be invoked before any element is written.
+   */
+  public void enableSortBasedWrite() {
+    if (metadata.isCommitted() || !nonCommittedPartitionsMap.isEmpty()) {
+      throw new IllegalStateException("Sort-based write must be enabled before writing to the block " + id);
+    }
+    if (sortBuffer == null) {
+      this.sortBuffer = new ArrayList<>();
+      this.sortedRuns = new ArrayList<>();
+    }
   }
 
   /**
@@ -128,6 +177,13 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
     if (metadata.isCommitted()) {
       throw new BlockWriteException(new Throwable(ALREADY_COMMITED));
     } else {
+      if (sortBuffer != null) {
+        sortBuffer.add(Pair.of(key, element));
+        if (sortBuffer.size() >= sortSpillThreshold) {
+          spillSortedRun();
+        }
+        return;
+      }
       try {
         SerializedPartition<K> partition = nonCommittedPartitionsMap.get(key);
         if (partition == null) {
@@ -184,7 +240,10 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
   }
 
   /**
-   * Retrieves the partitions of this block from the file in a specific key range and deserializes it.
+   * Retrieves the partitions of this block from the file in a specific key range.
+   * The partitions are read and deserialized lazily, one at a time, while the returned iterable is iterated,
+   * so that the whole key range is never held in memory at once.
+   * Each partition is read with positional reads from the offset recorded in its metadata.
    *
    * @param keyRange the key range.
    * @return an iterable of {@link NonSerializedPartition}s.
@@ -195,36 +254,26 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
     if (!metadata.isCommitted()) {
       throw new BlockFetchException(new Throwable(CANNOT_RETRIEVE_BEFORE_COMMITED));
     } else {
-      // Deserialize the data
-      final List<NonSerializedPartition<K>> deserializedPartitions = new ArrayList<>();
-      try {
-        final List<Pair<K, byte[]>> partitionKeyBytesPairs = new ArrayList<>();
-        try (FileInputStream fileStream = new FileInputStream(filePath)) {
-          for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
-            final K key = partitionMetadata.getKey();
-            if (keyRange.includes(key)) {
-              // The key value of this partition is in the range.
-              final byte[] partitionBytes = new byte[partitionMetadata.getPartitionSize()];
-              fileStream.read(partitionBytes, 0, partitionMetadata.getPartitionSize());
-              partitionKeyBytesPairs.add(Pair.of(key, partitionBytes));
-            } else {
-              // Have to skip this partition.
-              skipBytes(fileStream, partitionMetadata.getPartitionSize());
-            }
-          }
-        }
-        for (final Pair<K, byte[]> partitionKeyBytes : partitionKeyBytesPairs) {
-          final NonSerializedPartition<K> deserializePartition =
-            DataUtil.deserializePartition(
-              partitionKeyBytes.right().length, serializer, partitionKeyBytes.left(),
-              new ByteArrayInputStream(partitionKeyBytes.right()));
-          deserializedPartitions.add(deserializePartition);
+      final List<PartitionMetadata<K>> partitionMetadataInRange = getPartitionMetadataInRange(keyRange);
+      return () -> new Iterator<NonSerializedPartition<K>>() {
+        private final Iterator<PartitionMetadata<K>> partitionMetadataIterator = partitionMetadataInRange.iterator();
+
+        @Override
+        public boolean hasNext() {
+          return partitionMetadataIterator.hasNext();
         }
-      } catch (final IOException e) {
-        throw new BlockFetchException(e);
-      }
 
-      return deserializedPartitions;
+        @Override
+        public NonSerializedPartition<K> next() {
+          final PartitionMetadata<K> partitionMetadata = partitionMetadataIterator.next();
+          try (InputStream inputStream = new FileAreaInputStream(toFileArea(partitionMetadata))) {
+            return DataUtil.deserializePartition(
+              partitionMetadata.getPartitionSize(), serializer, partitionMetadata.getKey(), inputStream);
+          } catch (final IOException e) {
+            throw new BlockFetchException(e);
+          }
+        }
+      };
     }
   }
 
@@ -241,26 +290,22 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
     if (!metadata.isCommitted()) {
       throw new BlockFetchException(new Throwable(CANNOT_RETRIEVE_BEFORE_COMMITED));
     } else {
-      // Deserialize the data
       final List<SerializedPartition<K>> partitionsInRange = new ArrayList<>();
-      try {
-        try (FileInputStream fileStream = new FileInputStream(filePath)) {
-          for (final PartitionMetadata<K> partitionmetadata : metadata.getPartitionMetadataList()) {
-            final K key = partitionmetadata.getKey();
-            if (keyRange.includes(key)) {
-              // The hash value of this partition is in the range.
-              final byte[] serializedData = new byte[partitionmetadata.getPartitionSize()];
-              final int readBytes = fileStream.read(serializedData);
-              if (readBytes != serializedData.length) {
-                throw new IOException("The read data size does not match with the partition size.");
-              }
-              partitionsInRange.add(new SerializedPartition<>(
-                key, serializedData, serializedData.length, memoryPoolAssigner));
-            } else {
-              // Have to skip this partition.
-              skipBytes(fileStream, partitionmetadata.getPartitionSize());
+      try (FileChannel fileChannel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+        for (final PartitionMetadata<K> partitionMetadata : getPartitionMetadataInRange(keyRange)) {
+          // Read the partition from its offset, without reading the partitions out of the range.
+          final byte[] serializedData = new byte[partitionMetadata.getPartitionSize()];
+          final ByteBuffer buffer = ByteBuffer.wrap(serializedData);
+          long position = partitionMetadata.getOffset();
+          while (buffer.hasRemaining()) {
+            final int readBytes = fileChannel.read(buffer, position);
+            if (readBytes < 0) {
+              throw new IOException("The read data size does not match with the partition size.");
             }
+            position += readBytes;
           }
+          partitionsInRange.add(new SerializedPartition<>(
+            partitionMetadata.getKey(), serializedData, serializedData.length, memoryPoolAssigner));
         }
       } catch (final IOException e) {
         throw new BlockFetchException(e);
@@ -271,22 +316,25 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
   }
 
   /**
-   * Skips some bytes in a input stream.
-   *
-   * @param inputStream the stream to skip.
-   * @param bytesToSkip the number of bytes to skip.
-   * @throws IOException if fail to skip.
+   * @param keyRange the key range.
+   * @return the metadata of the partitions in the key range, in the order of their offsets.
    */
-  private void skipBytes(final InputStream inputStream,
-                         final long bytesToSkip) throws IOException {
-    long remainingBytesToSkip = bytesToSkip;
-    while (remainingBytesToSkip > 0) {
-      final long skippedBytes = inputStream.skip(bytesToSkip);
-      remainingBytesToSkip -= skippedBytes;
-      if (skippedBytes <= 0) {
-        throw new IOException("The file stream failed to skip to the next block.");
+  private List<PartitionMetadata<K>> getPartitionMetadataInRange(final KeyRange keyRange) {
+    final List<PartitionMetadata<K>> partitionMetadataInRange = new ArrayList<>();
+    for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
+      if (keyRange.includes(partitionMetadata.getKey())) {
+        partitionMetadataInRange.add(partitionMetadata);
       }
     }
+    return partitionMetadataInRange;
+  }
+
+  /**
+   * @param partitionMetadata the metadata of a partition.
+   * @return the {@link FileArea} of the partition.
+   */
+  private FileArea toFileArea(final PartitionMetadata<K> partitionMetadata) {
+    return new FileArea(filePath, partitionMetadata.getOffset(), partitionMetadata.getPartitionSize());
   }
 
   /**
@@ -301,15 +349,191 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
       throw new IOException(CANNOT_RETRIEVE_BEFORE_COMMITED);
     } else {
       final List<FileArea> fileAreas = new ArrayList<>();
-      for (final PartitionMetadata<K> partitionMetadata : metadata.getPartitionMetadataList()) {
-        if (keyRange.includes(partitionMetadata.getKey())) {
-          fileAreas.add(new FileArea(filePath, partitionMetadata.getOffset(), partitionMetadata.getPartitionSize()));
-        }
+      for (final PartitionMetadata<K> partitionMetadata : getPartitionMetadataInRange(keyRange)) {
+        fileAreas.add(toFileArea(partitionMetadata));
       }
       return fileAreas;
     }
   }
 
+  /**
+   * Retrieves the {@link FileArea}s of the partitions in the specified {@link KeyRange}, along with their keys.
+   *
+   * @param keyRange the key range
+   * @return list of the keys and the file areas of the partitions
+   * @throws IOException if this block is not committed yet
+   */
+  public List<Pair<K, FileArea>> asKeyedFileAreas(final KeyRange keyRange) throws IOException {
+    if (!metadata.isCommitted()) {
+      throw new IOException(CANNOT_RETRIEVE_BEFORE_COMMITED);
+    }
+    final List<Pair<K, FileArea>> keyedFileAreas = new ArrayList<>();
+    for (final PartitionMetadata<K> partitionMetadata : getPartitionMetadataInRange(keyRange)) {
+      keyedFileAreas.add(Pair.of(partitionMetadata.getKey(), toFileArea(partitionMetadata)));
+    }
+    return keyedFileAreas;
+  }
+
+  /**
+   * Opens the file of this block to append partitions by {@link #appendPartition}.
+   *
+   * @return the channel of the file, which the caller has to close.
+   * @throws IOException if failed to open the file.
+   */
+  public FileChannel openFileChannelToAppend() throws IOException {
+    return FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Appends a serialized partition read from a stream to this block, e.g., a partition pushed by another executor.
+   * The area of the partition in the file is reserved first, and the bytes are then written at its offset.
+   * Thus, unlike the other writes, multiple partitions can be appended concurrently through the same channel.
+   *
+   * @param fileChannel the channel of the file of this block, opened by {@link #openFileChannelToAppend()}.
+   * @param key         the key of the partition.
+   * @param inputStream the stream of the serialized partition.
+   * @param size        the size of the serialized partition in bytes.
+   * @throws IOException if this block is already committed, if the stream does not hold the partition
+   *                     of the given size, or if failed to write the file.
+   */
+  public void appendPartition(final FileChannel fileChannel,
+                              final K key,
+                              final InputStream inputStream,
+                              final int size) throws IOException {
+    long position = metadata.writePartitionMetadata(key, size);
+    final long end = position + size;
+    final byte[] buffer = new byte[Math.min(size, APPEND_BUFFER_SIZE)];
+    while (position < end) {
+      final int numBytes = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+      if (numBytes < 0) {
+        throw new IOException("The partition " + key + " of " + id + " ended before " + size + " bytes");
+      }
+      final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, numBytes);
+      while (byteBuffer.hasRemaining()) {
+        position += fileChannel.write(byteBuffer, position);
+      }
+    }
+    if (inputStream.read() >= 0) {
+      throw new IOException("The partition " + key + " of " + id + " is longer than " + size + " bytes");
+    }
+  }
+
+  /**
+   * Sorts the buffered elements by their partition keys, and serializes each partition in turn.
+   * Only one partition is held in serialized form at a time while the returned iterable is iterated.
+   *
+   * @return the iterable of the serialized partitions, in the order of their keys.
+   */
+  private Iterable<SerializedPartition<K>> drainSortBuffer() {
+    final List<Pair<K, Object>> elements = sortBuffer;
+    sortBuffer = new ArrayList<>();
+    // The sort is stable, so that the elements of a partition keep the order in which they were written.
+    elements.sort(Comparator.comparing(element -> (Comparable) element.left()));
+    return () -> new Iterator<SerializedPartition<K>>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < elements.size();
+      }
+
+      @Override
+      public SerializedPartition<K> next() {
+        final K key = elements.get(index).left();
+        try {
+          final SerializedPartition<K> partition = new SerializedPartition<>(key, serializer, memoryPoolAssigner);
+          while (index < elements.size() && key.equals(elements.get(index).left())) {
+            partition.write(elements.get(index).right());
+            // Release the element as soon as it is serialized.
+            elements.set(index++, null);
+          }
+          partition.commit();
+          return partition;
+        } catch (final IOException | MemoryAllocationException e) {
+          throw new BlockWriteException(e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Spills the buffered elements into a new run file, sorted by their partition keys.
+   */
+  private void spillSortedRun() {
+    final String runFilePath = filePath + ".run" + sortedRuns.size();
+    final List<PartitionMetadata<K>> runPartitions = new ArrayList<>();
+    long offset = 0;
+    try (FileChannel runChannel = new FileOutputStream(runFilePath).getChannel()) {
+      for (final SerializedPartition<K> partition : drainSortBuffer()) {
+        final int length = partition.getLength();
+        for (final ByteBuffer buffer : partition.getDirectBufferList()) {
+          while (buffer.hasRemaining()) {
+            runChannel.write(buffer);
+          }
+        }
+        partition.release();
+        runPartitions.add(new PartitionMetadata<>(partition.getKey(), length, offset));
+        offset += length;
+      }
+    } catch (final IOException e) {
+      throw new BlockWriteException(e);
+    }
+    sortedRuns.add(new SortedRun<>(runFilePath, runPartitions));
+  }
+
+  /**
+   * Writes the elements written with the sort-based write to the file of this block, in the order of their keys.
+   * If no run has been spilled, the buffered elements are written to the file directly.
+   * Otherwise, the buffered elements are spilled as the last run, and the partitions of all runs are copied
+   * to the file in the order of their keys. The partitions of the same key from different runs are kept
+   * as separate partitions, which are read one after another.
+   *
+   * @throws IOException if failed to write to the file.
+   */
+  private void mergeSortedRuns() throws IOException {
+    if (sortedRuns.isEmpty()) {
+      writeToFile(drainSortBuffer());
+      return;
+    }
+    if (!sortBuffer.isEmpty()) {
+      spillSortedRun();
+    }
+
+    // The partitions of all runs, ordered by their keys, and then by the runs
+    final List<Pair<Integer, PartitionMetadata<K>>> partitions = new ArrayList<>();
+    for (int run = 0; run < sortedRuns.size(); run++) {
+      for (final PartitionMetadata<K> partitionMetadata : sortedRuns.get(run).partitions) {
+        partitions.add(Pair.of(run, partitionMetadata));
+      }
+    }
+    partitions.sort(Comparator.comparing(partition -> (Comparable) partition.right().getKey()));
+
+    final List<FileChannel> runChannels = new ArrayList<>(sortedRuns.size());
+    try (FileChannel fileOutputChannel = new FileOutputStream(filePath, true).getChannel()) {
+      for (final SortedRun<K> run : sortedRuns) {
+        runChannels.add(FileChannel.open(Paths.get(run.filePath), StandardOpenOption.READ));
+      }
+      for (final Pair<Integer, PartitionMetadata<K>> partition : partitions) {
+        final PartitionMetadata<K> partitionMetadata = partition.right();
+        metadata.writePartitionMetadata(partitionMetadata.getKey(), partitionMetadata.getPartitionSize());
+        final FileChannel runChannel = runChannels.get(partition.left());
+        long position = partitionMetadata.getOffset();
+        final long end = position + partitionMetadata.getPartitionSize();
+        while (position < end) {
+          position += runChannel.transferTo(position, end - position, fileOutputChannel);
+        }
+      }
+    } finally {
+      for (final FileChannel runChannel : runChannels) {
+        runChannel.close();
+      }
+      for (final SortedRun<K> run : sortedRuns) {
+        Files.deleteIfExists(Paths.get(run.filePath));
+      }
+      sortedRuns.clear();
+    }
+  }
+
   /**
    * Deletes the file that contains this block data.
    * This method have to be called after all read is completed (or failed).
@@ -333,6 +557,9 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
   public synchronized Optional<Map<K, Long>> commit() {
     try {
       if (!metadata.isCommitted()) {
+        if (sortBuffer != null) {
+          mergeSortedRuns();
+        }
         commitPartitions();
         metadata.commitBlock();
       }
@@ -388,4 +615,23 @@ public final class FileBlock<K extends Serializable> implements Block<K> {
   public boolean isCommitted() {
     return metadata.isCommitted();
   }
+
+  /**
+   * A run of partitions spilled by the sort-based write, sorted by their keys.
+   *
+   * @param <K> the key type of its partitions.
+   */
+  private static final class SortedRun<K extends Serializable> {
+    private final String filePath;
+    private final List<PartitionMetadata<K>> partitions;
+
+    /**
+     * @param filePath   the path of the run file.
+     * @param partitions the metadata of the partitions in the run file.
+     */
+    SortedRun(final String filePath, final List<PartitionMetadata<K>> partitions) {
+      this.filePath = filePath;
+      this.partitions = partitions;
+    }
+  }
 }
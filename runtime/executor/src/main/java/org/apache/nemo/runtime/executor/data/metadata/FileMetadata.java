@@ -63,18 +63,21 @@ public abstract class FileMetadata<K extends Serializable> {
    *
    * @param key           the key of the partition.
    * @param partitionSize the size of the partition.
+   * @return the offset of the partition in the file.
    * @throws IOException if fail to append the partition metadata.
    */
-  public final synchronized void writePartitionMetadata(final K key,
+  public final synchronized long writePartitionMetadata(final K key,
                                                         final int partitionSize) throws IOException {
     if (committed.get()) {
       throw new IOException("Cannot write a new block to a closed partition.");
     }
 
+    final long offset = writtenBytesCursor;
     final PartitionMetadata partitionMetadata =
-      new PartitionMetadata(key, partitionSize, writtenBytesCursor);
+      new PartitionMetadata(key, partitionSize, offset);
     partitionMetadataList.add(partitionMetadata);
     writtenBytesCursor += partitionSize;
+    return offset;
   }
 
   /**
@@ -29,6 +29,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -219,6 +220,25 @@ public final class SerializedPartition<K> implements Partition<byte[], K> {
     }
   }
 
+  /**
+   * Returns read-only views of the serialized data, which share the memory chunks of this partition.
+   * The views are valid only until this partition is released.
+   *
+   * @return the serialized data in list of read-only {@link ByteBuffer}s
+   * @throws IOException if the partition is not committed yet.
+   */
+  public List<ByteBuffer> getReadOnlyBufferList() throws IOException {
+    if (!committed) {
+      throw new IOException("The partition is not committed yet!");
+    } else {
+      final List<ByteBuffer> result = new ArrayList<>(dataList.size());
+      for (final MemoryChunk chunk : dataList) {
+        result.add(chunk.getBuffer().asReadOnlyBuffer());
+      }
+      return result;
+    }
+  }
+
   /**
    * @return the length of the actual data.
    * @throws IOException if the partition is not committed yet.
@@ -47,22 +47,26 @@ import java.util.Optional;
 @ThreadSafe
 public final class GlusterFileStore extends AbstractBlockStore implements RemoteFileStore {
   private final String fileDirectory;
+  private final int sortSpillThreshold;
 
   /**
    * Constructor.
    *
    * @param volumeDirectory   the remote volume directory which will contain the files.
    * @param jobId             the job id.
+   * @param sortSpillThreshold the number of elements to buffer before spilling a sorted run.
    * @param serializerManager the serializer manager.
    * @param memoryPoolAssigner the memory pool assigner.
    */
   @Inject
   private GlusterFileStore(@Parameter(JobConf.GlusterVolumeDirectory.class) final String volumeDirectory,
                            @Parameter(JobConf.JobId.class) final String jobId,
+                           @Parameter(JobConf.SortShuffleSpillThreshold.class) final int sortSpillThreshold,
                            final SerializerManager serializerManager,
                            final MemoryPoolAssigner memoryPoolAssigner) {
     super(serializerManager, memoryPoolAssigner);
     this.fileDirectory = volumeDirectory + "/" + jobId;
+    this.sortSpillThreshold = sortSpillThreshold;
     new File(fileDirectory).mkdirs();
   }
 
@@ -73,7 +77,7 @@ public final class GlusterFileStore extends AbstractBlockStore implements Remote
     final String filePath = DataUtil.blockIdToFilePath(blockId, fileDirectory);
     final RemoteFileMetadata metadata =
       RemoteFileMetadata.create(DataUtil.blockIdToMetaFilePath(blockId, fileDirectory));
-    return new FileBlock<>(blockId, serializer, filePath, metadata, getMemoryPoolAssigner());
+    return new FileBlock<>(blockId, serializer, filePath, metadata, getMemoryPoolAssigner(), sortSpillThreshold);
   }
 
   /**
@@ -41,20 +41,24 @@ import java.io.IOException;
 @ThreadSafe
 public final class LocalFileStore extends LocalBlockStore {
   private final String fileDirectory;
+  private final int sortSpillThreshold;
 
   /**
    * Constructor.
    *
    * @param fileDirectory     the directory which will contain the files.
+   * @param sortSpillThreshold the number of elements to buffer before spilling a sorted run.
    * @param serializerManager the serializer manager.
    * @param memoryPoolAssigner the memory pool assigner.
    */
   @Inject
   private LocalFileStore(@Parameter(JobConf.FileDirectory.class) final String fileDirectory,
+                         @Parameter(JobConf.SortShuffleSpillThreshold.class) final int sortSpillThreshold,
                          final SerializerManager serializerManager,
                          final MemoryPoolAssigner memoryPoolAssigner) {
     super(serializerManager, memoryPoolAssigner);
     this.fileDirectory = fileDirectory;
+    this.sortSpillThreshold = sortSpillThreshold;
     new File(fileDirectory).mkdirs();
   }
 
@@ -66,7 +70,7 @@ public final class LocalFileStore extends LocalBlockStore {
     final LocalFileMetadata metadata = new LocalFileMetadata();
 
     return new FileBlock(blockId, serializer, DataUtil.blockIdToFilePath(blockId, fileDirectory),
-                                                                  metadata, getMemoryPoolAssigner());
+      metadata, getMemoryPoolAssigner(), sortSpillThreshold);
   }
 
   /**
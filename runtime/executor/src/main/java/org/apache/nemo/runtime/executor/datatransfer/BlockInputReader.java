@@ -21,6 +21,7 @@ package org.apache.nemo.runtime.executor.datatransfer;
 import org.apache.beam.repackaged.core.org.apache.commons.lang3.SerializationUtils;
 import org.apache.nemo.common.HashRange;
 import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.exception.BlockFetchException;
 import org.apache.nemo.common.exception.UnsupportedCommPatternException;
 import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
@@ -39,8 +40,10 @@ import org.apache.nemo.runtime.executor.data.DataUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 
@@ -84,7 +87,7 @@ public final class BlockInputReader implements InputReader {
       case BROADCAST:
         return readBroadcast(index -> true);
       case SHUFFLE:
-        return readDataInRange(index -> true);
+        return BlockOutputWriter.isMerged(runtimeEdge) ? readMergedData() : readDataInRange(index -> true);
       default:
         throw new UnsupportedCommPatternException(new Exception("Communication pattern not supported"));
     }
@@ -162,24 +165,60 @@ public final class BlockInputReader implements InputReader {
     return futures;
   }
 
+  /**
+   * Read data in the assigned range of hash value from the merged block of this task, which holds the partitions
+   * pushed by the producer tasks, and from the blocks of the producer tasks whose partitions are not merged.
+   * See {@link BlockManagerWorker#pushToMergers} for information on merged blocks.
+   * As the merged block is located once the blocks of all producer tasks are available, each future of the data
+   * is chained on the location without blocking: the future of the first producer task whose partitions are merged
+   * reads the merged block, and the futures of the other producer tasks whose partitions are merged have no data.
+   *
+   * @return the list of the completable future of the data, indexed by the producer task indices.
+   */
+  private List<CompletableFuture<DataUtil.IteratorWithNumBytes>> readMergedData() {
+    final KeyRange hashRangeToRead = getHashRangeToRead();
+    final int numSrcTasks = InputReader.getSourceParallelism(this);
+    final List<String> blockIdWildcards = new ArrayList<>(numSrcTasks);
+    for (int srcTaskIdx = 0; srcTaskIdx < numSrcTasks; srcTaskIdx++) {
+      blockIdWildcards.add(generateWildCardBlockId(srcTaskIdx));
+    }
+    // The owner executor of the merged block and the producer tasks whose partitions it holds, if it can be read.
+    // If the location fails, the blocks of the producer tasks are read, of which the failure is handled as usual.
+    final CompletableFuture<Pair<String, Set<Integer>>> mergedBlockFuture = blockManagerWorker
+      .getMergedBlockLocation(runtimeEdge.getId(), dstTaskIndex, blockIdWildcards)
+      .thenApply(location -> location.hasOwnerExecutorId()
+        ? Pair.<String, Set<Integer>>of(location.getOwnerExecutorId(),
+        new HashSet<>(location.getMergedProducerTaskIndicesList()))
+        : Pair.<String, Set<Integer>>of("", Collections.emptySet()))
+      .exceptionally(throwable -> Pair.of("", Collections.emptySet()));
+
+    final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures = new ArrayList<>(numSrcTasks);
+    for (int srcTaskIdx = 0; srcTaskIdx < numSrcTasks; srcTaskIdx++) {
+      final int producerTaskIndex = srcTaskIdx;
+      futures.add(mergedBlockFuture.thenCompose(mergedBlock -> {
+        final Set<Integer> mergedProducerTaskIndices = mergedBlock.right();
+        if (!mergedProducerTaskIndices.contains(producerTaskIndex)) {
+          return blockManagerWorker.readBlock(generateWildCardBlockId(producerTaskIndex), runtimeEdge.getId(),
+            runtimeEdge.getExecutionProperties(), hashRangeToRead);
+        } else if (producerTaskIndex == Collections.min(mergedProducerTaskIndices)) {
+          return blockManagerWorker.readMergedBlock(mergedBlock.left(), runtimeEdge.getId(), dstTaskIndex,
+            mergedProducerTaskIndices.size(), runtimeEdge.getExecutionProperties(), hashRangeToRead);
+        } else {
+          return CompletableFuture.completedFuture(
+            DataUtil.IteratorWithNumBytes.of(Collections.emptyIterator(), 0, 0));
+        }
+      }));
+    }
+    return futures;
+  }
+
   /**
    * Read data in the assigned range of hash value.
    *
    * @return the list of the completable future of the data.
    */
   private List<CompletableFuture<DataUtil.IteratorWithNumBytes>> readDataInRange(final Predicate<Integer> predicate) {
-    assert (runtimeEdge instanceof StageEdge);
-    final List<KeyRange> keyRangeList = ((StageEdge) runtimeEdge).getKeyRanges();
-    final KeyRange hashRangeToRead = keyRangeList.get(dstTaskIndex);
-    if (hashRangeToRead == null) {
-      throw new BlockFetchException(
-        new Throwable("The hash range to read is not assigned to " + dstTaskIndex + "'th task"));
-    }
-    final int partitionerProperty = ((StageEdge) runtimeEdge).getPropertyValue(PartitionerProperty.class).get().right();
-    final int taskSize = ((HashRange) hashRangeToRead).rangeEndExclusive()
-      - ((HashRange) hashRangeToRead).rangeBeginInclusive();
-    metricMessageSender.send("TaskMetric", dstTaskId, "taskSizeRatio",
-      SerializationUtils.serialize(partitionerProperty / taskSize));
+    final KeyRange hashRangeToRead = getHashRangeToRead();
     final int numSrcTasks = InputReader.getSourceParallelism(this);
     final List<CompletableFuture<DataUtil.IteratorWithNumBytes>> futures = new ArrayList<>();
     for (int srcTaskIdx = 0; srcTaskIdx < numSrcTasks; srcTaskIdx++) {
@@ -192,4 +231,23 @@ public final class BlockInputReader implements InputReader {
 
     return futures;
   }
+
+  /**
+   * @return the assigned range of hash value, of which the size relative to the number of partitions is reported.
+   */
+  private KeyRange getHashRangeToRead() {
+    assert (runtimeEdge instanceof StageEdge);
+    final List<KeyRange> keyRangeList = ((StageEdge) runtimeEdge).getKeyRanges();
+    final KeyRange hashRangeToRead = keyRangeList.get(dstTaskIndex);
+    if (hashRangeToRead == null) {
+      throw new BlockFetchException(
+        new Throwable("The hash range to read is not assigned to " + dstTaskIndex + "'th task"));
+    }
+    final int partitionerProperty = ((StageEdge) runtimeEdge).getPropertyValue(PartitionerProperty.class).get().right();
+    final int taskSize = ((HashRange) hashRangeToRead).rangeEndExclusive()
+      - ((HashRange) hashRangeToRead).rangeBeginInclusive();
+    metricMessageSender.send("TaskMetric", dstTaskId, "taskSizeRatio",
+      partitionerProperty / taskSize);
+    return hashRangeToRead;
+  }
 }
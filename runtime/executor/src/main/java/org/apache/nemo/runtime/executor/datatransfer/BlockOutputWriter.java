@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.runtime.executor.datatransfer;
 
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.ir.edge.executionproperty.*;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
@@ -29,11 +30,17 @@ import org.apache.nemo.runtime.common.plan.RuntimeEdge;
 import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import org.apache.nemo.runtime.executor.data.block.Block;
+import org.apache.nemo.runtime.executor.data.block.FileBlock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents the output data transfer from a task.
@@ -41,6 +48,7 @@ import java.util.Optional;
 public final class BlockOutputWriter implements OutputWriter {
   private static final Logger LOG = LoggerFactory.getLogger(BlockOutputWriter.class.getName());
 
+  private final String srcTaskId;
   private final RuntimeEdge<?> runtimeEdge;
   private final IRVertex dstIrVertex;
   private final Partitioner partitioner;
@@ -49,6 +57,7 @@ public final class BlockOutputWriter implements OutputWriter {
   private final BlockManagerWorker blockManagerWorker;
   private final Block blockToWrite;
   private final boolean nonDummyBlock;
+  private final CompletableFuture<List<String>> mergerLocationsFuture;
 
   private long writtenBytes;
 
@@ -65,6 +74,7 @@ public final class BlockOutputWriter implements OutputWriter {
                     final RuntimeEdge<?> runtimeEdge,
                     final BlockManagerWorker blockManagerWorker) {
     final StageEdge stageEdge = (StageEdge) runtimeEdge;
+    this.srcTaskId = srcTaskId;
     this.runtimeEdge = runtimeEdge;
     this.dstIrVertex = dstIrVertex;
     this.partitioner = Partitioner
@@ -74,17 +84,34 @@ public final class BlockOutputWriter implements OutputWriter {
       .orElseThrow(() -> new RuntimeException("No data store property on the edge"));
     blockToWrite = blockManagerWorker.createBlock(
       RuntimeIdManager.generateBlockId(runtimeEdge.getId(), srcTaskId), blockStoreValue);
+    if (ShuffleWriterProperty.Value.SORT.equals(
+      runtimeEdge.getPropertyValue(ShuffleWriterProperty.class).orElse(ShuffleWriterProperty.Value.HASH))) {
+      if (blockToWrite instanceof FileBlock) {
+        ((FileBlock) blockToWrite).enableSortBasedWrite();
+      } else {
+        LOG.warn("Sort-based shuffle is only supported for file blocks. Falling back to hash-based shuffle for {}",
+          blockToWrite.getId());
+      }
+    }
     final Optional<DuplicateEdgeGroupPropertyValue> duplicateDataProperty =
       runtimeEdge.getPropertyValue(DuplicateEdgeGroupProperty.class);
     nonDummyBlock = !duplicateDataProperty.isPresent()
       || duplicateDataProperty.get().getRepresentativeEdgeId().equals(runtimeEdge.getId())
       || duplicateDataProperty.get().getGroupSize() <= 1;
+    // Inquired as the task starts, not to hold back the completion of the task. See close().
+    mergerLocationsFuture = nonDummyBlock && isMerged(runtimeEdge)
+      ? blockManagerWorker.getMergerLocations(runtimeEdge.getId(), stageEdge.getKeyRanges().size())
+      : CompletableFuture.completedFuture(Collections.emptyList());
   }
 
   @Override
   public void write(final Object element) {
     if (nonDummyBlock) {
-      blockToWrite.write(partitioner.partition(element), element);
+      final Serializable partitionKey = partitioner.partition(element);
+      if (partitionKey == null) {
+        return; // The element is not written to this edge, see SaltedHashPartitioner.
+      }
+      blockToWrite.write(partitionKey, element);
 
       final DedicatedKeyPerElement dedicatedKeyPerElement =
         partitioner.getClass().getAnnotation(DedicatedKeyPerElement.class);
@@ -120,7 +147,33 @@ public final class BlockOutputWriter implements OutputWriter {
     } else {
       writtenBytes = -1; // no written bytes info.
     }
-    blockManagerWorker.writeBlock(blockToWrite, blockStoreValue, getExpectedRead(), persistence);
+    // The partition sizes of the shuffle blocks let the master place the consumer tasks close to their inputs.
+    final Map<Integer, Long> partitionSizesToReport = partitionSizeMap.isPresent()
+      && CommunicationPatternProperty.Value.SHUFFLE
+      .equals(runtimeEdge.getPropertyValue(CommunicationPatternProperty.class).orElse(null))
+      ? partitionSizeMap.get() : Collections.emptyMap();
+    // The partitions are pushed to the consumer tasks scheduled as this task started, which are announced to the
+    // master first. If the locations are not known yet (or failed), nothing is pushed instead of waiting for them,
+    // and the consumer tasks read the block of this task as usual.
+    // The block is written in full regardless, as the consumer tasks whose partitions are not merged still read it:
+    // the pushed partitions are thus stored twice, until the merged blocks are removed as the consumer stage completes.
+    final List<KeyRange> keyRanges = ((StageEdge) runtimeEdge).getKeyRanges();
+    final List<String> mergerLocations = mergerLocationsFuture
+      .exceptionally(throwable -> Collections.emptyList())
+      .getNow(Collections.emptyList());
+    final List<Integer> pushedConsumerTaskIndices = new ArrayList<>();
+    for (int consumerTaskIndex = 0; consumerTaskIndex < mergerLocations.size(); consumerTaskIndex++) {
+      if (!mergerLocations.get(consumerTaskIndex).isEmpty()) {
+        pushedConsumerTaskIndices.add(consumerTaskIndex);
+      }
+    }
+    blockManagerWorker.writeBlock(blockToWrite, blockStoreValue, getExpectedRead(), persistence,
+      partitionSizesToReport, pushedConsumerTaskIndices);
+    if (!pushedConsumerTaskIndices.isEmpty()) {
+      // Pushed in background, not to hold back the completion of this task
+      blockManagerWorker.pushToMergers((FileBlock) blockToWrite, runtimeEdge.getId(), srcTaskId, mergerLocations,
+        keyRanges);
+    }
   }
 
   public Optional<Long> getWrittenBytes() {
@@ -131,6 +184,30 @@ public final class BlockOutputWriter implements OutputWriter {
     }
   }
 
+  /**
+   * Whether the partitions of the outputs of the tasks on an edge are pushed to and merged in the executors
+   * of the consumer tasks. See {@link BlockManagerWorker#pushToMergers} for details.
+   * The partitions are merged only on the push shuffle edges using local files, of which the blocks are kept
+   * (as the consumer tasks do not read the blocks whose partitions are merged) and not duplicated,
+   * and on which the consumer tasks are cancelled upon fetch failure (i.e., the blocks are never fetched one by one).
+   *
+   * @param runtimeEdge the edge.
+   * @return whether the partitions are merged.
+   */
+  static boolean isMerged(final RuntimeEdge<?> runtimeEdge) {
+    return runtimeEdge.getPropertyValue(ShuffleMergeProperty.class).orElse(false)
+      && CommunicationPatternProperty.Value.SHUFFLE
+      .equals(runtimeEdge.getPropertyValue(CommunicationPatternProperty.class).orElse(null))
+      && DataFlowProperty.Value.PUSH.equals(runtimeEdge.getPropertyValue(DataFlowProperty.class).orElse(null))
+      && DataStoreProperty.Value.LOCAL_FILE_STORE.equals(runtimeEdge.getPropertyValue(DataStoreProperty.class)
+      .orElse(null))
+      && DataPersistenceProperty.Value.KEEP.equals(runtimeEdge.getPropertyValue(DataPersistenceProperty.class)
+      .orElse(null))
+      && !runtimeEdge.getPropertyValue(DuplicateEdgeGroupProperty.class).isPresent()
+      && BlockFetchFailureProperty.Value.CANCEL_TASK.equals(runtimeEdge.getPropertyValue(
+      BlockFetchFailureProperty.class).orElse(BlockFetchFailureProperty.Value.CANCEL_TASK));
+  }
+
   /**
    * Get the expected number of data read according to the communication pattern of the edge and
    * the parallelism of destination vertex.
@@ -21,9 +21,12 @@ package org.apache.nemo.runtime.executor.datatransfer;
 import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.vertex.OperatorVertex;
 import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.nemo.runtime.executor.VertexMetricCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 /**
  * This collector receives data from DataFetcher and forwards it to the next operator.
  *
@@ -34,6 +37,7 @@ public final class DataFetcherOutputCollector<O> implements OutputCollector<O> {
   private final OperatorVertex nextOperatorVertex;
   private final int edgeIndex;
   private final InputWatermarkManager watermarkManager;
+  private final VertexMetricCounters counters;
 
   /**
    * It forwards output to the next operator.
@@ -41,18 +45,29 @@ public final class DataFetcherOutputCollector<O> implements OutputCollector<O> {
    * @param nextOperatorVertex next operator to emit data and watermark
    * @param edgeIndex          edge index
    * @param watermarkManager   watermark manager
+   * @param counters           the metric counters of the next operator, or null if not sampled
    */
   public DataFetcherOutputCollector(final OperatorVertex nextOperatorVertex,
                                     final int edgeIndex,
-                                    final InputWatermarkManager watermarkManager) {
+                                    final InputWatermarkManager watermarkManager,
+                                    @Nullable final VertexMetricCounters counters) {
     this.nextOperatorVertex = nextOperatorVertex;
     this.edgeIndex = edgeIndex;
     this.watermarkManager = watermarkManager;
+    this.counters = counters;
   }
 
   @Override
   public void emit(final O output) {
+    if (counters == null) {
+      nextOperatorVertex.getTransform().onData(output);
+      return;
+    }
+
+    counters.onRecordIn();
+    final long startTime = System.nanoTime();
     nextOperatorVertex.getTransform().onData(output);
+    counters.addProcessingTimeNs(System.nanoTime() - startTime);
   }
 
   @Override
@@ -19,6 +19,9 @@
 package org.apache.nemo.runtime.executor.datatransfer;
 
 import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.runtime.executor.VertexMetricCounters;
+
+import javax.annotation.Nullable;
 
 /**
  * Contains information for next operator:
@@ -36,13 +39,16 @@ public final class NextIntraTaskOperatorInfo {
   private final int edgeIndex;
   private final OperatorVertex nextOperator;
   private final InputWatermarkManager watermarkManager;
+  private final VertexMetricCounters counters;
 
   public NextIntraTaskOperatorInfo(final int edgeIndex,
                                    final OperatorVertex nextOperator,
-                                   final InputWatermarkManager watermarkManager) {
+                                   final InputWatermarkManager watermarkManager,
+                                   @Nullable final VertexMetricCounters counters) {
     this.edgeIndex = edgeIndex;
     this.nextOperator = nextOperator;
     this.watermarkManager = watermarkManager;
+    this.counters = counters;
   }
 
   public int getEdgeIndex() {
@@ -56,4 +62,12 @@ public final class NextIntraTaskOperatorInfo {
   public InputWatermarkManager getWatermarkManager() {
     return watermarkManager;
   }
+
+  /**
+   * @return the metric counters of the next operator, or null if not sampled.
+   */
+  @Nullable
+  public VertexMetricCounters getCounters() {
+    return counters;
+  }
 }
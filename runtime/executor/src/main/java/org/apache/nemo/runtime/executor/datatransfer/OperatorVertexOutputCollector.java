@@ -22,9 +22,11 @@ import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.OperatorVertex;
 import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.nemo.runtime.executor.VertexMetricCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
 
@@ -46,6 +48,10 @@ public final class OperatorVertexOutputCollector<O> implements OutputCollector<O
   private final Map<String, List<NextIntraTaskOperatorInfo>> internalAdditionalOutputs;
   private final List<OutputWriter> externalMainOutputs;
   private final Map<String, List<OutputWriter>> externalAdditionalOutputs;
+  private final VertexMetricCounters counters;
+  // The time spent in the next operators is excluded from the processing time of an operator vertex,
+  // which is measured by its own parent.
+  private final boolean excludeNextOperatorTime;
 
   /**
    * Constructor of the output collector.
@@ -55,22 +61,39 @@ public final class OperatorVertexOutputCollector<O> implements OutputCollector<O
    * @param internalAdditionalOutputs internal additional outputs
    * @param externalMainOutputs       external main outputs
    * @param externalAdditionalOutputs external additional outputs
+   * @param counters                  the metric counters of the ir vertex, or null if not sampled
    */
   public OperatorVertexOutputCollector(
     final IRVertex irVertex,
     final List<NextIntraTaskOperatorInfo> internalMainOutputs,
     final Map<String, List<NextIntraTaskOperatorInfo>> internalAdditionalOutputs,
     final List<OutputWriter> externalMainOutputs,
-    final Map<String, List<OutputWriter>> externalAdditionalOutputs) {
+    final Map<String, List<OutputWriter>> externalAdditionalOutputs,
+    @Nullable final VertexMetricCounters counters) {
     this.irVertex = irVertex;
     this.internalMainOutputs = internalMainOutputs;
     this.internalAdditionalOutputs = internalAdditionalOutputs;
     this.externalMainOutputs = externalMainOutputs;
     this.externalAdditionalOutputs = externalAdditionalOutputs;
+    this.counters = counters;
+    this.excludeNextOperatorTime = counters != null && irVertex instanceof OperatorVertex;
   }
 
-  private void emit(final OperatorVertex vertex, final O output) {
-    vertex.getTransform().onData(output);
+  private void emit(final NextIntraTaskOperatorInfo nextOperatorInfo, final O output) {
+    final VertexMetricCounters nextCounters = nextOperatorInfo.getCounters();
+    if (nextCounters == null) {
+      nextOperatorInfo.getNextOperator().getTransform().onData(output);
+      return;
+    }
+
+    nextCounters.onRecordIn();
+    final long startTime = System.nanoTime();
+    nextOperatorInfo.getNextOperator().getTransform().onData(output);
+    final long elapsedTime = System.nanoTime() - startTime;
+    nextCounters.addProcessingTimeNs(elapsedTime);
+    if (excludeNextOperatorTime) {
+      counters.addProcessingTimeNs(-elapsedTime);
+    }
   }
 
   private void emit(final OutputWriter writer, final O output) {
@@ -79,8 +102,12 @@ public final class OperatorVertexOutputCollector<O> implements OutputCollector<O
 
   @Override
   public void emit(final O output) {
+    if (counters != null) {
+      counters.onRecordOut();
+    }
+
     for (final NextIntraTaskOperatorInfo internalVertex : internalMainOutputs) {
-      emit(internalVertex.getNextOperator(), output);
+      emit(internalVertex, output);
     }
 
     for (final OutputWriter externalWriter : externalMainOutputs) {
@@ -90,9 +117,13 @@ public final class OperatorVertexOutputCollector<O> implements OutputCollector<O
 
   @Override
   public <T> void emit(final String dstVertexId, final T output) {
+    if (counters != null) {
+      counters.onRecordOut();
+    }
+
     if (internalAdditionalOutputs.containsKey(dstVertexId)) {
       for (final NextIntraTaskOperatorInfo internalVertex : internalAdditionalOutputs.get(dstVertexId)) {
-        emit(internalVertex.getNextOperator(), (O) output);
+        emit(internalVertex, (O) output);
       }
     }
 
@@ -108,6 +139,9 @@ public final class OperatorVertexOutputCollector<O> implements OutputCollector<O
     if (LOG.isDebugEnabled()) {
       LOG.debug("{} emits watermark {}", irVertex.getId(), watermark);
     }
+    if (counters != null) {
+      counters.onWatermark(watermark.getTimestamp());
+    }
 
     // Emit watermarks to internal vertices
     for (final NextIntraTaskOperatorInfo internalVertex : internalMainOutputs) {
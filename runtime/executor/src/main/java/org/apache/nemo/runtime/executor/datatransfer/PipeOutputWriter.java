@@ -19,11 +19,14 @@
 package org.apache.nemo.runtime.executor.datatransfer;
 
 import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.PipeBatchLingerProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.PipeBatchSizeProperty;
 import org.apache.nemo.common.partitioner.Partitioner;
 import org.apache.nemo.common.punctuation.Watermark;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.plan.RuntimeEdge;
 import org.apache.nemo.runtime.common.plan.StageEdge;
+import org.apache.nemo.runtime.executor.transfer.ByteOutputContext;
 import org.apache.nemo.runtime.executor.transfer.OutputContext;
 import org.apache.nemo.runtime.executor.transfer.TransferOutputStream;
 import org.apache.nemo.runtime.executor.data.PipeManagerWorker;
@@ -33,7 +36,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -41,6 +46,7 @@ import java.util.Optional;
  */
 public final class PipeOutputWriter implements OutputWriter {
   private static final Logger LOG = LoggerFactory.getLogger(OutputWriter.class.getName());
+  private static final long DEFAULT_BATCH_LINGER_MS = 5;
 
   private final String srcTaskId;
   private final int srcTaskIndex;
@@ -48,10 +54,13 @@ public final class PipeOutputWriter implements OutputWriter {
 
   private final Partitioner partitioner;
   private final RuntimeEdge runtimeEdge;
+  private final int batchSize;
+  private final long batchLingerMs;
 
   private boolean initialized;
   private Serializer serializer;
   private List<OutputContext> pipes;
+  private Map<OutputContext, ByteOutputContext.BatchingOutputStream> batchingStreams;
 
   /**
    * Constructor.
@@ -72,10 +81,17 @@ public final class PipeOutputWriter implements OutputWriter {
       .getPartitioner(stageEdge.getExecutionProperties(), stageEdge.getDstIRVertex().getExecutionProperties());
     this.runtimeEdge = runtimeEdge;
     this.srcTaskIndex = RuntimeIdManager.getIndexFromTaskId(srcTaskId);
+    this.batchSize = stageEdge.getPropertyValue(PipeBatchSizeProperty.class).orElse(0);
+    this.batchLingerMs = stageEdge.getPropertyValue(PipeBatchLingerProperty.class).orElse(DEFAULT_BATCH_LINGER_MS);
   }
 
   private void writeData(final Object element, final List<OutputContext> pipeList) {
     pipeList.forEach(pipe -> {
+      final ByteOutputContext.BatchingOutputStream batchingStream = batchingStreams.get(pipe);
+      if (batchingStream != null) {
+        batchingStream.writeElement(element, serializer);
+        return;
+      }
       try (TransferOutputStream pipeToWriteTo = pipe.newOutputStream()) {
         pipeToWriteTo.writeElement(element, serializer);
       } catch (IOException e) {
@@ -106,6 +122,15 @@ public final class PipeOutputWriter implements OutputWriter {
 
     final WatermarkWithIndex watermarkWithIndex = new WatermarkWithIndex(watermark, srcTaskIndex);
     writeData(watermarkWithIndex, pipes);
+
+    // Do not hold back watermarks in the pending batches
+    batchingStreams.values().forEach(batchingStream -> {
+      try {
+        batchingStream.flush();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
   }
 
   @Override
@@ -122,6 +147,9 @@ public final class PipeOutputWriter implements OutputWriter {
 
     pipes.forEach(pipe -> {
       try {
+        if (batchingStreams.containsKey(pipe)) {
+          batchingStreams.get(pipe).close();
+        }
         pipe.close();
       } catch (IOException e) {
         throw new RuntimeException(e);
@@ -135,6 +163,15 @@ public final class PipeOutputWriter implements OutputWriter {
     // Blocking call
     this.pipes = pipeManagerWorker.getOutputContexts(runtimeEdge, RuntimeIdManager.getIndexFromTaskId(srcTaskId));
     this.serializer = pipeManagerWorker.getSerializer(runtimeEdge.getId());
+
+    // Batch the elements to the remote pipes, if configured
+    this.batchingStreams = new HashMap<>();
+    if (batchSize > 0) {
+      pipes.stream()
+        .filter(pipe -> pipe instanceof ByteOutputContext)
+        .forEach(pipe -> batchingStreams.put(pipe,
+          ((ByteOutputContext) pipe).newBatchingOutputStream(batchSize, batchLingerMs)));
+    }
   }
 
   private List<OutputContext> getPipeToWrite(final Object element) {
@@ -148,7 +185,11 @@ public final class PipeOutputWriter implements OutputWriter {
       case BROADCAST:
         return pipes;
       default:
-        return Collections.singletonList(pipes.get((int) partitioner.partition(element)));
+        final Object partitionKey = partitioner.partition(element);
+        // A null partition key means that the element is not written to this edge.
+        return partitionKey == null
+          ? Collections.emptyList()
+          : Collections.singletonList(pipes.get((int) partitionKey));
     }
   }
 }
@@ -18,6 +18,10 @@
  */
 package org.apache.nemo.runtime.executor.datatransfer;
 
+import com.google.protobuf.ByteString;
+import org.apache.nemo.common.KeyFrequencySketch;
+import org.apache.nemo.common.coder.EncoderFactory;
+import org.apache.nemo.common.coder.PairEncoderFactory;
 import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.punctuation.Watermark;
@@ -29,12 +33,16 @@ import org.apache.nemo.runtime.executor.task.TaskExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * OutputCollector for dynamic optimization data.
+ * A map of key to count is sent as entries with stringified keys,
+ * and a {@link KeyFrequencySketch} is sent as a whole, encoded with the coder of the sketches that the vertex receives.
  *
  * @param <O> output type.
  */
@@ -48,25 +56,42 @@ public final class RunTimeMessageOutputCollector<O> implements OutputCollector<O
   private final PersistentConnectionToMasterMap connectionToMasterMap;
   private final TaskExecutor taskExecutor;
   private final boolean dataTransferNeeded;
+  private final EncoderFactory inputEncoderFactory;
 
+  /**
+   * Constructor.
+   *
+   * @param taskId                the id of the task.
+   * @param irVertex              the vertex that emits the data.
+   * @param connectionToMasterMap to send the data to the master.
+   * @param taskExecutor          the task executor.
+   * @param dataTransferNeeded    whether the data is sent to the master.
+   * @param inputEncoderFactory   the encoder of the (key, data) pairs that the vertex aggregates,
+   *                              or null if no data is sent.
+   */
   public RunTimeMessageOutputCollector(final String taskId,
                                        final IRVertex irVertex,
                                        final PersistentConnectionToMasterMap connectionToMasterMap,
                                        final TaskExecutor taskExecutor,
-                                       final boolean dataTransferNeeded) {
+                                       final boolean dataTransferNeeded,
+                                       final EncoderFactory inputEncoderFactory) {
     this.taskId = taskId;
     this.irVertex = irVertex;
     this.connectionToMasterMap = connectionToMasterMap;
     this.taskExecutor = taskExecutor;
     this.dataTransferNeeded = dataTransferNeeded;
+    this.inputEncoderFactory = inputEncoderFactory;
   }
 
   @Override
   public void emit(final O output) {
+    final ControlMessage.RunTimePassMessageMsg.Builder messageBuilder =
+      ControlMessage.RunTimePassMessageMsg.newBuilder().setTaskId(taskId);
     final List<ControlMessage.RunTimePassMessageEntry> entries = new ArrayList<>();
-    if (this.dataTransferNeeded) {
-      final Map<Object, Long> aggregatedMessage = (Map<Object, Long>) output;
-      aggregatedMessage.forEach((key, size) ->
+    if (this.dataTransferNeeded && output instanceof KeyFrequencySketch) {
+      messageBuilder.setSketch(encodeSketch((KeyFrequencySketch) output));
+    } else if (this.dataTransferNeeded) {
+      ((Map<Object, Long>) output).forEach((key, size) ->
         entries.add(
           ControlMessage.RunTimePassMessageEntry.newBuilder()
             // TODO #325: Add (de)serialization for non-string key types in data metric collection
@@ -87,16 +112,31 @@ public final class RunTimeMessageOutputCollector<O> implements OutputCollector<O
         .setId(RuntimeIdManager.generateMessageId())
         .setListenerId(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID)
         .setType(ControlMessage.MessageType.RunTimePassMessage)
-        .setRunTimePassMessageMsg(ControlMessage.RunTimePassMessageMsg.newBuilder()
-          .setTaskId(taskId)
-          .addAllEntry(entries)
-        )
+        .setRunTimePassMessageMsg(messageBuilder.addAllEntry(entries))
         .build());
 
     // set the id of this vertex to mark the corresponding stage as put on hold
     taskExecutor.setIRVertexPutOnHold(irVertex);
   }
 
+  /**
+   * @param sketch to encode.
+   * @return the sketch encoded with the coder of the sketches in the (key, sketch) pairs that the vertex aggregates.
+   */
+  private ByteString encodeSketch(final KeyFrequencySketch sketch) {
+    if (!(inputEncoderFactory instanceof PairEncoderFactory)) {
+      throw new IllegalStateException("No encoder for the sketch of " + irVertex.getId());
+    }
+    final EncoderFactory<KeyFrequencySketch> sketchEncoderFactory =
+      ((PairEncoderFactory) inputEncoderFactory).getRightEncoderFactory();
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      sketchEncoderFactory.create(outputStream).encode(sketch);
+      return ByteString.copyFrom(outputStream.toByteArray());
+    } catch (final IOException e) {
+      throw new IllegalStateException("Failed to encode the sketch of " + irVertex.getId(), e);
+    }
+  }
+
   @Override
   public void emitWatermark(final Watermark watermark) {
     // do nothing
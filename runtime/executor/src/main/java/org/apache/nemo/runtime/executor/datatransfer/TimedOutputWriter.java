@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.datatransfer;
+
+import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.nemo.runtime.executor.SampledTimer;
+
+import java.util.Optional;
+
+/**
+ * An {@link OutputWriter} that measures the time spent in another output writer,
+ * e.g., to serialize the output elements into blocks or to send them through pipes.
+ * The writes of the elements are sampled, so that the clock is not read twice per element.
+ */
+public final class TimedOutputWriter implements OutputWriter {
+  private static final int SAMPLING_INTERVAL = 64;
+
+  private final OutputWriter outputWriter;
+  private final SampledTimer elementWriteTimer;
+  private long writeTimeNs;
+
+  /**
+   * Constructor.
+   *
+   * @param outputWriter the output writer to measure.
+   */
+  public TimedOutputWriter(final OutputWriter outputWriter) {
+    this.outputWriter = outputWriter;
+    this.elementWriteTimer = new SampledTimer(SAMPLING_INTERVAL);
+    this.writeTimeNs = 0;
+  }
+
+  @Override
+  public void write(final Object element) {
+    final long start = elementWriteTimer.start();
+    outputWriter.write(element);
+    elementWriteTimer.stop(start);
+  }
+
+  @Override
+  public void writeWatermark(final Watermark watermark) {
+    final long start = System.nanoTime();
+    outputWriter.writeWatermark(watermark);
+    writeTimeNs += System.nanoTime() - start;
+  }
+
+  @Override
+  public Optional<Long> getWrittenBytes() {
+    return outputWriter.getWrittenBytes();
+  }
+
+  @Override
+  public void close() {
+    final long start = System.nanoTime();
+    outputWriter.close();
+    writeTimeNs += System.nanoTime() - start;
+  }
+
+  /**
+   * @return the (estimated) time spent in the measured output writer so far, in nanoseconds.
+   */
+  public long getWriteTimeNs() {
+    return elementWriteTimer.getEstimatedTimeNs() + writeTimeNs;
+  }
+}
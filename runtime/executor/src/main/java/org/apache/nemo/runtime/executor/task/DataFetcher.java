@@ -22,6 +22,7 @@ import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An abstraction for fetching data from task-external sources.
@@ -30,6 +31,10 @@ abstract class DataFetcher implements AutoCloseable {
   private final IRVertex dataSource;
   private final OutputCollector outputCollector;
 
+  // Readiness notification
+  private volatile DataFetcherSelector selector;
+  private final AtomicBoolean notified;
+
   /**
    * @param dataSource      to fetch from.
    * @param outputCollector for the data fetched.
@@ -38,6 +43,8 @@ abstract class DataFetcher implements AutoCloseable {
               final OutputCollector outputCollector) {
     this.dataSource = dataSource;
     this.outputCollector = outputCollector;
+    this.selector = null;
+    this.notified = new AtomicBoolean(false);
   }
 
   /**
@@ -49,6 +56,42 @@ abstract class DataFetcher implements AutoCloseable {
    */
   abstract Object fetchDataElement() throws IOException;
 
+  /**
+   * @return whether this data fetcher notifies the registered {@link DataFetcherSelector} when data lands.
+   * Data fetchers that do not support it have to be polled periodically.
+   */
+  boolean isReadinessNotificationSupported() {
+    return false;
+  }
+
+  /**
+   * Registers the selector to notify when data lands.
+   *
+   * @param dataFetcherSelector the selector of the task that owns this data fetcher.
+   */
+  final void registerSelector(final DataFetcherSelector dataFetcherSelector) {
+    this.selector = dataFetcherSelector;
+  }
+
+  /**
+   * Notifies the registered selector (if any) that this data fetcher may have an available element.
+   * Consecutive notifications are coalesced until the task executor thread calls {@link #clearNotification()}.
+   */
+  final void notifyDataAvailable() {
+    final DataFetcherSelector currentSelector = selector;
+    if (currentSelector != null && notified.compareAndSet(false, true)) {
+      currentSelector.onDataAvailable(this);
+    }
+  }
+
+  /**
+   * Re-arms the notification. Must be called by the task executor thread before it fetches from this data fetcher,
+   * so that data arriving after the fetch triggers a new notification.
+   */
+  final void clearNotification() {
+    notified.set(false);
+  }
+
   OutputCollector getOutputCollector() {
     return outputCollector;
   }
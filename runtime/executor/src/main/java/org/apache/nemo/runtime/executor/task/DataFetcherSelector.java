@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.task;
+
+import org.apache.nemo.runtime.executor.TaskThreadPool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A per-task selector over the {@link DataFetcher}s of a task.
+ * Data fetchers notify this selector when new data lands, so that the task executor thread
+ * can block on {@link #select(long)} instead of sleeping and polling all pending data fetchers.
+ * <p>
+ * Data fetcher threads -> notifyDataAvailable() -> (((READY QUEUE))) <- select() <- Task executor thread
+ */
+@ThreadSafe
+final class DataFetcherSelector {
+  private final LinkedBlockingQueue<DataFetcher> readyFetchers;
+
+  DataFetcherSelector() {
+    this.readyFetchers = new LinkedBlockingQueue<>();
+  }
+
+  /**
+   * Marks the data fetcher as ready.
+   * Called by the threads that put data into the data fetcher.
+   *
+   * @param dataFetcher that has received data.
+   */
+  void onDataAvailable(final DataFetcher dataFetcher) {
+    readyFetchers.offer(dataFetcher);
+  }
+
+  /**
+   * Blocks until at least one data fetcher becomes ready or the timeout elapses.
+   * A fetcher may be returned even if its data has already been consumed; the caller should handle such fetchers
+   * as it would handle any other fetcher with no available element.
+   *
+   * @param timeoutMs the maximum time to wait, in milliseconds.
+   * @return the data fetchers that became ready since the last call (empty on timeout).
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  List<DataFetcher> select(final long timeoutMs) throws InterruptedException {
+    final List<DataFetcher> selected = new ArrayList<>();
+    final DataFetcher first = TaskThreadPool.poll(readyFetchers, timeoutMs, TimeUnit.MILLISECONDS);
+    if (first != null) {
+      selected.add(first);
+      readyFetchers.drainTo(selected);
+    }
+    return selected;
+  }
+}
@@ -31,16 +31,20 @@ import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Task thread -> fetchDataElement() -> (((QUEUE))) <- List of iterators <- queueInsertionThreads
+ * Task thread -> fetchDataElement() -> (((QUEUE))) <- List of iterators <- {@link PipeReaderPool}
  * <p>
  * Unlike {@link ParentTaskDataFetcher}, where the task thread directly consumes (and blocks on) iterators one by one,
- * this class spawns threads that each forwards elements from an iterator to a global queue.
+ * this class forwards elements from the iterators to a queue, using the reader threads shared in the executor.
+ * An iterator is read only when it has data to read, and its reading is paused while the queue is full,
+ * so that neither the threads nor the queued elements grow with the number of iterators.
  * <p>
  * This class should be used when dealing with unbounded data streams, as we do not want to be blocked on a
  * single unbounded iterator forever.
@@ -50,12 +54,18 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
   private static final Logger LOG = LoggerFactory.getLogger(MultiThreadParentTaskDataFetcher.class);
 
   private final InputReader readersForParentTask;
-  private final ExecutorService queueInsertionThreads;
+  private final PipeReaderPool pipeReaderPool;
 
   // Non-finals (lazy fetching)
   private boolean firstFetch = true;
 
+  // Only the data elements are bounded, so that watermarks and finish marks are never held back.
   private final ConcurrentLinkedQueue elementQueue;
+  private final AtomicInteger numOfQueuedDataElements;
+  private final int queueCapacity;
+  private final Set<IteratorReader> pausedReaders;
+  private volatile Throwable readFailure = null;
+  private volatile boolean isClosed = false;
 
   private long serBytes = 0;
   private long encodedBytes = 0;
@@ -63,18 +73,23 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
   private int numOfIterators; // == numOfIncomingEdges
   private int numOfFinishMarks = 0;
 
-  // A watermark manager
+  // A watermark manager, which is accessed only by the task thread
   private InputWatermarkManager inputWatermarkManager;
+  private Watermark emittedWatermark = null;
 
 
   MultiThreadParentTaskDataFetcher(final IRVertex dataSource,
                                    final InputReader readerForParentTask,
-                                   final OutputCollector outputCollector) {
+                                   final OutputCollector outputCollector,
+                                   final PipeReaderPool pipeReaderPool) {
     super(dataSource, outputCollector);
     this.readersForParentTask = readerForParentTask;
+    this.pipeReaderPool = pipeReaderPool;
     this.firstFetch = true;
     this.elementQueue = new ConcurrentLinkedQueue();
-    this.queueInsertionThreads = Executors.newCachedThreadPool();
+    this.numOfQueuedDataElements = new AtomicInteger(0);
+    this.queueCapacity = pipeReaderPool.getFetcherQueueCapacity();
+    this.pausedReaders = ConcurrentHashMap.newKeySet();
   }
 
   @Override
@@ -85,6 +100,9 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
     }
 
     while (true) {
+      if (readFailure != null) {
+        throw new IOException(readFailure);
+      }
       final Object element = elementQueue.poll();
       if (element == null) {
         throw new NoSuchElementException();
@@ -94,7 +112,19 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
           return Finishmark.getInstance();
         }
         // else try again.
+      } else if (element instanceof WatermarkWithIndex) {
+        // Tracked here rather than by the reader threads, so that the watermark manager needs no synchronization.
+        final WatermarkWithIndex watermarkWithIndex = (WatermarkWithIndex) element;
+        inputWatermarkManager.trackAndEmitWatermarks(
+          watermarkWithIndex.getIndex(), watermarkWithIndex.getWatermark());
+        if (emittedWatermark != null) {
+          final Watermark watermark = emittedWatermark;
+          emittedWatermark = null;
+          return watermark;
+        }
+        // else try again.
       } else {
+        onDataElementFetched();
         return element;
       }
     }
@@ -110,35 +140,39 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
       inputWatermarkManager = new SingleInputWatermarkManager(new WatermarkCollector());
     }
 
-    futures.forEach(compFuture -> compFuture.whenComplete((iterator, exception) ->
-      // A thread for each iterator
-      queueInsertionThreads.submit(() -> {
-        if (exception == null) {
-          // Consume this iterator to the end.
-          while (iterator.hasNext()) { // blocked on the iterator.
-            final Object element = iterator.next();
-            if (element instanceof WatermarkWithIndex) {
-              // watermark element
-              // the input watermark manager is accessed by multiple threads
-              // so we should synchronize it
-              synchronized (inputWatermarkManager) {
-                final WatermarkWithIndex watermarkWithIndex = (WatermarkWithIndex) element;
-                inputWatermarkManager.trackAndEmitWatermarks(
-                  watermarkWithIndex.getIndex(), watermarkWithIndex.getWatermark());
-              }
-            } else {
-              // data element
-              elementQueue.offer(element);
-            }
-          }
-          // This iterator is finished.
-          countBytesSynchronized(iterator);
-          elementQueue.offer(Finishmark.getInstance());
-        } else {
-          LOG.error(exception.getMessage());
-          throw new RuntimeException(exception);
+    futures.forEach(compFuture -> compFuture.whenComplete((iterator, exception) -> {
+      if (exception == null) {
+        new IteratorReader(iterator).start();
+      } else {
+        onReadFailure(exception);
+      }
+    }));
+  }
+
+  /**
+   * Resumes the paused readers, once the task thread has fetched half of the queue.
+   */
+  private void onDataElementFetched() {
+    if (numOfQueuedDataElements.decrementAndGet() <= queueCapacity / 2 && !pausedReaders.isEmpty()) {
+      for (final IteratorReader reader : pausedReaders) {
+        if (pausedReaders.remove(reader)) {
+          reader.schedule();
         }
-      })));
+      }
+    }
+  }
+
+  private void onReadFailure(final Throwable throwable) {
+    LOG.error("Failed to read from a parent task", throwable);
+    if (readFailure == null) {
+      readFailure = throwable;
+    }
+    notifyDataAvailable();
+  }
+
+  @Override
+  boolean isReadinessNotificationSupported() {
+    return true;
   }
 
   final long getSerializedBytes() {
@@ -168,11 +202,99 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
 
   @Override
   public void close() throws Exception {
-    queueInsertionThreads.shutdown();
+    isClosed = true;
+    pausedReaders.clear();
+  }
+
+  /**
+   * Forwards the elements of an iterator to the element queue, on the threads of the {@link PipeReaderPool}.
+   * A reader runs on at most one thread at a time. It runs whenever the iterator has data to read,
+   * and returns once the iterator would wait for more data or the queue is full.
+   * Iterators that cannot tell whether they have data to read are read on dedicated threads.
+   */
+  private final class IteratorReader implements Runnable {
+    private final DataUtil.IteratorWithNumBytes iterator;
+    private final boolean isReadinessAware;
+    private final AtomicBoolean isScheduled;
+    private boolean isFinished;
+
+    IteratorReader(final DataUtil.IteratorWithNumBytes iterator) {
+      this.iterator = iterator;
+      this.isReadinessAware = iterator instanceof DataUtil.ReadinessAwareIterator;
+      this.isScheduled = new AtomicBoolean(false);
+      this.isFinished = false;
+    }
+
+    void start() {
+      if (isReadinessAware) {
+        ((DataUtil.ReadinessAwareIterator) iterator).setReadinessListener(this::schedule);
+      }
+      schedule();
+    }
+
+    void schedule() {
+      if (!isClosed && isScheduled.compareAndSet(false, true)) {
+        if (isReadinessAware) {
+          pipeReaderPool.execute(this);
+        } else {
+          pipeReaderPool.executeBlocking(this);
+        }
+      }
+    }
+
+    private boolean isReady() {
+      return !isReadinessAware || ((DataUtil.ReadinessAwareIterator) iterator).isReady();
+    }
+
+    @Override
+    public void run() {
+      try {
+        read();
+      } catch (final RuntimeException e) {
+        isFinished = true;
+        onReadFailure(e);
+      }
+      isScheduled.set(false);
+      // Data may have arrived after the last readiness check, while this reader was running.
+      if (!isFinished && !pausedReaders.contains(this) && isReady()) {
+        schedule();
+      }
+    }
+
+    private void read() {
+      while (!isClosed && !isFinished) {
+        if (numOfQueuedDataElements.get() >= queueCapacity) {
+          pausedReaders.add(this);
+          // The task thread may have fetched the queued elements before this reader got paused.
+          if (numOfQueuedDataElements.get() > queueCapacity / 2 || !pausedReaders.remove(this)) {
+            return;
+          }
+        }
+        if (!isReady()) {
+          return;
+        }
+        if (!iterator.hasNext()) {
+          // This iterator is finished.
+          isFinished = true;
+          countBytesSynchronized(iterator);
+          elementQueue.offer(Finishmark.getInstance());
+          notifyDataAvailable();
+          return;
+        }
+
+        final Object element = iterator.next();
+        if (!(element instanceof WatermarkWithIndex)) {
+          // data element, of which only the number is bounded
+          numOfQueuedDataElements.incrementAndGet();
+        }
+        elementQueue.offer(element);
+        notifyDataAvailable();
+      }
+    }
   }
 
   /**
-   * Just adds the emitted watermark to the element queue.
+   * Just keeps the emitted watermark for the task thread to return, on which it is emitted.
    * It receives the watermark from InputWatermarkManager.
    */
   private final class WatermarkCollector implements OutputCollector {
@@ -183,7 +305,7 @@ class MultiThreadParentTaskDataFetcher extends DataFetcher {
 
     @Override
     public void emitWatermark(final Watermark watermark) {
-      elementQueue.offer(watermark);
+      emittedWatermark = watermark;
     }
 
     @Override
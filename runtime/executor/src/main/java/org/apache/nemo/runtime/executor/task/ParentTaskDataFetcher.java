@@ -22,6 +22,7 @@ import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.edge.executionproperty.BlockFetchFailureProperty;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.punctuation.Finishmark;
+import org.apache.nemo.runtime.executor.TaskThreadPool;
 import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.datatransfer.InputReader;
 import org.slf4j.Logger;
@@ -104,7 +105,7 @@ class ParentTaskDataFetcher extends DataFetcher {
     // Take from iteratorQueue
     final Object iteratorOrThrowable;
     try {
-      iteratorOrThrowable = iteratorQueue.take(); // blocking call
+      iteratorOrThrowable = TaskThreadPool.take(iteratorQueue); // blocking call
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       throw new IOException(e);
@@ -140,12 +141,14 @@ class ParentTaskDataFetcher extends DataFetcher {
           } else if (fetchFailure.equals(BlockFetchFailureProperty.Value.CANCEL_TASK)) {
             // Retry the entire task
             iteratorQueue.put(exception);
+            notifyDataAvailable();
           } else {
             throw new UnsupportedOperationException(fetchFailure.toString());
           }
         } else {
           // Process the iterator
           iteratorQueue.put(iterator); // can block here
+          notifyDataAvailable();
         }
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
@@ -166,6 +169,11 @@ class ParentTaskDataFetcher extends DataFetcher {
     }
   }
 
+  @Override
+  boolean isReadinessNotificationSupported() {
+    return true;
+  }
+
   final long getSerializedBytes() {
     return serBytes;
   }
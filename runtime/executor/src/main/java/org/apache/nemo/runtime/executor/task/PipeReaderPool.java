@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.task;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.nemo.conf.JobConf;
+import org.apache.reef.tang.annotations.Parameter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The threads of an executor that read the pipes from the parent tasks, shared by all tasks in the executor.
+ * A {@link MultiThreadParentTaskDataFetcher} submits the reading of a pipe only when the pipe has data to read,
+ * so that the number of reader threads does not depend on the number of pipes.
+ * Pipes that cannot tell whether they have data to read are read by dedicated threads, as they may block.
+ * Only the remote pipes with decode stream chainers (e.g., decompression) are such pipes,
+ * as the readiness of their contexts does not tell whether the chainers buffer data.
+ */
+@ThreadSafe
+public final class PipeReaderPool {
+  private final ExecutorService readerThreads;
+  private final ExecutorService blockingReaderThreads;
+  private final int fetcherQueueCapacity;
+
+  /**
+   * Constructor.
+   *
+   * @param numReaderThreads     the number of reader threads, or 0 for the number of cores.
+   * @param fetcherQueueCapacity the maximum number of data elements read for a data fetcher but not fetched yet.
+   */
+  @Inject
+  private PipeReaderPool(@Parameter(JobConf.PipeReaderThreads.class) final int numReaderThreads,
+                         @Parameter(JobConf.PipeFetcherQueueCapacity.class) final int fetcherQueueCapacity) {
+    if (numReaderThreads < 0 || fetcherQueueCapacity <= 0) {
+      throw new IllegalArgumentException(numReaderThreads + ", " + fetcherQueueCapacity);
+    }
+    this.readerThreads = Executors.newFixedThreadPool(
+      numReaderThreads == 0 ? Runtime.getRuntime().availableProcessors() : numReaderThreads,
+      new BasicThreadFactory.Builder().namingPattern("PipeReader thread-%d").daemon(true).build());
+    this.blockingReaderThreads = Executors.newCachedThreadPool(
+      new BasicThreadFactory.Builder().namingPattern("BlockingPipeReader thread-%d").daemon(true).build());
+    this.fetcherQueueCapacity = fetcherQueueCapacity;
+  }
+
+  /**
+   * Static constructor for manual usage.
+   *
+   * @param numReaderThreads     the number of reader threads, or 0 for the number of cores.
+   * @param fetcherQueueCapacity the maximum number of data elements read for a data fetcher but not fetched yet.
+   * @return a new pipe reader pool.
+   */
+  public static PipeReaderPool newInstance(final int numReaderThreads, final int fetcherQueueCapacity) {
+    return new PipeReaderPool(numReaderThreads, fetcherQueueCapacity);
+  }
+
+  /**
+   * @param reader that reads the available data of a pipe without blocking.
+   */
+  void execute(final Runnable reader) {
+    readerThreads.execute(reader);
+  }
+
+  /**
+   * The threads for blocking readers are not bounded on purpose: the pipes are unbounded streams,
+   * so a reader blocked on a pipe holds its thread until the pipe has data, and bounding the threads would starve
+   * the pipes beyond the bound (and the watermarks of their tasks) indefinitely.
+   * A blocking reader still returns its thread while the queue of its data fetcher is full, and the idle threads
+   * are released after a minute, so the threads are bounded by the number of such pipes being read at a time.
+   *
+   * @param reader that reads a pipe to the end, blocking on the pipe.
+   */
+  void executeBlocking(final Runnable reader) {
+    blockingReaderThreads.execute(reader);
+  }
+
+  /**
+   * @return the maximum number of data elements read for a data fetcher but not fetched yet.
+   */
+  int getFetcherQueueCapacity() {
+    return fetcherQueueCapacity;
+  }
+}
@@ -19,14 +19,15 @@
 package org.apache.nemo.runtime.executor.task;
 
 import com.google.common.collect.Lists;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.dag.DAG;
 import org.apache.nemo.common.dag.Edge;
 import org.apache.nemo.common.ir.OutputCollector;
 import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.coder.EncoderFactory;
 import org.apache.nemo.common.ir.edge.executionproperty.AdditionalOutputTagProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.EncoderProperty;
 import org.apache.nemo.common.ir.vertex.IRVertex;
 import org.apache.nemo.common.ir.vertex.OperatorVertex;
 import org.apache.nemo.common.ir.vertex.SourceVertex;
@@ -44,9 +45,13 @@ import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.nemo.runtime.executor.MetricMessageSender;
+import org.apache.nemo.runtime.executor.SampledTimer;
 import org.apache.nemo.runtime.executor.TaskStateManager;
+import org.apache.nemo.runtime.executor.TaskThreadPool;
 import org.apache.nemo.runtime.executor.TransformContextImpl;
+import org.apache.nemo.runtime.executor.VertexMetricSampler;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
+import org.apache.nemo.runtime.executor.data.MemoryPoolAssigner;
 import org.apache.nemo.runtime.executor.datatransfer.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,6 +69,9 @@ import java.util.stream.Collectors;
 public final class TaskExecutor {
   private static final Logger LOG = LoggerFactory.getLogger(TaskExecutor.class.getName());
   private static final String TASK_METRIC_ID = "TaskMetric";
+  private static final long PENDING_FETCHER_POLLING_INTERVAL_MS = 100;
+  // The fetches of the elements are sampled, so that the clock is not read twice per element
+  private static final int SHUFFLE_READ_TIME_SAMPLING_INTERVAL = 64;
 
   // Essential information
   private boolean isExecuted;
@@ -72,11 +80,19 @@ public final class TaskExecutor {
   private final List<DataFetcher> dataFetchers;
   private final BroadcastManagerWorker broadcastManagerWorker;
   private final List<VertexHarness> sortedHarnesses;
+  private final Set<String> idsOfClosedVertices;
+  private final boolean readinessNotificationEnabled;
+  private final DataFetcherSelector dataFetcherSelector;
+  private final PipeReaderPool pipeReaderPool;
+  private final MemoryPoolAssigner memoryPoolAssigner;
+  private final VertexMetricSampler vertexMetricSampler;
 
   // Metrics information
   private long boundedSourceReadTime = 0;
   private long serializedReadBytes = 0;
   private long encodedReadBytes = 0;
+  private final SampledTimer shuffleReadTimer = new SampledTimer(SHUFFLE_READ_TIME_SAMPLING_INTERVAL);
+  private final List<TimedOutputWriter> timedOutputWriters;
   private long timeSinceLastExecution;
   private final MetricMessageSender metricMessageSender;
 
@@ -95,6 +111,11 @@ public final class TaskExecutor {
    * @param broadcastManagerWorker          For broadcasts.
    * @param metricMessageSender             For sending metric with execution stats to the master.
    * @param persistentConnectionToMasterMap For sending messages to the master.
+   * @param pipeReaderPool                  For reading the pipes from the parent tasks.
+   * @param memoryPoolAssigner              For tracking the peak memory usage.
+   * @param vertexMetricSampler             For sampling the per-operator metrics.
+   * @param readinessNotificationEnabled    Whether to wait on data fetcher readiness notifications
+   *                                        instead of periodically polling pending data fetchers.
    */
   public TaskExecutor(final Task task,
                       final DAG<IRVertex, RuntimeEdge<IRVertex>> irVertexDag,
@@ -102,12 +123,21 @@ public final class TaskExecutor {
                       final IntermediateDataIOFactory intermediateDataIOFactory,
                       final BroadcastManagerWorker broadcastManagerWorker,
                       final MetricMessageSender metricMessageSender,
-                      final PersistentConnectionToMasterMap persistentConnectionToMasterMap) {
+                      final PersistentConnectionToMasterMap persistentConnectionToMasterMap,
+                      final PipeReaderPool pipeReaderPool,
+                      final MemoryPoolAssigner memoryPoolAssigner,
+                      final VertexMetricSampler vertexMetricSampler,
+                      final boolean readinessNotificationEnabled) {
     // Essential information
     this.isExecuted = false;
     this.taskId = task.getTaskId();
     this.taskStateManager = taskStateManager;
     this.broadcastManagerWorker = broadcastManagerWorker;
+    this.readinessNotificationEnabled = readinessNotificationEnabled;
+    this.dataFetcherSelector = new DataFetcherSelector();
+    this.pipeReaderPool = pipeReaderPool;
+    this.memoryPoolAssigner = memoryPoolAssigner;
+    this.vertexMetricSampler = vertexMetricSampler;
 
     // Metric sender
     this.metricMessageSender = metricMessageSender;
@@ -119,9 +149,11 @@ public final class TaskExecutor {
     this.persistentConnectionToMasterMap = persistentConnectionToMasterMap;
 
     // Prepare data structures
+    this.timedOutputWriters = new ArrayList<>();
     final Pair<List<DataFetcher>, List<VertexHarness>> pair = prepare(task, irVertexDag, intermediateDataIOFactory);
     this.dataFetchers = pair.left();
     this.sortedHarnesses = pair.right();
+    this.idsOfClosedVertices = new HashSet<>();
 
     this.timeSinceLastExecution = System.currentTimeMillis();
   }
@@ -233,21 +265,27 @@ public final class TaskExecutor {
 
       if (irVertex instanceof OperatorVertex
         && ((OperatorVertex) irVertex).getTransform() instanceof MessageAggregatorTransform) {
-        outputCollector = new RunTimeMessageOutputCollector<Map<Object, Long>>(
-          taskId, irVertex, persistentConnectionToMasterMap, this, true);
+        // The aggregated data is either a map of key to count or a sketch, of the type of the input pairs
+        final EncoderFactory inputEncoderFactory = task.getTaskIncomingEdges().stream()
+          .filter(inEdge -> inEdge.getDstIRVertex().getId().equals(irVertex.getId()))
+          .map(inEdge -> inEdge.getPropertyValue(EncoderProperty.class).orElseThrow(IllegalStateException::new))
+          .findFirst()
+          .orElse(null);
+        outputCollector = new RunTimeMessageOutputCollector<>(
+          taskId, irVertex, persistentConnectionToMasterMap, this, true, inputEncoderFactory);
       } else if (irVertex instanceof OperatorVertex
       && ((OperatorVertex) irVertex).getTransform() instanceof SignalTransform) {
         outputCollector = new RunTimeMessageOutputCollector<Map<String, Long>>(
-          taskId, irVertex, persistentConnectionToMasterMap, this, false);
+          taskId, irVertex, persistentConnectionToMasterMap, this, false, null);
       } else {
         outputCollector = new OperatorVertexOutputCollector(
           irVertex, internalMainOutputs, internalAdditionalOutputMap,
-          externalMainOutputs, externalAdditionalOutputMap);
+          externalMainOutputs, externalAdditionalOutputMap, vertexMetricSampler.getCounters(irVertex.getId()));
       }
 
       // Create VERTEX HARNESS
       final VertexHarness vertexHarness = new VertexHarness(
-        irVertex, outputCollector, new TransformContextImpl(broadcastManagerWorker),
+        irVertex, outputCollector, new TransformContextImpl(broadcastManagerWorker, taskIndex),
         externalMainOutputs, externalAdditionalOutputMap);
 
       prepareTransform(vertexHarness);
@@ -278,14 +316,16 @@ public final class TaskExecutor {
             final InputWatermarkManager watermarkManager = operatorWatermarkManagerMap.get(irVertex);
             final InputReader parentTaskReader = pair.right();
             final OutputCollector dataFetcherOutputCollector =
-              new DataFetcherOutputCollector((OperatorVertex) irVertex, edgeIndex, watermarkManager);
+              new DataFetcherOutputCollector((OperatorVertex) irVertex, edgeIndex, watermarkManager,
+                vertexMetricSampler.getCounters(irVertex.getId()));
 
             if (parentTaskReader instanceof PipeInputReader) {
               dataFetcherList.add(
                 new MultiThreadParentTaskDataFetcher(
                   parentTaskReader.getSrcIrVertex(),
                   parentTaskReader,
-                  dataFetcherOutputCollector));
+                  dataFetcherOutputCollector,
+                  pipeReaderPool));
             } else {
               dataFetcherList.add(
                 new ParentTaskDataFetcher(
@@ -319,6 +359,7 @@ public final class TaskExecutor {
 
   /**
    * Execute a task, while handling unrecoverable errors and exceptions.
+   * On every exit path, the transforms that have not been closed are cancelled.
    */
   public void execute() {
     try {
@@ -327,6 +368,8 @@ public final class TaskExecutor {
       // ANY uncaught throwable is reported to the master
       taskStateManager.onTaskStateChanged(TaskState.State.FAILED, Optional.empty(), Optional.empty());
       LOG.error(ExceptionUtils.getStackTrace(throwable));
+    } finally {
+      sortedHarnesses.forEach(this::cancelTransform);
     }
   }
 
@@ -344,37 +387,85 @@ public final class TaskExecutor {
     taskStateManager.onTaskStateChanged(TaskState.State.EXECUTING, Optional.empty(), Optional.empty());
     final long executionStartTime = System.currentTimeMillis();
     metricMessageSender.send(TASK_METRIC_ID, taskId, "schedulingOverhead",
-      SerializationUtils.serialize(executionStartTime - timeSinceLastExecution));
+      executionStartTime - timeSinceLastExecution);
+    final TaskResourceMeter resourceMeter = new TaskResourceMeter();
+    try (MemoryPoolAssigner.PeakMemoryTracker peakMemoryTracker = memoryPoolAssigner.trackPeakInUseBytes()) {
+      if (!consumeAndFinalize()) {
+        return;
+      }
+      sendResourceMetrics(resourceMeter, peakMemoryTracker);
+    }
+
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "taskDuration",
+      System.currentTimeMillis() - executionStartTime);
+    this.timeSinceLastExecution = System.currentTimeMillis();
+    if (idOfVertexPutOnHold == null) {
+      taskStateManager.onTaskStateChanged(TaskState.State.COMPLETE, Optional.empty(), Optional.empty());
+      LOG.info("{} completed", taskId);
+    } else {
+      taskStateManager.onTaskStateChanged(TaskState.State.ON_HOLD,
+        Optional.of(idOfVertexPutOnHold),
+        Optional.empty());
+      LOG.info("{} on hold", taskId);
+    }
+  }
 
+  /**
+   * Consumes the task-external input data, and finalizes the task-internal states and data elements.
+   *
+   * @return false if IOException.
+   */
+  private boolean consumeAndFinalize() {
     // Phase 1: Consume task-external input data.
     if (!handleDataFetchers(dataFetchers)) {
-      return;
+      return false;
     }
 
     metricMessageSender.send(TASK_METRIC_ID, taskId, "boundedSourceReadTime",
-      SerializationUtils.serialize(boundedSourceReadTime));
+      boundedSourceReadTime);
     metricMessageSender.send(TASK_METRIC_ID, taskId, "serializedReadBytes",
-      SerializationUtils.serialize(serializedReadBytes));
+      serializedReadBytes);
     metricMessageSender.send(TASK_METRIC_ID, taskId, "encodedReadBytes",
-      SerializationUtils.serialize(encodedReadBytes));
+      encodedReadBytes);
 
     // Phase 2: Finalize task-internal states and elements
     for (final VertexHarness vertexHarness : sortedHarnesses) {
       finalizeVertex(vertexHarness);
     }
+    return true;
+  }
 
-    metricMessageSender.send(TASK_METRIC_ID, taskId, "taskDuration",
-      SerializationUtils.serialize(System.currentTimeMillis() - executionStartTime));
-    this.timeSinceLastExecution = System.currentTimeMillis();
-    if (idOfVertexPutOnHold == null) {
-      taskStateManager.onTaskStateChanged(TaskState.State.COMPLETE, Optional.empty(), Optional.empty());
-      LOG.info("{} completed", taskId);
-    } else {
-      taskStateManager.onTaskStateChanged(TaskState.State.ON_HOLD,
-        Optional.of(idOfVertexPutOnHold),
-        Optional.empty());
-      LOG.info("{} on hold", taskId);
+  /**
+   * Sends the CPU, memory and shuffle metrics of this task.
+   *
+   * @param resourceMeter     that has measured the resources used by this task.
+   * @param peakMemoryTracker that has tracked the memory that this task acquired from the memory pool.
+   */
+  private void sendResourceMetrics(final TaskResourceMeter resourceMeter,
+                                   final MemoryPoolAssigner.PeakMemoryTracker peakMemoryTracker) {
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "taskCPUTime",
+      resourceMeter.getCpuTimeMs());
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "taskGCTime",
+      resourceMeter.getGcTimeMs());
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "taskAllocatedBytes",
+      resourceMeter.getAllocatedBytes());
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "peakExecutionMemory",
+      peakMemoryTracker.getPeakInUseBytes());
+
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "shuffleReadBytes",
+      serializedReadBytes);
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "shuffleReadTime",
+      shuffleReadTimer.getEstimatedTimeNs() / 1_000_000);
+    long shuffleWriteBytes = 0;
+    long shuffleWriteTimeNs = 0;
+    for (final TimedOutputWriter timedOutputWriter : timedOutputWriters) {
+      shuffleWriteBytes += timedOutputWriter.getWrittenBytes().orElse(0L);
+      shuffleWriteTimeNs += timedOutputWriter.getWriteTimeNs();
     }
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "shuffleWriteBytes",
+      shuffleWriteBytes);
+    metricMessageSender.send(TASK_METRIC_ID, taskId, "shuffleWriteTime",
+      shuffleWriteTimeNs / 1_000_000);
   }
 
   private void finalizeVertex(final VertexHarness vertexHarness) {
@@ -429,23 +520,33 @@ public final class TaskExecutor {
    * It maintains two lists:
    * -- availableFetchers: maintain data fetchers that currently have data elements to retreive
    * -- pendingFetchers: maintain data fetchers that currently do not have available elements.
-   * This can become available in the future, and therefore we check the pending fetchers every pollingInterval.
+   * This can become available in the future.
    * <p>
    * If a data fetcher finishes, we remove it from the two lists.
    * If a data fetcher has no available element, we move the data fetcher to pendingFetchers
    * If a pending data fetcher has element, we move it to availableFetchers
-   * If there are no available fetchers but pending fetchers, sleep for pollingPeriod
-   * and retry fetching data from the pendingFetchers.
+   * <p>
+   * With readiness notification enabled, the data fetchers notify the {@link DataFetcherSelector} of this task
+   * when data lands, and pending fetchers are moved to availableFetchers as soon as they are notified.
+   * If there are no available fetchers, we block on the selector instead of sleeping.
+   * Pending fetchers that do not support readiness notification (and all pending fetchers if readiness notification
+   * is disabled) are moved to availableFetchers every pollingInterval.
+   * If readiness notification is disabled and there are no available fetchers but pending fetchers,
+   * sleep for pollingInterval and retry fetching data from the pendingFetchers.
    *
    * @param fetchers to handle.
    * @return false if IOException.
    */
   private boolean handleDataFetchers(final List<DataFetcher> fetchers) {
     final List<DataFetcher> availableFetchers = new LinkedList<>(fetchers);
-    final List<DataFetcher> pendingFetchers = new LinkedList<>();
+    final Set<DataFetcher> pendingFetchers = new LinkedHashSet<>();
+
+    if (readinessNotificationEnabled) {
+      fetchers.forEach(fetcher -> fetcher.registerSelector(dataFetcherSelector));
+    }
 
     // Polling interval.
-    final long pollingInterval = 100; // ms
+    final long pollingInterval = PENDING_FETCHER_POLLING_INTERVAL_MS;
 
     // Previous polling time
     long prevPollingTime = System.currentTimeMillis();
@@ -458,7 +559,18 @@ public final class TaskExecutor {
       while (availableIterator.hasNext()) {
         final DataFetcher dataFetcher = availableIterator.next();
         try {
-          final Object element = dataFetcher.fetchDataElement();
+          final Object element;
+          if (dataFetcher instanceof SourceVertexDataFetcher) {
+            element = dataFetcher.fetchDataElement();
+          } else {
+            // Time to read the data from the parent tasks
+            final long fetchStartTime = shuffleReadTimer.start();
+            try {
+              element = dataFetcher.fetchDataElement();
+            } finally {
+              shuffleReadTimer.stop(fetchStartTime);
+            }
+          }
           onEventFromDataFetcher(element, dataFetcher);
           if (element instanceof Finishmark) {
             availableIterator.remove();
@@ -477,50 +589,46 @@ public final class TaskExecutor {
         }
       }
 
-      final Iterator<DataFetcher> pendingIterator = pendingFetchers.iterator();
-      final long currentTime = System.currentTimeMillis();
+      if (pendingFetchers.isEmpty()) {
+        continue;
+      }
 
+      try {
+        if (readinessNotificationEnabled) {
+          // Block on the selector only if there is nothing else to do
+          final long timeout = availableFetchers.isEmpty() ? pollingInterval : 0;
+          for (final DataFetcher readyFetcher : dataFetcherSelector.select(timeout)) {
+            // Re-arm the notification before fetching, so that data landing after the fetch is not missed
+            readyFetcher.clearNotification();
+            if (pendingFetchers.remove(readyFetcher)) {
+              availableFetchers.add(readyFetcher);
+            }
+          }
+        } else if (availableFetchers.isEmpty()) {
+          // If there are no available fetchers,
+          // Sleep and retry fetching element from pending fetchers every polling interval
+          TaskThreadPool.sleep(pollingInterval);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        e.printStackTrace();
+        throw new RuntimeException(e);
+      }
 
+      final long currentTime = System.currentTimeMillis();
       if (isPollingTime(pollingInterval, currentTime, prevPollingTime)) {
-        // We check pending data every polling interval
+        // We check pending data that is not notified every polling interval
         prevPollingTime = currentTime;
 
+        final Iterator<DataFetcher> pendingIterator = pendingFetchers.iterator();
         while (pendingIterator.hasNext()) {
           final DataFetcher dataFetcher = pendingIterator.next();
-          try {
-            final Object element = dataFetcher.fetchDataElement();
-            onEventFromDataFetcher(element, dataFetcher);
-
-            // We processed data. This means the data fetcher is now available.
-            // Add current data fetcher to available
+          if (!readinessNotificationEnabled || !dataFetcher.isReadinessNotificationSupported()) {
             pendingIterator.remove();
-            if (!(element instanceof Finishmark)) {
-              availableFetchers.add(dataFetcher);
-            }
-
-          } catch (final NoSuchElementException e) {
-            // The current data fetcher is still pending.. try next data fetcher
-          } catch (final IOException e) {
-            // IOException means that this task should be retried.
-            taskStateManager.onTaskStateChanged(TaskState.State.SHOULD_RETRY,
-              Optional.empty(), Optional.of(TaskState.RecoverableTaskFailureCause.INPUT_READ_FAILURE));
-            LOG.error("{} Execution Failed (Recoverable: input read failure)! Exception: {}", taskId, e);
-            return false;
+            availableFetchers.add(dataFetcher);
           }
         }
       }
-
-      // If there are no available fetchers,
-      // Sleep and retry fetching element from pending fetchers every polling interval
-      if (availableFetchers.isEmpty() && !pendingFetchers.isEmpty()) {
-        try {
-          Thread.sleep(pollingInterval);
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
-          e.printStackTrace();
-          throw new RuntimeException(e);
-        }
-      }
     }
 
     // Close all data fetchers
@@ -550,7 +658,7 @@ public final class TaskExecutor {
       .filter(edge -> edge.getPropertyValue(AdditionalOutputTagProperty.class).isPresent())
       .map(edge ->
         Pair.of(edge.getPropertyValue(AdditionalOutputTagProperty.class).get(),
-          intermediateDataIOFactory.createWriter(taskId, edge)))
+          createTimedWriter(edge, intermediateDataIOFactory)))
       .forEach(pair -> {
         map.putIfAbsent(pair.left(), new ArrayList<>());
         map.get(pair.left()).add(pair.right());
@@ -590,7 +698,8 @@ public final class TaskExecutor {
         final int index = edgeIndexMap.get(edge);
         final OperatorVertex nextOperator = (OperatorVertex) edge.getDst();
         final InputWatermarkManager inputWatermarkManager = operatorWatermarkManagerMap.get(nextOperator);
-        return Pair.of(outputTag, new NextIntraTaskOperatorInfo(index, nextOperator, inputWatermarkManager));
+        return Pair.of(outputTag, new NextIntraTaskOperatorInfo(index, nextOperator, inputWatermarkManager,
+          vertexMetricSampler.getCounters(nextOperator.getId())));
       })
       .forEach(pair -> {
         map.putIfAbsent(pair.left(), new ArrayList<>());
@@ -615,11 +724,24 @@ public final class TaskExecutor {
       .stream()
       .filter(edge -> edge.getSrcIRVertex().getId().equals(irVertex.getId()))
       .filter(edge -> !edge.getPropertyValue(AdditionalOutputTagProperty.class).isPresent())
-      .map(outEdgeForThisVertex -> intermediateDataIOFactory
-        .createWriter(taskId, outEdgeForThisVertex))
+      .map(outEdgeForThisVertex -> createTimedWriter(outEdgeForThisVertex, intermediateDataIOFactory))
       .collect(Collectors.toList());
   }
 
+  /**
+   * Creates an output writer to a child task, which measures the time spent to write the data.
+   *
+   * @param outEdge                   to the child task.
+   * @param intermediateDataIOFactory intermediateDataIOFactory
+   * @return the output writer.
+   */
+  private OutputWriter createTimedWriter(final StageEdge outEdge,
+                                         final IntermediateDataIOFactory intermediateDataIOFactory) {
+    final TimedOutputWriter timedOutputWriter =
+      new TimedOutputWriter(intermediateDataIOFactory.createWriter(taskId, outEdge));
+    timedOutputWriters.add(timedOutputWriter);
+    return timedOutputWriter;
+  }
 
   private Optional<Readable> getSourceVertexReader(final IRVertex irVertex,
                                                    final Map<String, Readable> irVertexIdToReadable) {
@@ -662,6 +784,7 @@ public final class TaskExecutor {
       transform = ((OperatorVertex) irVertex).getTransform();
       transform.close();
     }
+    idsOfClosedVertices.add(irVertex.getId());
 
     vertexHarness.getContext().getSerializedData().ifPresent(data ->
       persistentConnectionToMasterMap.getMessageSender(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID).send(
@@ -673,6 +796,22 @@ public final class TaskExecutor {
           .build()));
   }
 
+  /**
+   * Cancels the transform of the vertex, if the task has not closed it.
+   *
+   * @param vertexHarness the harness of the vertex.
+   */
+  private void cancelTransform(final VertexHarness vertexHarness) {
+    final IRVertex irVertex = vertexHarness.getIRVertex();
+    if (irVertex instanceof OperatorVertex && !idsOfClosedVertices.contains(irVertex.getId())) {
+      try {
+        ((OperatorVertex) irVertex).getTransform().cancel();
+      } catch (final RuntimeException e) {
+        LOG.warn("{} failed to cancel the transform of {}: {}", taskId, irVertex.getId(), e);
+      }
+    }
+  }
+
   ////////////////////////////////////////////// Misc
 
   public void setIRVertexPutOnHold(final IRVertex irVertex) {
@@ -712,6 +851,6 @@ public final class TaskExecutor {
 
     // TODO #236: Decouple metric collection and sending logic
     metricMessageSender.send(TASK_METRIC_ID, taskId, "taskOutputBytes",
-      SerializationUtils.serialize(totalWrittenBytes));
+      totalWrittenBytes);
   }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.task;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the resources that the calling thread uses from its construction:
+ * the CPU time and the heap memory allocated by the thread, and its share of the GC time of the JVM meanwhile.
+ * The GC time is shared by the threads of the JVM, e.g., by the tasks that run concurrently in the executor,
+ * so it is pro-rated by the share of the thread in the heap memory allocated by all the threads meanwhile.
+ * Resources used by the other threads on behalf of the task (e.g., to read pipes) are not measured.
+ */
+final class TaskResourceMeter {
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private final long threadId;
+  private final long startCpuTimeNs;
+  private final long startAllocatedBytes;
+  private final long startGcTimeMs;
+  // The heap memory allocated by each live thread, or null if not supported by the JVM.
+  private final Map<Long, Long> startThreadIdToAllocatedBytes;
+
+  /**
+   * Starts measuring the resources that the calling thread uses.
+   */
+  TaskResourceMeter() {
+    this.threadId = Thread.currentThread().getId();
+    this.startCpuTimeNs = getCurrentThreadCpuTimeNs();
+    this.startAllocatedBytes = getThreadAllocatedBytes(threadId);
+    this.startGcTimeMs = getTotalGcTimeMs();
+    this.startThreadIdToAllocatedBytes = getAllocatedBytesOfLiveThreads();
+  }
+
+  /**
+   * Must be called by the thread that constructed this meter.
+   *
+   * @return the CPU time used by the thread so far, in milliseconds, or -1 if not supported by the JVM.
+   */
+  long getCpuTimeMs() {
+    final long cpuTimeNs = getCurrentThreadCpuTimeNs();
+    return startCpuTimeNs < 0 || cpuTimeNs < 0 ? -1 : (cpuTimeNs - startCpuTimeNs) / 1_000_000;
+  }
+
+  /**
+   * @return the heap memory allocated by the thread so far, in bytes, or -1 if not supported by the JVM.
+   */
+  long getAllocatedBytes() {
+    final long allocatedBytes = getThreadAllocatedBytes(threadId);
+    return startAllocatedBytes < 0 || allocatedBytes < 0 ? -1 : allocatedBytes - startAllocatedBytes;
+  }
+
+  /**
+   * The memory allocated by the threads that terminated meanwhile is not known,
+   * so the share of the thread may be overestimated, up to the whole GC time.
+   * The task threads of an executor are pooled, so they rarely terminate while a task runs.
+   *
+   * @return the share of the thread in the GC time of the JVM so far, in milliseconds,
+   *         or -1 if the allocated memory is not supported by the JVM.
+   */
+  long getGcTimeMs() {
+    final long allocatedBytes = getAllocatedBytes();
+    final Map<Long, Long> threadIdToAllocatedBytes = getAllocatedBytesOfLiveThreads();
+    if (allocatedBytes < 0 || startThreadIdToAllocatedBytes == null || threadIdToAllocatedBytes == null) {
+      return -1;
+    }
+    long totalAllocatedBytes = 0;
+    for (final Map.Entry<Long, Long> entry : threadIdToAllocatedBytes.entrySet()) {
+      totalAllocatedBytes += entry.getValue() - startThreadIdToAllocatedBytes.getOrDefault(entry.getKey(), 0L);
+    }
+    final long gcTimeMs = getTotalGcTimeMs() - startGcTimeMs;
+    if (totalAllocatedBytes <= allocatedBytes) {
+      // The other threads allocated nothing, or terminated meanwhile
+      return allocatedBytes > 0 ? gcTimeMs : 0;
+    }
+    return Math.round(gcTimeMs * ((double) allocatedBytes / totalAllocatedBytes));
+  }
+
+  private static long getCurrentThreadCpuTimeNs() {
+    return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+  }
+
+  private static long getThreadAllocatedBytes(final long threadId) {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+        return threadMXBean.getThreadAllocatedBytes(threadId);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the heap memory allocated by each live thread so far, in bytes, or null if not supported by the JVM.
+   */
+  private static Map<Long, Long> getAllocatedBytesOfLiveThreads() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+        final long[] threadIds = threadMXBean.getAllThreadIds();
+        final long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+        final Map<Long, Long> threadIdToAllocatedBytes = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+          // negative if the thread is not alive anymore
+          if (allocatedBytes[i] >= 0) {
+            threadIdToAllocatedBytes.put(threadIds[i], allocatedBytes[i]);
+          }
+        }
+        return threadIdToAllocatedBytes;
+      }
+    }
+    return null;
+  }
+
+  private static long getTotalGcTimeMs() {
+    long gcTimeMs = 0;
+    for (final GarbageCollectorMXBean gcMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      // negative if not available
+      gcTimeMs += Math.max(0, gcMXBean.getCollectionTime());
+    }
+    return gcTimeMs;
+  }
+}
@@ -19,10 +19,12 @@
 package org.apache.nemo.runtime.executor.transfer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +40,11 @@ import java.util.concurrent.CompletableFuture;
  * {@link #onContextClose()}, are not thread-safe, since they are called by a single Netty event loop.</p>
  * <p>Public methods are thread safe,
  * although the execution order may not be linearized if they were called from different threads.</p>
+ *
+ * <h3>Flow control:</h3>
+ * <p>If the context is flow-controlled, the sender may send up to a credit window of bytes in advance.
+ * As the bytes are consumed from the input streams, this context grants the consumed bytes back to the sender
+ * as credits, in units of half the window.</p>
  */
 public final class ByteInputContext extends ByteTransferContext {
 
@@ -46,6 +53,18 @@ public final class ByteInputContext extends ByteTransferContext {
   private final CompletableFuture<Iterator<InputStream>> completedFuture = new CompletableFuture<>();
   private final ClosableBlockingQueue<ByteBufInputStream> byteBufInputStreams = new ClosableBlockingQueue<>();
   private final AtomicReference<ByteBufInputStream> currentByteBufInputStream = new AtomicReference<>();
+  private final Channel channel;
+
+  // Flow control
+  private final long creditGrantThreshold;
+  private final AtomicLong queuedBytes = new AtomicLong(0);
+  private final AtomicLong consumedBytesToGrant = new AtomicLong(0);
+  @Nullable
+  private final PipeFlowControlMetrics.EdgeStatistics edgeStatistics;
+
+  // Notified when data arrives or the context gets closed
+  @Nullable
+  private volatile Runnable dataAvailableListener = null;
 
   private final Iterator<InputStream> inputStreams = new Iterator<InputStream>() {
     @Override
@@ -83,6 +102,32 @@ public final class ByteInputContext extends ByteTransferContext {
                    final byte[] contextDescriptor,
                    final ContextManager contextManager) {
     super(remoteExecutorId, contextId, contextDescriptor, contextManager);
+    this.channel = contextManager.getChannel();
+    final long creditWindowBytes = contextManager.getCreditWindowBytes(contextId);
+    this.creditGrantThreshold = creditWindowBytes == 0 ? 0 : Math.max(1, creditWindowBytes / 2);
+    this.edgeStatistics = contextManager.getEdgeStatistics(contextId, contextDescriptor);
+  }
+
+  /**
+   * @return the number of bytes that have been received but not consumed yet.
+   */
+  public long getQueuedBytes() {
+    return queuedBytes.get();
+  }
+
+  /**
+   * @return whether the input streams have bytes to read, or the context has been closed,
+   * so that reading from the input streams does not wait for more data to arrive.
+   */
+  public boolean isDataAvailable() {
+    return queuedBytes.get() > 0 || completedFuture.isDone();
+  }
+
+  /**
+   * @param listener to notify when data arrives or this context gets closed. It is called by a Netty event loop.
+   */
+  public void setDataAvailableListener(final Runnable listener) {
+    this.dataAvailableListener = listener;
   }
 
   /**
@@ -125,7 +170,9 @@ public final class ByteInputContext extends ByteTransferContext {
       throw new RuntimeException("Cannot accept ByteBuf: No sub-stream is opened.");
     }
     if (byteBuf.readableBytes() > 0) {
+      addQueuedBytes(byteBuf.readableBytes());
       currentByteBufInputStream.get().byteBufQueue.put(byteBuf);
+      notifyDataAvailable();
     } else {
       // ignore empty data frames
       byteBuf.release();
@@ -142,6 +189,7 @@ public final class ByteInputContext extends ByteTransferContext {
     byteBufInputStreams.close();
     completedFuture.complete(inputStreams);
     deregister();
+    notifyDataAvailable();
   }
 
   @Override
@@ -154,14 +202,62 @@ public final class ByteInputContext extends ByteTransferContext {
     byteBufInputStreams.closeExceptionally(cause);
     completedFuture.completeExceptionally(cause);
     deregister();
+    // the remaining bytes will never be consumed
+    addQueuedBytes(-queuedBytes.get());
+    notifyDataAvailable();
+  }
+
+  private void notifyDataAvailable() {
+    final Runnable listener = dataAvailableListener;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /**
+   * @param delta the change in the number of received but not consumed bytes.
+   */
+  private void addQueuedBytes(final long delta) {
+    queuedBytes.addAndGet(delta);
+    if (edgeStatistics != null) {
+      edgeStatistics.addQueuedBytes(delta);
+    }
+  }
+
+  /**
+   * Called when bytes are consumed from the input streams.
+   * Grants the consumed bytes back to the sender, once they amount to the grant threshold.
+   *
+   * @param numBytes the number of consumed bytes.
+   */
+  private void onBytesConsumed(final long numBytes) {
+    if (numBytes <= 0) {
+      return;
+    }
+    addQueuedBytes(-numBytes);
+    if (creditGrantThreshold == 0 || hasException()) {
+      return;
+    }
+    final long toGrant = consumedBytesToGrant.addAndGet(numBytes);
+    if (toGrant >= creditGrantThreshold && consumedBytesToGrant.compareAndSet(toGrant, 0)) {
+      long remaining = toGrant;
+      while (remaining > 0) {
+        final long credits = Math.min(remaining, DataFrameEncoder.LENGTH_MAX);
+        channel.writeAndFlush(DataFrameEncoder.DataFrame.newCreditInstance(getContextId(), credits))
+          .addListener(getChannelWriteListener());
+        remaining -= credits;
+      }
+    }
   }
 
   /**
    * An {@link InputStream} implementation that reads data from a composition of {@link ByteBuf}s.
    */
-  private static final class ByteBufInputStream extends InputStream {
+  private final class ByteBufInputStream extends InputStream {
 
     private final ClosableBlockingQueue<ByteBuf> byteBufQueue = new ClosableBlockingQueue<>();
+    // The bytes consumed by read() but not reported yet, accessed only by the reading thread
+    private long unreportedConsumedBytes = 0;
 
     @Override
     public int read() throws IOException {
@@ -172,10 +268,13 @@ public final class ByteInputContext extends ByteTransferContext {
           return -1;
         }
         final int b = head.readUnsignedByte();
+        unreportedConsumedBytes++;
         if (head.readableBytes() == 0) {
           // remove and release header if no longer required
           byteBufQueue.take();
           head.release();
+          // report the consumption per buffer rather than per byte
+          reportConsumedBytes(0);
         }
         return b;
       } catch (final InterruptedException e) {
@@ -201,6 +300,7 @@ public final class ByteInputContext extends ByteTransferContext {
           final ByteBuf head = byteBufQueue.peek();
           if (head == null) {
             // end of stream event
+            reportConsumedBytes(readBytes);
             return readBytes == 0 ? -1 : readBytes;
           }
           final int toRead = Math.min(head.readableBytes(), capacity);
@@ -212,6 +312,7 @@ public final class ByteInputContext extends ByteTransferContext {
           readBytes += toRead;
           capacity -= toRead;
         }
+        reportConsumedBytes(readBytes);
         return readBytes;
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
@@ -233,11 +334,13 @@ public final class ByteInputContext extends ByteTransferContext {
           final ByteBuf head = byteBufQueue.peek();
           if (head == null) {
             // end of stream event
+            reportConsumedBytes(skippedBytes);
             return skippedBytes;
           }
           if (head.readableBytes() > toSkip) {
             head.skipBytes((int) toSkip);
             skippedBytes += toSkip;
+            reportConsumedBytes(skippedBytes);
             return skippedBytes;
           } else {
             // discard the whole ByteBuf
@@ -247,6 +350,7 @@ public final class ByteInputContext extends ByteTransferContext {
             head.release();
           }
         }
+        reportConsumedBytes(skippedBytes);
         return skippedBytes;
       } catch (final InterruptedException e) {
         Thread.currentThread().interrupt();
@@ -254,6 +358,18 @@ public final class ByteInputContext extends ByteTransferContext {
       }
     }
 
+    /**
+     * Reports the bytes consumed by a bulk read or skip, together with the bytes consumed by {@link #read()}
+     * but not reported yet.
+     *
+     * @param numBytes the number of bytes consumed by a bulk read or skip.
+     */
+    private void reportConsumedBytes(final long numBytes) {
+      final long toReport = unreportedConsumedBytes + numBytes;
+      unreportedConsumedBytes = 0;
+      onBytesConsumed(toReport);
+    }
+
     @Override
     public int available() throws IOException {
       try {
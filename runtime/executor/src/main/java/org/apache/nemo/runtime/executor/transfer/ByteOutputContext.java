@@ -36,7 +36,11 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -48,6 +52,13 @@ import static io.netty.buffer.Unpooled.wrappedBuffer;
  *
  * <p>Public methods are thread safe,
  * although the execution order may not be linearized if they were called from different threads.</p>
+ *
+ * <h3>Flow control:</h3>
+ * <p>If the context is flow-controlled, a data frame is sent only while the context has positive credits,
+ * which are granted by the receiver as it consumes the bytes. A writer blocks until credits become available,
+ * unless it runs on the event loop of the channel, which must never block since it delivers the credits.
+ * Since a frame is sent as a whole once any credit is available, the receiver buffers at most the credit window
+ * plus one frame.</p>
  */
 public class ByteOutputContext extends ByteTransferContext implements OutputContext {
   private static final Logger LOG = LoggerFactory.getLogger(ByteOutputContext.class.getName());
@@ -57,6 +68,14 @@ public class ByteOutputContext extends ByteTransferContext implements OutputCont
   private final AtomicReference<ByteOutputStream> currentByteOutputStream = new AtomicReference<>();
   private volatile boolean closed = false;
 
+  // Flow control
+  private final boolean flowControlled;
+  private final Lock creditLock = new ReentrantLock();
+  private final Condition creditAvailable = creditLock.newCondition();
+  private long credits; // guarded by creditLock
+  @Nullable
+  private final PipeFlowControlMetrics.EdgeStatistics edgeStatistics;
+
   /**
    * Creates a output context.
    *
@@ -71,6 +90,24 @@ public class ByteOutputContext extends ByteTransferContext implements OutputCont
                     final ContextManager contextManager) {
     super(remoteExecutorId, contextId, contextDescriptor, contextManager);
     this.channel = contextManager.getChannel();
+    this.credits = contextManager.getCreditWindowBytes(contextId);
+    this.flowControlled = credits > 0;
+    this.edgeStatistics = contextManager.getEdgeStatistics(contextId, contextDescriptor);
+    if (edgeStatistics != null) {
+      edgeStatistics.addAvailableCredits(credits);
+    }
+  }
+
+  /**
+   * @return the number of bytes this context may send without waiting for credits.
+   */
+  public final long getAvailableCredits() {
+    creditLock.lock();
+    try {
+      return credits;
+    } finally {
+      creditLock.unlock();
+    }
   }
 
   /**
@@ -91,6 +128,17 @@ public class ByteOutputContext extends ByteTransferContext implements OutputCont
     return currentByteOutputStream.get();
   }
 
+  /**
+   * Creates a {@link BatchingOutputStream}, which sends the encoded elements in batches.
+   *
+   * @param maxBatchBytes the number of encoded bytes that triggers sending the pending batch.
+   * @param lingerMs      the maximum time an element may wait in the pending batch, in milliseconds.
+   * @return new {@link BatchingOutputStream}
+   */
+  public final BatchingOutputStream newBatchingOutputStream(final int maxBatchBytes, final long lingerMs) {
+    return new BatchingOutputStream(maxBatchBytes, lingerMs);
+  }
+
   /**
    * Closes this stream.
    * @throws IOException if an exception was set
@@ -107,12 +155,88 @@ public class ByteOutputContext extends ByteTransferContext implements OutputCont
       .addListener(getChannelWriteListener());
     deregister();
     closed = true;
+    releaseCredits();
   }
 
   @Override
   public final void onChannelError(@Nullable final Throwable cause) {
     setChannelError(cause);
     channel.close();
+    releaseCredits();
+  }
+
+  /**
+   * Called when the receiver grants credits.
+   *
+   * @param numCredits the number of bytes this context is additionally allowed to send.
+   */
+  final void onCredit(final long numCredits) {
+    creditLock.lock();
+    try {
+      if (closed || hasException()) {
+        return;
+      }
+      credits += numCredits;
+      if (edgeStatistics != null) {
+        edgeStatistics.addAvailableCredits(numCredits);
+      }
+      creditAvailable.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  /**
+   * Waits for credits to become available, and consumes the credits for a data frame.
+   *
+   * @param length the length of the body of the data frame, in bytes
+   * @throws IOException when an exception has been set or interrupted while waiting for credits
+   */
+  private void acquireCredits(final long length) throws IOException {
+    if (!flowControlled || length == 0) {
+      return;
+    }
+    creditLock.lock();
+    try {
+      if (credits <= 0 && !channel.eventLoop().inEventLoop()) {
+        final long stallStartNanos = System.nanoTime();
+        while (credits <= 0 && !hasException()) {
+          creditAvailable.await();
+        }
+        if (edgeStatistics != null) {
+          edgeStatistics.onSenderStall(System.nanoTime() - stallStartNanos);
+        }
+      }
+      ensureNoException();
+      credits -= length;
+      if (edgeStatistics != null) {
+        edgeStatistics.addAvailableCredits(-length);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  /**
+   * Wakes up the writers waiting for credits, and removes the credits of this context from the statistics.
+   */
+  private void releaseCredits() {
+    if (!flowControlled) {
+      return;
+    }
+    creditLock.lock();
+    try {
+      if (edgeStatistics != null) {
+        edgeStatistics.addAvailableCredits(-credits);
+      }
+      credits = 0;
+      creditAvailable.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
   }
 
   /**
@@ -128,6 +252,158 @@ public class ByteOutputContext extends ByteTransferContext implements OutputCont
     }
   }
 
+  /**
+   * A {@link TransferOutputStream} which encodes elements into a pooled {@link ByteBuf}, and sends the accumulated
+   * elements as a single data frame on a new sub-stream, once the batch reaches the byte bound or
+   * the linger time of its first element elapses.
+   * Since a receiver decodes elements from each sub-stream until its end, no receiver-side change is required.
+   *
+   * <p>Public methods are thread safe. The linger timeout is handled by the event loop of the channel, which never
+   * waits for a writer that holds the stream (e.g., one waiting for credits), but retries after another linger
+   * time.</p>
+   */
+  public final class BatchingOutputStream implements TransferOutputStream {
+    private final int maxBatchBytes;
+    private final long lingerMs;
+    private final Lock lock = new ReentrantLock();
+
+    // The pending batch, guarded by lock
+    private ByteBuf batch = null;
+    private OutputStream batchStream = null;
+    private EncoderFactory.Encoder batchEncoder = null;
+    private long batchIndex = 0;
+    private boolean closed = false;
+
+    /**
+     * @param maxBatchBytes the number of encoded bytes that triggers sending the pending batch.
+     * @param lingerMs      the maximum time an element may wait in the pending batch, in milliseconds.
+     */
+    private BatchingOutputStream(final int maxBatchBytes, final long lingerMs) {
+      this.maxBatchBytes = maxBatchBytes;
+      this.lingerMs = lingerMs;
+    }
+
+    /**
+     * Encodes an element into the pending batch.
+     *
+     * @param element    element
+     * @param serializer serializer
+     */
+    @Override
+    public void writeElement(final Object element,
+                             final Serializer serializer) {
+      lock.lock();
+      try {
+        if (batch == null) {
+          openBatch(serializer);
+        }
+        batchEncoder.encode(element);
+        if (batch.readableBytes() >= maxBatchBytes) {
+          flush();
+        }
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Sends the pending batch, if any.
+     *
+     * @throws IOException when an exception has been set or this context was closed
+     */
+    public void flush() throws IOException {
+      lock.lock();
+      try {
+        if (batch == null) {
+          return;
+        }
+        // Closing the chained stream finishes the encoding (e.g., compression) of the batch
+        batchStream.close();
+        final ByteBuf toSend = batch;
+        batch = null;
+        batchStream = null;
+        batchEncoder = null;
+        batchIndex++;
+
+        if (toSend.readableBytes() == 0) {
+          toSend.release();
+          return;
+        }
+        try (ByteOutputStream subStream = newOutputStream()) {
+          subStream.writeByteBuf(toSend, Collections.emptyList());
+        } catch (final IOException e) {
+          // The buffer has not been handed over to the channel
+          toSend.release();
+          throw e;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      lock.lock();
+      try {
+        if (closed) {
+          return;
+        }
+        flush();
+        closed = true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Starts a new batch, and schedules the linger timeout of the batch.
+     *
+     * @param serializer serializer
+     * @throws IOException when this stream was closed, or fails to build the encoding stream
+     */
+    private void openBatch(final Serializer serializer) throws IOException {
+      if (closed) {
+        throw new IOException("Stream already closed.");
+      }
+      batch = channel.alloc().ioBuffer(maxBatchBytes);
+      batchStream = DataUtil.buildOutputStream(new ByteBufOutputStream(batch), serializer.getEncodeStreamChainers());
+      batchEncoder = serializer.getEncoderFactory().create(batchStream);
+      scheduleLingerTimeout(batchIndex);
+    }
+
+    /**
+     * @param scheduledBatchIndex the index of the batch to send on the linger timeout.
+     */
+    private void scheduleLingerTimeout(final long scheduledBatchIndex) {
+      channel.eventLoop().schedule(() -> onLingerTimeout(scheduledBatchIndex), lingerMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the batch for which the linger timeout was scheduled, unless it has already been sent.
+     *
+     * @param scheduledBatchIndex the index of the batch.
+     */
+    private void onLingerTimeout(final long scheduledBatchIndex) {
+      if (!lock.tryLock()) {
+        // A writer holds this stream. Do not block the event loop, which may be delivering the credits it waits for.
+        scheduleLingerTimeout(scheduledBatchIndex);
+        return;
+      }
+      try {
+        if (scheduledBatchIndex != batchIndex || closed) {
+          return;
+        }
+        flush();
+      } catch (final IOException e) {
+        LOG.error("Failed to send a batch on linger timeout", e);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
   /**
    * An {@link OutputStream} implementation which buffers data to {@link ByteBuf}s.
    *
@@ -256,6 +532,7 @@ public class ByteOutputContext extends ByteTransferContext implements OutputCont
       if (closed) {
         throw new IOException("Stream already closed.");
       }
+      acquireCredits(length);
       final ChannelFuture beforeAddingGivenListener = channel
         .writeAndFlush(DataFrameEncoder.DataFrame.newInstance(getContextId(), body, length, newSubStream))
         .addListener(getChannelWriteListener());
@@ -40,6 +40,8 @@ import javax.inject.Inject;
  *   => | FrameDecoder | =|
  *      +--------------+  |
  *                        += Data ==== (ContextManager) ==> Add data to an existing ByteInputContext
+ *                        |
+ *                        += Credit == (ContextManager) ==> Add credits to an existing ByteOutputContext
  * }
  * </pre>
  *
@@ -55,6 +57,9 @@ import javax.inject.Inject;
  *      +------------------+
  *   <= | DataFrameEncoder | <== FileRegion === A FileArea added to ByteOutputStream
  *      +------------------+
+ *      +------------------+
+ *   <= | DataFrameEncoder | <=== Credits ====== Consuming bytes from a pipe ByteInputContext
+ *      +------------------+
  * }
  * </pre>
  */
@@ -66,18 +71,22 @@ final class ByteTransportChannelInitializer extends ChannelInitializer<SocketCha
   private final InjectionFuture<ByteTransport> byteTransport;
   private final ControlFrameEncoder controlFrameEncoder;
   private final DataFrameEncoder dataFrameEncoder;
+  private final PipeFlowControlMetrics pipeFlowControlMetrics;
   private final String localExecutorId;
+  private final long pipeCreditWindowBytes;
 
   /**
    * Creates a netty channel initializer.
    *
-   * @param pipeManagerWorker   provides handler for new contexts by remote executors
-   * @param blockManagerWorker  provides handler for new contexts by remote executors
-   * @param byteTransfer        provides channel caching
-   * @param byteTransport       provides {@link io.netty.channel.group.ChannelGroup}
-   * @param controlFrameEncoder encodes control frames
-   * @param dataFrameEncoder    encodes data frames
-   * @param localExecutorId     the id of this executor
+   * @param pipeManagerWorker      provides handler for new contexts by remote executors
+   * @param blockManagerWorker     provides handler for new contexts by remote executors
+   * @param byteTransfer           provides channel caching
+   * @param byteTransport          provides {@link io.netty.channel.group.ChannelGroup}
+   * @param controlFrameEncoder    encodes control frames
+   * @param dataFrameEncoder       encodes data frames
+   * @param pipeFlowControlMetrics collects flow control statistics of pipes
+   * @param localExecutorId        the id of this executor
+   * @param pipeCreditWindowKb     the credit window of a pipe transfer context, in KB
    */
   @Inject
   private ByteTransportChannelInitializer(final InjectionFuture<PipeManagerWorker> pipeManagerWorker,
@@ -86,20 +95,25 @@ final class ByteTransportChannelInitializer extends ChannelInitializer<SocketCha
                                           final InjectionFuture<ByteTransport> byteTransport,
                                           final ControlFrameEncoder controlFrameEncoder,
                                           final DataFrameEncoder dataFrameEncoder,
-                                          @Parameter(JobConf.ExecutorId.class) final String localExecutorId) {
+                                          final PipeFlowControlMetrics pipeFlowControlMetrics,
+                                          @Parameter(JobConf.ExecutorId.class) final String localExecutorId,
+                                          @Parameter(JobConf.PipeCreditWindowKb.class) final int pipeCreditWindowKb) {
     this.pipeManagerWorker = pipeManagerWorker;
     this.blockManagerWorker = blockManagerWorker;
     this.byteTransfer = byteTransfer;
     this.byteTransport = byteTransport;
     this.controlFrameEncoder = controlFrameEncoder;
     this.dataFrameEncoder = dataFrameEncoder;
+    this.pipeFlowControlMetrics = pipeFlowControlMetrics;
     this.localExecutorId = localExecutorId;
+    this.pipeCreditWindowBytes = pipeCreditWindowKb * 1024L;
   }
 
   @Override
   protected void initChannel(final SocketChannel ch) {
     final ContextManager contextManager = new ContextManager(pipeManagerWorker.get(), blockManagerWorker.get(),
-      byteTransfer.get(), byteTransport.get().getChannelGroup(), localExecutorId, ch);
+      byteTransfer.get(), byteTransport.get().getChannelGroup(), localExecutorId, ch,
+      pipeCreditWindowBytes, pipeFlowControlMetrics);
     ch.pipeline()
       // inbound
       .addLast(new FrameDecoder(contextManager))
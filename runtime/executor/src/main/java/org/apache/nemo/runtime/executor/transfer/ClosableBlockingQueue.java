@@ -22,6 +22,7 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A blocking queue implementation which is capable of closing.
@@ -34,6 +35,21 @@ public final class ClosableBlockingQueue<T> implements AutoCloseable {
   private final Queue<T> queue;
   private volatile boolean closed = false;
   private volatile Throwable throwable = null; // intentionally volatilize the reference
+  private final ForkJoinPool.ManagedBlocker arrivalBlocker = new ForkJoinPool.ManagedBlocker() {
+    @Override
+    public boolean block() throws InterruptedException {
+      // called while holding the lock of the queue
+      while (!isReleasable()) {
+        ClosableBlockingQueue.this.wait();
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return !queue.isEmpty() || closed;
+    }
+  };
 
   /**
    * Creates a closable blocking queue.
@@ -96,9 +112,8 @@ public final class ClosableBlockingQueue<T> implements AutoCloseable {
    */
   @Nullable
   public synchronized T take() throws InterruptedException {
-    while (queue.isEmpty() && !closed) {
-      wait();
-    }
+    // let the pool of block tasks run another thread while waiting
+    ForkJoinPool.managedBlock(arrivalBlocker);
 
     // This should come after wait(), to be always checked on close
     if (throwable != null) {
@@ -117,9 +132,8 @@ public final class ClosableBlockingQueue<T> implements AutoCloseable {
    */
   @Nullable
   public synchronized T peek() throws InterruptedException {
-    while (queue.isEmpty() && !closed) {
-      wait();
-    }
+    // let the pool of block tasks run another thread while waiting
+    ForkJoinPool.managedBlock(arrivalBlocker);
 
     // This should come after wait(), to be always checked on close
     if (throwable != null) {
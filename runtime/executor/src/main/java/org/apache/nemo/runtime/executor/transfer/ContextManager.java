@@ -18,16 +18,19 @@
  */
 package org.apache.nemo.runtime.executor.transfer;
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.group.ChannelGroup;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferContextSetupMessage;
 import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferDataDirection;
 import org.apache.nemo.runtime.executor.transfer.ByteTransferContext.ContextId;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import org.apache.nemo.runtime.executor.data.PipeManagerWorker;
 
+import javax.annotation.Nullable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -44,6 +47,8 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
   private final ChannelGroup channelGroup;
   private final String localExecutorId;
   private final Channel channel;
+  private final long pipeCreditWindowBytes;
+  private final PipeFlowControlMetrics pipeFlowControlMetrics;
   private volatile String remoteExecutorId = null;
 
   private final ConcurrentMap<Integer, ByteInputContext> inputContextsInitiatedByLocal = new ConcurrentHashMap<>();
@@ -56,25 +61,31 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
   /**
    * Creates context manager for this channel.
    *
-   * @param pipeManagerWorker  provides handler for new contexts by remote executors
-   * @param blockManagerWorker provides handler for new contexts by remote executors
-   * @param byteTransfer       provides channel caching
-   * @param channelGroup       to cleanup this channel when closing {@link ByteTransport}
-   * @param localExecutorId    local executor id
-   * @param channel            the {@link Channel} to manage
+   * @param pipeManagerWorker      provides handler for new contexts by remote executors
+   * @param blockManagerWorker     provides handler for new contexts by remote executors
+   * @param byteTransfer           provides channel caching
+   * @param channelGroup           to cleanup this channel when closing {@link ByteTransport}
+   * @param localExecutorId        local executor id
+   * @param channel                the {@link Channel} to manage
+   * @param pipeCreditWindowBytes  the credit window of a pipe context in bytes, or 0 to disable flow control
+   * @param pipeFlowControlMetrics collects flow control statistics of pipes
    */
   ContextManager(final PipeManagerWorker pipeManagerWorker,
                  final BlockManagerWorker blockManagerWorker,
                  final ByteTransfer byteTransfer,
                  final ChannelGroup channelGroup,
                  final String localExecutorId,
-                 final Channel channel) {
+                 final Channel channel,
+                 final long pipeCreditWindowBytes,
+                 final PipeFlowControlMetrics pipeFlowControlMetrics) {
     this.pipeManagerWorker = pipeManagerWorker;
     this.blockManagerWorker = blockManagerWorker;
     this.byteTransfer = byteTransfer;
     this.channelGroup = channelGroup;
     this.localExecutorId = localExecutorId;
     this.channel = channel;
+    this.pipeCreditWindowBytes = pipeCreditWindowBytes;
+    this.pipeFlowControlMetrics = pipeFlowControlMetrics;
   }
 
   /**
@@ -99,6 +110,57 @@ final class ContextManager extends SimpleChannelInboundHandler<ByteTransferConte
     return contexts.get(transferIndex);
   }
 
+  /**
+   * Returns {@link ByteOutputContext} to add credits to.
+   *
+   * @param dataDirection the data direction
+   * @param transferIndex transfer index
+   * @return the {@link ByteOutputContext} corresponding to the pair of {@code dataDirection} and {@code transferIndex},
+   * or {@code null} if the context has already expired
+   */
+  ByteOutputContext getOutputContext(final ByteTransferDataDirection dataDirection,
+                                     final int transferIndex) {
+    final ConcurrentMap<Integer, ByteOutputContext> contexts =
+      dataDirection == ByteTransferDataDirection.INITIATOR_SENDS_DATA
+        ? outputContextsInitiatedByLocal : outputContextsInitiatedByRemote;
+    return contexts.get(transferIndex);
+  }
+
+  /**
+   * Returns the credit window of a context, namely the number of bytes the sender may send before
+   * the receiver consumes them.
+   * Only pipes are flow-controlled. A block is read by its receiver one after another, while its sender serves
+   * the block from a bounded thread pool, so stalling block senders could starve the block being read.
+   *
+   * @param contextId the context id
+   * @return the credit window in bytes, or 0 if the context is not flow-controlled
+   */
+  long getCreditWindowBytes(final ContextId contextId) {
+    return contextId.isPipe() ? pipeCreditWindowBytes : 0;
+  }
+
+  /**
+   * Returns the flow control statistics of the runtime edge a context transfers.
+   *
+   * @param contextId         the context id
+   * @param contextDescriptor the context descriptor
+   * @return the statistics, or {@code null} if the context is not flow-controlled
+   */
+  @Nullable
+  PipeFlowControlMetrics.EdgeStatistics getEdgeStatistics(final ContextId contextId,
+                                                          final byte[] contextDescriptor) {
+    if (getCreditWindowBytes(contextId) == 0) {
+      return null;
+    }
+    try {
+      final String runtimeEdgeId =
+        ControlMessage.PipeTransferContextDescriptor.PARSER.parseFrom(contextDescriptor).getRuntimeEdgeId();
+      return pipeFlowControlMetrics.getEdgeStatistics(runtimeEdgeId);
+    } catch (final InvalidProtocolBufferException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Responds to new transfer contexts by a remote executor.
    *
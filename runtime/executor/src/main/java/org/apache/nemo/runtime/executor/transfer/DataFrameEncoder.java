@@ -30,7 +30,7 @@ import javax.inject.Inject;
 import java.util.List;
 
 /**
- * Encodes a data frame into bytes.
+ * Encodes a data frame, or a credit frame which grants credits to the sender of a context, into bytes.
  *
  * @see FrameDecoder
  */
@@ -53,7 +53,11 @@ final class DataFrameEncoder extends MessageToMessageEncoder<DataFrameEncoder.Da
     // encode header
     final ByteBuf header = ctx.alloc().ioBuffer(HEADER_LENGTH, HEADER_LENGTH);
     byte flags = (byte) 0;
-    flags |= (byte) (1 << 3);
+    if (in.grantsCredit) {
+      flags |= (byte) (1 << 4);
+    } else {
+      flags |= (byte) (1 << 3);
+    }
     if (in.contextId.getDataDirection() == ControlMessage.ByteTransferDataDirection.INITIATOR_RECEIVES_DATA) {
       flags |= (byte) (1 << 2);
     }
@@ -110,6 +114,7 @@ final class DataFrameEncoder extends MessageToMessageEncoder<DataFrameEncoder.Da
     private long length;
     private boolean opensSubStream;
     private boolean closesContext;
+    private boolean grantsCredit;
 
     /**
      * Creates a {@link DataFrame} to supply content to sub-stream.
@@ -130,6 +135,7 @@ final class DataFrameEncoder extends MessageToMessageEncoder<DataFrameEncoder.Da
       dataFrame.length = length;
       dataFrame.opensSubStream = opensSubStream;
       dataFrame.closesContext = false;
+      dataFrame.grantsCredit = false;
       return dataFrame;
     }
 
@@ -146,6 +152,27 @@ final class DataFrameEncoder extends MessageToMessageEncoder<DataFrameEncoder.Da
       dataFrame.length = 0;
       dataFrame.opensSubStream = false;
       dataFrame.closesContext = true;
+      dataFrame.grantsCredit = false;
+      return dataFrame;
+    }
+
+    /**
+     * Creates a credit frame, which allows the sender of the context to send more bytes.
+     * A credit frame has no body, and carries the number of credits in its length field.
+     *
+     * @param contextId the context id
+     * @param credits   the number of bytes the sender is additionally allowed to send
+     * @return the {@link DataFrame} object
+     */
+    static DataFrame newCreditInstance(final ByteTransferContext.ContextId contextId,
+                                       final long credits) {
+      final DataFrame dataFrame = RECYCLER.get();
+      dataFrame.contextId = contextId;
+      dataFrame.body = null;
+      dataFrame.length = credits;
+      dataFrame.opensSubStream = false;
+      dataFrame.closesContext = false;
+      dataFrame.grantsCredit = true;
       return dataFrame;
     }
 
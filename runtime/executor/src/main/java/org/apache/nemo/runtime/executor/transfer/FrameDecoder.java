@@ -25,6 +25,9 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferContextSetupMessage;
 import org.apache.nemo.runtime.common.comm.ControlMessage.ByteTransferDataDirection;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.List;
 
 /**
@@ -33,10 +36,11 @@ import java.util.List;
  * <p>
  * More specifically,
  * <ul>
- * <li>Recognizes the type of the frame, namely control or data.</li>
+ * <li>Recognizes the type of the frame, namely control, data or credit.</li>
  * <li>If the received bytes are a part of a control frame, waits until the full content of the frame becomes
  * available and decode the frame to emit a control frame object.</li>
  * <li>If the received bytes consists a data frame, supply the data to the corresponding {@link ByteInputContext}.
+ * <li>If the received bytes consists a credit frame, supply the credits to the corresponding {@link ByteOutputContext}.
  * </ul>
  *
  * <h3>Control frame specification:</h3>
@@ -61,10 +65,22 @@ import java.util.List;
  * }
  * </pre>
  *
+ * <h3>Credit frame specification:</h3>
+ * <pre>
+ * {@literal
+ *   <------------------------------- HEADER -----------------------------> (No BODY)
+ *   +-------+-------+-------+-------------------+-------+-------------+---------+
+ *   | Zeros |   1   |   0   | DataDirectionFlag | Zeros | TransferIdx | Credits |
+ *   | 3 bit | 1 bit | 1 bit |       1 bit       | 2 bit |   4 bytes   | 4 bytes |
+ *   +-------+-------+-------+-------------------+-------+-------------+---------+
+ * }
+ * </pre>
+ *
  * @see ByteTransportChannelInitializer
  */
 final class FrameDecoder extends ByteToMessageDecoder {
 
+  private static final Logger LOG = LoggerFactory.getLogger(FrameDecoder.class.getName());
   private static final int HEADER_LENGTH = 9;
 
   private final ContextManager contextManager;
@@ -134,7 +150,10 @@ final class FrameDecoder extends ByteToMessageDecoder {
     if (length < 0) {
       throw new IllegalStateException(String.format("Frame length is negative: %d", length));
     }
-    if ((flags & ((byte) (1 << 3))) == 0) {
+    if ((flags & ((byte) (1 << 4))) != 0) {
+      // a credit frame has no body
+      onCreditFrame(ctx, flags, transferIndex, length);
+    } else if ((flags & ((byte) (1 << 3))) == 0) {
       // setup context for reading control frame body
       controlBodyBytesToRead = length;
     } else {
@@ -160,6 +179,30 @@ final class FrameDecoder extends ByteToMessageDecoder {
     return true;
   }
 
+  /**
+   * Supply credits to an existing {@link ByteOutputContext}.
+   *
+   * @param ctx           the channel handler context
+   * @param flags         the flags of the frame
+   * @param transferIndex the transfer index
+   * @param credits       the number of credits granted by the receiver
+   */
+  private void onCreditFrame(final ChannelHandlerContext ctx,
+                             final byte flags,
+                             final int transferIndex,
+                             final long credits) {
+    final ByteTransferDataDirection dataDirection = (flags & ((byte) (1 << 2))) == 0
+      ? ByteTransferDataDirection.INITIATOR_SENDS_DATA : ByteTransferDataDirection.INITIATOR_RECEIVES_DATA;
+    final ByteOutputContext outputContext = contextManager.getOutputContext(dataDirection, transferIndex);
+    if (outputContext == null) {
+      // the sender has already closed the context
+      LOG.debug("Dropping credits for the expired context {}:{} between the local address {} and the remote "
+        + "address {}", dataDirection, transferIndex, ctx.channel().localAddress(), ctx.channel().remoteAddress());
+      return;
+    }
+    outputContext.onCredit(credits);
+  }
+
   /**
    * Try to emit the body of the control frame.
    *
@@ -28,8 +28,9 @@ import java.util.concurrent.LinkedBlockingQueue;
  * them.
  */
   public final class LocalInputContext extends LocalTransferContext {
+    private final LocalOutputContext localOutputContext;
     private final LinkedBlockingQueue queue;
-    private boolean outputContextClosed = false;
+    private volatile boolean outputContextClosed = false;
 
     /**
      * Creates a new local input context and connect it to {@code localOutputContext}.
@@ -40,9 +41,24 @@ import java.util.concurrent.LinkedBlockingQueue;
           localOutputContext.getEdgeId(),
           localOutputContext.getSrcTaskIndex(),
           localOutputContext.getDstTaskIndex());
+    this.localOutputContext = localOutputContext;
     this.queue = localOutputContext.getQueue();
   }
 
+  /**
+   * @return whether the iterator can advance without waiting for the sender.
+   */
+  public boolean isDataAvailable() {
+    return outputContextClosed || !queue.isEmpty();
+  }
+
+  /**
+   * @param listener to notify when the sender sends an element, including the end of the data.
+   */
+  public void setDataAvailableListener(final Runnable listener) {
+    localOutputContext.setDataAvailableListener(listener);
+  }
+
   /**
    * Checks if the connected output context has already been closed. It is for testing purpose.
    * @return true if the connected output context has already been closed.
@@ -28,14 +28,17 @@ import java.util.concurrent.LinkedBlockingQueue;
  * This class provides a data transfer interface to the sender side when both the sender and the receiver are
  * in the same executor. Since data serialization is unnecessary, the sender sends data without serializing
  * them. A single local output context represents a data transfer between two tasks.
+ * The queue between the tasks is bounded, so that the sender blocks when the receiver falls behind.
  */
 public final class LocalOutputContext extends LocalTransferContext implements OutputContext {
   private static final Logger LOG = LoggerFactory.getLogger(LocalOutputContext.class.getName());
-  private final LinkedBlockingQueue queue = new LinkedBlockingQueue();
+  private final LinkedBlockingQueue queue;
   private boolean isClosed = false;
+  // Notified when an element is put to the queue
+  private volatile Runnable dataAvailableListener = null;
 
   /**
-   * Creates a new local output context.
+   * Creates a new local output context with an unbounded queue.
    * @param executorId id of the executor to which this context belong
    * @param edgeId id of the DAG edge
    * @param srcTaskIndex source task index
@@ -45,7 +48,24 @@ public final class LocalOutputContext extends LocalTransferContext implements Ou
                             final String edgeId,
                             final int srcTaskIndex,
                             final int dstTaskIndex) {
+    this(executorId, edgeId, srcTaskIndex, dstTaskIndex, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new local output context.
+   * @param executorId id of the executor to which this context belong
+   * @param edgeId id of the DAG edge
+   * @param srcTaskIndex source task index
+   * @param dstTaskIndex destination task index
+   * @param queueCapacity the maximum number of elements that the receiver has not retrieved yet
+   */
+  public LocalOutputContext(final String executorId,
+                            final String edgeId,
+                            final int srcTaskIndex,
+                            final int dstTaskIndex,
+                            final int queueCapacity) {
     super(executorId, edgeId, srcTaskIndex, dstTaskIndex);
+    this.queue = new LinkedBlockingQueue(queueCapacity);
   }
 
   /**
@@ -56,10 +76,41 @@ public final class LocalOutputContext extends LocalTransferContext implements Ou
     if (isClosed) {
       throw new RuntimeException("This context has already been closed");
     }
-    queue.offer(Finishmark.getInstance());
+    put(Finishmark.getInstance());
     isClosed = true;
   }
 
+  /**
+   * Puts an element to the queue, waiting for the receiver if the queue is full.
+   * @param element the element to put.
+   */
+  private void put(final Object element) {
+    try {
+      queue.put(element);
+      final Runnable listener = dataAvailableListener;
+      if (listener != null) {
+        listener.run();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @param listener to notify when the sender puts an element to the queue. It is called by the sender thread.
+   */
+  void setDataAvailableListener(final Runnable listener) {
+    this.dataAvailableListener = listener;
+  }
+
+  /**
+   * @return the number of elements that the receiver has not retrieved yet.
+   */
+  public int getQueueSize() {
+    return queue.size();
+  }
+
   /**
    * Accessor method for the queue in this local output context.
    * @return queue to which the sender writes its data.
@@ -97,7 +148,7 @@ public final class LocalOutputContext extends LocalTransferContext implements Ou
       if (isClosed) {
         throw new RuntimeException("This context has already been closed.");
       }
-      queue.offer(element);
+      put(element);
     }
 
     public void close() {
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.transfer;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-runtime edge statistics of the credit-based flow control of the pipes in this executor.
+ * The receiver-side contexts of an edge report the bytes that have been received but not consumed yet,
+ * and the sender-side contexts of an edge report their available credits and the time they stalled for credits.
+ */
+@ThreadSafe
+public final class PipeFlowControlMetrics {
+  private final ConcurrentMap<String, EdgeStatistics> edgeIdToStatistics = new ConcurrentHashMap<>();
+
+  @Inject
+  private PipeFlowControlMetrics() {
+  }
+
+  /**
+   * @param runtimeEdgeId the id of the runtime edge.
+   * @return the statistics of the runtime edge.
+   */
+  public EdgeStatistics getEdgeStatistics(final String runtimeEdgeId) {
+    return edgeIdToStatistics.computeIfAbsent(runtimeEdgeId, id -> new EdgeStatistics());
+  }
+
+  /**
+   * @return the statistics of all runtime edges that have been transferred through pipes, keyed by the edge ids.
+   */
+  public Map<String, EdgeStatistics> getAllEdgeStatistics() {
+    return Collections.unmodifiableMap(edgeIdToStatistics);
+  }
+
+  /**
+   * Flow control statistics of a runtime edge, aggregated over its transfer contexts in this executor.
+   */
+  @ThreadSafe
+  public static final class EdgeStatistics {
+    private final AtomicLong queuedBytes = new AtomicLong(0);
+    private final AtomicLong peakQueuedBytes = new AtomicLong(0);
+    private final AtomicLong availableCredits = new AtomicLong(0);
+    private final AtomicLong senderStallNanos = new AtomicLong(0);
+    private final AtomicLong numSenderStalls = new AtomicLong(0);
+
+    private EdgeStatistics() {
+    }
+
+    /**
+     * @return the number of bytes that have been received but not consumed yet.
+     */
+    public long getQueuedBytes() {
+      return queuedBytes.get();
+    }
+
+    /**
+     * @return the maximum of {@link #getQueuedBytes()} observed so far.
+     */
+    public long getPeakQueuedBytes() {
+      return peakQueuedBytes.get();
+    }
+
+    /**
+     * @return the number of bytes the senders are allowed to send without waiting for credits.
+     */
+    public long getAvailableCredits() {
+      return availableCredits.get();
+    }
+
+    /**
+     * @return the total time the senders have waited for credits, in nanoseconds.
+     */
+    public long getSenderStallNanos() {
+      return senderStallNanos.get();
+    }
+
+    /**
+     * @return the number of times the senders have waited for credits.
+     */
+    public long getNumSenderStalls() {
+      return numSenderStalls.get();
+    }
+
+    /**
+     * @param delta the change in the number of received but not consumed bytes.
+     */
+    void addQueuedBytes(final long delta) {
+      final long current = queuedBytes.addAndGet(delta);
+      peakQueuedBytes.accumulateAndGet(current, Math::max);
+    }
+
+    /**
+     * @param delta the change in the number of available credits.
+     */
+    void addAvailableCredits(final long delta) {
+      availableCredits.addAndGet(delta);
+    }
+
+    /**
+     * @param stallNanos the time a sender waited for credits, in nanoseconds.
+     */
+    void onSenderStall(final long stallNanos) {
+      senderStallNanos.addAndGet(stallNanos);
+      numSenderStalls.incrementAndGet();
+    }
+
+    /**
+     * @return a serializable snapshot of the statistics, keyed by the names of the statistics.
+     */
+    public HashMap<String, Long> toMap() {
+      final HashMap<String, Long> statistics = new HashMap<>();
+      statistics.put("queuedBytes", getQueuedBytes());
+      statistics.put("peakQueuedBytes", getPeakQueuedBytes());
+      statistics.put("availableCredits", getAvailableCredits());
+      statistics.put("senderStallTime", getSenderStallNanos() / 1000000);
+      statistics.put("numSenderStalls", getNumSenderStalls());
+      return statistics;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("queuedBytes=%d, peakQueuedBytes=%d, availableCredits=%d, senderStallMs=%d (%d stalls)",
+        getQueuedBytes(), getPeakQueuedBytes(), getAvailableCredits(),
+        getSenderStallNanos() / 1000000, getNumSenderStalls());
+    }
+  }
+}
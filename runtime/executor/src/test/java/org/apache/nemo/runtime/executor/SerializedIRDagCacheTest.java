@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link SerializedIRDagCache}.
+ */
+public final class SerializedIRDagCacheTest {
+  private static final int IR_DAG_SIZE = 100;
+  private static final long WAIT_TIMEOUT_MS = 1000;
+
+  /**
+   * An IR DAG that arrives with a task is read by the other tasks, without fetching it from the master.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testArrivedIRDag() throws Exception {
+    final List<String> fetchedHashes = new ArrayList<>();
+    final SerializedIRDagCache cache = new SerializedIRDagCache(IR_DAG_SIZE * 2, WAIT_TIMEOUT_MS, hash -> {
+      fetchedHashes.add(hash);
+      return new CompletableFuture<>();
+    });
+    final byte[] irDag = new byte[IR_DAG_SIZE];
+    cache.put("dag", irDag);
+    assertSame(irDag, cache.get("dag"));
+    assertTrue(fetchedHashes.isEmpty());
+  }
+
+  /**
+   * A task that arrives before the first task of its IR DAG waits for the IR DAG.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testWaitForIRDag() throws Exception {
+    final CompletableFuture<String> fetchStarted = new CompletableFuture<>();
+    final SerializedIRDagCache cache = new SerializedIRDagCache(IR_DAG_SIZE * 2, WAIT_TIMEOUT_MS, hash -> {
+      fetchStarted.complete(hash);
+      return new CompletableFuture<>(); // the master is slower than the first task of the IR DAG
+    });
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      final Future<byte[]> waitingTask = executorService.submit(() -> cache.get("dag"));
+      assertEquals("dag", fetchStarted.get());
+      final byte[] irDag = new byte[IR_DAG_SIZE];
+      cache.put("dag", irDag);
+      assertSame(irDag, waitingTask.get());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * The cache is bounded by the total size of the IR DAGs, and an evicted IR DAG is fetched from the master.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testEvictionAndFetch() throws Exception {
+    final List<String> fetchedHashes = new ArrayList<>();
+    final SerializedIRDagCache cache = new SerializedIRDagCache(IR_DAG_SIZE * 2, WAIT_TIMEOUT_MS, hash -> {
+      fetchedHashes.add(hash);
+      return CompletableFuture.completedFuture(new byte[IR_DAG_SIZE]);
+    });
+    for (int i = 0; i < 10; i++) {
+      cache.put("dag" + i, new byte[IR_DAG_SIZE]);
+      assertTrue(cache.getCachedBytes() <= IR_DAG_SIZE * 2);
+    }
+    assertEquals(IR_DAG_SIZE, cache.get("dag0").length);
+    assertEquals(1, fetchedHashes.size());
+    assertEquals("dag0", fetchedHashes.get(0));
+
+    // The fetched IR DAG is cached again
+    cache.get("dag0");
+    assertEquals(1, fetchedHashes.size());
+  }
+
+  /**
+   * Getting an IR DAG fails if the IR DAG neither arrives nor is fetched in time, or if the fetch fails.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testTimeoutAndFailure() throws Exception {
+    final SerializedIRDagCache neverFetchingCache =
+      new SerializedIRDagCache(IR_DAG_SIZE * 2, WAIT_TIMEOUT_MS, hash -> new CompletableFuture<>());
+    try {
+      neverFetchingCache.get("dag");
+      fail("The IR DAG is neither arrived nor fetched");
+    } catch (final TimeoutException e) {
+      // expected
+    }
+
+    final CompletableFuture<byte[]> failedFetch = new CompletableFuture<>();
+    failedFetch.completeExceptionally(new IllegalStateException("The master does not have the IR DAG"));
+    final SerializedIRDagCache failingCache =
+      new SerializedIRDagCache(IR_DAG_SIZE * 2, WAIT_TIMEOUT_MS, hash -> failedFetch);
+    try {
+      failingCache.get("dag");
+      fail("The IR DAG is not fetched");
+    } catch (final ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor;
+
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TaskThreadPool}.
+ */
+public final class TaskThreadPoolTest {
+
+  /**
+   * Tests that the tasks waiting through the pool do not keep the other tasks from running,
+   * even if they occupy all the threads for the cores.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testManagedBlocking() throws Exception {
+    final TaskThreadPool taskThreadPool = new TaskThreadPool(1);
+    final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    final CompletableFuture<Integer> taken = new CompletableFuture<>();
+    final CompletableFuture<Integer> joined = new CompletableFuture<>();
+    final CountDownLatch waiting = new CountDownLatch(2);
+
+    taskThreadPool.execute(createTask(0), () -> {
+      waiting.countDown();
+      try {
+        taken.complete(TaskThreadPool.take(queue));
+      } catch (final InterruptedException e) {
+        taken.completeExceptionally(e);
+      }
+    });
+    taskThreadPool.execute(createTask(1), () -> {
+      waiting.countDown();
+      TaskThreadPool.join(future);
+      joined.complete(1);
+    });
+    // The waiting tasks occupy more threads than the cores, and the following task still runs.
+    waiting.await();
+    taskThreadPool.execute(createTask(2), () -> {
+      queue.add(2);
+      future.complete(null);
+    });
+
+    assertEquals(2, (int) taken.get());
+    assertEquals(1, (int) joined.get());
+  }
+
+  /**
+   * Tests waiting with timeouts through the pool.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testTimeouts() throws Exception {
+    final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+    assertNull(TaskThreadPool.poll(queue, 10, TimeUnit.MILLISECONDS));
+    queue.add(0);
+    assertEquals(0, (int) TaskThreadPool.poll(queue, 10, TimeUnit.MILLISECONDS));
+
+    final CompletableFuture<Integer> future = new CompletableFuture<>();
+    TaskThreadPool.awaitDone(future, 10, TimeUnit.MILLISECONDS);
+    assertFalse(future.isDone());
+    future.completeExceptionally(new RuntimeException());
+    TaskThreadPool.awaitDone(future, 10, TimeUnit.MILLISECONDS);
+    assertTrue(future.isCompletedExceptionally());
+  }
+
+  /**
+   * Tests that the tasks waiting for a thread count in the load of the executor.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testLoad() throws Exception {
+    final TaskThreadPool taskThreadPool = new TaskThreadPool(1);
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(3);
+    taskThreadPool.execute(createTask(0), () -> {
+      running.countDown();
+      try {
+        // not waiting through the pool, so that the other tasks wait for the thread
+        release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      done.countDown();
+    });
+    running.await();
+    taskThreadPool.execute(createTask(1), done::countDown);
+    taskThreadPool.execute(createTask(2), done::countDown);
+
+    assertTrue(taskThreadPool.getLoad() >= 2);
+    release.countDown();
+    done.await();
+  }
+
+  private static Task createTask(final int index) {
+    return new Task("plan", RuntimeIdManager.generateTaskId("Stage0", index, 0),
+      new ExecutionPropertyMap<>("Stage0"), new byte[0], Collections.emptyList(), Collections.emptyList(),
+      Collections.emptyMap());
+  }
+}
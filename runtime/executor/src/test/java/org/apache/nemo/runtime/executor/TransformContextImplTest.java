@@ -42,12 +42,13 @@ public class TransformContextImplTest {
   public void setUp() {
     final BroadcastManagerWorker broadcastManagerWorker = mock(BroadcastManagerWorker.class);
     when(broadcastManagerWorker.get("a")).thenReturn("b");
-    this.context = new TransformContextImpl(broadcastManagerWorker);
+    this.context = new TransformContextImpl(broadcastManagerWorker, 3);
   }
 
   @Test
   public void testContextImpl() {
     assertEquals("b", this.context.getBroadcastVariable("a"));
+    assertEquals(3, this.context.getTaskIndex());
 
     final String sampleText = "test_text";
 
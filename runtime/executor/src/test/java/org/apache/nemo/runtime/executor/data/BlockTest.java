@@ -20,6 +20,7 @@ package org.apache.nemo.runtime.executor.data;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.coder.IntDecoderFactory;
 import org.apache.nemo.common.coder.IntEncoderFactory;
 import org.apache.nemo.runtime.executor.data.block.Block;
@@ -34,6 +35,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 /**
@@ -105,6 +109,117 @@ public final class BlockTest {
     }
   }
 
+  /**
+   * Test {@link FileBlock} with sort-based write, spilling multiple sorted runs.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testSortBasedFileBlock() throws Exception {
+    final String tmpDir = "./tmpFiles";
+    final String filePath = tmpDir + "/BlockTestFile";
+    try {
+      new File(tmpDir).mkdirs();
+      final LocalFileMetadata<Integer> metadata = new LocalFileMetadata<>();
+      final FileBlock<Integer> block = new FileBlock<>("testBlock", serializer, filePath, metadata,
+        memoryPoolAssigner, 4);
+      block.enableSortBasedWrite();
+
+      // Write the elements of the partitions interleaved, in the descending order of the keys
+      for (int i = 0; i < 3; i++) {
+        for (int key = 3; key >= 1; key--) {
+          if (i < testData.get(key).size()) {
+            block.write(key, testData.get(key).get(i));
+          }
+        }
+      }
+      block.commit();
+
+      // The partitions are read in the order of their keys, and no run file is left
+      final Map<Integer, List<Integer>> readData = new HashMap<>();
+      int prevKey = Integer.MIN_VALUE;
+      for (final NonSerializedPartition<Integer> readPartition : block.readPartitions(HashRange.all())) {
+        Assert.assertTrue(prevKey <= readPartition.getKey());
+        prevKey = readPartition.getKey();
+        readPartition.getData().forEach(readData.computeIfAbsent(prevKey, key -> new ArrayList<>())::add);
+      }
+      Assert.assertEquals(testData, readData);
+      Assert.assertEquals(1, new File(tmpDir).list().length);
+    } finally {
+      FileUtils.deleteDirectory(new File(tmpDir));
+    }
+  }
+
+  /**
+   * Test {@link FileBlock#appendPartition(FileChannel, java.io.Serializable, java.io.InputStream, int)},
+   * which appends the serialized partitions read from streams (e.g., pushed by other executors) to a block.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testAppendPartitionsToFileBlock() throws Exception {
+    final String tmpDir = "./tmpFiles";
+    try {
+      new File(tmpDir).mkdirs();
+      final List<FileBlock<Integer>> producerBlocks = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        final FileBlock<Integer> producerBlock = new FileBlock<>("producerBlock" + i, serializer,
+          tmpDir + "/ProducerBlockFile" + i, new LocalFileMetadata<>(), memoryPoolAssigner);
+        testData.forEach((key, partitionData) -> partitionData.forEach(element -> producerBlock.write(key, element)));
+        producerBlock.commit();
+        producerBlocks.add(producerBlock);
+      }
+
+      final FileBlock<Integer> mergedBlock = new FileBlock<>("mergedBlock", serializer,
+        tmpDir + "/MergedBlockFile", new LocalFileMetadata<>(), memoryPoolAssigner);
+      try (FileChannel fileChannel = mergedBlock.openFileChannelToAppend()) {
+        for (final FileBlock<Integer> producerBlock : producerBlocks) {
+          for (final Pair<Integer, FileArea> keyedFileArea : producerBlock.asKeyedFileAreas(HashRange.of(1, 3))) {
+            final FileArea fileArea = keyedFileArea.right();
+            try (InputStream inputStream = new FileAreaInputStream(fileArea)) {
+              mergedBlock.appendPartition(fileChannel, keyedFileArea.left(), inputStream, (int) fileArea.getCount());
+            }
+          }
+        }
+
+        // A stream shorter than the given size is not appended silently
+        final FileArea fileArea = producerBlocks.get(0).asKeyedFileAreas(HashRange.of(3, 4)).get(0).right();
+        try (InputStream inputStream = new FileAreaInputStream(fileArea)) {
+          mergedBlock.appendPartition(fileChannel, 3, inputStream, (int) fileArea.getCount() + 1);
+          Assert.fail("Appended a truncated partition");
+        } catch (final IOException e) {
+          // expected
+        }
+      }
+      mergedBlock.commit();
+
+      // Only the partitions in the key range are appended, once per producer block
+      final Map<Integer, List<Integer>> readData = new HashMap<>();
+      for (final NonSerializedPartition<Integer> readPartition : mergedBlock.readPartitions(HashRange.of(1, 3))) {
+        readPartition.getData().forEach(readData.computeIfAbsent(readPartition.getKey(), k -> new ArrayList<>())::add);
+      }
+      final Map<Integer, List<Integer>> expectedData = new HashMap<>();
+      for (int key = 1; key < 3; key++) {
+        final List<Integer> expectedPartitionData = new ArrayList<>(testData.get(key));
+        expectedPartitionData.addAll(testData.get(key));
+        expectedData.put(key, expectedPartitionData);
+      }
+      Assert.assertEquals(expectedData, readData);
+
+      // A committed block cannot be appended to
+      final FileArea fileArea = producerBlocks.get(0).asKeyedFileAreas(HashRange.of(1, 2)).get(0).right();
+      try (FileChannel fileChannel = mergedBlock.openFileChannelToAppend();
+           InputStream inputStream = new FileAreaInputStream(fileArea)) {
+        mergedBlock.appendPartition(fileChannel, 1, inputStream, (int) fileArea.getCount());
+        Assert.fail("Appended to a committed block");
+      } catch (final IOException e) {
+        // expected
+      }
+    } finally {
+      FileUtils.deleteDirectory(new File(tmpDir));
+    }
+  }
+
 
   /**
    * Tests write to & read from a block.
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link DataUtil}.
+ */
+public final class DataUtilTest {
+
+  /**
+   * Tests that a {@link DataUtil.ReadinessAwareIterator} reports the readiness of the pipe,
+   * registers the listener of the pipe, and reads the inner iterator.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test
+  public void testReadinessAwareIterator() throws Exception {
+    final AtomicBoolean ready = new AtomicBoolean(false);
+    final AtomicReference<Runnable> registered = new AtomicReference<>();
+    final DataUtil.ReadinessAwareIterator<String> iterator = DataUtil.ReadinessAwareIterator.of(
+      DataUtil.IteratorWithNumBytes.of(Arrays.asList("a", "b").iterator(), 10, 5), ready::get, registered::set);
+
+    assertFalse(iterator.isReady());
+    ready.set(true);
+    assertTrue(iterator.isReady());
+
+    final AtomicInteger numOfNotifications = new AtomicInteger(0);
+    iterator.setReadinessListener(numOfNotifications::incrementAndGet);
+    registered.get().run();
+    assertEquals(1, numOfNotifications.get());
+
+    assertTrue(iterator.hasNext());
+    assertEquals("a", iterator.next());
+    assertEquals("b", iterator.next());
+    assertFalse(iterator.hasNext());
+    assertEquals(10, iterator.getNumSerializedBytes());
+    assertEquals(5, iterator.getNumEncodedBytes());
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link FileAreaInputStream} and {@link LimitedInputStream}.
+ */
+public final class FileAreaInputStreamTest {
+  // Larger than the chunks read by FileAreaInputStream
+  private static final int FILE_SIZE = 200 * 1024;
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int AREA_POSITION = 1000;
+  private static final int AREA_COUNT = 150 * 1024;
+
+  private Path file;
+  private byte[] fileBytes;
+
+  @Before
+  public void setUp() throws IOException {
+    fileBytes = new byte[FILE_SIZE];
+    new Random(0).nextBytes(fileBytes);
+    file = Files.createTempFile(FileAreaInputStreamTest.class.getSimpleName(), null);
+    Files.write(file, fileBytes);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void testBulkReadSpanningChunks() throws IOException {
+    try (InputStream inputStream = newAreaInputStream(AREA_POSITION, AREA_COUNT)) {
+      // A bulk read does not go beyond the current chunk
+      final byte[] bytes = new byte[AREA_COUNT];
+      assertEquals(CHUNK_SIZE, inputStream.read(bytes, 0, AREA_COUNT));
+      assertEquals(AREA_COUNT, CHUNK_SIZE + readFully(inputStream, bytes, CHUNK_SIZE, AREA_COUNT - CHUNK_SIZE));
+      assertArrayEquals(expectedBytes(AREA_POSITION, AREA_COUNT), bytes);
+
+      // The stream does not read beyond the end of the area, although the file goes on
+      assertEquals(-1, inputStream.read());
+      assertEquals(-1, inputStream.read(bytes, 0, 1));
+      assertEquals(0, inputStream.read(bytes, 0, 0));
+    }
+  }
+
+  @Test
+  public void testSingleByteReadsSpanningChunks() throws IOException {
+    try (InputStream inputStream = newAreaInputStream(AREA_POSITION, AREA_COUNT)) {
+      for (int i = 0; i < AREA_COUNT; i++) {
+        assertEquals(fileBytes[AREA_POSITION + i] & 0xff, inputStream.read());
+      }
+      assertEquals(-1, inputStream.read());
+    }
+  }
+
+  @Test
+  public void testSkipAcrossBufferBoundary() throws IOException {
+    try (InputStream inputStream = newAreaInputStream(AREA_POSITION, AREA_COUNT)) {
+      final int readBytes = 10;
+      assertEquals(readBytes, readFully(inputStream, new byte[readBytes], 0, readBytes));
+      assertEquals(CHUNK_SIZE - readBytes, inputStream.available());
+
+      // Skips the rest of the buffer, and then the bytes in the file
+      final int toSkip = CHUNK_SIZE + 100;
+      assertEquals(toSkip, inputStream.skip(toSkip));
+      assertEquals(fileBytes[AREA_POSITION + readBytes + toSkip] & 0xff, inputStream.read());
+      assertEquals(0, inputStream.skip(0));
+    }
+  }
+
+  @Test
+  public void testSkipBeyondEndOfArea() throws IOException {
+    try (InputStream inputStream = newAreaInputStream(AREA_POSITION, AREA_COUNT)) {
+      assertEquals(fileBytes[AREA_POSITION] & 0xff, inputStream.read());
+      assertEquals(AREA_COUNT - 1, inputStream.skip(FILE_SIZE));
+      assertEquals(0, inputStream.skip(1));
+      assertEquals(-1, inputStream.read());
+    }
+  }
+
+  @Test
+  public void testEmptyArea() throws IOException {
+    try (InputStream inputStream = newAreaInputStream(AREA_POSITION, 0)) {
+      assertEquals(-1, inputStream.read());
+      assertEquals(-1, inputStream.read(new byte[1], 0, 1));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testFileEndsBeforeEndOfArea() throws IOException {
+    try (InputStream inputStream = newAreaInputStream(FILE_SIZE - 10, 20)) {
+      inputStream.read();
+    }
+  }
+
+  @Test
+  public void testLimitedBulkReadSpanningChunks() throws IOException {
+    final int limit = AREA_COUNT - 100;
+    try (InputStream inputStream = new LimitedInputStream(newAreaInputStream(AREA_POSITION, AREA_COUNT), limit)) {
+      final byte[] bytes = new byte[AREA_COUNT];
+      assertEquals(limit, readFully(inputStream, bytes, 0, AREA_COUNT));
+      assertArrayEquals(expectedBytes(AREA_POSITION, limit), Arrays.copyOf(bytes, limit));
+      assertEquals(-1, inputStream.read());
+      assertEquals(-1, inputStream.read(bytes, 0, 1));
+    }
+  }
+
+  @Test
+  public void testLimitedSkip() throws IOException {
+    final int limit = CHUNK_SIZE + 100;
+    try (InputStream inputStream = new LimitedInputStream(newAreaInputStream(AREA_POSITION, AREA_COUNT), limit)) {
+      assertEquals(fileBytes[AREA_POSITION] & 0xff, inputStream.read());
+
+      // Skips across the buffer boundary, but not beyond the limit
+      assertEquals(CHUNK_SIZE, inputStream.skip(CHUNK_SIZE));
+      assertEquals(fileBytes[AREA_POSITION + 1 + CHUNK_SIZE] & 0xff, inputStream.read());
+      assertEquals(limit - CHUNK_SIZE - 2, inputStream.skip(AREA_COUNT));
+      assertEquals(0, inputStream.skip(1));
+      assertEquals(-1, inputStream.read());
+    }
+  }
+
+  @Test
+  public void testLimitBeyondEndOfStream() throws IOException {
+    final int count = 100;
+    try (InputStream inputStream = new LimitedInputStream(newAreaInputStream(AREA_POSITION, count), count * 2)) {
+      final byte[] bytes = new byte[count * 2];
+      assertEquals(count, readFully(inputStream, bytes, 0, count * 2));
+      assertArrayEquals(expectedBytes(AREA_POSITION, count), Arrays.copyOf(bytes, count));
+      assertTrue(inputStream.read() < 0);
+    }
+  }
+
+  /**
+   * @param position the position of the area.
+   * @param count    the length of the area.
+   * @return a stream that reads the area in the file.
+   * @throws IOException if failed to open the file.
+   */
+  private FileAreaInputStream newAreaInputStream(final long position, final long count) throws IOException {
+    return new FileAreaInputStream(new FileArea(file.toString(), position, count));
+  }
+
+  /**
+   * @param position the position of the area.
+   * @param count    the length of the area.
+   * @return the bytes of the area in the file.
+   */
+  private byte[] expectedBytes(final int position, final int count) {
+    return Arrays.copyOfRange(fileBytes, position, position + count);
+  }
+
+  /**
+   * Reads until the given length has been read, or the stream ends.
+   *
+   * @param inputStream the stream to read.
+   * @param bytes       the buffer to read into.
+   * @param offset      the offset in the buffer.
+   * @param length      the number of bytes to read.
+   * @return the number of bytes read.
+   * @throws IOException if failed to read.
+   */
+  private static int readFully(final InputStream inputStream,
+                               final byte[] bytes,
+                               final int offset,
+                               final int length) throws IOException {
+    int totalReadBytes = 0;
+    while (totalReadBytes < length) {
+      final int readBytes = inputStream.read(bytes, offset + totalReadBytes, length - totalReadBytes);
+      if (readBytes < 0) {
+        break;
+      }
+      totalReadBytes += readBytes;
+    }
+    return totalReadBytes;
+  }
+}
@@ -16,11 +16,16 @@
  */
 package org.apache.nemo.runtime.executor.data;
 
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.runtime.executor.data.partition.SerializedPartition;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -28,6 +33,7 @@ import java.util.List;
 import java.util.concurrent.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class MemoryPoolAssignerTest {
   private MemoryPoolAssigner memoryPoolAssigner;
@@ -97,4 +103,137 @@ public class MemoryPoolAssignerTest {
     // All chunks should be unique
     assertEquals(allocatedChunks.size(), new HashSet<>(allocatedChunks).size());
   }
+
+  @Test
+  public void testSizeClasses() throws MemoryAllocationException {
+    assertEquals(4 * 1024, memoryPoolAssigner.getMinChunkSize());
+    assertEquals(4 * 1024, memoryPoolAssigner.allocateChunk(1).getBuffer().capacity());
+    assertEquals(8 * 1024, memoryPoolAssigner.allocateChunk(4 * 1024 + 1).getBuffer().capacity());
+    assertEquals(CHUNK_SIZE_KB * 1024, memoryPoolAssigner.allocateChunk(CHUNK_SIZE_KB * 1024).getBuffer().capacity());
+    // Requests larger than the largest chunk size get the largest chunk
+    assertEquals(CHUNK_SIZE_KB * 1024, memoryPoolAssigner.allocateChunk(Integer.MAX_VALUE).getBuffer().capacity());
+  }
+
+  @Test
+  public void testStatistics() throws MemoryAllocationException {
+    final MemoryChunk small = memoryPoolAssigner.allocateChunk(1);
+    final MemoryChunk large = memoryPoolAssigner.allocateChunk();
+    memoryPoolAssigner.returnChunksToPool(Arrays.asList(small));
+
+    // The memory is allocated in chunks of the largest size, which are split for the smaller chunks
+    final MemoryPoolAssigner.Statistics statistics = memoryPoolAssigner.getStatistics();
+    assertEquals(2 * CHUNK_SIZE_KB * 1024, statistics.getAllocatedBytes());
+    assertEquals(2 * CHUNK_SIZE_KB * 1024, statistics.getHighWaterMarkBytes());
+    assertEquals(large.getBuffer().capacity(), statistics.getInUseBytes());
+    assertEquals((4 + CHUNK_SIZE_KB) * 1024, statistics.getPeakInUseBytes());
+    assertEquals(0.5, statistics.getFragmentation(), 1e-9);
+  }
+
+  @Test
+  public void testPeakMemoryTracker() throws Exception {
+    final Serializer serializer =
+      new Serializer<>(IntEncoderFactory.of(), IntDecoderFactory.of(), new ArrayList<>(), new ArrayList<>());
+    final MemoryChunk before = memoryPoolAssigner.allocateChunk();
+    final MemoryPoolAssigner.PeakMemoryTracker tracker = memoryPoolAssigner.trackPeakInUseBytes();
+
+    // The chunks of a partition written by this thread are charged until the partition is released
+    final SerializedPartition<Integer> partition = new SerializedPartition<>(0, serializer, memoryPoolAssigner);
+    partition.write(1);
+    partition.commit();
+    assertEquals(memoryPoolAssigner.getMinChunkSize(), tracker.getPeakInUseBytes());
+    partition.release();
+    final MemoryChunk first = memoryPoolAssigner.allocateChunk();
+    final MemoryChunk second = memoryPoolAssigner.allocateChunk();
+
+    // Chunks acquired by the other threads, e.g., by the other tasks of the executor, are not charged
+    final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+    otherThread.submit(() -> memoryPoolAssigner.allocateChunk()).get();
+    otherThread.shutdown();
+
+    memoryPoolAssigner.returnChunksToPool(Arrays.asList(before, first, second));
+    tracker.close();
+
+    // Allocations after the tracker is closed are not tracked
+    memoryPoolAssigner.allocateChunk();
+    memoryPoolAssigner.allocateChunk();
+    memoryPoolAssigner.allocateChunk();
+    assertEquals(2 * CHUNK_SIZE_KB * 1024, tracker.getPeakInUseBytes());
+  }
+
+  @Test
+  public void testSplitIdleChunks() throws MemoryAllocationException {
+    // Fill up the memory with the largest chunks, and return one of them
+    final List<MemoryChunk> largeChunks = new ArrayList<>();
+    for (int i = 0; i < MAX_NUM_CHUNKS; i++) {
+      largeChunks.add(memoryPoolAssigner.allocateChunk());
+    }
+    memoryPoolAssigner.returnChunksToPool(largeChunks.subList(0, 1));
+
+    // The idle largest chunk is split to allocate the smaller chunks, which do not overlap
+    final MemoryChunk halfChunk = memoryPoolAssigner.allocateChunk(CHUNK_SIZE_KB * 1024 / 2);
+    final List<MemoryChunk> smallChunks = new ArrayList<>();
+    for (int i = 0; i < CHUNK_SIZE_KB / 2 / 4; i++) {
+      smallChunks.add(memoryPoolAssigner.allocateChunk(1));
+    }
+    assertEquals(CHUNK_SIZE_KB * 1024 / 2, halfChunk.getBuffer().capacity());
+    halfChunk.getBuffer().putInt(0, -1);
+    for (int i = 0; i < smallChunks.size(); i++) {
+      assertEquals(4 * 1024, smallChunks.get(i).getBuffer().capacity());
+      smallChunks.get(i).getBuffer().putInt(0, i);
+    }
+    for (int i = 0; i < smallChunks.size(); i++) {
+      assertEquals(i, smallChunks.get(i).getBuffer().getInt(0));
+    }
+    assertEquals(-1, halfChunk.getBuffer().getInt(0));
+    assertEquals(MAX_MEM_MB * 1024 * 1024, memoryPoolAssigner.getStatistics().getAllocatedBytes());
+
+    // No more memory, and no idle chunk to split
+    try {
+      memoryPoolAssigner.allocateChunk(1);
+      fail("The memory must be exhausted");
+    } catch (final MemoryAllocationException e) {
+      // expected
+    }
+
+    // The split chunks are coalesced with their buddies to serve the largest chunk again
+    memoryPoolAssigner.returnChunksToPool(smallChunks);
+    memoryPoolAssigner.returnChunksToPool(Arrays.asList(halfChunk));
+    assertEquals(CHUNK_SIZE_KB * 1024, memoryPoolAssigner.allocateChunk().getBuffer().capacity());
+    assertEquals(0, memoryPoolAssigner.poolSize());
+  }
+
+  @Test
+  public void testCoalesceIdleChunks() throws MemoryAllocationException {
+    // Fill up the memory with the smallest chunks, and return them
+    final List<MemoryChunk> smallChunks = new ArrayList<>();
+    for (int i = 0; i < MAX_MEM_MB * 1024 / 4; i++) {
+      smallChunks.add(memoryPoolAssigner.allocateChunk(1));
+    }
+    memoryPoolAssigner.returnChunksToPool(smallChunks);
+
+    // The idle smaller chunks are coalesced to serve the largest chunks again
+    for (int i = 0; i < MAX_NUM_CHUNKS; i++) {
+      assertEquals(CHUNK_SIZE_KB * 1024, memoryPoolAssigner.allocateChunk().getBuffer().capacity());
+    }
+    assertEquals(0, memoryPoolAssigner.poolSize());
+    assertEquals(MAX_MEM_MB * 1024 * 1024, memoryPoolAssigner.getStatistics().getAllocatedBytes());
+  }
+
+  @Test
+  public void testChunksKeptByOtherThreads() throws Exception {
+    // Fill up the memory, and return a chunk that this thread keeps to reuse
+    final List<MemoryChunk> chunks = new ArrayList<>();
+    for (int i = 0; i < MAX_NUM_CHUNKS; i++) {
+      chunks.add(memoryPoolAssigner.allocateChunk());
+    }
+    memoryPoolAssigner.returnChunksToPool(chunks.subList(0, 1));
+    assertEquals(1, memoryPoolAssigner.poolSize());
+
+    // The chunk kept by this thread serves another thread once the memory is exhausted
+    final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+    final MemoryChunk chunk = otherThread.submit(() -> memoryPoolAssigner.allocateChunk()).get();
+    otherThread.shutdown();
+    assertEquals(CHUNK_SIZE_KB * 1024, chunk.getBuffer().capacity());
+    assertEquals(0, memoryPoolAssigner.poolSize());
+  }
 }
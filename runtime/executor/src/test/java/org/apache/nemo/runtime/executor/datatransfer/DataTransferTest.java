@@ -19,6 +19,8 @@
 package org.apache.nemo.runtime.executor.datatransfer;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.coder.*;
 import org.apache.nemo.common.dag.DAG;
@@ -26,6 +28,7 @@ import org.apache.nemo.common.dag.DAGBuilder;
 import org.apache.nemo.common.eventhandler.PubSubEventHandlerWrapper;
 import org.apache.nemo.common.ir.edge.IREdge;
 import org.apache.nemo.common.ir.edge.executionproperty.*;
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
 import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
 import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
 import org.apache.nemo.common.ir.vertex.IRVertex;
@@ -35,6 +38,7 @@ import org.apache.nemo.common.ir.vertex.executionproperty.ScheduleGroupProperty;
 import org.apache.nemo.common.test.EmptyComponents;
 import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.ClientRPC;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.MessageParameters;
@@ -51,6 +55,8 @@ import org.apache.nemo.runtime.executor.TestUtil;
 import org.apache.nemo.runtime.executor.data.BlockManagerWorker;
 import org.apache.nemo.runtime.executor.data.DataUtil;
 import org.apache.nemo.runtime.executor.data.SerializerManager;
+import org.apache.nemo.runtime.executor.data.block.Block;
+import org.apache.nemo.runtime.executor.data.block.FileBlock;
 import org.apache.nemo.runtime.master.BlockManagerMaster;
 import org.apache.nemo.runtime.master.RuntimeMaster;
 import org.apache.nemo.runtime.master.metric.MetricManagerMaster;
@@ -90,6 +96,7 @@ import static org.apache.nemo.runtime.common.RuntimeTestUtil.flatten;
 import static org.apache.nemo.runtime.common.RuntimeTestUtil.getRangedNumList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -127,6 +134,7 @@ public final class DataTransferTest {
   private IntermediateDataIOFactory transferFactory;
   private BlockManagerWorker worker2;
   private HashMap<BlockManagerWorker, SerializerManager> serializerManagers = new HashMap<>();
+  private HashMap<BlockManagerWorker, String> executorIds = new HashMap<>();
   private MetricManagerWorker metricMessageSender;
 
   @Before
@@ -203,6 +211,7 @@ public final class DataTransferTest {
       blockManagerWorker = injector.getInstance(BlockManagerWorker.class);
       serializerManager = injector.getInstance(SerializerManager.class);
       serializerManagers.put(blockManagerWorker, serializerManager);
+      executorIds.put(blockManagerWorker, executorId);
       intermediateDataIOFactory = injector.getInstance(IntermediateDataIOFactory.class);
     } catch (final InjectionException e) {
       throw new RuntimeException(e);
@@ -307,6 +316,117 @@ public final class DataTransferTest {
     writeAndReadWithDuplicateData(worker1, worker2, CommunicationPatternProperty.Value.SHUFFLE, REMOTE_FILE_STORE);
   }
 
+  /**
+   * Tests pushing the partitions of producer tasks to the merged blocks in the executor of the consumer tasks,
+   * from the same executor and from another executor.
+   * No partition is pushed once a merged block is read, and the merged blocks are removed on request.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testMergedBlocks() throws Exception {
+    final String edgeId = String.format(EDGE_PREFIX_TEMPLATE, TEST_INDEX.getAndIncrement());
+    serializerManagers.get(worker1).register(edgeId, ENCODER_FACTORY, DECODER_FACTORY);
+    serializerManagers.get(worker2).register(edgeId, ENCODER_FACTORY, DECODER_FACTORY);
+    final List<KeyRange> keyRanges = Arrays.asList(HashRange.of(0, PARALLELISM_TEN / 2),
+      HashRange.of(PARALLELISM_TEN / 2, PARALLELISM_TEN));
+    final ExecutionPropertyMap<EdgeExecutionProperty> edgeProperties = new ExecutionPropertyMap<>(edgeId);
+    edgeProperties.put(DataStoreProperty.of(LOCAL_FILE_STORE));
+    final String mergerExecutorId = executorIds.get(worker1);
+    for (int consumerTaskIndex = 0; consumerTaskIndex < keyRanges.size(); consumerTaskIndex++) {
+      master.initializeMergedBlock(edgeId, consumerTaskIndex, mergerExecutorId);
+    }
+
+    // Push the partitions of two producer tasks, from another executor and from the executor of the merged blocks
+    final List<BlockManagerWorker> producerWorkers = Arrays.asList(worker2, worker1);
+    final List<String> producerBlockIdWildcards = new ArrayList<>();
+    for (int index = 0; index < producerWorkers.size(); index++) {
+      final String srcTaskId = RuntimeIdManager.generateTaskId("srcStage", index, 0);
+      assertEquals(Arrays.asList(mergerExecutorId, mergerExecutorId),
+        writeAndPushFileBlock(producerWorkers.get(index), edgeId, srcTaskId, keyRanges));
+      producerBlockIdWildcards.add(RuntimeIdManager.generateBlockIdWildcard(edgeId, index));
+    }
+
+    // The location is replied once the pushes are done, and reading a merged block seals it
+    final ControlMessage.MergedBlockLocationInfoMsg location =
+      worker1.getMergedBlockLocation(edgeId, 1, producerBlockIdWildcards).get();
+    assertEquals(mergerExecutorId, location.getOwnerExecutorId());
+    assertEquals(new HashSet<>(Arrays.asList(0, 1)), new HashSet<>(location.getMergedProducerTaskIndicesList()));
+    final List dataRead = readMergedBlock(worker1, edgeId, 1, 2, edgeProperties, keyRanges.get(1));
+    final List expectedData = new ArrayList<>();
+    for (int index = 0; index < 2; index++) {
+      for (int key = PARALLELISM_TEN / 2; key < PARALLELISM_TEN; key++) {
+        expectedData.add(Pair.of(key, key));
+      }
+    }
+    assertEquals(expectedData.size(), dataRead.size());
+    dataRead.forEach(rData -> assertTrue(expectedData.remove(rData)));
+
+    // The partitions of another attempt of a producer task are not pushed to the sealed merged block,
+    // and are skipped by the other merged block, which holds the partitions of the first attempt
+    final String retrySrcTaskId = RuntimeIdManager.generateTaskId("srcStage", 0, 1);
+    assertEquals(Arrays.asList(mergerExecutorId, ""),
+      writeAndPushFileBlock(worker2, edgeId, retrySrcTaskId, keyRanges));
+    final ControlMessage.MergedBlockLocationInfoMsg otherLocation =
+      worker2.getMergedBlockLocation(edgeId, 0, producerBlockIdWildcards).get();
+    assertEquals(2, otherLocation.getMergedProducerTaskIndicesCount());
+    assertEquals(PARALLELISM_TEN / 2 * 2,
+      readMergedBlock(worker2, edgeId, 0, 2, edgeProperties, keyRanges.get(0)).size());
+
+    // The merged blocks are removed
+    worker1.removeMergedBlocks(edgeId);
+    try {
+      readMergedBlock(worker1, edgeId, 1, 2, edgeProperties, keyRanges.get(1));
+      fail("The merged block is read after being removed");
+    } catch (final ExecutionException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Writes a file block as a producer task on a merged edge does, and pushes its partitions to the merged blocks.
+   *
+   * @param worker    of the producer task.
+   * @param edgeId    of the block.
+   * @param srcTaskId the ID of the producer task.
+   * @param keyRanges of the consumer tasks.
+   * @return the locations of the merged blocks which the partitions are pushed to.
+   * @throws Exception exception on the way.
+   */
+  private List<String> writeAndPushFileBlock(final BlockManagerWorker worker,
+                                             final String edgeId,
+                                             final String srcTaskId,
+                                             final List<KeyRange> keyRanges) throws Exception {
+    final String blockId = RuntimeIdManager.generateBlockId(edgeId, srcTaskId);
+    master.onProducerTaskScheduled(srcTaskId, Collections.singleton(blockId));
+    final Block block = worker.createBlock(blockId, LOCAL_FILE_STORE);
+    for (int key = 0; key < PARALLELISM_TEN; key++) {
+      block.write(key, Pair.of(key, key));
+    }
+    block.commit();
+
+    final List<String> mergerLocations = worker.getMergerLocations(edgeId, keyRanges.size()).get();
+    final List<Integer> pushedConsumerTaskIndices = IntStream.range(0, keyRanges.size())
+      .filter(index -> !mergerLocations.get(index).isEmpty()).boxed().collect(Collectors.toList());
+    worker.writeBlock(block, LOCAL_FILE_STORE, 1, DataPersistenceProperty.Value.KEEP, Collections.emptyMap(),
+      pushedConsumerTaskIndices);
+    worker.pushToMergers((FileBlock) block, edgeId, srcTaskId, mergerLocations, keyRanges);
+    return mergerLocations;
+  }
+
+  private List readMergedBlock(final BlockManagerWorker worker,
+                               final String edgeId,
+                               final int consumerTaskIndex,
+                               final int numMergedProducerTasks,
+                               final ExecutionPropertyMap<EdgeExecutionProperty> edgeProperties,
+                               final KeyRange keyRange) throws ExecutionException, InterruptedException {
+    final List dataRead = new ArrayList<>();
+    worker.readMergedBlock(executorIds.get(worker1), edgeId, consumerTaskIndex, numMergedProducerTasks,
+      edgeProperties, keyRange).get()
+      .forEachRemaining(dataRead::add);
+    return dataRead;
+  }
+
   private void writeAndRead(final BlockManagerWorker sender,
                             final BlockManagerWorker receiver,
                             final CommunicationPatternProperty.Value commPattern,
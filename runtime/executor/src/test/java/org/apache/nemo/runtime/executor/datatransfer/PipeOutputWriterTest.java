@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.datatransfer;
+
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.PartitionerProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.PipeBatchLingerProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.PipeBatchSizeProperty;
+import org.apache.nemo.common.ir.executionproperty.EdgeExecutionProperty;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.vertex.OperatorVertex;
+import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.nemo.common.test.EmptyComponents;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.plan.StageEdge;
+import org.apache.nemo.runtime.executor.data.PipeManagerWorker;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+import org.apache.nemo.runtime.executor.transfer.ByteInputContext;
+import org.apache.nemo.runtime.executor.transfer.ByteOutputContext;
+import org.apache.nemo.runtime.executor.transfer.ByteTransfer;
+import org.apache.nemo.runtime.executor.transfer.TestByteTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the batching of {@link PipeOutputWriter} on a remote pipe.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({PipeManagerWorker.class, ByteTransfer.class})
+public final class PipeOutputWriterTest {
+  private static final String EDGE_ID = "Edge-0";
+  private static final String SRC_TASK_ID = RuntimeIdManager.generateTaskId("Stage0", 0, 0);
+  // An element is encoded into a one-byte event flag and a four-byte integer
+  private static final int ELEMENT_BYTES = 5;
+  private static final int BATCH_ELEMENTS = 10;
+  private static final long NO_LINGER_MS = 3600000;
+  private static final long WAIT_MS = 200;
+
+  private TestByteTransport transport;
+  private PipeManagerWorker pipeManagerWorker;
+  private ByteInputContext inputContext;
+
+  @Before
+  public void setUp() throws Exception {
+    pipeManagerWorker = mock(PipeManagerWorker.class);
+    transport = new TestByteTransport(0, pipeManagerWorker, mock(ByteTransfer.class));
+    final Pair<ByteOutputContext, ByteInputContext> pipe = transport.newPipe(EDGE_ID);
+    inputContext = pipe.right();
+    when(pipeManagerWorker.getOutputContexts(any(), anyInt())).thenReturn(Collections.singletonList(pipe.left()));
+    when(pipeManagerWorker.getSerializer(anyString())).thenReturn(new Serializer<>(
+      new NemoEventEncoderFactory(IntEncoderFactory.of()), new NemoEventDecoderFactory(IntDecoderFactory.of()),
+      Collections.emptyList(), Collections.emptyList()));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testFlushOnBatchSizeBoundary() throws Exception {
+    final PipeOutputWriter writer = newWriter();
+    for (int i = 0; i < BATCH_ELEMENTS - 1; i++) {
+      writer.write(i);
+    }
+    Thread.sleep(WAIT_MS);
+    assertFalse(inputContext.isDataAvailable());
+
+    writer.write(BATCH_ELEMENTS - 1);
+    final DecoderFactory.Decoder decoder = newDecoder(inputContext.getInputStreams().next());
+    for (int i = 0; i < BATCH_ELEMENTS; i++) {
+      assertEquals(i, decoder.decode());
+    }
+    writer.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testFlushOnClose() throws Exception {
+    final PipeOutputWriter writer = newWriter();
+    writer.write(0);
+    Thread.sleep(WAIT_MS);
+    assertFalse(inputContext.isDataAvailable());
+
+    writer.close();
+    final InputStream inputStream = inputContext.getInputStreams().next();
+    assertEquals(0, newDecoder(inputStream).decode());
+    assertEquals(-1, inputStream.read());
+  }
+
+  @Test(timeout = 10000)
+  public void testFlushOnWatermark() throws Exception {
+    final PipeOutputWriter writer = newWriter();
+    writer.write(0);
+    writer.write(1);
+    Thread.sleep(WAIT_MS);
+    assertFalse(inputContext.isDataAvailable());
+
+    // The watermark is not held back in the pending batch, nor are the elements before it
+    writer.writeWatermark(new Watermark(100));
+    final DecoderFactory.Decoder decoder = newDecoder(inputContext.getInputStreams().next());
+    assertEquals(0, decoder.decode());
+    assertEquals(1, decoder.decode());
+    final Object watermark = decoder.decode();
+    assertTrue(watermark instanceof WatermarkWithIndex);
+    assertEquals(100, ((WatermarkWithIndex) watermark).getWatermark().getTimestamp());
+    assertEquals(0, ((WatermarkWithIndex) watermark).getIndex());
+    writer.close();
+  }
+
+  /**
+   * @return a writer that batches up to {@link #BATCH_ELEMENTS} elements, without a linger timeout.
+   */
+  private PipeOutputWriter newWriter() {
+    final ExecutionPropertyMap<EdgeExecutionProperty> edgeProperties = new ExecutionPropertyMap<>(EDGE_ID);
+    edgeProperties.put(CommunicationPatternProperty.of(CommunicationPatternProperty.Value.ONE_TO_ONE));
+    edgeProperties.put(PartitionerProperty.of(PartitionerProperty.Type.INTACT));
+    edgeProperties.put(PipeBatchSizeProperty.of(BATCH_ELEMENTS * ELEMENT_BYTES));
+    edgeProperties.put(PipeBatchLingerProperty.of(NO_LINGER_MS));
+    final StageEdge stageEdge = new StageEdge(EDGE_ID, edgeProperties,
+      new OperatorVertex(EmptyComponents.EMPTY_TRANSFORM), new OperatorVertex(EmptyComponents.EMPTY_TRANSFORM),
+      null, null);
+    return new PipeOutputWriter(SRC_TASK_ID, stageEdge, pipeManagerWorker);
+  }
+
+  /**
+   * @param inputStream a received input stream.
+   * @return a decoder of the elements and watermarks in the input stream.
+   * @throws IOException on failure to create the decoder.
+   */
+  private static DecoderFactory.Decoder newDecoder(final InputStream inputStream) throws IOException {
+    return new NemoEventDecoderFactory(IntDecoderFactory.of()).create(inputStream);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.datatransfer;
+
+import org.apache.nemo.common.punctuation.Watermark;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TimedOutputWriter}.
+ */
+public final class TimedOutputWriterTest {
+  private static final long WRITE_TIME_MS = 1;
+
+  /**
+   * Tests that the time spent in the writes is estimated from the sampled writes,
+   * and that the watermarks and the close are timed.
+   */
+  @Test(timeout = 10000)
+  public void testWriteTime() {
+    final int numOfElements = 300;
+    final SlowOutputWriter slowOutputWriter = new SlowOutputWriter();
+    final TimedOutputWriter timedOutputWriter = new TimedOutputWriter(slowOutputWriter);
+    assertEquals(0, timedOutputWriter.getWriteTimeNs());
+
+    // The first write is sampled.
+    timedOutputWriter.write(0);
+    assertTrue(timedOutputWriter.getWriteTimeNs() >= TimeUnit.MILLISECONDS.toNanos(WRITE_TIME_MS));
+
+    for (int i = 1; i < numOfElements; i++) {
+      timedOutputWriter.write(i);
+    }
+    assertEquals(numOfElements, slowOutputWriter.written.size());
+    final long elementWriteTimeNs = timedOutputWriter.getWriteTimeNs();
+    assertTrue(elementWriteTimeNs >= TimeUnit.MILLISECONDS.toNanos(numOfElements * WRITE_TIME_MS));
+
+    timedOutputWriter.writeWatermark(new Watermark(0));
+    timedOutputWriter.close();
+    assertTrue(timedOutputWriter.getWriteTimeNs() - elementWriteTimeNs
+      >= TimeUnit.MILLISECONDS.toNanos(2 * WRITE_TIME_MS));
+    assertEquals(Optional.of((long) numOfElements), timedOutputWriter.getWrittenBytes());
+  }
+
+  /**
+   * An output writer that takes at least {@link #WRITE_TIME_MS} for each call.
+   */
+  private static final class SlowOutputWriter implements OutputWriter {
+    private final List<Object> written = new ArrayList<>();
+
+    @Override
+    public void write(final Object element) {
+      written.add(element);
+      spend();
+    }
+
+    @Override
+    public void writeWatermark(final Watermark watermark) {
+      spend();
+    }
+
+    @Override
+    public Optional<Long> getWrittenBytes() {
+      return Optional.of((long) written.size());
+    }
+
+    @Override
+    public void close() {
+      spend();
+    }
+
+    private static void spend() {
+      final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WRITE_TIME_MS);
+      while (System.nanoTime() < end) {
+        Thread.yield();
+      }
+    }
+  }
+}
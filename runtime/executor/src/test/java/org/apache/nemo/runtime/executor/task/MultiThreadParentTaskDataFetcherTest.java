@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.task;
+
+import org.apache.nemo.common.ir.OutputCollector;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.punctuation.Finishmark;
+import org.apache.nemo.common.punctuation.Watermark;
+import org.apache.nemo.runtime.executor.data.DataUtil;
+import org.apache.nemo.runtime.executor.datatransfer.InputReader;
+import org.apache.nemo.runtime.executor.datatransfer.WatermarkWithIndex;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link MultiThreadParentTaskDataFetcher}.
+ */
+public final class MultiThreadParentTaskDataFetcherTest {
+  private static final int QUEUE_CAPACITY = 4;
+  private static final long PAUSE_CHECK_MS = 200;
+
+  /**
+   * Tests that a pipe is read as its data arrives, and that the selector of the task is notified.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testReadOnArrival() throws Exception {
+    final TestPipe pipe = new TestPipe();
+    final MultiThreadParentTaskDataFetcher fetcher = createFetcher(PipeReaderPool.newInstance(1, QUEUE_CAPACITY),
+      pipe.iterator);
+    final DataFetcherSelector selector = new DataFetcherSelector();
+    fetcher.registerSelector(selector);
+
+    // Nothing has arrived yet.
+    assertNoElement(fetcher);
+
+    pipe.add("a");
+    assertTrue(selector.select(5000).contains(fetcher));
+    fetcher.clearNotification();
+    assertEquals("a", fetch(fetcher));
+
+    pipe.add("b");
+    pipe.end();
+    assertEquals("b", fetch(fetcher));
+    assertEquals(Finishmark.getInstance(), fetch(fetcher));
+    fetcher.close();
+  }
+
+  /**
+   * Tests that the reading of a pipe pauses while the element queue of the fetcher is full,
+   * and resumes once the task has fetched half of the queue.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testPauseAndResume() throws Exception {
+    final int numOfElements = 100;
+    final TestPipe pipe = new TestPipe();
+    final MultiThreadParentTaskDataFetcher fetcher = createFetcher(PipeReaderPool.newInstance(1, QUEUE_CAPACITY),
+      pipe.iterator);
+    assertNoElement(fetcher);
+
+    // The reading pauses once the queue is full.
+    IntStream.range(0, numOfElements).forEach(pipe::add);
+    pipe.end();
+    while (pipe.numOfReadElements.get() < QUEUE_CAPACITY) {
+      Thread.yield();
+    }
+    Thread.sleep(PAUSE_CHECK_MS);
+    assertEquals(QUEUE_CAPACITY, pipe.numOfReadElements.get());
+
+    // Fetching one element does not resume the reading, until half of the queue is fetched.
+    assertEquals(0, fetch(fetcher));
+    Thread.sleep(PAUSE_CHECK_MS);
+    assertEquals(QUEUE_CAPACITY, pipe.numOfReadElements.get());
+    assertEquals(1, fetch(fetcher));
+    while (pipe.numOfReadElements.get() == QUEUE_CAPACITY) {
+      Thread.yield();
+    }
+
+    // The rest is fetched in order, without exceeding the capacity of the queue.
+    for (int i = 2; i < numOfElements; i++) {
+      assertEquals(i, fetch(fetcher));
+      assertTrue(pipe.numOfReadElements.get() - (i + 1) <= QUEUE_CAPACITY);
+    }
+    assertEquals(Finishmark.getInstance(), fetch(fetcher));
+    fetcher.close();
+  }
+
+  /**
+   * Tests that many pipes are read by a single reader thread,
+   * and that iterators that are not readiness-aware are read on dedicated threads.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testManyPipes() throws Exception {
+    final int numOfPipes = 10;
+    final List<TestPipe> pipes = IntStream.range(0, numOfPipes).mapToObj(i -> new TestPipe())
+      .collect(Collectors.toList());
+    final Iterator<Object> blockingIterator = Arrays.<Object>asList("x", "y").iterator();
+    final List<DataUtil.IteratorWithNumBytes> iterators = pipes.stream()
+      .map(pipe -> pipe.iterator)
+      .collect(Collectors.toList());
+    iterators.add(DataUtil.IteratorWithNumBytes.of(blockingIterator));
+    final MultiThreadParentTaskDataFetcher fetcher = createFetcher(PipeReaderPool.newInstance(1, QUEUE_CAPACITY),
+      iterators.toArray(new DataUtil.IteratorWithNumBytes[0]));
+
+    final Set<Object> expected = new HashSet<>(Arrays.asList("x", "y"));
+    for (int i = 0; i < numOfPipes; i++) {
+      pipes.get(i).add(i);
+      pipes.get(i).end();
+      expected.add(i);
+    }
+
+    final Set<Object> fetched = new HashSet<>();
+    for (Object element = fetch(fetcher); !(element instanceof Finishmark); element = fetch(fetcher)) {
+      fetched.add(element);
+    }
+    assertEquals(expected, fetched);
+    final Set<String> readerThreads = pipes.stream()
+      .flatMap(pipe -> pipe.readerThreads.stream())
+      .collect(Collectors.toSet());
+    assertEquals(1, readerThreads.size());
+    fetcher.close();
+  }
+
+  /**
+   * Tests that the watermarks of the pipes are tracked as the task fetches them,
+   * and that the minimum watermark is fetched in order with the data elements once it advances.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testWatermarks() throws Exception {
+    final TestPipe pipe0 = new TestPipe();
+    final TestPipe pipe1 = new TestPipe();
+    final MultiThreadParentTaskDataFetcher fetcher = createFetcher(PipeReaderPool.newInstance(1, QUEUE_CAPACITY),
+      pipe0.iterator, pipe1.iterator);
+
+    // The watermark of a pipe is not fetched while the other pipe has no watermark.
+    pipe0.add(new WatermarkWithIndex(new Watermark(10), 0));
+    pipe0.add("a");
+    assertEquals("a", fetch(fetcher));
+
+    pipe1.add(new WatermarkWithIndex(new Watermark(5), 1));
+    pipe1.add("b");
+    assertEquals(new Watermark(5), fetch(fetcher));
+    assertEquals("b", fetch(fetcher));
+
+    pipe0.end();
+    pipe1.end();
+    assertEquals(Finishmark.getInstance(), fetch(fetcher));
+    fetcher.close();
+  }
+
+  /**
+   * Tests that a failure on reading a pipe is thrown to the task.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000, expected = IOException.class)
+  public void testReadFailure() throws Exception {
+    final DataUtil.ReadinessAwareIterator<Object> failingIterator = DataUtil.ReadinessAwareIterator.of(
+      DataUtil.IteratorWithNumBytes.of(new Iterator<Object>() {
+        @Override
+        public boolean hasNext() {
+          throw new RuntimeException("Fail");
+        }
+
+        @Override
+        public Object next() {
+          throw new RuntimeException("Fail");
+        }
+      }), () -> true, listener -> {
+      });
+    final MultiThreadParentTaskDataFetcher fetcher = createFetcher(PipeReaderPool.newInstance(1, QUEUE_CAPACITY),
+      failingIterator);
+    fetch(fetcher); // checked by 'expected = IOException.class'
+  }
+
+  private static MultiThreadParentTaskDataFetcher createFetcher(final PipeReaderPool pipeReaderPool,
+                                                                final DataUtil.IteratorWithNumBytes... iterators) {
+    final InputReader inputReader = mock(InputReader.class);
+    when(inputReader.read()).thenReturn(Arrays.stream(iterators)
+      .map(CompletableFuture::completedFuture)
+      .collect(Collectors.toList()));
+    return new MultiThreadParentTaskDataFetcher(
+      mock(IRVertex.class), inputReader, mock(OutputCollector.class), pipeReaderPool);
+  }
+
+  /**
+   * @param fetcher to fetch from, which has no available element.
+   * @throws IOException on a read failure.
+   */
+  private static void assertNoElement(final DataFetcher fetcher) throws IOException {
+    try {
+      fetcher.fetchDataElement();
+      fail();
+    } catch (final NoSuchElementException e) {
+      // expected
+    }
+  }
+
+  /**
+   * @param fetcher to fetch from.
+   * @return the next element, once it is available.
+   * @throws IOException on a read failure.
+   */
+  private static Object fetch(final DataFetcher fetcher) throws IOException {
+    while (true) {
+      try {
+        return fetcher.fetchDataElement();
+      } catch (final NoSuchElementException e) {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * A pipe whose data arrives as the test adds it, read through a {@link DataUtil.ReadinessAwareIterator}.
+   */
+  private static final class TestPipe {
+    private final ConcurrentLinkedQueue<Object> arrived = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numOfReadElements = new AtomicInteger(0);
+    private final Set<String> readerThreads = new HashSet<>();
+    private volatile boolean ended = false;
+    private volatile Runnable listener = null;
+    private final DataUtil.ReadinessAwareIterator<Object> iterator = DataUtil.ReadinessAwareIterator.of(
+      DataUtil.IteratorWithNumBytes.of(new Iterator<Object>() {
+        @Override
+        public boolean hasNext() {
+          while (arrived.isEmpty() && !ended) {
+            Thread.yield();
+          }
+          return !arrived.isEmpty();
+        }
+
+        @Override
+        public Object next() {
+          synchronized (readerThreads) {
+            readerThreads.add(Thread.currentThread().getName());
+          }
+          numOfReadElements.incrementAndGet();
+          return arrived.remove();
+        }
+      }), () -> !arrived.isEmpty() || ended, newListener -> listener = newListener);
+
+    private void add(final Object element) {
+      arrived.add(element);
+      notifyListener();
+    }
+
+    private void end() {
+      ended = true;
+      notifyListener();
+    }
+
+    private void notifyListener() {
+      final Runnable currentListener = listener;
+      if (currentListener != null) {
+        currentListener.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.task;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link PipeReaderPool}.
+ */
+public final class PipeReaderPoolTest {
+
+  /**
+   * Tests that the readers of the pipes with data to read share the given number of threads.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testReaderThreads() throws Exception {
+    final int numOfThreads = 2;
+    final int numOfReaders = 100;
+    final PipeReaderPool pool = PipeReaderPool.newInstance(numOfThreads, 1);
+    final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    final CountDownLatch latch = new CountDownLatch(numOfReaders);
+    for (int i = 0; i < numOfReaders; i++) {
+      pool.execute(() -> {
+        threadNames.add(Thread.currentThread().getName());
+        latch.countDown();
+      });
+    }
+    latch.await();
+    assertTrue(threadNames.size() <= numOfThreads);
+    assertTrue(threadNames.stream().allMatch(name -> name.startsWith("PipeReader thread-")));
+  }
+
+  /**
+   * Tests that the readers that block on their pipes do not hold back each other.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testBlockingReaders() throws Exception {
+    final int numOfReaders = 10;
+    final PipeReaderPool pool = PipeReaderPool.newInstance(1, 1);
+    final CountDownLatch allStarted = new CountDownLatch(numOfReaders);
+    final CountDownLatch allFinished = new CountDownLatch(numOfReaders);
+    for (int i = 0; i < numOfReaders; i++) {
+      pool.executeBlocking(() -> {
+        allStarted.countDown();
+        try {
+          // Blocks until all readers run at the same time.
+          allStarted.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        allFinished.countDown();
+      });
+    }
+    allFinished.await();
+    assertEquals(0, allStarted.getCount());
+  }
+
+  /**
+   * Tests the default number of reader threads and the validation of the parameters.
+   */
+  @Test
+  public void testParameters() {
+    assertEquals(8, PipeReaderPool.newInstance(0, 8).getFetcherQueueCapacity());
+    assertIllegalArguments(-1, 8);
+    assertIllegalArguments(1, 0);
+  }
+
+  private static void assertIllegalArguments(final int numReaderThreads, final int fetcherQueueCapacity) {
+    try {
+      PipeReaderPool.newInstance(numReaderThreads, fetcherQueueCapacity);
+      fail();
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -37,6 +37,7 @@ import org.apache.nemo.common.ir.vertex.OperatorVertex;
 import org.apache.nemo.common.ir.vertex.SourceVertex;
 import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
 import org.apache.nemo.common.ir.vertex.transform.Transform;
+import org.apache.nemo.common.punctuation.Finishmark;
 import org.apache.nemo.common.punctuation.Watermark;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.message.PersistentConnectionToMasterMap;
@@ -44,13 +45,17 @@ import org.apache.nemo.runtime.common.plan.RuntimeEdge;
 import org.apache.nemo.runtime.common.plan.Stage;
 import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.nemo.runtime.executor.MetricMessageSender;
 import org.apache.nemo.runtime.executor.TaskStateManager;
+import org.apache.nemo.runtime.executor.VertexMetricSampler;
 import org.apache.nemo.runtime.executor.data.BroadcastManagerWorker;
 import org.apache.nemo.runtime.executor.data.DataUtil;
+import org.apache.nemo.runtime.executor.data.MemoryPoolAssigner;
 import org.apache.nemo.runtime.executor.datatransfer.InputReader;
 import org.apache.nemo.runtime.executor.datatransfer.IntermediateDataIOFactory;
 import org.apache.nemo.runtime.executor.datatransfer.OutputWriter;
+import org.apache.nemo.runtime.executor.datatransfer.PipeInputReader;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -80,7 +85,8 @@ import static org.mockito.Mockito.*;
  */
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({InputReader.class, OutputWriter.class, IntermediateDataIOFactory.class, BroadcastManagerWorker.class,
-  TaskStateManager.class, StageEdge.class, PersistentConnectionToMasterMap.class, Stage.class, IREdge.class})
+  TaskStateManager.class, StageEdge.class, PersistentConnectionToMasterMap.class, Stage.class, IREdge.class,
+  PipeInputReader.class})
 public final class TaskExecutorTest {
   private static final AtomicInteger RUNTIME_EDGE_ID = new AtomicInteger(0);
   private static final int DATA_SIZE = 100;
@@ -88,6 +94,8 @@ public final class TaskExecutorTest {
     = new ExecutionPropertyMap<>("TASK_EXECUTION_PROPERTY_MAP");
   private static final int SOURCE_PARALLELISM = 5;
   private static final int FIRST_ATTEMPT = 0;
+  private static final int NUM_STREAMING_ELEMENTS = 20;
+  private static final long STREAMING_ELEMENT_INTERVAL_MS = 20;
 
   private List<Integer> elements;
   private Map<String, List> runtimeEdgeToOutputData;
@@ -289,6 +297,101 @@ public final class TaskExecutorTest {
     assertTrue(checkEqualElements(elements, runtimeEdgeToOutputData.get(taskOutEdge.getId())));
   }
 
+  /**
+   * Test that the time and the bytes of reading from the parent tasks and writing to the child tasks are reported.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testShuffleMetrics() throws Exception {
+    final IRVertex vertex = new OperatorVertex(new StreamTransform());
+
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+      .addVertex(vertex)
+      .buildWithoutSourceSinkCheck();
+
+    final String taskId = generateTaskId();
+    final Task task = new Task(
+      "testShuffleMetrics",
+      taskId,
+      TASK_EXECUTION_PROPERTY_MAP,
+      new byte[0],
+      Collections.singletonList(mockStageEdgeTo(vertex)),
+      Collections.singletonList(mockStageEdgeFrom(vertex)),
+      Collections.emptyMap());
+
+    // Execute the task.
+    final TaskExecutor taskExecutor = getTaskExecutor(task, taskDag);
+    taskExecutor.execute();
+
+    // Check the metrics.
+    for (final String metricField : Arrays.asList(
+      "shuffleReadBytes", "shuffleReadTime", "shuffleWriteBytes", "shuffleWriteTime")) {
+      verify(metricMessageSender).send(eq("TaskMetric"), eq(taskId), eq(metricField), anyLong());
+    }
+  }
+
+  /**
+   * Compares the per-element latency of a streaming (pipe) input between the periodic polling of pending
+   * data fetchers and the readiness notification of data fetchers.
+   * The producer emits an element every {@link #STREAMING_ELEMENT_INTERVAL_MS}, so that the data fetcher
+   * becomes pending between elements.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testStreamingInputLatency() throws Exception {
+    final long pollingLatencyNs = measureStreamingInputLatencyNs(false);
+    final long notificationLatencyNs = measureStreamingInputLatencyNs(true);
+    assertTrue("polling: " + pollingLatencyNs + "ns, notification: " + notificationLatencyNs + "ns",
+      notificationLatencyNs < pollingLatencyNs);
+  }
+
+  private long measureStreamingInputLatencyNs(final boolean readinessNotificationEnabled) throws Exception {
+    final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    final IRVertex vertex = new OperatorVertex(new LatencyRecordingTransform(latencies));
+
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+      .addVertex(vertex)
+      .buildWithoutSourceSinkCheck();
+
+    final BlockingQueue<Object> pipe = new LinkedBlockingQueue<>();
+    when(intermediateDataIOFactory.createReader(any(), any(), any())).then(new PipeReaderAnswer(pipe));
+
+    final Task task = new Task(
+      "testStreamingInputLatency",
+      generateTaskId(),
+      TASK_EXECUTION_PROPERTY_MAP,
+      new byte[0],
+      Collections.singletonList(mockStageEdgeTo(vertex)),
+      Collections.emptyList(),
+      Collections.emptyMap());
+
+    // Emit the send time of each element.
+    final Thread producerThread = new Thread(() -> {
+      try {
+        for (int i = 0; i < NUM_STREAMING_ELEMENTS; i++) {
+          Thread.sleep(STREAMING_ELEMENT_INTERVAL_MS);
+          pipe.put(System.nanoTime());
+        }
+        pipe.put(Finishmark.getInstance());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    producerThread.start();
+    new TaskExecutor(task, taskDag, taskStateManager, intermediateDataIOFactory, broadcastManagerWorker,
+      metricMessageSender, persistentConnectionToMasterMap, PipeReaderPool.newInstance(0, 10000),
+      new MemoryPoolAssigner(5, 0.2, 32),
+      VertexMetricSampler.newInstance("executor", 0, persistentConnectionToMasterMap),
+      readinessNotificationEnabled).execute();
+    producerThread.join();
+
+    assertEquals(NUM_STREAMING_ELEMENTS, latencies.size());
+    return latencies.stream().mapToLong(Long::longValue).sum() / latencies.size();
+  }
+
   private void waitUntilWatermarkEmitted(final Queue<Long> watermarkQueue) {
     while (!watermarkQueue.isEmpty()) {
       try {
@@ -433,6 +536,47 @@ public final class TaskExecutorTest {
     assertTrue(checkEqualElements(elements, runtimeEdgeToOutputData.get(taskOutEdge.getId())));
   }
 
+  /**
+   * The DAG of the task to test will looks like:
+   * parent task - task (failing vertex - vertex to cancel) - child task
+   * <p>
+   * The transform that the task cannot close because of the failure of the other transform should be cancelled,
+   * so that it can release its resources.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 5000)
+  public void testCancelOnSiblingFailure() throws Exception {
+    final IRVertex failingVertex = new OperatorVertex(new FailingTransform());
+    final CancelRecordingTransform cancelRecordingTransform = new CancelRecordingTransform();
+    final IRVertex vertexToCancel = new OperatorVertex(cancelRecordingTransform);
+
+    final String edgeId = "edge";
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag = new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>()
+      .addVertex(failingVertex)
+      .addVertex(vertexToCancel)
+      .connectVertices(createEdge(failingVertex, vertexToCancel, edgeId))
+      .buildWithoutSourceSinkCheck();
+
+    final Task task = new Task(
+      "testCancelOnSiblingFailure",
+      generateTaskId(),
+      TASK_EXECUTION_PROPERTY_MAP,
+      new byte[0],
+      Collections.singletonList(mockStageEdgeTo(failingVertex)),
+      Collections.singletonList(mockStageEdgeFrom(vertexToCancel)),
+      Collections.emptyMap());
+
+    // Execute the task.
+    final TaskExecutor taskExecutor = getTaskExecutor(task, taskDag);
+    taskExecutor.execute();
+
+    // Check that the task failed, and the other transform was cancelled instead of closed.
+    verify(taskStateManager).onTaskStateChanged(TaskState.State.FAILED, Optional.empty(), Optional.empty());
+    assertTrue(cancelRecordingTransform.cancelled);
+    assertFalse(cancelRecordingTransform.closed);
+  }
+
   @Test(timeout = 5000)
   public void testTwoOperatorsWithBroadcastVariable() {
     final Transform singleListTransform = new CreateSingleListTransform();
@@ -594,6 +738,56 @@ public final class TaskExecutorTest {
     }
   }
 
+  /**
+   * Represents the answer return a {@link PipeInputReader},
+   * which streams the elements put into the given queue until a {@link Finishmark} is put.
+   */
+  private class PipeReaderAnswer implements Answer<InputReader> {
+    private final BlockingQueue<Object> pipe;
+
+    PipeReaderAnswer(final BlockingQueue<Object> pipe) {
+      this.pipe = pipe;
+    }
+
+    @Override
+    public InputReader answer(final InvocationOnMock invocationOnMock) throws Throwable {
+      final Iterator<Object> pipeIterator = new Iterator<Object>() {
+        private Object nextElement = null;
+
+        @Override
+        public boolean hasNext() {
+          if (nextElement == null) {
+            try {
+              nextElement = pipe.take();
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new RuntimeException(e);
+            }
+          }
+          return !(nextElement instanceof Finishmark);
+        }
+
+        @Override
+        public Object next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final Object element = nextElement;
+          nextElement = null;
+          return element;
+        }
+      };
+      final InputReader inputReader = mock(PipeInputReader.class);
+      final IRVertex srcVertex = (IRVertex) invocationOnMock.getArgument(1);
+      srcVertex.setProperty(ParallelismProperty.of(1));
+      when(inputReader.getSrcIrVertex()).thenReturn(srcVertex);
+      when(inputReader.read()).thenReturn(Collections.singletonList(
+        CompletableFuture.completedFuture(DataUtil.IteratorWithNumBytes.of(pipeIterator))));
+      when(inputReader.getProperties()).thenReturn(new ExecutionPropertyMap<>(""));
+      return inputReader;
+    }
+  }
+
   /**
    * Represents the answer return a {@link OutputWriter},
    * which will stores the data to the map between task id and output data.
@@ -653,6 +847,37 @@ public final class TaskExecutorTest {
     }
   }
 
+  /**
+   * Records the latency of each element, which is the send time of the element in nanoseconds.
+   */
+  private class LatencyRecordingTransform implements Transform<Long, Long> {
+    private final List<Long> latencies;
+
+    LatencyRecordingTransform(final List<Long> latencies) {
+      this.latencies = latencies;
+    }
+
+    @Override
+    public void prepare(final Context context, final OutputCollector<Long> outputCollector) {
+      // Do nothing.
+    }
+
+    @Override
+    public void onWatermark(final Watermark watermark) {
+      // Do nothing.
+    }
+
+    @Override
+    public void onData(final Long element) {
+      latencies.add(System.nanoTime() - element);
+    }
+
+    @Override
+    public void close() {
+      // Do nothing.
+    }
+  }
+
   /**
    * Source vertex for unbounded source test.
    */
@@ -775,6 +1000,38 @@ public final class TaskExecutorTest {
     }
   }
 
+  /**
+   * Fails on the first data element.
+   *
+   * @param <T> input/output type.
+   */
+  private class FailingTransform<T> extends StreamTransform<T> {
+    @Override
+    public void onData(final Object element) {
+      throw new IllegalStateException("Failure of the transform");
+    }
+  }
+
+  /**
+   * Identity function that records whether it has been closed or cancelled.
+   *
+   * @param <T> input/output type.
+   */
+  private class CancelRecordingTransform<T> extends StreamTransform<T> {
+    private boolean closed = false;
+    private boolean cancelled = false;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+
   /**
    * Creates a view.
    *
@@ -897,6 +1154,8 @@ public final class TaskExecutorTest {
 
   private TaskExecutor getTaskExecutor(final Task task, final DAG<IRVertex, RuntimeEdge<IRVertex>> taskDag) {
     return new TaskExecutor(task, taskDag, taskStateManager, intermediateDataIOFactory, broadcastManagerWorker,
-      metricMessageSender, persistentConnectionToMasterMap);
+      metricMessageSender, persistentConnectionToMasterMap, PipeReaderPool.newInstance(0, 10000),
+      new MemoryPoolAssigner(5, 0.2, 32),
+      VertexMetricSampler.newInstance("executor", 0, persistentConnectionToMasterMap), true);
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.transfer;
+
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.runtime.executor.data.PipeManagerWorker;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link ByteOutputContext.BatchingOutputStream}, which sends the elements written to a pipe in batches.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({PipeManagerWorker.class, ByteTransfer.class})
+public final class BatchingOutputStreamTest {
+  private static final String EDGE_ID = "Edge-0";
+  private static final int INT_BYTES = 4;
+  private static final int BATCH_ELEMENTS = 10;
+  private static final long NO_LINGER_MS = 3600000;
+  private static final long WAIT_MS = 200;
+  private static final Serializer<Integer, Integer> SERIALIZER = new Serializer<>(IntEncoderFactory.of(),
+    IntDecoderFactory.of(), Collections.emptyList(), Collections.emptyList());
+
+  private TestByteTransport transport;
+  private ByteOutputContext outputContext;
+  private ByteInputContext inputContext;
+
+  @Before
+  public void setUp() throws Exception {
+    transport = new TestByteTransport(0, mock(PipeManagerWorker.class), mock(ByteTransfer.class));
+    final Pair<ByteOutputContext, ByteInputContext> pipe = transport.newPipe(EDGE_ID);
+    outputContext = pipe.left();
+    inputContext = pipe.right();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testFlushOnBatchSizeBoundary() throws Exception {
+    final ByteOutputContext.BatchingOutputStream batchingStream =
+      outputContext.newBatchingOutputStream(BATCH_ELEMENTS * INT_BYTES, NO_LINGER_MS);
+
+    // The pending batch is held back until it reaches the batch size
+    for (int i = 0; i < BATCH_ELEMENTS - 1; i++) {
+      batchingStream.writeElement(i, SERIALIZER);
+    }
+    Thread.sleep(WAIT_MS);
+    assertFalse(inputContext.isDataAvailable());
+
+    batchingStream.writeElement(BATCH_ELEMENTS - 1, SERIALIZER);
+    assertElements(inputContext.getInputStreams().next(), 0, BATCH_ELEMENTS);
+
+    // The next element starts a new batch
+    batchingStream.writeElement(BATCH_ELEMENTS, SERIALIZER);
+    Thread.sleep(WAIT_MS);
+    assertFalse(inputContext.isDataAvailable());
+    batchingStream.close();
+    outputContext.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testFlushOnClose() throws Exception {
+    final ByteOutputContext.BatchingOutputStream batchingStream =
+      outputContext.newBatchingOutputStream(BATCH_ELEMENTS * INT_BYTES, NO_LINGER_MS);
+    final int numElements = BATCH_ELEMENTS / 2;
+    for (int i = 0; i < numElements; i++) {
+      batchingStream.writeElement(i, SERIALIZER);
+    }
+    Thread.sleep(WAIT_MS);
+    assertFalse(inputContext.isDataAvailable());
+
+    batchingStream.close();
+    outputContext.close();
+    final InputStream inputStream = inputContext.getInputStreams().next();
+    assertElements(inputStream, 0, numElements);
+    assertEquals(-1, inputStream.read());
+    assertFalse(inputContext.getInputStreams().hasNext());
+  }
+
+  @Test(timeout = 10000)
+  public void testFlushOnLingerTimeout() throws Exception {
+    final ByteOutputContext.BatchingOutputStream batchingStream =
+      outputContext.newBatchingOutputStream(BATCH_ELEMENTS * INT_BYTES, WAIT_MS / 2);
+    batchingStream.writeElement(0, SERIALIZER);
+    assertElements(inputContext.getInputStreams().next(), 0, 1);
+    batchingStream.close();
+    outputContext.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testExplicitFlush() throws Exception {
+    final ByteOutputContext.BatchingOutputStream batchingStream =
+      outputContext.newBatchingOutputStream(BATCH_ELEMENTS * INT_BYTES, NO_LINGER_MS);
+    batchingStream.writeElement(0, SERIALIZER);
+    batchingStream.writeElement(1, SERIALIZER);
+    batchingStream.flush();
+    assertElements(inputContext.getInputStreams().next(), 0, 2);
+
+    // Flushing without a pending batch does not send an empty batch
+    batchingStream.flush();
+    batchingStream.writeElement(2, SERIALIZER);
+    batchingStream.close();
+    outputContext.close();
+    final InputStream inputStream = inputContext.getInputStreams().next();
+    assertElements(inputStream, 2, 1);
+    assertEquals(-1, inputStream.read());
+  }
+
+  /**
+   * Decodes the expected number of consecutive integers from a received input stream.
+   *
+   * @param inputStream the input stream.
+   * @param first       the first expected integer.
+   * @param count       the number of expected integers.
+   * @throws IOException on failure to decode.
+   */
+  private static void assertElements(final InputStream inputStream,
+                                     final int first,
+                                     final int count) throws IOException {
+    final DecoderFactory.Decoder<Integer> decoder = IntDecoderFactory.of().create(inputStream);
+    for (int i = first; i < first + count; i++) {
+      assertEquals(i, (int) decoder.decode());
+    }
+  }
+}
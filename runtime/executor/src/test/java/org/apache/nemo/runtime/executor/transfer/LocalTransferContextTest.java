@@ -22,6 +22,8 @@ import junit.framework.TestCase;
 import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
 import org.junit.Test;
 import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit Test for {@link LocalOutputContext} and {@link LocalInputContext}.
@@ -33,6 +35,7 @@ public final class LocalTransferContextTest extends TestCase {
   private static final int DST_TASK_INDEX = 0;
   private static final Serializer NULL_SERIALIZER = null;
   private static final int NUM_OF_ELEMENTS = 10000000;
+  private static final int QUEUE_CAPACITY = 10;
   private static int expectedCount = 0;
   private static int count = 0;
 
@@ -112,4 +115,40 @@ public final class LocalTransferContextTest extends TestCase {
     assertTrue(outputContext.isClosed());
     assertTrue(inputContext.isOutputContextClosed());
   }
+
+  @Test
+  public void testBoundedQueue() throws InterruptedException {
+    final LocalOutputContext outputContext =
+      new LocalOutputContext(EXECUTOR_ID, EDGE_ID, SRC_TASK_INDEX, DST_TASK_INDEX, QUEUE_CAPACITY);
+    final TransferOutputStream outputStream = outputContext.newOutputStream();
+    final LocalInputContext inputContext = new LocalInputContext(outputContext);
+    final Iterator<Object> inputIterator = inputContext.getIterator();
+
+    // The sender fills the queue, and blocks on the next element
+    final CountDownLatch sentAll = new CountDownLatch(1);
+    final Thread sender = new Thread(() -> {
+      for (int element = 0; element <= QUEUE_CAPACITY; element++) {
+        outputStream.writeElement(element, NULL_SERIALIZER);
+      }
+      sentAll.countDown();
+      outputContext.close();
+    });
+    sender.start();
+    assertFalse(sentAll.await(500, TimeUnit.MILLISECONDS));
+    assertEquals(QUEUE_CAPACITY, outputContext.getQueueSize());
+
+    // Retrieving an element unblocks the sender
+    assertTrue(inputIterator.hasNext());
+    assertEquals(0, inputIterator.next());
+    assertTrue(sentAll.await(5, TimeUnit.SECONDS));
+
+    int received = 1;
+    while (inputIterator.hasNext()) {
+      assertEquals(received, inputIterator.next());
+      received++;
+    }
+    sender.join();
+    assertEquals(QUEUE_CAPACITY + 1, received);
+    assertTrue(inputContext.isOutputContextClosed());
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.transfer;
+
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.coder.DecoderFactory;
+import org.apache.nemo.common.coder.IntDecoderFactory;
+import org.apache.nemo.common.coder.IntEncoderFactory;
+import org.apache.nemo.runtime.executor.data.PipeManagerWorker;
+import org.apache.nemo.runtime.executor.data.streamchainer.Serializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the credit-based flow control of a remote pipe: the sender stalls once it has sent a credit window of bytes
+ * the receiver has not consumed, and resumes as the receiver grants the consumed bytes back.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({PipeManagerWorker.class, ByteTransfer.class})
+public final class PipeFlowControlTest {
+  private static final String EDGE_ID = "Edge-0";
+  private static final int INT_BYTES = 4;
+  private static final long CREDIT_WINDOW_BYTES = 16 * INT_BYTES;
+  private static final int NUM_ELEMENTS = 64;
+  private static final long WAIT_MS = 200;
+  private static final Serializer<Integer, Integer> SERIALIZER = new Serializer<>(IntEncoderFactory.of(),
+    IntDecoderFactory.of(), Collections.emptyList(), Collections.emptyList());
+
+  private TestByteTransport transport;
+  private ByteOutputContext outputContext;
+  private ByteInputContext inputContext;
+
+  @Before
+  public void setUp() throws Exception {
+    transport = new TestByteTransport(CREDIT_WINDOW_BYTES, mock(PipeManagerWorker.class), mock(ByteTransfer.class));
+    final Pair<ByteOutputContext, ByteInputContext> pipe = transport.newPipe(EDGE_ID);
+    outputContext = pipe.left();
+    inputContext = pipe.right();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testSenderStallsUntilCreditGrant() throws Exception {
+    assertEquals(CREDIT_WINDOW_BYTES, outputContext.getAvailableCredits());
+
+    // Each element is sent in its own data frame
+    final CompletableFuture<Void> sender = CompletableFuture.runAsync(() -> {
+      try (ByteOutputContext.ByteOutputStream outputStream = outputContext.newOutputStream()) {
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+          outputStream.writeElement(i, SERIALIZER);
+        }
+      } catch (final Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    // The sender stalls after a credit window, as the receiver consumes nothing
+    while (inputContext.getQueuedBytes() < CREDIT_WINDOW_BYTES) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(WAIT_MS);
+    assertFalse(sender.isDone());
+    assertEquals(CREDIT_WINDOW_BYTES, inputContext.getQueuedBytes());
+    assertEquals(0, outputContext.getAvailableCredits());
+
+    // The receiver grants the consumed bytes back, which resumes the sender
+    final DecoderFactory.Decoder<Integer> decoder =
+      IntDecoderFactory.of().create(inputContext.getInputStreams().next());
+    for (int i = 0; i < NUM_ELEMENTS; i++) {
+      assertEquals(i, (int) decoder.decode());
+    }
+    sender.get();
+    outputContext.close();
+    assertFalse(inputContext.getInputStreams().hasNext());
+    assertEquals(0, inputContext.getQueuedBytes());
+
+    final PipeFlowControlMetrics.EdgeStatistics senderStatistics =
+      transport.getSenderMetrics().getAllEdgeStatistics().get(EDGE_ID);
+    assertTrue(senderStatistics.getNumSenderStalls() > 0);
+    assertTrue(senderStatistics.getSenderStallNanos() > 0);
+
+    final PipeFlowControlMetrics.EdgeStatistics receiverStatistics =
+      transport.getReceiverMetrics().getAllEdgeStatistics().get(EDGE_ID);
+    assertEquals(0, receiverStatistics.getQueuedBytes());
+    assertEquals(CREDIT_WINDOW_BYTES, receiverStatistics.getPeakQueuedBytes());
+    final Map<String, Long> snapshot = receiverStatistics.toMap();
+    assertEquals(CREDIT_WINDOW_BYTES, (long) snapshot.get("peakQueuedBytes"));
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.executor.transfer;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.executor.data.PipeManagerWorker;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Connects a sender and a receiver executor through an in-JVM Netty channel, with the same pipeline as
+ * {@link ByteTransportChannelInitializer}, to test pipe transfer contexts without sockets.
+ * The worker mocks are created by the test, which has to prepare the final classes for mocking.
+ */
+public final class TestByteTransport implements AutoCloseable {
+  public static final String SENDER_EXECUTOR_ID = "SENDER_EXECUTOR";
+  public static final String RECEIVER_EXECUTOR_ID = "RECEIVER_EXECUTOR";
+  private static final AtomicInteger ADDRESS_INDEX = new AtomicInteger(0);
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private final EventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(2);
+  private final ChannelGroup channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+  private final BlockingQueue<ByteOutputContext> senderOutputContexts = new LinkedBlockingQueue<>();
+  private final AtomicReference<ContextManager> receiverContextManager = new AtomicReference<>();
+  private final PipeFlowControlMetrics senderMetrics;
+  private final PipeFlowControlMetrics receiverMetrics;
+
+  /**
+   * Connects the sender and the receiver.
+   *
+   * @param pipeCreditWindowBytes   the credit window of a pipe in bytes, or 0 to disable flow control.
+   * @param senderPipeManagerWorker a mock, which gets the output contexts the receiver initiates.
+   * @param byteTransfer            a mock, which caches the channels.
+   * @throws Exception on failure to connect.
+   */
+  public TestByteTransport(final long pipeCreditWindowBytes,
+                           final PipeManagerWorker senderPipeManagerWorker,
+                           final ByteTransfer byteTransfer) throws Exception {
+    doAnswer(invocationOnMock -> {
+      senderOutputContexts.add(invocationOnMock.getArgument(0));
+      return null;
+    }).when(senderPipeManagerWorker).onOutputContext(any());
+
+    this.senderMetrics = Tang.Factory.getTang().newInjector().getInstance(PipeFlowControlMetrics.class);
+    this.receiverMetrics = Tang.Factory.getTang().newInjector().getInstance(PipeFlowControlMetrics.class);
+    final LocalAddress address = new LocalAddress(TestByteTransport.class.getSimpleName()
+      + ADDRESS_INDEX.getAndIncrement());
+
+    new ServerBootstrap()
+      .group(eventLoopGroup)
+      .channel(LocalServerChannel.class)
+      .childHandler(new ChannelInitializer<LocalChannel>() {
+        @Override
+        protected void initChannel(final LocalChannel ch) throws InjectionException {
+          initPipeline(ch, new ContextManager(senderPipeManagerWorker, null, byteTransfer, channelGroup,
+            SENDER_EXECUTOR_ID, ch, pipeCreditWindowBytes, senderMetrics), SENDER_EXECUTOR_ID);
+        }
+      })
+      .bind(address).sync();
+
+    new Bootstrap()
+      .group(eventLoopGroup)
+      .channel(LocalChannel.class)
+      .handler(new ChannelInitializer<LocalChannel>() {
+        @Override
+        protected void initChannel(final LocalChannel ch) throws InjectionException {
+          final ContextManager contextManager = new ContextManager(null, null, byteTransfer, channelGroup,
+            RECEIVER_EXECUTOR_ID, ch, pipeCreditWindowBytes, receiverMetrics);
+          receiverContextManager.set(contextManager);
+          initPipeline(ch, contextManager, RECEIVER_EXECUTOR_ID);
+        }
+      })
+      .connect(address).sync();
+  }
+
+  /**
+   * @param channel        the channel to initialize.
+   * @param contextManager the context manager of the channel.
+   * @param executorId     the id of the local executor.
+   * @throws InjectionException on failure to build the encoders.
+   */
+  private static void initPipeline(final Channel channel,
+                                   final ContextManager contextManager,
+                                   final String executorId) throws InjectionException {
+    final ControlFrameEncoder controlFrameEncoder = Tang.Factory.getTang().newInjector(Tang.Factory.getTang()
+      .newConfigurationBuilder().bindNamedParameter(JobConf.ExecutorId.class, executorId).build())
+      .getInstance(ControlFrameEncoder.class);
+    final DataFrameEncoder dataFrameEncoder = Tang.Factory.getTang().newInjector().getInstance(DataFrameEncoder.class);
+    channel.pipeline()
+      .addLast(new FrameDecoder(contextManager))
+      .addLast(controlFrameEncoder)
+      .addLast(dataFrameEncoder)
+      .addLast(contextManager);
+  }
+
+  /**
+   * Opens a pipe from the sender to the receiver, as the receiver does when it starts reading a pipe.
+   *
+   * @param runtimeEdgeId the id of the runtime edge the pipe transfers.
+   * @return the output context of the sender and the input context of the receiver.
+   * @throws InterruptedException if interrupted while waiting for the sender to get the context.
+   */
+  public Pair<ByteOutputContext, ByteInputContext> newPipe(final String runtimeEdgeId) throws InterruptedException {
+    final byte[] descriptor = ControlMessage.PipeTransferContextDescriptor.newBuilder()
+      .setRuntimeEdgeId(runtimeEdgeId)
+      .setSrcTaskIndex(0)
+      .setDstTaskIndex(0)
+      .setNumPipeToWait(1)
+      .build()
+      .toByteArray();
+    final ByteInputContext inputContext =
+      receiverContextManager.get().newInputContext(SENDER_EXECUTOR_ID, descriptor, true);
+    final ByteOutputContext outputContext = senderOutputContexts.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    if (outputContext == null) {
+      throw new IllegalStateException("The sender did not get the pipe");
+    }
+    return Pair.of(outputContext, inputContext);
+  }
+
+  /**
+   * @return the flow control metrics of the sender.
+   */
+  public PipeFlowControlMetrics getSenderMetrics() {
+    return senderMetrics;
+  }
+
+  /**
+   * @return the flow control metrics of the receiver.
+   */
+  public PipeFlowControlMetrics getReceiverMetrics() {
+    return receiverMetrics;
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    channelGroup.close().await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    eventLoopGroup.shutdownGracefully(0, TIMEOUT_SECONDS, TimeUnit.SECONDS).await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+}
@@ -19,11 +19,14 @@
 package org.apache.nemo.runtime.master;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.nemo.common.KeyRange;
+import org.apache.nemo.common.ir.edge.executionproperty.ShuffleMergeProperty;
 import org.apache.nemo.common.exception.IllegalMessageException;
 import org.apache.nemo.common.exception.UnknownExecutionStateException;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.exception.AbsentBlockException;
+import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.common.message.MessageContext;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.MessageListener;
@@ -43,6 +46,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -62,6 +66,13 @@ public final class BlockManagerMaster {
    */
   private final Map<String, Set<BlockMetadata>> blockIdWildcardToMetadataSet; // a metadata = a task attempt output
 
+  /**
+   * For each runtime edge whose outputs are merged, the metadata of the merged blocks by the consumer task indices.
+   * See {@link RuntimeIdManager#generateMergedBlockId(String, int)} for information on merged blocks.
+   */
+  private final Map<String, Map<Integer, MergedBlockMetadata>> runtimeEdgeIdToMergedBlocks;
+  private final Set<String> invalidMergedRuntimeEdgeIds; // the merged blocks of these edges must not be read
+
   // A lock that can be acquired exclusively or not.
   // Because the BlockMetadata itself is sufficiently synchronized,
   // operation that runs in a single block can just acquire a (sharable) read lock.
@@ -82,6 +93,8 @@ public final class BlockManagerMaster {
       new BlockManagerMasterControlMessageReceiver());
     this.blockIdWildcardToMetadataSet = new HashMap<>();
     this.producerTaskIdToBlockIds = new HashMap<>();
+    this.runtimeEdgeIdToMergedBlocks = new HashMap<>();
+    this.invalidMergedRuntimeEdgeIds = new HashSet<>();
     this.lock = new ReentrantReadWriteLock();
   }
 
@@ -131,6 +144,11 @@ public final class BlockManagerMaster {
         producerTaskForPartition.forEach(tasksToRecompute::add);
       });
 
+      // The merged blocks in the executor are lost, and the consumer tasks read the blocks of the producer tasks.
+      // Neither can the merged blocks the executor was pushing to be read, as they may hold partial pushes.
+      runtimeEdgeIdToMergedBlocks.values().stream().flatMap(mergedBlocks -> mergedBlocks.values().stream())
+        .forEach(mergedBlock -> mergedBlock.onExecutorRemoved(executorId));
+
       return tasksToRecompute;
     } finally {
       writeLock.unlock();
@@ -219,6 +237,162 @@ public final class BlockManagerMaster {
     }
   }
 
+  /**
+   * To be called when a task is scheduled to an executor.
+   * The partitions of the producer tasks are pushed to the executor of the first attempt of the task
+   * for each incoming edge whose outputs are merged, and merged there to be read by the task.
+   *
+   * @param task       the scheduled task.
+   * @param executorId the ID of the executor of the task.
+   */
+  public void onConsumerTaskScheduled(final Task task, final String executorId) {
+    final int consumerTaskIndex = RuntimeIdManager.getIndexFromTaskId(task.getTaskId());
+    task.getTaskIncomingEdges().stream()
+      .filter(inEdge -> inEdge.getPropertyValue(ShuffleMergeProperty.class).orElse(false))
+      .forEach(inEdge -> initializeMergedBlock(inEdge.getId(), consumerTaskIndex, executorId));
+  }
+
+  /**
+   * Initializes the metadata of a merged block, unless it is already initialized for another attempt
+   * of the consumer task or the merged blocks of the runtime edge are invalidated.
+   *
+   * @param runtimeEdgeId     the ID of the runtime edge.
+   * @param consumerTaskIndex the index of the consumer task.
+   * @param executorId        the ID of the executor of the consumer task.
+   */
+  @VisibleForTesting
+  public void initializeMergedBlock(final String runtimeEdgeId,
+                                    final int consumerTaskIndex,
+                                    final String executorId) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      if (!invalidMergedRuntimeEdgeIds.contains(runtimeEdgeId)) {
+        runtimeEdgeIdToMergedBlocks.computeIfAbsent(runtimeEdgeId, edgeId -> new HashMap<>())
+          .computeIfAbsent(consumerTaskIndex, index ->
+            new MergedBlockMetadata(RuntimeIdManager.generateMergedBlockId(runtimeEdgeId, index), executorId));
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the executors to push the partitions of a producer task on a runtime edge to.
+   *
+   * @param runtimeEdgeId    the ID of the runtime edge.
+   * @param numConsumerTasks the number of the consumer tasks.
+   * @return the IDs of the executors by the consumer task indices,
+   * empty for the consumer tasks whose merged blocks cannot take the partitions.
+   */
+  public List<String> getMergerLocations(final String runtimeEdgeId, final int numConsumerTasks) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final Map<Integer, MergedBlockMetadata> mergedBlocks =
+        runtimeEdgeIdToMergedBlocks.getOrDefault(runtimeEdgeId, Collections.emptyMap());
+      final List<String> mergerLocations = new ArrayList<>(numConsumerTasks);
+      for (int consumerTaskIndex = 0; consumerTaskIndex < numConsumerTasks; consumerTaskIndex++) {
+        final MergedBlockMetadata mergedBlock = mergedBlocks.get(consumerTaskIndex);
+        mergerLocations.add(mergedBlock == null ? "" : mergedBlock.getMergerLocation());
+      }
+      return mergerLocations;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * To be called when the partitions of a block are going to be pushed to the merged blocks.
+   * Must be called before the block becomes available, so that the consumer tasks wait for the pushes.
+   *
+   * @param blockId             the ID of the block.
+   * @param producerExecutorId  the ID of the executor which pushes the partitions.
+   * @param consumerTaskIndices the indices of the consumer tasks whose partitions are pushed.
+   */
+  public void onPushesAnnounced(final String blockId,
+                                final String producerExecutorId,
+                                final List<Integer> consumerTaskIndices) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final Map<Integer, MergedBlockMetadata> mergedBlocks =
+        runtimeEdgeIdToMergedBlocks.getOrDefault(RuntimeIdManager.getRuntimeEdgeIdFromBlockId(blockId),
+          Collections.emptyMap());
+      for (final int consumerTaskIndex : consumerTaskIndices) {
+        final MergedBlockMetadata mergedBlock = mergedBlocks.get(consumerTaskIndex);
+        if (mergedBlock != null) {
+          mergedBlock.onPushAnnounced(blockId, producerExecutorId);
+        }
+      }
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * To be called when the partitions of a producer task are pushed to the merged blocks in an executor.
+   *
+   * @param runtimeEdgeId   the ID of the runtime edge of the partitions.
+   * @param producerTaskId  the ID of the producer task.
+   * @param appendedIndices the indices of the consumer tasks whose merged blocks the partitions are appended to.
+   * @param skippedIndices  the indices of the consumer tasks whose merged blocks do not take the partitions,
+   *                        e.g., as the partitions of another attempt of the producer task are appended.
+   * @param failedIndices   the indices of the consumer tasks whose merged blocks may hold partially appended
+   *                        data, and thus must not be read.
+   */
+  public void onMergedBlockAppended(final String runtimeEdgeId,
+                                    final String producerTaskId,
+                                    final List<Integer> appendedIndices,
+                                    final List<Integer> skippedIndices,
+                                    final List<Integer> failedIndices) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final Map<Integer, MergedBlockMetadata> mergedBlocks =
+        runtimeEdgeIdToMergedBlocks.getOrDefault(runtimeEdgeId, Collections.emptyMap());
+      final String producerBlockId = RuntimeIdManager.generateBlockId(runtimeEdgeId, producerTaskId);
+      final int producerTaskIndex = RuntimeIdManager.getIndexFromTaskId(producerTaskId);
+      final BiConsumer<List<Integer>, MergedBlockMetadata.PushResult> onPushDone = (indices, result) -> {
+        for (final int consumerTaskIndex : indices) {
+          final MergedBlockMetadata mergedBlock = mergedBlocks.get(consumerTaskIndex);
+          if (mergedBlock != null) {
+            mergedBlock.onPushDone(producerBlockId, producerTaskIndex, result);
+          }
+        }
+      };
+      onPushDone.accept(appendedIndices, MergedBlockMetadata.PushResult.APPENDED);
+      onPushDone.accept(skippedIndices, MergedBlockMetadata.PushResult.SKIPPED);
+      onPushDone.accept(failedIndices, MergedBlockMetadata.PushResult.FAILED);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * To be called when the consumer stage of a runtime edge completes.
+   * The merged blocks of the edge are not read afterwards (e.g., by a re-executed consumer task, which reads
+   * the blocks of the producer tasks instead), and thus can be removed from the executors.
+   *
+   * @param runtimeEdgeId the ID of the runtime edge.
+   * @return whether any merged block has been created for the edge, which should be removed.
+   */
+  public boolean invalidateMergedBlocks(final String runtimeEdgeId) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      invalidMergedRuntimeEdgeIds.add(runtimeEdgeId);
+      final Map<Integer, MergedBlockMetadata> mergedBlocks = runtimeEdgeIdToMergedBlocks.remove(runtimeEdgeId);
+      if (mergedBlocks == null) {
+        return false;
+      }
+      mergedBlocks.values().forEach(mergedBlock -> mergedBlock.invalidate("the consumer stage has completed"));
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
   /**
    * Gets the committed blocks by an executor.
    *
@@ -278,13 +452,67 @@ public final class BlockManagerMaster {
   public void onBlockStateChanged(final String blockId,
                                   final BlockState.State newState,
                                   @Nullable final String location) {
+    onBlockStateChanged(blockId, newState, location, new long[0]);
+  }
+
+  /**
+   * Deals with state change of a block, along with the committed sizes of its partitions.
+   *
+   * @param blockId        the id of the block.
+   * @param newState       the new state of the block.
+   * @param location       the location of the block (e.g., worker id, remote store).
+   *                       {@code null} if not committed or lost.
+   * @param partitionSizes the committed sizes of the partitions of the block indexed by their keys,
+   *                       empty if unknown.
+   */
+  public void onBlockStateChanged(final String blockId,
+                                  final BlockState.State newState,
+                                  @Nullable final String location,
+                                  final long[] partitionSizes) {
     final Lock readLock = lock.readLock();
     readLock.lock();
     try {
-      getBlockMetaData(blockId).onStateChanged(newState, location);
+      getBlockMetaData(blockId).onStateChanged(newState, location, partitionSizes);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Sums up the committed sizes of the partitions in a key range of the available blocks of a runtime edge,
+   * by the locations of the blocks.
+   * Only one available block is counted for each producer task, as the attempts of a task produce the same data.
+   *
+   * @param runtimeEdgeId    the id of the runtime edge (the representative one, for duplicate edges).
+   * @param numProducerTasks the number of the producer tasks of the edge.
+   * @param keyRange         the key range to sum up.
+   * @return the committed bytes in the key range by the locations, empty if unknown.
+   */
+  public Map<String, Long> getCommittedBytesByLocation(final String runtimeEdgeId,
+                                                       final int numProducerTasks,
+                                                       final KeyRange<Integer> keyRange) {
+    final Map<String, Long> locationToBytes = new HashMap<>();
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      for (int producerTaskIndex = 0; producerTaskIndex < numProducerTasks; producerTaskIndex++) {
+        final String wildcard = RuntimeIdManager.generateBlockIdWildcard(runtimeEdgeId, producerTaskIndex);
+        for (final BlockMetadata metadata : getBlockWildcardStateSet(wildcard)) {
+          final String location = metadata.getLocation();
+          if (location == null) {
+            continue;
+          }
+          final long bytes = metadata.getCommittedBytes(keyRange);
+          if (bytes > 0) {
+            locationToBytes.merge(location, bytes, Long::sum);
+          }
+          break;
+        }
+      }
     } finally {
       readLock.unlock();
     }
+    return locationToBytes;
   }
 
   private BlockMetadata getBlockMetaData(final String blockId) {
@@ -336,6 +564,62 @@ public final class BlockManagerMaster {
     }
   }
 
+  /**
+   * Registers a location request for a merged block, which is replied once the pushes to it are done.
+   * The reply holds no location if the merged block cannot be read, and then the consumer task reads
+   * the blocks of the producer tasks instead.
+   *
+   * @param message        the request message.
+   * @param messageContext the message context which will be used for response.
+   */
+  private void registerMergedBlockLocationRequest(final ControlMessage.Message message,
+                                                  final MessageContext messageContext) {
+    assert (message.getType() == ControlMessage.MessageType.RequestMergedBlockLocation);
+    final ControlMessage.RequestMergedBlockLocationMsg requestMsg = message.getRequestMergedBlockLocationMsg();
+    final String runtimeEdgeId = requestMsg.getRuntimeEdgeId();
+    final int consumerTaskIndex = requestMsg.getConsumerTaskIndex();
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final MergedBlockMetadata mergedBlock =
+        runtimeEdgeIdToMergedBlocks.getOrDefault(runtimeEdgeId, Collections.emptyMap()).get(consumerTaskIndex);
+      if (mergedBlock != null) {
+        mergedBlock.registerLocationRequest(message.getId(), messageContext);
+        return;
+      }
+    } finally {
+      readLock.unlock();
+    }
+    messageContext.reply(
+      ControlMessage.Message.newBuilder()
+        .setId(RuntimeIdManager.generateMessageId())
+        .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
+        .setType(ControlMessage.MessageType.MergedBlockLocationInfo)
+        .setMergedBlockLocationInfoMsg(ControlMessage.MergedBlockLocationInfoMsg.newBuilder()
+          .setRequestId(message.getId())
+          .build())
+        .build());
+  }
+
+  /**
+   * @param message        the request message.
+   * @param messageContext the message context which will be used for response.
+   */
+  private void replyMergerLocations(final ControlMessage.Message message, final MessageContext messageContext) {
+    assert (message.getType() == ControlMessage.MessageType.RequestMergerLocations);
+    final ControlMessage.RequestMergerLocationsMsg requestMsg = message.getRequestMergerLocationsMsg();
+    messageContext.reply(
+      ControlMessage.Message.newBuilder()
+        .setId(RuntimeIdManager.generateMessageId())
+        .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
+        .setType(ControlMessage.MessageType.MergerLocationsInfo)
+        .setMergerLocationsInfoMsg(ControlMessage.MergerLocationsInfoMsg.newBuilder()
+          .setRequestId(message.getId())
+          .addAllExecutorIds(getMergerLocations(requestMsg.getRuntimeEdgeId(), requestMsg.getNumConsumerTasks()))
+          .build())
+        .build());
+  }
+
   /**
    * Handler for control messages received.
    */
@@ -349,8 +633,27 @@ public final class BlockManagerMaster {
             final ControlMessage.BlockStateChangedMsg blockStateChangedMsg =
               message.getBlockStateChangedMsg();
             final String blockId = blockStateChangedMsg.getBlockId();
+            // The keys of the partitions are the hash values, from 0 to the number of the partitions.
+            final List<ControlMessage.PartitionSizeEntry> entries = blockStateChangedMsg.getPartitionSizesList();
+            final long[] partitionSizes =
+              new long[entries.stream().mapToInt(entry -> entry.getKey() + 1).max().orElse(0)];
+            for (final ControlMessage.PartitionSizeEntry entry : entries) {
+              partitionSizes[entry.getKey()] += entry.getSize();
+            }
+            if (blockStateChangedMsg.getPushedConsumerTaskIndicesCount() > 0) {
+              // Before the block becomes available, for the consumer tasks not to miss the pushes
+              onPushesAnnounced(blockId, blockStateChangedMsg.getLocation(),
+                blockStateChangedMsg.getPushedConsumerTaskIndicesList());
+            }
             onBlockStateChanged(blockId, convertBlockState(blockStateChangedMsg.getState()),
-              blockStateChangedMsg.getLocation());
+              blockStateChangedMsg.getLocation(), partitionSizes);
+            break;
+          case MergedBlockAppended:
+            final ControlMessage.MergedBlockAppendedMsg mergedBlockAppendedMsg = message.getMergedBlockAppendedMsg();
+            onMergedBlockAppended(mergedBlockAppendedMsg.getRuntimeEdgeId(), mergedBlockAppendedMsg.getProducerTaskId(),
+              mergedBlockAppendedMsg.getAppendedConsumerTaskIndicesList(),
+              mergedBlockAppendedMsg.getSkippedConsumerTaskIndicesList(),
+              mergedBlockAppendedMsg.getFailedConsumerTaskIndicesList());
             break;
           default:
             throw new IllegalMessageException(
@@ -368,6 +671,12 @@ public final class BlockManagerMaster {
         case RequestBlockLocation:
           registerLocationRequest(message, messageContext);
           break;
+        case RequestMergerLocations:
+          replyMergerLocations(message, messageContext);
+          break;
+        case RequestMergedBlockLocation:
+          registerMergedBlockLocationRequest(message, messageContext);
+          break;
         default:
           throw new IllegalMessageException(
             new Exception("This message should not be received by "
@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.runtime.master;
 
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.StateMachine;
 import org.apache.nemo.common.exception.IllegalStateTransitionException;
 import org.apache.nemo.runtime.common.exception.AbsentBlockException;
@@ -34,9 +35,12 @@ import javax.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 final class BlockMetadata {
   private static final Logger LOG = LoggerFactory.getLogger(BlockMetadata.class.getName());
+  private static final long[] UNKNOWN_PARTITION_SIZES = new long[0];
   private final String blockId;
   private final BlockState blockState;
   private final BlockManagerMaster.BlockRequestHandler locationHandler;
+  private String location;
+  private long[] partitionSizes; // indexed by the keys of the partitions, as many blocks are kept
 
   /**
    * Constructs the metadata for a block.
@@ -48,6 +52,8 @@ final class BlockMetadata {
     this.blockId = blockId;
     this.blockState = new BlockState();
     this.locationHandler = new BlockManagerMaster.BlockRequestHandler(blockId);
+    this.location = null;
+    this.partitionSizes = UNKNOWN_PARTITION_SIZES;
   }
 
   /**
@@ -56,9 +62,12 @@ final class BlockMetadata {
    * @param newState the new state of the block.
    * @param location the location of the block (e.g., worker id, remote store).
    *                 {@code null} if not committed or lost.
+   * @param partitionSizes the committed sizes of the partitions of the block indexed by their keys,
+   *                       empty if unknown.
    */
   synchronized void onStateChanged(final BlockState.State newState,
-                                   @Nullable final String location) {
+                                   @Nullable final String location,
+                                   final long[] partitionSizes) {
     final StateMachine stateMachine = blockState.getStateMachine();
     final Enum oldState = stateMachine.getCurrentState();
     LOG.debug("Block State Transition: id {} from {} to {}", new Object[]{blockId, oldState, newState});
@@ -74,11 +83,18 @@ final class BlockMetadata {
           throw new RuntimeException("Null location");
         }
         locationHandler.complete(location);
+        this.location = location;
+        this.partitionSizes = partitionSizes;
         break;
       default:
         throw new UnsupportedOperationException(newState.toString());
     }
 
+    if (newState != BlockState.State.AVAILABLE) {
+      this.location = null;
+      this.partitionSizes = UNKNOWN_PARTITION_SIZES;
+    }
+
     try {
       stateMachine.setState(newState);
     } catch (IllegalStateTransitionException e) {
@@ -100,6 +116,29 @@ final class BlockMetadata {
     return (BlockState.State) blockState.getStateMachine().getCurrentState();
   }
 
+  /**
+   * @return the location of this block if it is available, {@code null} otherwise.
+   */
+  @Nullable
+  synchronized String getLocation() {
+    return location;
+  }
+
+  /**
+   * @param keyRange the key range of the partitions to sum up.
+   * @return the committed bytes of the partitions in the key range if this block is available and the sizes of
+   * its partitions are known, 0 otherwise.
+   */
+  synchronized long getCommittedBytes(final KeyRange<Integer> keyRange) {
+    final int begin = Math.max(0, keyRange.rangeBeginInclusive());
+    final int end = Math.min(partitionSizes.length, keyRange.rangeEndExclusive());
+    long bytes = 0;
+    for (int key = begin; key < end; key++) {
+      bytes += partitionSizes[key];
+    }
+    return bytes;
+  }
+
   /**
    * @return the handler of block location requests.
    */
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.master;
+
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageContext;
+import org.apache.nemo.runtime.common.message.MessageEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
+
+/**
+ * This class represents the metadata of a merged block, which holds the partitions pushed by the producer tasks
+ * to the executor of a consumer task. See {@link RuntimeIdManager#generateMergedBlockId(String, int)}.
+ * <p>
+ * The producer tasks announce their pushes along with their blocks, and the executor of the consumer task reports
+ * the outcome of each push. The location requests of the consumer task are replied once the announced pushes
+ * are done, with the producer tasks whose partitions the merged block holds. The merged block is sealed then,
+ * and it cannot be read anymore if a push is appended afterwards.
+ */
+@ThreadSafe
+final class MergedBlockMetadata {
+  private static final Logger LOG = LoggerFactory.getLogger(MergedBlockMetadata.class.getName());
+
+  /**
+   * The outcome of a push to a merged block.
+   */
+  enum PushResult {
+    APPENDED,
+    SKIPPED, // e.g., the partitions of another attempt of the producer task are appended before
+    FAILED // the merged block may hold a part of the partitions
+  }
+
+  private final String mergedBlockId;
+  private final String ownerExecutorId;
+  private final Set<Integer> mergedProducerTaskIndices;
+  private final Map<String, String> announcedBlockIdToProducerExecutorId; // the pushes that are not done yet
+  private final Set<String> doneBeforeAnnouncedBlockIds; // the reports can arrive before the announcements
+  private final List<Pair<Long, MessageContext>> pendingLocationRequests;
+  private boolean sealed;
+  private boolean invalid;
+
+  /**
+   * Constructs the metadata for a merged block.
+   *
+   * @param mergedBlockId   the id of the merged block.
+   * @param ownerExecutorId the id of the executor of the consumer task, which holds the merged block.
+   */
+  MergedBlockMetadata(final String mergedBlockId, final String ownerExecutorId) {
+    this.mergedBlockId = mergedBlockId;
+    this.ownerExecutorId = ownerExecutorId;
+    this.mergedProducerTaskIndices = new HashSet<>();
+    this.announcedBlockIdToProducerExecutorId = new HashMap<>();
+    this.doneBeforeAnnouncedBlockIds = new HashSet<>();
+    this.pendingLocationRequests = new ArrayList<>();
+    this.sealed = false;
+    this.invalid = false;
+  }
+
+  /**
+   * @return the id of the executor which holds the merged block if partitions can be pushed to it,
+   * empty otherwise.
+   */
+  synchronized String getMergerLocation() {
+    return sealed || invalid ? "" : ownerExecutorId;
+  }
+
+  /**
+   * Deals with the announcement of a push.
+   *
+   * @param producerBlockId    the id of the block whose partitions are pushed.
+   * @param producerExecutorId the id of the executor which pushes the partitions.
+   */
+  synchronized void onPushAnnounced(final String producerBlockId, final String producerExecutorId) {
+    if (!doneBeforeAnnouncedBlockIds.remove(producerBlockId)) {
+      announcedBlockIdToProducerExecutorId.put(producerBlockId, producerExecutorId);
+    }
+  }
+
+  /**
+   * Deals with the outcome of a push.
+   *
+   * @param producerBlockId   the id of the block whose partitions are pushed.
+   * @param producerTaskIndex the index of the producer task.
+   * @param result            the outcome of the push.
+   */
+  synchronized void onPushDone(final String producerBlockId,
+                               final int producerTaskIndex,
+                               final PushResult result) {
+    if (announcedBlockIdToProducerExecutorId.remove(producerBlockId) == null) {
+      doneBeforeAnnouncedBlockIds.add(producerBlockId);
+    }
+    switch (result) {
+      case APPENDED:
+        if (sealed || !mergedProducerTaskIndices.add(producerTaskIndex)) {
+          invalidate("the partitions of " + producerBlockId + " are appended after the merged block is read");
+        }
+        break;
+      case FAILED:
+        invalidate("failed to append the partitions of " + producerBlockId);
+        break;
+      case SKIPPED:
+        break;
+      default:
+        throw new UnsupportedOperationException(result.toString());
+    }
+    replyIfDone();
+  }
+
+  /**
+   * Deals with the removal of an executor.
+   *
+   * @param executorId the id of the removed executor.
+   */
+  synchronized void onExecutorRemoved(final String executorId) {
+    if (ownerExecutorId.equals(executorId)) {
+      invalidate("the merged block is lost");
+    } else if (announcedBlockIdToProducerExecutorId.values().removeIf(executorId::equals)) {
+      invalidate("a push from " + executorId + " is broken off");
+    }
+    replyIfDone();
+  }
+
+  /**
+   * Makes the merged block not to be read anymore, e.g., as the consumer stage has completed.
+   *
+   * @param reason why the merged block cannot be read.
+   */
+  synchronized void invalidate(final String reason) {
+    if (!invalid) {
+      LOG.info("{} will not be read: {}", mergedBlockId, reason);
+      invalid = true;
+    }
+    replyIfDone();
+  }
+
+  /**
+   * Registers a location request for the merged block, which is replied once the announced pushes are done.
+   *
+   * @param requestId      the ID of the request.
+   * @param messageContext the message context to reply.
+   */
+  synchronized void registerLocationRequest(final long requestId, final MessageContext messageContext) {
+    pendingLocationRequests.add(Pair.of(requestId, messageContext));
+    replyIfDone();
+  }
+
+  /**
+   * Replies to the pending location requests and seals the merged block,
+   * if all announced pushes are done or if the merged block cannot be read anyway.
+   */
+  private void replyIfDone() {
+    if (pendingLocationRequests.isEmpty() || (!invalid && !announcedBlockIdToProducerExecutorId.isEmpty())) {
+      return;
+    }
+    sealed = true;
+    for (final Pair<Long, MessageContext> request : pendingLocationRequests) {
+      final ControlMessage.MergedBlockLocationInfoMsg.Builder infoMsgBuilder =
+        ControlMessage.MergedBlockLocationInfoMsg.newBuilder().setRequestId(request.left());
+      if (!invalid) {
+        infoMsgBuilder.setOwnerExecutorId(ownerExecutorId).addAllMergedProducerTaskIndices(mergedProducerTaskIndices);
+      }
+      request.right().reply(
+        ControlMessage.Message.newBuilder()
+          .setId(RuntimeIdManager.generateMessageId())
+          .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
+          .setType(ControlMessage.MessageType.MergedBlockLocationInfo)
+          .setMergedBlockLocationInfoMsg(infoMsgBuilder.build())
+          .build());
+    }
+    pendingLocationRequests.clear();
+  }
+
+  @Override
+  public String toString() {
+    return mergedBlockId + "(" + ownerExecutorId + ")";
+  }
+}
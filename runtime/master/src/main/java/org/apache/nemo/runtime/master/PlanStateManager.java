@@ -27,6 +27,8 @@ import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.metric.JobMetric;
 import org.apache.nemo.runtime.common.metric.StageMetric;
+import org.apache.nemo.runtime.common.metric.StateMetric;
+import org.apache.nemo.runtime.common.metric.StateTransitionEvent;
 import org.apache.nemo.runtime.common.metric.TaskMetric;
 import org.apache.nemo.runtime.common.plan.PhysicalPlan;
 import org.apache.nemo.runtime.common.plan.Stage;
@@ -44,8 +46,16 @@ import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -58,37 +68,44 @@ import static org.apache.nemo.common.dag.DAG.EMPTY_DAG_DIRECTORY;
  * The main API this class provides is onTaskStateReportFromExecutor(), which directly changes a TaskState.
  * PlanState and StageState are updated internally in the class, and can only be read from the outside.
  * <p>
- * (CONCURRENCY) The public methods of this class are synchronized.
+ * (CONCURRENCY) The states are striped by stage: the task state transitions of a stage are serialized by
+ * the lock of the stage, while the transitions of different stages proceed concurrently.
+ * The states can be read without locks, as the maps and the attempt lists are concurrent and each state machine
+ * keeps its current state in a volatile field. The counters of completed task indices and stages are updated
+ * incrementally, so that checking the completion of a stage or the plan does not rescan the task attempts.
+ * Plan-level updates are synchronized on this object, which is always acquired after the lock of a stage.
+ * The state transition events are recorded to the {@link MetricStore} by a single metric event recorder thread,
+ * so that the transitions do not serialize on the lock of the metric store. The events of a plan are all recorded
+ * by the time the plan is observed as finished.
  */
 @DriverSide
 @ThreadSafe
 public final class PlanStateManager {
   private static final Logger LOG = LoggerFactory.getLogger(PlanStateManager.class.getName());
-  private String planId;
-  private int maxScheduleAttempt;
-  private boolean initialized;
+  private static final long METRIC_EVENT_RECORDER_KEEP_ALIVE_MS = 1000;
+  private volatile String planId;
+  private volatile int maxScheduleAttempt;
+  private volatile boolean initialized;
   private int dagLogFileIndex = 0;
 
   /**
    * The data structures below track the execution states of this plan.
    */
-  private PlanState planState;
+  private volatile PlanState planState;
   private final Map<String, StageState> stageIdToState;
-
-  // list of attempt states sorted by attempt idx
-  private final Map<String, Map<Integer, List<TaskState>>> stageIdToTaskIdxToAttemptStates;
+  private final Map<String, StageAttempts> stageIdToAttempts;
+  private final AtomicInteger numOfCompleteStages;
 
   /**
    * Used for speculative cloning. (in the unit of milliseconds - ms)
    */
-  private final Map<String, Long> taskIdToStartTimeMs = new HashMap<>();
-  private final Map<String, List<Long>> stageIdToCompletedTaskTimeMsList = new HashMap<>();
-  private final Map<String, Map<Integer, Integer>> stageIdToTaskIndexToNumOfClones = new HashMap<>();
+  private final Map<String, Long> taskIdToStartTimeMs = new ConcurrentHashMap<>();
+  private final Map<String, Map<Integer, Integer>> stageIdToTaskIndexToNumOfClones = new ConcurrentHashMap<>();
 
   /**
    * Represents the plan to manage.
    */
-  private PhysicalPlan physicalPlan;
+  private volatile PhysicalPlan physicalPlan;
 
   /**
    * A lock and condition to check whether the plan is finished or not.
@@ -100,7 +117,8 @@ public final class PlanStateManager {
    * For metrics.
    */
   private final String dagDirectory;
-  private MetricStore metricStore;
+  private volatile MetricStore metricStore;
+  private final ThreadPoolExecutor metricEventRecorder;
 
   /**
    * Constructor.
@@ -108,12 +126,21 @@ public final class PlanStateManager {
   @Inject
   private PlanStateManager(@Parameter(JobConf.DAGDirectory.class) final String dagDirectory) {
     this.planState = new PlanState();
-    this.stageIdToState = new HashMap<>();
-    this.stageIdToTaskIdxToAttemptStates = new HashMap<>();
+    this.stageIdToState = new ConcurrentHashMap<>();
+    this.stageIdToAttempts = new ConcurrentHashMap<>();
+    this.numOfCompleteStages = new AtomicInteger(0);
     this.finishLock = new ReentrantLock();
     this.planFinishedCondition = finishLock.newCondition();
     this.dagDirectory = dagDirectory;
     this.metricStore = MetricStore.getStore();
+    // The recorder thread exits when idle, so that it does not outlive the plans of this object
+    this.metricEventRecorder = new ThreadPoolExecutor(1, 1,
+      METRIC_EVENT_RECORDER_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        final Thread thread = new Thread(runnable, "PlanStateManager metric event recorder");
+        thread.setDaemon(true);
+        return thread;
+      });
+    this.metricEventRecorder.allowCoreThreadTimeOut(true);
     this.initialized = false;
   }
 
@@ -151,8 +178,11 @@ public final class PlanStateManager {
     this.physicalPlan = physicalPlanToUpdate;
     this.planId = physicalPlanToUpdate.getPlanId();
     this.maxScheduleAttempt = maxScheduleAttemptToSet;
-    this.metricStore.getOrCreateMetric(JobMetric.class, planId).setStageDAG(physicalPlanToUpdate.getStageDAG());
-    this.metricStore.triggerBroadcast(JobMetric.class, planId);
+    final MetricStore store = metricStore;
+    synchronized (store) {
+      store.getOrCreateMetric(JobMetric.class, planId).setStageDAG(physicalPlanToUpdate.getStageDAG());
+      store.triggerBroadcast(JobMetric.class, planId);
+    }
     initializeStates();
   }
 
@@ -163,13 +193,14 @@ public final class PlanStateManager {
   private void initializeStates() {
     onPlanStateChanged(PlanState.State.EXECUTING);
     physicalPlan.getStageDAG().topologicalDo(stage -> {
-      stageIdToState.putIfAbsent(stage.getId(), new StageState());
-      stageIdToTaskIdxToAttemptStates.putIfAbsent(stage.getId(), new HashMap<>());
+      // the attempts are registered before the stage state, which makes the stage visible to the plan completion
+      final StageAttempts stageAttempts = stageIdToAttempts.computeIfAbsent(stage.getId(), id -> new StageAttempts());
 
       // for each task idx of this stage
       stage.getTaskIndices().forEach(taskIndex ->
-        stageIdToTaskIdxToAttemptStates.get(stage.getId()).putIfAbsent(taskIndex, new ArrayList<>()));
+        stageAttempts.taskIdxToAttemptStates.putIfAbsent(taskIndex, new CopyOnWriteArrayList<>()));
         // task states will be initialized lazily in getTaskAttemptsToSchedule()
+      stageIdToState.putIfAbsent(stage.getId(), new StageState());
     });
   }
 
@@ -182,7 +213,19 @@ public final class PlanStateManager {
    * @param stageId to run
    * @return executable task attempts
    */
-  public synchronized List<String> getTaskAttemptsToSchedule(final String stageId) {
+  public List<String> getTaskAttemptsToSchedule(final String stageId) {
+    final StageAttempts stageAttempts = stageIdToAttempts.get(stageId);
+    synchronized (stageAttempts) {
+      return getTaskAttemptsToSchedule(stageId, stageAttempts);
+    }
+  }
+
+  /**
+   * @param stageId       to run
+   * @param stageAttempts the attempts of the stage, whose lock is held by the caller.
+   * @return executable task attempts
+   */
+  private List<String> getTaskAttemptsToSchedule(final String stageId, final StageAttempts stageAttempts) {
     if (getStageState(stageId).equals(StageState.State.COMPLETE)) {
       // This stage is done
       return new ArrayList<>(0);
@@ -192,8 +235,7 @@ public final class PlanStateManager {
     final List<String> taskAttemptsToSchedule = new ArrayList<>();
     final Stage stage = physicalPlan.getStageDAG().getVertexById(stageId);
     for (final int taskIndex : stage.getTaskIndices()) {
-      final List<TaskState> attemptStatesForThisTaskIndex =
-        stageIdToTaskIdxToAttemptStates.get(stageId).get(taskIndex);
+      final List<TaskState> attemptStatesForThisTaskIndex = stageAttempts.taskIdxToAttemptStates.get(taskIndex);
 
       // If one of the attempts is COMPLETE, do not schedule
       if (attemptStatesForThisTaskIndex
@@ -202,7 +244,7 @@ public final class PlanStateManager {
 
         // (Step 1) Create new READY attempts, as many as
         // # of numOfConcurrentAttempts(including clones) - # of 'not-done' attempts
-        stageIdToTaskIndexToNumOfClones.putIfAbsent(stageId, new HashMap<>());
+        stageIdToTaskIndexToNumOfClones.putIfAbsent(stageId, new ConcurrentHashMap<>());
         final Optional<ClonedSchedulingProperty.CloneConf> cloneConf =
           stage.getPropertyValue(ClonedSchedulingProperty.class);
         final int numOfConcurrentAttempts = cloneConf.isPresent() && cloneConf.get().isUpFrontCloning()
@@ -213,6 +255,7 @@ public final class PlanStateManager {
         final long numOfNotDoneAttempts = attemptStatesForThisTaskIndex.stream().filter(this::isTaskNotDone).count();
         for (int i = 0; i < numOfConcurrentAttempts - numOfNotDoneAttempts; i++) {
           attemptStatesForThisTaskIndex.add(new TaskState());
+          stageAttempts.numOfReadyAttempts++;
         }
 
         // (Step 2) Check max attempt
@@ -235,11 +278,22 @@ public final class PlanStateManager {
     return taskAttemptsToSchedule;
   }
 
+  /**
+   * @param stageId to query.
+   * @return whether the stage has a READY task attempt, which is yet to be dispatched.
+   */
+  public boolean hasReadyTaskAttempts(final String stageId) {
+    final StageAttempts stageAttempts = stageIdToAttempts.get(stageId);
+    synchronized (stageAttempts) {
+      return stageAttempts.numOfReadyAttempts > 0;
+    }
+  }
+
   /**
    * @param stageId to query.
    * @return all task attempt ids of the stage.
    */
-  public synchronized Set<String> getAllTaskAttemptsOfStage(final String stageId) {
+  public Set<String> getAllTaskAttemptsOfStage(final String stageId) {
     return getTaskAttemptIdsToItsState(stageId).keySet();
   }
 
@@ -250,17 +304,20 @@ public final class PlanStateManager {
    * @param stageId to query.
    * @return a map from an EXECUTING task to its running time so far.
    */
-  public synchronized Map<String, Long> getExecutingTaskToRunningTimeMs(final String stageId) {
+  public Map<String, Long> getExecutingTaskToRunningTimeMs(final String stageId) {
     final long curTime = System.currentTimeMillis();
     final Map<String, Long> result = new HashMap<>();
 
-    final Map<Integer, List<TaskState>> taskIdToState = stageIdToTaskIdxToAttemptStates.get(stageId);
-    for (final int taskIndex : taskIdToState.keySet()) {
-      final List<TaskState> attemptStates = taskIdToState.get(taskIndex);
-      for (int attempt = 0; attempt < attemptStates.size(); attempt++) {
-        if (TaskState.State.EXECUTING.equals(attemptStates.get(attempt).getStateMachine().getCurrentState())) {
-          final String taskId = RuntimeIdManager.generateTaskId(stageId, taskIndex, attempt);
-          result.put(taskId, curTime - taskIdToStartTimeMs.get(taskId));
+    final StageAttempts stageAttempts = stageIdToAttempts.get(stageId);
+    synchronized (stageAttempts) {
+      final Map<Integer, List<TaskState>> taskIdToState = stageAttempts.taskIdxToAttemptStates;
+      for (final int taskIndex : taskIdToState.keySet()) {
+        final List<TaskState> attemptStates = taskIdToState.get(taskIndex);
+        for (int attempt = 0; attempt < attemptStates.size(); attempt++) {
+          if (TaskState.State.EXECUTING.equals(attemptStates.get(attempt).getStateMachine().getCurrentState())) {
+            final String taskId = RuntimeIdManager.generateTaskId(stageId, taskIndex, attempt);
+            result.put(taskId, curTime - taskIdToStartTimeMs.get(taskId));
+          }
         }
       }
     }
@@ -274,9 +331,15 @@ public final class PlanStateManager {
    * @param stageId of the stage.
    * @return a copy of the list, empty if none completed.
    */
-  public synchronized List<Long> getCompletedTaskTimeListMs(final String stageId) {
-    // Return a copy
-    return new ArrayList<>(stageIdToCompletedTaskTimeMsList.getOrDefault(stageId, new ArrayList<>(0)));
+  public List<Long> getCompletedTaskTimeListMs(final String stageId) {
+    final StageAttempts stageAttempts = stageIdToAttempts.get(stageId);
+    if (stageAttempts == null) {
+      return new ArrayList<>(0);
+    }
+    synchronized (stageAttempts) {
+      // Return a copy
+      return new ArrayList<>(stageAttempts.completedTaskTimeMsList);
+    }
   }
 
   /**
@@ -285,8 +348,8 @@ public final class PlanStateManager {
    * @param numOfClones of the clone.
    * @return true if the numOfClones has been modified, false otherwise
    */
-  public synchronized boolean setNumOfClones(final String stageId, final int taskIndex, final int numOfClones) {
-    stageIdToTaskIndexToNumOfClones.putIfAbsent(stageId, new HashMap<>());
+  public boolean setNumOfClones(final String stageId, final int taskIndex, final int numOfClones) {
+    stageIdToTaskIndexToNumOfClones.putIfAbsent(stageId, new ConcurrentHashMap<>());
     // overwrite the previous value.
     final Integer previousNumOfClones = stageIdToTaskIndexToNumOfClones.get(stageId).put(taskIndex, numOfClones);
     return (previousNumOfClones == null) || (previousNumOfClones != numOfClones);
@@ -308,45 +371,56 @@ public final class PlanStateManager {
    * @param taskId       the ID of the task.
    * @param newTaskState the new state of the task.
    */
-  public synchronized void onTaskStateChanged(final String taskId, final TaskState.State newTaskState) {
+  public void onTaskStateChanged(final String taskId, final TaskState.State newTaskState) {
+    final String stageId = RuntimeIdManager.getStageIdFromTaskId(taskId);
+    final int taskIndex = RuntimeIdManager.getIndexFromTaskId(taskId);
+    final StageAttempts stageAttempts = stageIdToAttempts.get(stageId);
+    synchronized (stageAttempts) {
+      onTaskStateChanged(taskId, stageId, taskIndex, stageAttempts, newTaskState);
+    }
+  }
+
+  /**
+   * (PRIVATE METHOD)
+   * Updates the state of a task, with the lock of its stage held by the caller.
+   *
+   * @param taskId        the ID of the task.
+   * @param stageId       the ID of the stage of the task.
+   * @param taskIndex     the index of the task.
+   * @param stageAttempts the attempts of the stage.
+   * @param newTaskState  the new state of the task.
+   */
+  private void onTaskStateChanged(final String taskId,
+                                  final String stageId,
+                                  final int taskIndex,
+                                  final StageAttempts stageAttempts,
+                                  final TaskState.State newTaskState) {
     // Change task state
     final StateMachine taskState = getTaskStateHelper(taskId).getStateMachine();
-    LOG.debug("Task State Transition: id {}, from {} to {}",
-      new Object[]{taskId, taskState.getCurrentState(), newTaskState});
-    metricStore.getOrCreateMetric(TaskMetric.class, taskId)
-      .addEvent((TaskState.State) taskState.getCurrentState(), newTaskState);
-    metricStore.triggerBroadcast(TaskMetric.class, taskId);
+    final TaskState.State oldTaskState = (TaskState.State) taskState.getCurrentState();
+    LOG.debug("Task State Transition: id {}, from {} to {}", new Object[]{taskId, oldTaskState, newTaskState});
+    recordStateTransitionEvent(TaskMetric.class, taskId, oldTaskState, newTaskState);
 
     try {
       taskState.setState(newTaskState);
     } catch (IllegalStateTransitionException e) {
       throw new RuntimeException(taskId + " - Illegal task state transition ", e);
     }
+    stageAttempts.onTaskStateChanged(taskIndex, oldTaskState, newTaskState);
 
     // Log not-yet-completed tasks for us humans to track progress
-    final String stageId = RuntimeIdManager.getStageIdFromTaskId(taskId);
-    final Map<Integer, List<TaskState>> taskStatesOfThisStage = stageIdToTaskIdxToAttemptStates.get(stageId);
-    final long numOfCompletedTaskIndicesInThisStage = taskStatesOfThisStage.values().stream()
-      .filter(attempts -> {
-        final List<TaskState.State> states = attempts
-          .stream()
-          .map(state -> (TaskState.State) state.getStateMachine().getCurrentState())
-          .collect(Collectors.toList());
-        return states.stream().anyMatch(curState -> curState.equals(TaskState.State.ON_HOLD)) // one of them is ON_HOLD
-          || states.stream().anyMatch(curState -> curState.equals(TaskState.State.COMPLETE)); // one of them is COMPLETE
-      })
-      .count();
+    final int numOfCompletedTaskIndicesInThisStage = stageAttempts.numOfCompletedTaskIndices;
+    final int numOfTaskIndicesInThisStage = stageAttempts.taskIdxToAttemptStates.size();
     if (newTaskState.equals(TaskState.State.COMPLETE)) {
       LOG.info("{} completed: {} Task(s) out of {} are remaining in this stage",
-        taskId, taskStatesOfThisStage.size() - numOfCompletedTaskIndicesInThisStage, taskStatesOfThisStage.size());
+        taskId, numOfTaskIndicesInThisStage - numOfCompletedTaskIndicesInThisStage, numOfTaskIndicesInThisStage);
     }
 
     // Maintain info for speculative execution
     if (newTaskState.equals(TaskState.State.EXECUTING)) {
       taskIdToStartTimeMs.put(taskId, System.currentTimeMillis());
     } else if (newTaskState.equals(TaskState.State.COMPLETE)) {
-      stageIdToCompletedTaskTimeMsList.putIfAbsent(stageId, new ArrayList<>());
-      stageIdToCompletedTaskTimeMsList.get(stageId).add(System.currentTimeMillis() - taskIdToStartTimeMs.get(taskId));
+      stageAttempts.completedTaskTimeMsList.add(System.currentTimeMillis() - taskIdToStartTimeMs.get(taskId));
     }
 
     // Change stage state, if needed
@@ -382,7 +456,7 @@ public final class PlanStateManager {
 
   /**
    * (PRIVATE METHOD)
-   * Updates the state of a stage.
+   * Updates the state of a stage, with the lock of the stage held by the caller.
    *
    * @param stageId       of the stage.
    * @param newStageState of the stage.
@@ -390,40 +464,43 @@ public final class PlanStateManager {
   private void onStageStateChanged(final String stageId, final StageState.State newStageState) {
     // Change stage state
     final StateMachine stageStateMachine = stageIdToState.get(stageId).getStateMachine();
+    final StageState.State oldStageState = (StageState.State) stageStateMachine.getCurrentState();
 
-    metricStore.getOrCreateMetric(StageMetric.class, stageId)
-      .addEvent(getStageState(stageId), newStageState);
-    metricStore.triggerBroadcast(StageMetric.class, stageId);
+    recordStateTransitionEvent(StageMetric.class, stageId, oldStageState, newStageState);
 
-    LOG.debug("Stage State Transition: id {} from {} to {}",
-      new Object[]{stageId, stageStateMachine.getCurrentState(), newStageState});
+    LOG.debug("Stage State Transition: id {} from {} to {}", new Object[]{stageId, oldStageState, newStageState});
     try {
       stageStateMachine.setState(newStageState);
     } catch (IllegalStateTransitionException e) {
       throw new RuntimeException(stageId + " - Illegal stage state transition ", e);
     }
 
+    if (!oldStageState.equals(StageState.State.COMPLETE) && newStageState.equals(StageState.State.COMPLETE)) {
+      numOfCompleteStages.incrementAndGet();
+    } else if (oldStageState.equals(StageState.State.COMPLETE) && !newStageState.equals(StageState.State.COMPLETE)) {
+      numOfCompleteStages.decrementAndGet();
+    }
+
     // Change plan state if needed
-    final boolean allStagesCompleted = stageIdToState.values().stream().allMatch(state ->
-      state.getStateMachine().getCurrentState().equals(StageState.State.COMPLETE));
+    synchronized (this) {
+      final boolean allStagesCompleted = numOfCompleteStages.get() == stageIdToState.size();
 
-    // avoid duplicate plan COMPLETE caused by cloning
-    if (allStagesCompleted && !PlanState.State.COMPLETE.equals(getPlanState())) {
-      onPlanStateChanged(PlanState.State.COMPLETE);
+      // avoid duplicate plan COMPLETE caused by cloning
+      if (allStagesCompleted && !PlanState.State.COMPLETE.equals(getPlanState())) {
+        onPlanStateChanged(PlanState.State.COMPLETE);
+      }
     }
   }
 
   /**
    * (PRIVATE METHOD)
-   * Updates the state of the plan.
+   * Updates the state of the plan, with the lock of this object held by the caller.
    *
    * @param newState of the plan.
    */
   private void onPlanStateChanged(final PlanState.State newState) {
-    metricStore.getOrCreateMetric(JobMetric.class, planId)
-      .addEvent((PlanState.State) planState.getStateMachine().getCurrentState(), newState);
-    metricStore.triggerBroadcast(JobMetric.class, planId);
-
+    final Future<?> eventRecorded = recordStateTransitionEvent(JobMetric.class, planId,
+      (PlanState.State) planState.getStateMachine().getCurrentState(), newState);
 
     try {
       planState.getStateMachine().setState(newState);
@@ -436,6 +513,16 @@ public final class PlanStateManager {
     } else if (newState == PlanState.State.COMPLETE || newState == PlanState.State.FAILED) {
       LOG.debug("Plan ID {} {}!", planId, newState);
 
+      // The metrics of the plan are read once it finishes: the events are recorded in order, up to this one
+      try {
+        eventRecorded.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOG.warn("Interrupted while recording the state transition events of {}", planId);
+      } catch (final ExecutionException e) {
+        LOG.warn("Failed to record the state transition events of {}", planId, e);
+      }
+
       // Awake all threads waiting the finish of this plan.
       finishLock.lock();
 
@@ -449,6 +536,31 @@ public final class PlanStateManager {
     }
   }
 
+  /**
+   * (PRIVATE METHOD)
+   * Records a state transition event to the metric store, in the metric event recorder.
+   * The event is timestamped when the transition happens, and the events are recorded in the order of submission.
+   *
+   * @param metricClass class of the metric to record the event to.
+   * @param id          id of the metric.
+   * @param prevState   previous state.
+   * @param newState    new state.
+   * @param <S>         type of the state.
+   * @param <T>         type of the metric.
+   * @return the future of the recording of the event.
+   */
+  private <S extends Serializable, T extends StateMetric<S>> Future<?> recordStateTransitionEvent(
+    final Class<T> metricClass, final String id, final S prevState, final S newState) {
+    final StateTransitionEvent<S> event = new StateTransitionEvent<>(System.currentTimeMillis(), prevState, newState);
+    final MetricStore store = metricStore;
+    return metricEventRecorder.submit(() -> {
+      synchronized (store) {
+        store.getOrCreateMetric(metricClass, id).addEvent(event);
+        store.triggerBroadcast(metricClass, id);
+      }
+    });
+  }
+
   /////////////////////////////////////////////////////////////////////////////////
   //////////////////////////////////////// Helper Methods
 
@@ -491,7 +603,7 @@ public final class PlanStateManager {
    * @return a map from task attempt id to its current state.
    */
   @VisibleForTesting
-  public synchronized Map<String, TaskState.State> getAllTaskAttemptIdsToItsState() {
+  public Map<String, TaskState.State> getAllTaskAttemptIdsToItsState() {
     return physicalPlan.getStageDAG().getVertices()
       .stream()
       .map(Stage::getId)
@@ -502,21 +614,21 @@ public final class PlanStateManager {
   /**
    * @return whether the execution for the plan is done or not.
    */
-  public synchronized boolean isPlanDone() {
+  public boolean isPlanDone() {
     return (getPlanState() == PlanState.State.COMPLETE || getPlanState() == PlanState.State.FAILED);
   }
 
   /**
    * @return the ID of the plan.
    */
-  public synchronized String getPlanId() {
+  public String getPlanId() {
     return planId;
   }
 
   /**
    * @return the state of the plan.
    */
-  public synchronized PlanState.State getPlanState() {
+  public PlanState.State getPlanState() {
     return (PlanState.State) planState.getStateMachine().getCurrentState();
   }
 
@@ -524,7 +636,7 @@ public final class PlanStateManager {
    * @param stageId the stage ID to query.
    * @return the state of the stage.
    */
-  public synchronized StageState.State getStageState(final String stageId) {
+  public StageState.State getStageState(final String stageId) {
     return (StageState.State) stageIdToState.get(stageId).getStateMachine().getCurrentState();
   }
 
@@ -532,13 +644,13 @@ public final class PlanStateManager {
    * @param taskId the ID of the task to query.
    * @return the state of the task.
    */
-  public synchronized TaskState.State getTaskState(final String taskId) {
+  public TaskState.State getTaskState(final String taskId) {
     return (TaskState.State) getTaskStateHelper(taskId).getStateMachine().getCurrentState();
   }
 
   private Map<String, TaskState.State> getTaskAttemptIdsToItsState(final String stageId) {
     final Map<String, TaskState.State> result = new HashMap<>();
-    final Map<Integer, List<TaskState>> taskIdToState = stageIdToTaskIdxToAttemptStates.get(stageId);
+    final Map<Integer, List<TaskState>> taskIdToState = stageIdToAttempts.get(stageId).taskIdxToAttemptStates;
     for (final int taskIndex : taskIdToState.keySet()) {
       final List<TaskState> attemptStates = taskIdToState.get(taskIndex);
       for (int attempt = 0; attempt < attemptStates.size(); attempt++) {
@@ -550,8 +662,8 @@ public final class PlanStateManager {
   }
 
   private TaskState getTaskStateHelper(final String taskId) {
-    return stageIdToTaskIdxToAttemptStates
-      .get(RuntimeIdManager.getStageIdFromTaskId(taskId))
+    return stageIdToAttempts
+      .get(RuntimeIdManager.getStageIdFromTaskId(taskId)).taskIdxToAttemptStates
       .get(RuntimeIdManager.getIndexFromTaskId(taskId))
       .get(RuntimeIdManager.getAttemptFromTaskId(taskId));
   }
@@ -569,7 +681,7 @@ public final class PlanStateManager {
     final int attempt = RuntimeIdManager.getAttemptFromTaskId(taskId);
 
     final List<TaskState> otherAttemptsforTheSameTaskIndex =
-      new ArrayList<>(stageIdToTaskIdxToAttemptStates.get(stageId).get(taskIndex));
+      new ArrayList<>(stageIdToAttempts.get(stageId).taskIdxToAttemptStates.get(taskIndex));
     otherAttemptsforTheSameTaskIndex.remove(attempt);
 
     return otherAttemptsforTheSameTaskIndex.stream()
@@ -580,7 +692,7 @@ public final class PlanStateManager {
   /**
    * @return the physical plan.
    */
-  public synchronized PhysicalPlan getPhysicalPlan() {
+  public PhysicalPlan getPhysicalPlan() {
     return physicalPlan;
   }
 
@@ -594,7 +706,7 @@ public final class PlanStateManager {
   /**
    * @return whether any plan has been submitted and initialized.
    */
-  public synchronized boolean isInitialized() {
+  public boolean isInitialized() {
     return initialized;
   }
 
@@ -630,7 +742,7 @@ public final class PlanStateManager {
   }
 
   @Override
-  public synchronized String toString() {
+  public String toString() {
     final StringBuilder sb = new StringBuilder("{");
     sb.append("\"planId\": \"").append(planId).append("\", ");
     sb.append("\"stages\": [");
@@ -659,4 +771,52 @@ public final class PlanStateManager {
     sb.append("]}");
     return sb.toString();
   }
+
+  /**
+   * The task attempt states of a stage, and the counters updated incrementally on their transitions.
+   * The lock of this object serializes the task state transitions of the stage.
+   * The attempt states can be read without the lock.
+   */
+  private static final class StageAttempts {
+    // list of attempt states sorted by attempt idx
+    private final Map<Integer, List<TaskState>> taskIdxToAttemptStates = new ConcurrentHashMap<>();
+    // The fields below are guarded by the lock of this object.
+    // the number of COMPLETE or ON_HOLD attempts of each task index
+    private final Map<Integer, Integer> taskIdxToNumOfCompletedAttempts = new HashMap<>();
+    // the number of task indices with a COMPLETE or ON_HOLD attempt
+    private int numOfCompletedTaskIndices = 0;
+    // the number of READY attempts
+    private int numOfReadyAttempts = 0;
+    private final List<Long> completedTaskTimeMsList = new ArrayList<>();
+
+    /**
+     * Updates the counters on the state transition of a task attempt.
+     *
+     * @param taskIndex of the task attempt.
+     * @param oldState  of the task attempt.
+     * @param newState  of the task attempt.
+     */
+    private void onTaskStateChanged(final int taskIndex,
+                                    final TaskState.State oldState,
+                                    final TaskState.State newState) {
+      numOfReadyAttempts += (TaskState.State.READY.equals(newState) ? 1 : 0)
+        - (TaskState.State.READY.equals(oldState) ? 1 : 0);
+      final int delta = (isCompleted(newState) ? 1 : 0) - (isCompleted(oldState) ? 1 : 0);
+      if (delta == 0) {
+        return;
+      }
+      final int before = taskIdxToNumOfCompletedAttempts.getOrDefault(taskIndex, 0);
+      final int after = before + delta;
+      taskIdxToNumOfCompletedAttempts.put(taskIndex, after);
+      if (before == 0 && after > 0) {
+        numOfCompletedTaskIndices++;
+      } else if (before > 0 && after == 0) {
+        numOfCompletedTaskIndices--;
+      }
+    }
+
+    private static boolean isCompleted(final TaskState.State state) {
+      return state.equals(TaskState.State.ON_HOLD) || state.equals(TaskState.State.COMPLETE);
+    }
+  }
 }
@@ -35,9 +35,11 @@ import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.*;
 import org.apache.nemo.runtime.common.metric.JobMetric;
 import org.apache.nemo.runtime.common.plan.PhysicalPlan;
+import org.apache.nemo.runtime.master.metric.MetricBroadcaster;
 import org.apache.nemo.runtime.master.metric.MetricManagerMaster;
 import org.apache.nemo.runtime.master.metric.MetricMessageHandler;
 import org.apache.nemo.runtime.master.metric.MetricStore;
+import org.apache.nemo.runtime.master.metric.VertexMetricStore;
 import org.apache.nemo.runtime.master.resource.ContainerManager;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
 import org.apache.nemo.runtime.master.scheduler.BatchScheduler;
@@ -55,6 +57,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Paths;
 import java.util.HashSet;
@@ -87,6 +90,7 @@ public final class RuntimeMaster {
 
   private final ExecutorService runtimeMasterThread;
   private final ScheduledExecutorService speculativeTaskCloningThread;
+  private final ScheduledExecutorService vertexMetricBroadcastThread;
 
   private final Scheduler scheduler;
   private final ContainerManager containerManager;
@@ -126,6 +130,7 @@ public final class RuntimeMaster {
    * @param dbId                     the ID for the given DB.
    * @param dbPassword               the password for the given DB.
    * @param dagDirectory             directory of the DAG to save the json files and metrics into.
+   * @param vertexMetricBroadcastPeriodMs the period of broadcasting the updated per-operator metrics.
    */
   @Inject
   private RuntimeMaster(final Scheduler scheduler,
@@ -140,7 +145,9 @@ public final class RuntimeMaster {
                         @Parameter(JobConf.DBAddress.class) final String dbAddress,
                         @Parameter(JobConf.DBId.class) final String dbId,
                         @Parameter(JobConf.DBPasswd.class) final String dbPassword,
-                        @Parameter(JobConf.DAGDirectory.class) final String dagDirectory) {
+                        @Parameter(JobConf.DAGDirectory.class) final String dagDirectory,
+                        @Parameter(JobConf.VertexMetricBroadcastPeriodMs.class)
+                        final long vertexMetricBroadcastPeriodMs) {
     // We would like to use a single thread for runtime master operations
     // since the processing logic in master takes a very short amount of time
     // compared to the job completion times of executed jobs
@@ -157,6 +164,15 @@ public final class RuntimeMaster {
       SPECULATION_CHECKING_PERIOD_MS,
       TimeUnit.MILLISECONDS);
 
+    // Push the updates of the per-operator metric time series to the web UI.
+    this.vertexMetricBroadcastThread = Executors
+      .newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "VertexMetricBroadcast thread"));
+    this.vertexMetricBroadcastThread.scheduleAtFixedRate(
+      this::broadcastVertexMetricUpdates,
+      vertexMetricBroadcastPeriodMs,
+      vertexMetricBroadcastPeriodMs,
+      TimeUnit.MILLISECONDS);
+
     this.scheduler = scheduler;
     this.containerManager = containerManager;
     this.metricMessageHandler = metricMessageHandler;
@@ -205,6 +221,23 @@ public final class RuntimeMaster {
     return server;
   }
 
+  /**
+   * Broadcasts the updates of the per-operator metric time series to the WebSocket sessions.
+   */
+  private void broadcastVertexMetricUpdates() {
+    if (!MetricBroadcaster.getInstance().hasSessions()) {
+      return;
+    }
+    try {
+      final String updates = VertexMetricStore.getStore().dumpUpdatesToJson();
+      if (updates != null) {
+        MetricBroadcaster.getInstance().broadcast(updates);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Failed to broadcast the vertex metric updates.", e);
+    }
+  }
+
   /**
    * Record IR DAG related metrics.
    *
@@ -262,6 +295,7 @@ public final class RuntimeMaster {
   public void terminate() {
     // No need to speculate anymore
     speculativeTaskCloningThread.shutdown();
+    vertexMetricBroadcastThread.shutdown();
 
     try {
       // wait for metric flush
@@ -416,6 +450,22 @@ public final class RuntimeMaster {
                 .build())
               .build());
           break;
+        case RequestIRDag:
+          final String irDagHash = message.getRequestIRDagMsg().getIrDagHash();
+          final ControlMessage.IRDagInfoMsg.Builder irDagInfoMsgBuilder = ControlMessage.IRDagInfoMsg.newBuilder()
+            .setRequestId(message.getId());
+          planStateManager.getPhysicalPlan().getStageDAG().getVertices().stream()
+            .filter(stage -> stage.getIRDagHash().equals(irDagHash))
+            .findFirst()
+            .ifPresent(stage -> irDagInfoMsgBuilder.setIrDag(ByteString.copyFrom(stage.getSerializedIRDAG())));
+          messageContext.reply(
+            ControlMessage.Message.newBuilder()
+              .setId(RuntimeIdManager.generateMessageId())
+              .setListenerId(MessageEnvironment.RUNTIME_MASTER_MESSAGE_LISTENER_ID)
+              .setType(ControlMessage.MessageType.IRDagInfo)
+              .setIrDagInfoMsg(irDagInfoMsgBuilder.build())
+              .build());
+          break;
         default:
           throw new IllegalMessageException(
             new Exception("This message should not be requested to Master :" + message.getType()));
@@ -429,6 +479,10 @@ public final class RuntimeMaster {
         final ControlMessage.TaskStateChangedMsg taskStateChangedMsg
           = message.getTaskStateChangedMsg();
 
+        if (taskStateChangedMsg.hasExecutorLoad()) {
+          scheduler.onExecutorLoadReport(taskStateChangedMsg.getExecutorId(), taskStateChangedMsg.getExecutorLoad());
+        }
+
         scheduler.onTaskStateReportFromExecutor(taskStateChangedMsg.getExecutorId(),
           taskStateChangedMsg.getTaskId(),
           taskStateChangedMsg.getAttemptIdx(),
@@ -446,13 +500,10 @@ public final class RuntimeMaster {
       case RunTimePassMessage:
         ((BatchScheduler) scheduler).onRunTimePassMessage(
           message.getRunTimePassMessageMsg().getTaskId(),
-          message.getRunTimePassMessageMsg().getEntryList());
+          message.getRunTimePassMessageMsg());
         break;
       case MetricMessageReceived:
-        final List<ControlMessage.Metric> metricList = message.getMetricMsg().getMetricList();
-        metricList.forEach(metric -> metricMessageHandler.onMetricMessageReceived(
-            metric.getMetricType(), metric.getMetricId(),
-            metric.getMetricField(), metric.getMetricValue().toByteArray()));
+        metricMessageHandler.onMetricMessagesReceived(message.getMetricMsg().getMetricList());
         break;
       case ExecutorDataCollected:
         final String serializedData = message.getDataCollected().getData();
@@ -464,6 +515,9 @@ public final class RuntimeMaster {
       case MetricFlushed:
         metricCountDownLatch.countDown();
         break;
+      case VertexMetricSamples:
+        VertexMetricStore.getStore().onSamples(message.getVertexMetricSamplesMsg());
+        break;
       default:
         throw new IllegalMessageException(
           new Exception("This message should not be received by Master :" + message.getType()));
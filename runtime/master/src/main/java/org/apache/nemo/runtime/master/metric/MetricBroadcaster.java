@@ -64,6 +64,7 @@ public final class MetricBroadcaster {
   public synchronized void addSession(final Session session) {
     try {
       session.getRemote().sendString(MetricStore.getStore().dumpAllMetricToJson());
+      session.getRemote().sendString(VertexMetricStore.getStore().dumpAllToJson());
     } catch (final IOException e) {
       LOG.warn("Failed to send initial metric to newly connected session.");
     }
@@ -79,6 +80,13 @@ public final class MetricBroadcaster {
     sessions.remove(session);
   }
 
+  /**
+   * @return whether there is any active WebSocket session.
+   */
+  public boolean hasSessions() {
+    return !sessions.isEmpty();
+  }
+
   /**
    * Send text frame to each WebSocket session.
    *
@@ -28,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.List;
 
 /**
  * A default metric message handler.
@@ -64,17 +65,26 @@ public final class MetricManagerMaster implements MetricMessageHandler {
                                                    final byte[] metricValue) {
     if (!isTerminated) {
       final Class<Metric> metricClass = metricStore.getMetricClassByName(metricType);
-      // process metric message
-      try {
-        if (metricStore.getOrCreateMetric(metricClass, metricId).processMetricMessage(metricField, metricValue)) {
-          metricStore.triggerBroadcast(metricClass, metricId);
+      // process metric message, synchronizing on the store as the plan state manager also updates the metrics
+      synchronized (metricStore) {
+        try {
+          if (metricStore.getOrCreateMetric(metricClass, metricId).processMetricMessage(metricField, metricValue)) {
+            metricStore.triggerBroadcast(metricClass, metricId);
+          }
+        } catch (final Exception e) {
+          LOG.warn("Error when processing metric message for {}, {}, {}.", metricType, metricId, metricField);
         }
-      } catch (final Exception e) {
-        LOG.warn("Error when processing metric message for {}, {}, {}.", metricType, metricId, metricField);
       }
     }
   }
 
+  @Override
+  public synchronized void onMetricMessagesReceived(final List<ControlMessage.Metric> metricMessages) {
+    if (!isTerminated) {
+      metricStore.processMetricMessages(metricMessages);
+    }
+  }
+
   @Override
   public synchronized void terminate() {
     isTerminated = true;
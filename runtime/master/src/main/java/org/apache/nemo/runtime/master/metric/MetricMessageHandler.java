@@ -18,8 +18,11 @@
  */
 package org.apache.nemo.runtime.master.metric;
 
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.reef.tang.annotations.DefaultImplementation;
 
+import java.util.List;
+
 /**
  * Metric message handler.
  */
@@ -37,6 +40,13 @@ public interface MetricMessageHandler {
   void onMetricMessageReceived(String metricType, String metricId,
                                String metricField, byte[] metricValue);
 
+  /**
+   * Handle a batch of received metric messages, as sent by the executors.
+   *
+   * @param metricMessages the metric messages.
+   */
+  void onMetricMessagesReceived(List<ControlMessage.Metric> metricMessages);
+
   /**
    * Cleans up and terminates this handler.
    */
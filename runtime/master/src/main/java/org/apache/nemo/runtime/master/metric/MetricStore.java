@@ -25,6 +25,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.nemo.common.exception.MetricException;
 import org.apache.nemo.common.exception.UnsupportedMetricException;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.metric.*;
 import org.apache.nemo.runtime.common.state.PlanState;
 import org.slf4j.Logger;
@@ -40,18 +41,25 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 /**
  * MetricStore stores metric data which will be used by web visualize interface, logging, and so on.
  * All metric classes should be JSON-serializable by {@link ObjectMapper}.
+ * The metrics that keep their numeric fields in {@link NumericMetricColumns}, e.g., {@link TaskMetric}, share
+ * the columns of their type, which serve fast aggregation queries without a second copy of the fields.
  */
 public final class MetricStore {
   private static final Logger LOG = LoggerFactory.getLogger(MetricStore.class.getName());
   private final Map<Class<? extends Metric>, Map<String, Object>> metricMap = new HashMap<>();
   // You can add more metrics by adding item to this metricList list.
   private final Map<String, Class<? extends Metric>> metricList = new HashMap<>();
+  private final Map<Class<? extends Metric>, NumericMetricColumns> numericColumns = new HashMap<>();
 
   /**
    * Private constructor.
@@ -146,7 +154,8 @@ public final class MetricStore {
 
   /**
    * Same as getMetricWithId(), but if there is no such metric, it will try to create new metric object
-   * using its constructor, which takes an id as a parameter.
+   * using its constructor, which takes an id and the numeric columns of the metric type as parameters,
+   * or only an id if the metric type does not keep its numeric fields in columns.
    *
    * @param metricClass class of metric.
    * @param id          metric id, which can be fetched by getPlanId() method.
@@ -157,7 +166,7 @@ public final class MetricStore {
     T metric = (T) metricMap.computeIfAbsent(metricClass, k -> new HashMap<>()).get(id);
     if (metric == null) {
       try {
-        metric = metricClass.getConstructor(String.class).newInstance(id);
+        metric = createMetric(metricClass, id);
         putMetric(metric);
       } catch (final Exception e) {
         throw new MetricException(e);
@@ -166,6 +175,119 @@ public final class MetricStore {
     return metric;
   }
 
+  /**
+   * @param metricClass class of metric.
+   * @param id          metric id.
+   * @param <T>         class of metric
+   * @return a new metric object, bound to the numeric columns of its type if it keeps its numeric fields in columns.
+   * @throws Exception if failed to construct the metric object.
+   */
+  private <T extends Metric> T createMetric(final Class<T> metricClass, final String id) throws Exception {
+    try {
+      return metricClass.getConstructor(String.class, NumericMetricColumns.class)
+        .newInstance(id, numericColumns.computeIfAbsent(metricClass, k -> new NumericMetricColumns()));
+    } catch (final NoSuchMethodException e) {
+      return metricClass.getConstructor(String.class).newInstance(id);
+    }
+  }
+
+  /**
+   * Processes a batch of metric messages from an executor, as sent by MetricManagerWorker,
+   * and broadcasts each changed metric once.
+   * The type and the id of a metric message are omitted if they are the same as the previous message's.
+   * A numeric value is the delta from the previous numeric value of the same metric object in the batch,
+   * of which the metric messages are in a row.
+   *
+   * @param metricMessages the batch of metric messages.
+   */
+  public synchronized void processMetricMessages(final List<ControlMessage.Metric> metricMessages) {
+    final Map<String, Class<? extends Metric>> changedMetricIdToClass = new LinkedHashMap<>();
+    String metricType = null;
+    String metricId = null;
+    long previousNumericValue = 0;
+    for (final ControlMessage.Metric metricMessage : metricMessages) {
+      if (metricMessage.hasMetricType() || metricMessage.hasMetricId()) {
+        previousNumericValue = 0; // the first message of another metric object
+      }
+      metricType = metricMessage.hasMetricType() ? metricMessage.getMetricType() : metricType;
+      metricId = metricMessage.hasMetricId() ? metricMessage.getMetricId() : metricId;
+      if (metricMessage.hasNumericValue()) {
+        previousNumericValue += metricMessage.getNumericValue();
+      }
+      final String metricField = metricMessage.getMetricField();
+      try {
+        final Class<Metric> metricClass = getMetricClassByName(metricType);
+        final Metric metric = getOrCreateMetric(metricClass, metricId);
+        final boolean isChanged;
+        if (metricMessage.hasNumericValue()) {
+          isChanged = metric.processNumericMetricMessage(metricField, previousNumericValue);
+        } else {
+          isChanged = metric.processMetricMessage(metricField, metricMessage.getMetricValue().toByteArray());
+        }
+        if (isChanged) {
+          changedMetricIdToClass.put(metricId, metricClass);
+        }
+      } catch (final Exception e) {
+        LOG.warn("Error when processing metric message for {}, {}, {}.", metricType, metricId, metricField);
+      }
+    }
+    changedMetricIdToClass.forEach((id, metricClass) -> triggerBroadcast(metricClass, id));
+  }
+
+  /**
+   * Aggregates a numeric field of the metrics of a type, received from the executors, over the groups of metrics.
+   *
+   * @param metricClass class of the metrics.
+   * @param metricField the numeric field to aggregate.
+   * @param idToGroup   maps the id of a metric to the group of the metric (e.g., the stage of a task).
+   * @param <T>         type of the metric.
+   * @return the statistics of the known values of the field in each group.
+   */
+  public synchronized <T extends Metric> Map<String, LongSummaryStatistics> aggregateNumericMetric(
+    final Class<T> metricClass, final String metricField, final Function<String, String> idToGroup) {
+    final NumericMetricColumns columns = numericColumns.get(metricClass);
+    return columns == null ? new HashMap<>() : columns.aggregate(metricField, idToGroup);
+  }
+
+  /**
+   * Dumps JSON-serialized aggregation of a numeric field of the metrics of a type.
+   *
+   * @param metricClass class of the metrics.
+   * @param metricField the numeric field to aggregate.
+   * @param idToGroup   maps the id of a metric to the group of the metric (e.g., the stage of a task).
+   * @param <T>         type of the metric.
+   * @return dumped JSON string of the aggregation, with the count, sum, min, max and average of each group.
+   * @throws IOException when failed to write json.
+   */
+  public <T extends Metric> String dumpAggregatedMetricToJson(final Class<T> metricClass,
+                                                              final String metricField,
+                                                              final Function<String, String> idToGroup)
+    throws IOException {
+    final JsonFactory jsonFactory = new JsonFactory();
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+    try (JsonGenerator jsonGenerator = jsonFactory.createGenerator(stream, JsonEncoding.UTF8)) {
+      jsonGenerator.writeStartObject();
+      jsonGenerator.writeFieldName(metricField);
+      jsonGenerator.writeStartObject();
+      for (final Map.Entry<String, LongSummaryStatistics> groupToStatistics
+        : aggregateNumericMetric(metricClass, metricField, idToGroup).entrySet()) {
+        final LongSummaryStatistics statistics = groupToStatistics.getValue();
+        jsonGenerator.writeFieldName(groupToStatistics.getKey());
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeNumberField("count", statistics.getCount());
+        jsonGenerator.writeNumberField("sum", statistics.getSum());
+        jsonGenerator.writeNumberField("min", statistics.getMin());
+        jsonGenerator.writeNumberField("max", statistics.getMax());
+        jsonGenerator.writeNumberField("average", statistics.getAverage());
+        jsonGenerator.writeEndObject();
+      }
+      jsonGenerator.writeEndObject();
+      jsonGenerator.writeEndObject();
+    }
+    return stream.toString();
+  }
+
   private void generatePreprocessedJsonFromMetricEntry(final Map.Entry<String, Object> idToMetricEntry,
                                                        final JsonGenerator jsonGenerator,
                                                        final ObjectMapper objectMapper) throws IOException {
@@ -367,6 +489,10 @@ public final class MetricStore {
    */
   public synchronized <T extends Metric> void triggerBroadcast(final Class<T> metricClass, final String id) {
     final MetricBroadcaster metricBroadcaster = MetricBroadcaster.getInstance();
+    if (!metricBroadcaster.hasSessions()) {
+      // No one to broadcast to: skip serializing the metric
+      return;
+    }
     final ObjectMapper objectMapper = new ObjectMapper();
     final T metric = getMetricWithId(metricClass, id);
     final JsonFactory jsonFactory = new JsonFactory();
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.master.metric;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * VertexMetricStore stores the time series of the per-operator metrics sampled by the executors,
+ * for the web visualize interface.
+ * The samples of the executors for the same operator and the same sampling period are merged into a bucket.
+ * Only the latest {@link #MAX_BUCKETS_PER_VERTEX} buckets of each operator are kept.
+ */
+public final class VertexMetricStore {
+  private static final int MAX_BUCKETS_PER_VERTEX = 3600;
+  private static final String METRIC_TYPE = "VertexMetricTimeSeries";
+
+  private final Map<String, TreeMap<Long, Bucket>> vertexIdToBuckets = new HashMap<>();
+  // The buckets updated since the last dumpUpdatesToJson().
+  private final Set<Bucket> updatedBuckets = new LinkedHashSet<>();
+
+  /**
+   * Private constructor.
+   */
+  private VertexMetricStore() {
+  }
+
+  /**
+   * Getter for singleton instance.
+   *
+   * @return VertexMetricStore object.
+   */
+  public static VertexMetricStore getStore() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * Lazy class object holder for VertexMetricStore class.
+   */
+  private static class InstanceHolder {
+    private static final VertexMetricStore INSTANCE = new VertexMetricStore();
+  }
+
+  /**
+   * Static class for creating a new instance.
+   * @return a new VertexMetricStore instance.
+   */
+  public static VertexMetricStore newInstance() {
+    return new VertexMetricStore();
+  }
+
+  /**
+   * Merges the samples of an executor into the time series.
+   *
+   * @param samplesMsg the samples of an executor for a sampling period.
+   */
+  public synchronized void onSamples(final ControlMessage.VertexMetricSamplesMsg samplesMsg) {
+    final long timestamp = samplesMsg.getTimestamp();
+    for (final ControlMessage.VertexMetricSampleMsg sample : samplesMsg.getSamplesList()) {
+      final TreeMap<Long, Bucket> buckets =
+        vertexIdToBuckets.computeIfAbsent(sample.getVertexId(), vertexId -> new TreeMap<>());
+      if (buckets.size() >= MAX_BUCKETS_PER_VERTEX && timestamp < buckets.firstKey()) {
+        // Too old to be kept
+        continue;
+      }
+
+      final Bucket bucket = buckets.computeIfAbsent(timestamp, t -> new Bucket(sample.getVertexId(), t));
+      bucket.merge(sample);
+      updatedBuckets.add(bucket);
+      while (buckets.size() > MAX_BUCKETS_PER_VERTEX) {
+        updatedBuckets.remove(buckets.pollFirstEntry().getValue());
+      }
+    }
+  }
+
+  /**
+   * Dumps JSON-serialized string of the buckets updated since the last call, for broadcasting.
+   *
+   * @return dumped JSON string of the updated buckets, or null if none has been updated.
+   * @throws IOException when failed to write json.
+   */
+  public synchronized String dumpUpdatesToJson() throws IOException {
+    if (updatedBuckets.isEmpty()) {
+      return null;
+    }
+    final Map<String, TreeMap<Long, Bucket>> updates = new HashMap<>();
+    for (final Bucket bucket : updatedBuckets) {
+      updates.computeIfAbsent(bucket.vertexId, vertexId -> new TreeMap<>()).put(bucket.timestamp, bucket);
+    }
+    updatedBuckets.clear();
+    return dumpToJson(updates);
+  }
+
+  /**
+   * Dumps JSON-serialized string of the whole time series.
+   *
+   * @return dumped JSON string of the time series.
+   * @throws IOException when failed to write json.
+   */
+  public synchronized String dumpAllToJson() throws IOException {
+    return dumpToJson(vertexIdToBuckets);
+  }
+
+  private static String dumpToJson(final Map<String, TreeMap<Long, Bucket>> buckets) throws IOException {
+    final JsonFactory jsonFactory = new JsonFactory();
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+    try (JsonGenerator jsonGenerator = jsonFactory.createGenerator(stream, JsonEncoding.UTF8)) {
+      jsonGenerator.writeStartObject();
+      jsonGenerator.writeStringField("metricType", METRIC_TYPE);
+      jsonGenerator.writeFieldName("data");
+      jsonGenerator.writeStartObject();
+      for (final Map.Entry<String, TreeMap<Long, Bucket>> vertexIdToBucketsEntry : buckets.entrySet()) {
+        jsonGenerator.writeFieldName(vertexIdToBucketsEntry.getKey());
+        jsonGenerator.writeStartArray();
+        for (final Bucket bucket : vertexIdToBucketsEntry.getValue().values()) {
+          bucket.writeJson(jsonGenerator);
+        }
+        jsonGenerator.writeEndArray();
+      }
+      jsonGenerator.writeEndObject();
+      jsonGenerator.writeEndObject();
+    }
+    return stream.toString();
+  }
+
+  /**
+   * The merged samples of an operator for a sampling period.
+   */
+  private static final class Bucket {
+    private static final long NO_WATERMARK_LAG = Long.MIN_VALUE;
+
+    private final String vertexId;
+    private final long timestamp;
+    private long recordsIn = 0;
+    private long recordsOut = 0;
+    private long processingTimeNs = 0;
+    private long watermarkLagMs = NO_WATERMARK_LAG;
+
+    private Bucket(final String vertexId, final long timestamp) {
+      this.vertexId = vertexId;
+      this.timestamp = timestamp;
+    }
+
+    private void merge(final ControlMessage.VertexMetricSampleMsg sample) {
+      recordsIn += sample.getRecordsIn();
+      recordsOut += sample.getRecordsOut();
+      processingTimeNs += sample.getProcessingTimeNs();
+      if (sample.hasWatermarkLagMs()) {
+        // The slowest executor determines the lag of the operator
+        watermarkLagMs = Math.max(watermarkLagMs, sample.getWatermarkLagMs());
+      }
+    }
+
+    private void writeJson(final JsonGenerator jsonGenerator) throws IOException {
+      jsonGenerator.writeStartObject();
+      jsonGenerator.writeNumberField("timestamp", timestamp);
+      jsonGenerator.writeNumberField("recordsIn", recordsIn);
+      jsonGenerator.writeNumberField("recordsOut", recordsOut);
+      jsonGenerator.writeNumberField("processingTimeNs", processingTimeNs);
+      if (watermarkLagMs != NO_WATERMARK_LAG) {
+        jsonGenerator.writeNumberField("watermarkLagMs", watermarkLagMs);
+      }
+      jsonGenerator.writeEndObject();
+    }
+  }
+}
@@ -34,16 +34,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.concurrent.NotThreadSafe;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * (WARNING) This class is not thread-safe, and thus should only be accessed through ExecutorRegistry.
+ * The exception is {@link #sendTaskBatch()}, which the task dispatcher thread calls after releasing the registry.
+ * It only touches the tasks to send and the IR DAGs sent, which only the task dispatcher thread updates
+ * (and the serialization threads, on failures to send the tasks).
  * <p>
  * Implements ExecutorRepresenter that communicates with Executors running on traditional resources
  * (e.g., virtual machines or cluster resources).
@@ -59,10 +66,14 @@ public final class DefaultExecutorRepresenter implements ExecutorRepresenter {
   private final Map<Task, Integer> runningTaskToAttempt;
   private final Set<Task> completeTasks;
   private final Set<Task> failedTasks;
+  private final Set<String> sentIRDagHashes; // updated by the serialization threads as well, on failures
+  private final List<Task> tasksToSend;
   private final MessageSender<ControlMessage.Message> messageSender;
   private final ActiveContext activeContext;
   private final ExecutorService serializationExecutorService;
   private final String nodeName;
+  private double reportedLoad;
+  private int numOfTasksScheduledSinceLoadReport;
 
   /**
    * Creates a reference to the specified executor.
@@ -88,6 +99,8 @@ public final class DefaultExecutorRepresenter implements ExecutorRepresenter {
     this.runningTaskToAttempt = new HashMap<>();
     this.completeTasks = new HashSet<>();
     this.failedTasks = new HashSet<>();
+    this.sentIRDagHashes = ConcurrentHashMap.newKeySet();
+    this.tasksToSend = new ArrayList<>();
     this.activeContext = activeContext;
     this.serializationExecutorService = serializationExecutorService;
     this.nodeName = nodeName;
@@ -116,24 +129,99 @@ public final class DefaultExecutorRepresenter implements ExecutorRepresenter {
    */
   @Override
   public void onTaskScheduled(final Task task) {
-    (task.getPropertyValue(ResourceSlotProperty.class).orElse(true)
-      ? runningComplyingTasks : runningNonComplyingTasks).put(task.getTaskId(), task);
-    runningTaskToAttempt.put(task, task.getAttemptIdx());
-    failedTasks.remove(task);
-
-    serializationExecutorService.execute(() -> {
-      final byte[] serialized = SerializationUtils.serialize(task);
+    markAsRunning(task);
+    final boolean sendIRDag = sentIRDagHashes.add(task.getIRDagHash());
+    serializationExecutorService.execute(() ->
       sendControlMessage(
         ControlMessage.Message.newBuilder()
           .setId(RuntimeIdManager.generateMessageId())
           .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
           .setType(ControlMessage.MessageType.ScheduleTask)
-          .setScheduleTaskMsg(
-            ControlMessage.ScheduleTaskMsg.newBuilder()
-              .setTask(ByteString.copyFrom(serialized))
-              .build())
-          .build());
-    });
+          .setScheduleTaskMsg(toScheduleTaskMsg(task, sendIRDag))
+          .build()));
+  }
+
+  /**
+   * Marks the Task as running, and defers sending it until {@link #sendTaskBatch()}.
+   *
+   * @param task the task to run
+   */
+  @Override
+  public void onTaskScheduledInBatch(final Task task) {
+    markAsRunning(task);
+    tasksToSend.add(task);
+  }
+
+  /**
+   * Serializes the tasks scheduled in batch in parallel, and sends them to the executor in a single message.
+   * If failed, the IR DAGs of the tasks are sent again with the next tasks of the IR DAGs.
+   *
+   * @return the future which completes when the tasks are sent, or completes exceptionally if failed to send them.
+   */
+  @Override
+  public CompletableFuture<Void> sendTaskBatch() {
+    if (tasksToSend.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final List<CompletableFuture<ControlMessage.ScheduleTaskMsg>> scheduleTaskMsgs = new ArrayList<>();
+    final Set<String> irDagHashesToSend = new HashSet<>();
+    for (final Task task : tasksToSend) {
+      final boolean sendIRDag = sentIRDagHashes.add(task.getIRDagHash());
+      if (sendIRDag) {
+        irDagHashesToSend.add(task.getIRDagHash());
+      }
+      scheduleTaskMsgs.add(CompletableFuture.supplyAsync(() -> toScheduleTaskMsg(task, sendIRDag),
+        serializationExecutorService));
+    }
+    tasksToSend.clear();
+
+    return CompletableFuture.allOf(scheduleTaskMsgs.toArray(new CompletableFuture[0]))
+      .thenRun(() -> sendControlMessage(
+        ControlMessage.Message.newBuilder()
+          .setId(RuntimeIdManager.generateMessageId())
+          .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
+          .setType(ControlMessage.MessageType.ScheduleTasks)
+          .setScheduleTasksMsg(ControlMessage.ScheduleTasksMsg.newBuilder()
+            .addAllTasks(scheduleTaskMsgs.stream().map(CompletableFuture::join).collect(Collectors.toList()))
+            .build())
+          .build()))
+      .whenComplete((result, throwable) -> {
+        if (throwable != null) {
+          LOG.error("Failed to send tasks to " + executorId, throwable);
+          sentIRDagHashes.removeAll(irDagHashesToSend);
+        }
+      });
+  }
+
+  /**
+   * Marks the Task as running.
+   *
+   * @param task the task to mark.
+   */
+  private void markAsRunning(final Task task) {
+    (task.getPropertyValue(ResourceSlotProperty.class).orElse(true)
+      ? runningComplyingTasks : runningNonComplyingTasks).put(task.getTaskId(), task);
+    runningTaskToAttempt.put(task, task.getAttemptIdx());
+    failedTasks.remove(task);
+    numOfTasksScheduledSinceLoadReport++;
+  }
+
+  /**
+   * Serializes the task into a scheduling message.
+   * The IR DAG is sent only with the first task of the IR DAG, and the executor keeps it for the other tasks.
+   * The executor waits for the IR DAG, if the other tasks arrive before the first task.
+   *
+   * @param task      the task to serialize.
+   * @param sendIRDag whether to attach the serialized IR DAG of the task.
+   * @return the scheduling message.
+   */
+  private static ControlMessage.ScheduleTaskMsg toScheduleTaskMsg(final Task task, final boolean sendIRDag) {
+    final ControlMessage.ScheduleTaskMsg.Builder scheduleTaskMsgBuilder = ControlMessage.ScheduleTaskMsg.newBuilder()
+      .setTask(ByteString.copyFrom(SerializationUtils.serialize(task)));
+    if (sendIRDag) {
+      scheduleTaskMsgBuilder.setIrDag(ByteString.copyFrom(task.getSerializedIRDag()));
+    }
+    return scheduleTaskMsgBuilder.build();
   }
 
   /**
@@ -195,6 +283,18 @@ public final class DefaultExecutorRepresenter implements ExecutorRepresenter {
     return getNumOfComplyingRunningTasks() + getNumOfNonComplyingRunningTasks();
   }
 
+  @Override
+  public void onLoadReported(final double load) {
+    reportedLoad = load;
+    numOfTasksScheduledSinceLoadReport = 0;
+  }
+
+  @Override
+  public double getLoad() {
+    // The tasks scheduled after the last report are not reflected in the reported load yet.
+    return (reportedLoad + numOfTasksScheduledSinceLoadReport) / Math.max(1, getExecutorCapacity());
+  }
+
   /**
    * @return the number of running {@link Task}s that complies to the executor slot restriction.
    */
@@ -22,6 +22,7 @@ import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.plan.Task;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Contains information/state regarding an executor
@@ -56,6 +57,20 @@ public interface ExecutorRepresenter {
    */
   int getNumOfRunningTasks();
 
+  /**
+   * Updates the load of this executor, as reported by the executor.
+   *
+   * @param load the number of cores in use, plus the number of tasks waiting for a core.
+   *             It is not normalized, as the executor may not know how many cores of its machine it is given.
+   */
+  void onLoadReported(double load);
+
+  /**
+   * @return the estimated load of this executor: the last reported load plus the tasks scheduled since then,
+   * per slot of this executor.
+   */
+  double getLoad();
+
   /**
    * @return the number of running {@link Task}s that complies to the executor slot restriction.
    */
@@ -68,6 +83,21 @@ public interface ExecutorRepresenter {
    */
    void onTaskScheduled(Task task);
 
+  /**
+   * Marks the Task as running, and defers sending it to the executor until {@link #sendTaskBatch()}.
+   *
+   * @param task the task to run
+   */
+  void onTaskScheduledInBatch(Task task);
+
+  /**
+   * Sends the tasks marked by {@link #onTaskScheduledInBatch(Task)} to the executor in a single message.
+   *
+   * @return the future which completes when the tasks are sent, or completes exceptionally if failed to send them
+   *         (e.g., as they failed to be serialized).
+   */
+  CompletableFuture<Void> sendTaskBatch();
+
   /**
    * Sends control message to the executor.
    *
@@ -20,10 +20,14 @@ package org.apache.nemo.runtime.master.scheduler;
 
 import org.apache.commons.lang.mutable.MutableBoolean;
 import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.dag.DAG;
 import org.apache.nemo.common.exception.UnknownExecutionStateException;
 import org.apache.nemo.common.exception.UnrecoverableFailureException;
 import org.apache.nemo.common.ir.vertex.executionproperty.ClonedSchedulingProperty;
+import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.plan.*;
 import org.apache.nemo.runtime.common.state.StageState;
 import org.apache.nemo.runtime.common.state.TaskState;
@@ -32,6 +36,7 @@ import org.apache.nemo.runtime.master.PlanAppender;
 import org.apache.nemo.runtime.master.PlanStateManager;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
 import org.apache.reef.annotations.audience.DriverSide;
+import org.apache.reef.tang.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,16 +71,19 @@ public final class BatchScheduler implements Scheduler {
   private final PendingTaskCollectionPointer pendingTaskCollectionPointer;  // A 'pointer' to the list of pending tasks.
   private final ExecutorRegistry executorRegistry;  // A registry for executors available for the job.
   private final PlanStateManager planStateManager;  // A component that manages the state of the plan.
+  private final SchedulingConstraintRegistry schedulingConstraintRegistry;  // Constraints on scheduling the tasks.
 
   /**
    * Other necessary components of this {@link org.apache.nemo.runtime.master.RuntimeMaster}.
    */
   private final BlockManagerMaster blockManagerMaster;  // A component that manages data blocks.
+  private final boolean pipelinedStageExecution;  // Whether to start the consumer stages early.
 
   /**
    * The below variables depend on the submitted plan to execute.
    */
   private List<List<Stage>> sortedScheduleGroups;  // Stages, sorted in the order to be scheduled.
+  private final Set<String> earlyScheduledStageIds = new HashSet<>();  // Stages started before their producers.
 
   @Inject
   private BatchScheduler(final PlanRewriter planRewriter,
@@ -83,13 +91,17 @@ public final class BatchScheduler implements Scheduler {
                          final PendingTaskCollectionPointer pendingTaskCollectionPointer,
                          final BlockManagerMaster blockManagerMaster,
                          final ExecutorRegistry executorRegistry,
-                         final PlanStateManager planStateManager) {
+                         final PlanStateManager planStateManager,
+                         final SchedulingConstraintRegistry schedulingConstraintRegistry,
+                         @Parameter(JobConf.PipelinedStageExecution.class) final boolean pipelinedStageExecution) {
     this.planRewriter = planRewriter;
     this.taskDispatcher = taskDispatcher;
     this.pendingTaskCollectionPointer = pendingTaskCollectionPointer;
     this.blockManagerMaster = blockManagerMaster;
     this.executorRegistry = executorRegistry;
     this.planStateManager = planStateManager;
+    this.schedulingConstraintRegistry = schedulingConstraintRegistry;
+    this.pipelinedStageExecution = pipelinedStageExecution;
   }
 
   ////////////////////////////////////////////////////////////////////// Methods for plan rewriting.
@@ -117,6 +129,7 @@ public final class BatchScheduler implements Scheduler {
       .sorted(Map.Entry.comparingByKey())
       .map(Map.Entry::getValue)
       .collect(Collectors.toList());
+    this.earlyScheduledStageIds.clear();
   }
 
   /**
@@ -182,6 +195,11 @@ public final class BatchScheduler implements Scheduler {
     switch (newState) {
       case COMPLETE:
         BatchSchedulerUtils.onTaskExecutionComplete(executorRegistry, executorId, taskId);
+        final String completedStageId = RuntimeIdManager.getStageIdFromTaskId(taskId);
+        if (planStateManager.getStageState(completedStageId).equals(StageState.State.COMPLETE)) {
+          removeMergedBlocksOfStage(completedStageId);
+          schedulingConstraintRegistry.onStageComplete(completedStageId);
+        }
         break;
       case SHOULD_RETRY:
         // SHOULD_RETRY from an executor means that the task ran into a recoverable failure
@@ -208,9 +226,10 @@ public final class BatchScheduler implements Scheduler {
     switch (newState) {
       case COMPLETE:
       case ON_HOLD:
-        // If the stage has completed
+        // If the stage has completed, or the consumer stages have become ready to start early
         final String stageIdForTaskUponCompletion = RuntimeIdManager.getStageIdFromTaskId(taskId);
-        if (planStateManager.getStageState(stageIdForTaskUponCompletion).equals(StageState.State.COMPLETE)
+        if ((planStateManager.getStageState(stageIdForTaskUponCompletion).equals(StageState.State.COMPLETE)
+          || (pipelinedStageExecution && isPipelinableGroupReady()))
           && !planStateManager.isPlanDone()) {
           doSchedule();
         }
@@ -287,6 +306,14 @@ public final class BatchScheduler implements Scheduler {
     doSchedule();
   }
 
+  @Override
+  public void onExecutorLoadReport(final String executorId, final double load) {
+    executorRegistry.updateExecutor(executorId, (executor, state) -> {
+      executor.onLoadReported(load);
+      return Pair.of(executor, state);
+    });
+  }
+
   @Override
   public void terminate() {
     this.taskDispatcher.terminate();
@@ -308,10 +335,23 @@ public final class BatchScheduler implements Scheduler {
       BatchSchedulerUtils.selectEarliestSchedulableGroup(sortedScheduleGroups, planStateManager);
 
     if (earliest.isPresent()) {
-      final List<Task> tasksToSchedule = earliest.get().stream()
+      List<Task> tasksToSchedule = earliest.get().stream()
         .flatMap(stage ->
           BatchSchedulerUtils.selectSchedulableTasks(planStateManager, blockManagerMaster, stage).stream())
         .collect(Collectors.toList());
+      if (tasksToSchedule.isEmpty() && pipelinedStageExecution) {
+        // All tasks of the earliest group hold their slots, so the next group can start with the free slots,
+        // and fetch the blocks of the earliest group as they are committed.
+        final Optional<List<Stage>> pipelinable = BatchSchedulerUtils
+          .selectPipelinableGroup(sortedScheduleGroups, earliest.get(), planStateManager);
+        if (pipelinable.isPresent()) {
+          pipelinable.get().forEach(stage -> earlyScheduledStageIds.add(stage.getId()));
+          tasksToSchedule = pipelinable.get().stream()
+            .flatMap(stage ->
+              BatchSchedulerUtils.selectSchedulableTasks(planStateManager, blockManagerMaster, stage).stream())
+            .collect(Collectors.toList());
+        }
+      }
       if (!tasksToSchedule.isEmpty()) {
         LOG.info("Scheduling some tasks in {}, which are in the same ScheduleGroup", tasksToSchedule.stream()
           .map(Task::getTaskId)
@@ -329,6 +369,52 @@ public final class BatchScheduler implements Scheduler {
     }
   }
 
+  /**
+   * Checks whether a task completion lets the consumer stages start early, without selecting the tasks to schedule.
+   * This is the case when all tasks of the earliest schedule group have been dispatched,
+   * and the next schedule group is pipelinable and yet to be scheduled.
+   *
+   * @return whether {@link #doSchedule()} can schedule the tasks of the pipelinable schedule group.
+   */
+  private boolean isPipelinableGroupReady() {
+    final Optional<List<Stage>> earliest =
+      BatchSchedulerUtils.selectEarliestSchedulableGroup(sortedScheduleGroups, planStateManager);
+    if (!earliest.isPresent()
+      || earliest.get().stream().anyMatch(stage -> planStateManager.hasReadyTaskAttempts(stage.getId()))) {
+      return false;
+    }
+    return BatchSchedulerUtils.selectPipelinableGroup(sortedScheduleGroups, earliest.get(), planStateManager)
+      .map(pipelinable -> !pipelinable.stream().allMatch(stage -> earlyScheduledStageIds.contains(stage.getId())))
+      .orElse(false);
+  }
+
+
+  ////////////////////////////////////////////////////////////////////// Merged block methods.
+
+  /**
+   * Removes the merged blocks of the incoming edges of a completed stage from the executors.
+   * The consumer tasks of the stage read the blocks of the producer tasks if re-executed afterwards.
+   *
+   * @param stageId the ID of the completed stage.
+   */
+  private void removeMergedBlocksOfStage(final String stageId) {
+    final DAG<Stage, StageEdge> stageDAG = planStateManager.getPhysicalPlan().getStageDAG();
+    for (final StageEdge stageEdge : stageDAG.getIncomingEdgesOf(stageId)) {
+      if (blockManagerMaster.invalidateMergedBlocks(stageEdge.getId())) {
+        final ControlMessage.Message message = ControlMessage.Message.newBuilder()
+          .setId(RuntimeIdManager.generateMessageId())
+          .setListenerId(MessageEnvironment.EXECUTOR_MESSAGE_LISTENER_ID)
+          .setType(ControlMessage.MessageType.RemoveMergedBlocks)
+          .setRemoveMergedBlocksMsg(ControlMessage.RemoveMergedBlocksMsg.newBuilder()
+            .setRuntimeEdgeId(stageEdge.getId())
+            .build())
+          .build();
+        executorRegistry.viewExecutors(executors -> executors.forEach(executor ->
+          executor.sendControlMessage(message)));
+      }
+    }
+  }
+
 
   ////////////////////////////////////////////////////////////////////// Task cloning methods.
 
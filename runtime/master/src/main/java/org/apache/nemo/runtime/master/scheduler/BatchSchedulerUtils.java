@@ -24,6 +24,7 @@ import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.dag.DAG;
 import org.apache.nemo.common.exception.UnknownFailureCauseException;
 import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.ir.edge.executionproperty.DataFlowProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.MessageIdEdgeProperty;
 import org.apache.nemo.common.ir.vertex.executionproperty.IgnoreSchedulingTempDataReceiverProperty;
 import org.apache.nemo.common.ir.vertex.executionproperty.MessageIdVertexProperty;
@@ -68,6 +69,49 @@ public final class BatchSchedulerUtils {
       .findFirst(); // selects the one with the smallest scheduling group index.
   }
 
+  /**
+   * Selects the schedule group right after the earliest schedulable group, if its stages can start
+   * before the earliest group completes.
+   * They can, if they read the outputs of the incomplete stages only through pull edges (i.e., blocks
+   * that can be fetched as they are committed), which are not the targets of dynamic optimization.
+   *
+   * @param sortedScheduleGroups the schedule groups, sorted in the order to be scheduled.
+   * @param earliestGroup        the earliest schedulable group.
+   * @param planStateManager     the plan state manager.
+   * @return the next schedule group, if its stages can start now.
+   */
+  static Optional<List<Stage>> selectPipelinableGroup(final List<List<Stage>> sortedScheduleGroups,
+                                                      final List<Stage> earliestGroup,
+                                                      final PlanStateManager planStateManager) {
+    final int nextGroupIndex = sortedScheduleGroups.indexOf(earliestGroup) + 1;
+    if (nextGroupIndex == 0 || nextGroupIndex >= sortedScheduleGroups.size()) {
+      return Optional.empty();
+    }
+
+    final List<Stage> nextGroup = sortedScheduleGroups.get(nextGroupIndex);
+    final DAG<Stage, StageEdge> stageDag = planStateManager.getPhysicalPlan().getStageDAG();
+    for (final Stage stage : nextGroup) {
+      if (stage.getEnableDynamicTaskSizing()) {
+        return Optional.empty();
+      }
+      for (final StageEdge edge : stageDag.getIncomingEdgesOf(stage.getId())) {
+        final Stage srcStage = edge.getSrc();
+        if (nextGroup.contains(srcStage)
+          || planStateManager.getStageState(srcStage.getId()).equals(StageState.State.COMPLETE)) {
+          continue;
+        }
+        final boolean isPipelinable = DataFlowProperty.Value.PULL.equals(edge.getDataFlowModel())
+          && !edge.getPropertyValue(MessageIdEdgeProperty.class).isPresent()
+          && srcStage.getIRDAG().getVertices().stream()
+          .noneMatch(v -> v.getPropertyValue(MessageIdVertexProperty.class).isPresent());
+        if (!isPipelinable) {
+          return Optional.empty();
+        }
+      }
+    }
+    return Optional.of(nextGroup);
+  }
+
   static List<Task> selectSchedulableTasks(final PlanStateManager planStateManager,
                                            final BlockManagerMaster blockManagerMaster,
                                            final Stage stageToSchedule) {
@@ -100,6 +144,7 @@ public final class BatchSchedulerUtils {
         taskId,
         stageToSchedule.getExecutionProperties(),
         stageToSchedule.getSerializedIRDAG(),
+        stageToSchedule.getIRDagHash(),
         stageIncomingEdges,
         stageOutgoingEdges,
         vertexIdToReadables.get(taskIdx)));
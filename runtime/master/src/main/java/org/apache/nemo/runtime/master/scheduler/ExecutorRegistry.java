@@ -96,6 +96,16 @@ public final class ExecutorRegistry {
     }
   }
 
+  /**
+   * @param executorId the id of the executor.
+   * @return the name of the node of the executor, if the executor is running.
+   */
+  synchronized Optional<String> getNodeNameOfExecutor(final String executorId) {
+    final Pair<ExecutorRepresenter, ExecutorState> pair = executors.get(executorId);
+    return pair == null || !pair.right().equals(ExecutorState.RUNNING)
+      ? Optional.empty() : Optional.of(pair.left().getNodeName());
+  }
+
   /**
    * Retrieves the executor to which the given task was scheduled.
    *
@@ -18,12 +18,14 @@
  */
 package org.apache.nemo.runtime.master.scheduler;
 
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.ir.Readable;
 import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupProperty;
 import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupPropertyValue;
 import org.apache.nemo.common.ir.executionproperty.AssociatedProperty;
 import org.apache.nemo.common.ir.vertex.executionproperty.ResourceLocalityProperty;
+import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.common.plan.Task;
@@ -31,25 +33,45 @@ import org.apache.nemo.runtime.common.state.BlockState;
 import org.apache.nemo.runtime.master.BlockManagerMaster;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
 import org.apache.reef.annotations.audience.DriverSide;
+import org.apache.reef.tang.annotations.Parameter;
 
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
  * This policy tries to pick the executors where the corresponding source or intermediate data for a task reside.
+ * For the consumer tasks of a shuffle, it prefers the executors that hold the largest share of the key range
+ * of the task, using the partition sizes reported when the blocks are committed. Like delay scheduling,
+ * it falls back to the nodes that hold the largest share, and then to any executor, after waiting for each.
  */
 @ThreadSafe
 @DriverSide
 @AssociatedProperty(ResourceLocalityProperty.class)
 public final class LocalitySchedulingConstraint implements SchedulingConstraint {
   private final BlockManagerMaster blockManagerMaster;
+  private final ExecutorRegistry executorRegistry;
+  private final long shuffleLocalityWaitMs;
+  // When the tasks of each stage started waiting for the executors that hold their shuffle input,
+  // reset whenever a task of the stage is scheduled to one of them, and removed when the stage completes.
+  private final Map<String, Long> stageIdToLocalityWaitStartTime;
+  // The executors are tested one by one for a task, so the preferred locations of the last task are kept.
+  // Guarded by this object: only accessed in getShuffleInputLocality().
+  private ShuffleInputLocality lastShuffleInputLocality;
 
   @Inject
-  private LocalitySchedulingConstraint(final BlockManagerMaster blockManagerMaster) {
+  private LocalitySchedulingConstraint(final BlockManagerMaster blockManagerMaster,
+                                       final ExecutorRegistry executorRegistry,
+                                       @Parameter(JobConf.ShuffleLocalityWaitMs.class)
+                                       final long shuffleLocalityWaitMs) {
     this.blockManagerMaster = blockManagerMaster;
+    this.executorRegistry = executorRegistry;
+    this.shuffleLocalityWaitMs = shuffleLocalityWaitMs;
+    this.stageIdToLocalityWaitStartTime = new ConcurrentHashMap<>();
+    this.lastShuffleInputLocality = null;
   }
 
   /**
@@ -91,6 +113,114 @@ public final class LocalitySchedulingConstraint implements SchedulingConstraint
     return Collections.emptyList();
   }
 
+  /**
+   * Sums up the committed bytes in the key range of a task, of the shuffle blocks the task reads, by executor.
+   *
+   * @param task the task to schedule.
+   * @return the bytes of the shuffle input of the task by executor id, empty if unknown.
+   */
+  private Map<String, Long> getShuffleInputBytes(final Task task) {
+    final int taskIndex = RuntimeIdManager.getIndexFromTaskId(task.getTaskId());
+    final Map<String, Long> executorIdToBytes = new HashMap<>();
+    for (final StageEdge edge : task.getTaskIncomingEdges()) {
+      if (!CommunicationPatternProperty.Value.SHUFFLE.equals(
+        edge.getPropertyValue(CommunicationPatternProperty.class).orElse(null))) {
+        continue;
+      }
+      final List<KeyRange> keyRanges = edge.getKeyRanges();
+      if (taskIndex >= keyRanges.size()) {
+        continue;
+      }
+      final Optional<DuplicateEdgeGroupPropertyValue> dupProp = edge.getPropertyValue(DuplicateEdgeGroupProperty.class);
+      final String representativeEdgeId = dupProp.isPresent() && dupProp.get().getGroupSize() > 1
+        ? dupProp.get().getRepresentativeEdgeId()
+        : edge.getId();
+      blockManagerMaster.getCommittedBytesByLocation(
+        representativeEdgeId, edge.getSrc().getParallelism(), (KeyRange<Integer>) keyRanges.get(taskIndex))
+        .forEach((location, bytes) -> executorIdToBytes.merge(location, bytes, Long::sum));
+    }
+    return executorIdToBytes;
+  }
+
+  /**
+   * @param task the task to schedule.
+   * @return the preferred locations of the task for its shuffle input.
+   */
+  private synchronized ShuffleInputLocality getShuffleInputLocality(final Task task) {
+    if (lastShuffleInputLocality == null || !lastShuffleInputLocality.taskId.equals(task.getTaskId())) {
+      final Map<String, Long> executorIdToBytes = getShuffleInputBytes(task);
+      final Map<String, Long> nodeNameToBytes = new HashMap<>();
+      executorIdToBytes.forEach((executorId, bytes) -> executorRegistry.getNodeNameOfExecutor(executorId)
+        .ifPresent(nodeName -> nodeNameToBytes.merge(nodeName, bytes, Long::sum)));
+      lastShuffleInputLocality = new ShuffleInputLocality(task.getTaskId(),
+        getKeysWithMaxValue(executorIdToBytes), getKeysWithMaxValue(nodeNameToBytes));
+    }
+    return lastShuffleInputLocality;
+  }
+
+  /**
+   * @param keyToValue the map to search.
+   * @return the keys with the maximum value, empty if the map is empty.
+   */
+  private static Set<String> getKeysWithMaxValue(final Map<String, Long> keyToValue) {
+    final long maxValue = keyToValue.values().stream().mapToLong(Long::longValue).max().orElse(0);
+    return keyToValue.entrySet().stream()
+      .filter(entry -> entry.getValue() == maxValue)
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toSet());
+  }
+
+  /**
+   * Tests whether a task can be scheduled to an executor, for the locality of the shuffle input of the task.
+   * The task waits for the executors that hold the largest share of its input, and then for the nodes that do.
+   * The waiting time is counted from when the first task of the stage is tested,
+   * or from when a task of the stage was last scheduled to one of the executors it prefers.
+   *
+   * @param executor the executor to test.
+   * @param task     the task to schedule.
+   * @return whether the task can be scheduled to the executor.
+   */
+  private boolean testShuffleInputLocality(final ExecutorRepresenter executor, final Task task) {
+    if (shuffleLocalityWaitMs <= 0) {
+      return true;
+    }
+    final ShuffleInputLocality locality = getShuffleInputLocality(task);
+    if (locality.preferredExecutorIds.isEmpty()) {
+      // Since there is no known size, we just schedule the task to any executor.
+      return true;
+    }
+
+    final long currentTime = System.currentTimeMillis();
+    final long waitStartTime = stageIdToLocalityWaitStartTime.computeIfAbsent(
+      RuntimeIdManager.getStageIdFromTaskId(task.getTaskId()), stageId -> currentTime);
+    final long waitedTime = currentTime - waitStartTime;
+    if (waitedTime < shuffleLocalityWaitMs) {
+      return locality.preferredExecutorIds.contains(executor.getExecutorId());
+    } else if (waitedTime < 2 * shuffleLocalityWaitMs) {
+      return locality.preferredNodeNames.contains(executor.getNodeName());
+    } else {
+      return true;
+    }
+  }
+
+  @Override
+  public void onTaskScheduled(final ExecutorRepresenter executor, final Task task) {
+    if (shuffleLocalityWaitMs <= 0 || task.getTaskIncomingEdges().isEmpty()) {
+      return;
+    }
+    final ShuffleInputLocality locality = getShuffleInputLocality(task);
+    if (locality.preferredExecutorIds.contains(executor.getExecutorId())) {
+      // Like delay scheduling, the other tasks of the stage wait again, as the preferred executors may free up.
+      stageIdToLocalityWaitStartTime.computeIfPresent(
+        RuntimeIdManager.getStageIdFromTaskId(task.getTaskId()), (stageId, time) -> System.currentTimeMillis());
+    }
+  }
+
+  @Override
+  public void onStageComplete(final String stageId) {
+    stageIdToLocalityWaitStartTime.remove(stageId);
+  }
+
   /**
    * @param readables collection of readables
    * @return Set of source locations from source tasks in {@code taskDAG}
@@ -126,12 +256,28 @@ public final class LocalitySchedulingConstraint implements SchedulingConstraint
       // Non-source task.
       final List<String> intermediateLocations = getIntermediateDataLocations(task);
       if (intermediateLocations.isEmpty()) {
-        // Since there is no known location, we just schedule the task to any executor.
-        return true;
+        return testShuffleInputLocality(executor, task);
       } else {
         // There is a known location(s), so we schedule to it(them).
         return intermediateLocations.contains(executor.getExecutorId());
       }
     }
   }
+
+  /**
+   * The preferred locations of a task for its shuffle input.
+   */
+  private static final class ShuffleInputLocality {
+    private final String taskId;
+    private final Set<String> preferredExecutorIds;
+    private final Set<String> preferredNodeNames;
+
+    private ShuffleInputLocality(final String taskId,
+                                 final Set<String> preferredExecutorIds,
+                                 final Set<String> preferredNodeNames) {
+      this.taskId = taskId;
+      this.preferredExecutorIds = preferredExecutorIds;
+      this.preferredNodeNames = preferredNodeNames;
+    }
+  }
 }
@@ -25,10 +25,11 @@ import org.apache.reef.annotations.audience.DriverSide;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 import java.util.Collection;
-import java.util.OptionalInt;
+import java.util.Comparator;
 
 /**
- * This policy chooses a set of Executors, on which have minimum running Tasks.
+ * This policy chooses the executor with the minimum load, as reported by the executors.
+ * Among the executors with the same load (e.g., before any report), it chooses the one with minimum running Tasks.
  */
 @ThreadSafe
 @DriverSide
@@ -40,18 +41,9 @@ public final class MinOccupancyFirstSchedulingPolicy implements SchedulingPolicy
 
   @Override
   public ExecutorRepresenter selectExecutor(final Collection<ExecutorRepresenter> executors, final Task task) {
-    final OptionalInt minOccupancy =
-      executors.stream()
-        .map(ExecutorRepresenter::getNumOfRunningTasks)
-        .mapToInt(i -> i).min();
-
-    if (!minOccupancy.isPresent()) {
-      throw new RuntimeException("Cannot find min occupancy");
-    }
-
     return executors.stream()
-      .filter(executor -> executor.getNumOfRunningTasks() == minOccupancy.getAsInt())
-      .findFirst()
-      .orElseThrow(() -> new RuntimeException("No such executor"));
+      .min(Comparator.comparingDouble(ExecutorRepresenter::getLoad)
+        .thenComparingInt(ExecutorRepresenter::getNumOfRunningTasks))
+      .orElseThrow(() -> new RuntimeException("Cannot find min occupancy"));
   }
 }
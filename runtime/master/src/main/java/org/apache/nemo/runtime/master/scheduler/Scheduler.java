@@ -81,6 +81,14 @@ public interface Scheduler {
                                      @Nullable String taskPutOnHold,
                                      TaskState.RecoverableTaskFailureCause failureCause);
 
+  /**
+   * Called when an executor reports its load.
+   *
+   * @param executorId of the executor.
+   * @param load       the number of cores in use by the executor, plus the number of tasks waiting for a core.
+   */
+  void onExecutorLoadReport(String executorId, double load);
+
   /**
    * Called to check for speculative execution.
    */
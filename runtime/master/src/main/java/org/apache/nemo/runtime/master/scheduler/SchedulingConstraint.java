@@ -32,4 +32,30 @@ import javax.annotation.concurrent.ThreadSafe;
 @FunctionalInterface
 public interface SchedulingConstraint {
   boolean testSchedulability(ExecutorRepresenter executor, Task task);
+
+  /**
+   * @return whether the schedulability depends only on the executor and the execution properties of the task,
+   * so that the result can be reused for the tasks with the same execution properties.
+   */
+  default boolean dependsOnlyOnExecutionProperties() {
+    return false;
+  }
+
+  /**
+   * Called when a task is scheduled to an executor, which has passed this constraint.
+   * The constraints that depend only on the execution properties are not notified.
+   *
+   * @param executor the executor the task is scheduled to.
+   * @param task     the scheduled task.
+   */
+  default void onTaskScheduled(final ExecutorRepresenter executor, final Task task) {
+  }
+
+  /**
+   * Called when a stage completes, so that the constraint can release what it keeps for the stage.
+   *
+   * @param stageId the id of the completed stage.
+   */
+  default void onStageComplete(final String stageId) {
+  }
 }
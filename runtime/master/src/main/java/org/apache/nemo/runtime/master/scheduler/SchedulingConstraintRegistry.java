@@ -80,4 +80,13 @@ public final class SchedulingConstraintRegistry {
   public Optional<SchedulingConstraint> get(final Class<? extends VertexExecutionProperty> propertyClass) {
     return Optional.ofNullable(typeToSchedulingConstraintMap.get(propertyClass));
   }
+
+  /**
+   * Notifies the registered {@link SchedulingConstraint}s of the completion of a stage.
+   *
+   * @param stageId the id of the completed stage.
+   */
+  public void onStageComplete(final String stageId) {
+    typeToSchedulingConstraintMap.values().forEach(constraint -> constraint.onStageComplete(stageId));
+  }
 }
@@ -90,7 +90,8 @@ public final class SimulatedTaskExecutor {
    */
   private long calculateExpectedTaskDuration(final Task task) {
     final DAG<IRVertex, RuntimeEdge<IRVertex>> stageIRDAG = stageIDToStageIRDAG.computeIfAbsent(task.getStageId(),
-      i -> SerializationUtils.deserialize(task.getSerializedIRDag()));
+      // The serialized IR DAG is not sent with the task. Take the IR DAG from the plan of the simulation instead.
+      i -> scheduler.getPlanStateManager().getPhysicalPlan().getStageDAG().getVertexById(i).getIRDAG());
 
     final Map<String, Object> jobMetricMap = this.actualMetricStore.getMetricMap(JobMetric.class);
     if (jobMetricMap.size() > 1) {
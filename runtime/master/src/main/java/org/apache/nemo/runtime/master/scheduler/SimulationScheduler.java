@@ -149,7 +149,7 @@ public final class SimulationScheduler implements Scheduler {
     this.dagDirectory = dagDirectory;
     this.planStateManager = PlanStateManager.newInstance(dagDirectory);
     this.taskDispatcher = TaskDispatcher.newInstance(schedulingConstraintRegistry, schedulingPolicy,
-      pendingTaskCollectionPointer, executorRegistry, planStateManager);
+      pendingTaskCollectionPointer, executorRegistry, planStateManager, blockManagerMaster);
     this.serializationExecutorService = Executors.newFixedThreadPool(scheduleSerThread);
     this.actualMetricStore = MetricStore.getStore();
     this.metricStore = MetricStore.newInstance();
@@ -187,7 +187,7 @@ public final class SimulationScheduler implements Scheduler {
     this.planStateManager = PlanStateManager.newInstance(dagDirectory);
     this.pendingTaskCollectionPointer.getAndSetNull();
     this.taskDispatcher = TaskDispatcher.newInstance(schedulingConstraintRegistry, schedulingPolicy,
-      pendingTaskCollectionPointer, executorRegistry, planStateManager);
+      pendingTaskCollectionPointer, executorRegistry, planStateManager, blockManagerMaster);
     this.metricStore = MetricStore.newInstance();
     this.planStateManager.setMetricStore(metricStore);
     this.simulatedTaskExecutorMap.clear();
@@ -424,6 +424,14 @@ public final class SimulationScheduler implements Scheduler {
     }
   }
 
+  /**
+   * Handle a batch of metric messages, as it would have been sent from MetricManagerWorker.
+   * @param metricMessages the metric messages.
+   */
+  private void handleMetricMessages(final List<ControlMessage.Metric> metricMessages) {
+    metricStore.processMetricMessages(metricMessages);
+  }
+
   /**
    * The endpoint of the simulator. Collect the metric store, and terminate the simulator.
    * @return the metrics of the simulation.
@@ -451,6 +459,14 @@ public final class SimulationScheduler implements Scheduler {
     return;
   }
 
+  @Override
+  public void onExecutorLoadReport(final String executorId, final double load) {
+    executorRegistry.updateExecutor(executorId, (executor, state) -> {
+      executor.onLoadReported(load);
+      return Pair.of(executor, state);
+    });
+  }
+
   @Override
   public void terminate() {
     this.taskDispatcher.terminate();
@@ -560,14 +576,10 @@ public final class SimulationScheduler implements Scheduler {
           scheduler.onRunTimePassMessage(
             // TODO #436: Dynamic task resizing.
             message.getRunTimePassMessageMsg().getTaskId(),
-            message.getRunTimePassMessageMsg().getEntryList());
+            message.getRunTimePassMessageMsg());
           break;
         case MetricMessageReceived:
-          final List<ControlMessage.Metric> metricList = message.getMetricMsg().getMetricList();
-          metricList.forEach(metric ->
-            scheduler.handleMetricMessage(
-              metric.getMetricType(), metric.getMetricId(),
-              metric.getMetricField(), metric.getMetricValue().toByteArray()));
+          scheduler.handleMetricMessages(message.getMetricMsg().getMetricList());
           break;
         //  Messages sent to the executor
         case ScheduleTask:
@@ -576,9 +588,18 @@ public final class SimulationScheduler implements Scheduler {
             SerializationUtils.deserialize(scheduleTaskMsg.getTask().toByteArray());
           scheduler.simulatedTaskExecutorMap.get(executorId).onTaskReceived(task);
           break;
+        case ScheduleTasks:
+          for (final ControlMessage.ScheduleTaskMsg msg : message.getScheduleTasksMsg().getTasksList()) {
+            scheduler.simulatedTaskExecutorMap.get(executorId)
+              .onTaskReceived(SerializationUtils.deserialize(msg.getTask().toByteArray()));
+          }
+          break;
         // No metric messaging in simulation.
+        case VertexMetricSamples:
         case MetricFlushed:
         case RequestMetricFlush:
+        // No merged blocks in simulation.
+        case RemoveMergedBlocks:
           break;
         default:
           throw new IllegalMessageException(
@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.runtime.master.scheduler;
 
+import org.apache.nemo.common.Pair;
 import org.apache.nemo.common.exception.UnknownExecutionStateException;
 import org.apache.nemo.common.ir.Readable;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
@@ -101,6 +102,7 @@ public final class StreamingScheduler implements Scheduler {
         taskId,
         stageToSchedule.getExecutionProperties(),
         stageToSchedule.getSerializedIRDAG(),
+        stageToSchedule.getIRDagHash(),
         stageIncomingEdges,
         stageOutgoingEdges,
         vertexIdToReadables.get(RuntimeIdManager.getIndexFromTaskId(taskId))));
@@ -162,6 +164,14 @@ public final class StreamingScheduler implements Scheduler {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void onExecutorLoadReport(final String executorId, final double load) {
+    executorRegistry.updateExecutor(executorId, (executor, state) -> {
+      executor.onLoadReported(load);
+      return Pair.of(executor, state);
+    });
+  }
+
   @Override
   public void terminate() {
     this.taskDispatcher.terminate();
@@ -18,20 +18,30 @@
  */
 package org.apache.nemo.runtime.master.scheduler;
 
-import org.apache.commons.lang3.mutable.MutableObject;
+import org.apache.nemo.common.Pair;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.vertex.executionproperty.VertexExecutionProperty;
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.common.state.TaskState;
+import org.apache.nemo.runtime.master.BlockManagerMaster;
 import org.apache.nemo.runtime.master.PlanStateManager;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
 import org.apache.reef.annotations.audience.DriverSide;
+import org.apache.reef.tang.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -50,6 +60,7 @@ final class TaskDispatcher {
   private final PendingTaskCollectionPointer pendingTaskCollectionPointer;
   private final ExecutorService dispatcherThread;
   private final PlanStateManager planStateManager;
+  private final BlockManagerMaster blockManagerMaster;
   private boolean isSchedulerRunning;
   private boolean isTerminated;
 
@@ -57,22 +68,52 @@ final class TaskDispatcher {
   private final ExecutorRegistry executorRegistry;
   private final SchedulingConstraintRegistry schedulingConstraintRegistry;
   private final SchedulingPolicy schedulingPolicy;
+  private final boolean batchTaskDispatch;
+  // The tasks that could not be sent to each executor, to be retried in the next dispatch iteration.
+  private final Queue<Pair<String, List<Task>>> taskBatchesFailedToSend;
+
+  // Retries the tasks that could not be scheduled (e.g., while waiting for the executors that hold their input),
+  // even if no executor slot becomes available in the meantime.
+  // With the shuffle locality wait, the retries come at least as often as the wait, for the waits to expire.
+  // Disabled (0) unless configured or required by the locality wait: the task batches that could not be sent are
+  // retried right away, and the other tasks wait for the next scheduling event.
+  private final long retryDelayMs;
+  private final Optional<ScheduledExecutorService> retryThread;
+  private final AtomicBoolean isRetryScheduled;
 
   @Inject
   private TaskDispatcher(final SchedulingConstraintRegistry schedulingConstraintRegistry,
                          final SchedulingPolicy schedulingPolicy,
                          final PendingTaskCollectionPointer pendingTaskCollectionPointer,
                          final ExecutorRegistry executorRegistry,
-                         final PlanStateManager planStateManager) {
+                         final PlanStateManager planStateManager,
+                         final BlockManagerMaster blockManagerMaster,
+                         @Parameter(JobConf.BatchTaskDispatch.class) final boolean batchTaskDispatch,
+                         @Parameter(JobConf.TaskDispatchRetryDelayMs.class) final long retryDelayMs,
+                         @Parameter(JobConf.ShuffleLocalityWaitMs.class) final long shuffleLocalityWaitMs) {
     this.pendingTaskCollectionPointer = pendingTaskCollectionPointer;
     this.dispatcherThread = Executors.newSingleThreadExecutor(runnable ->
       new Thread(runnable, "TaskDispatcher thread"));
     this.planStateManager = planStateManager;
+    this.blockManagerMaster = blockManagerMaster;
     this.isSchedulerRunning = false;
     this.isTerminated = false;
     this.executorRegistry = executorRegistry;
     this.schedulingPolicy = schedulingPolicy;
     this.schedulingConstraintRegistry = schedulingConstraintRegistry;
+    this.batchTaskDispatch = batchTaskDispatch;
+    this.taskBatchesFailedToSend = new ConcurrentLinkedQueue<>();
+    this.retryDelayMs = shuffleLocalityWaitMs > 0 && (retryDelayMs <= 0 || shuffleLocalityWaitMs < retryDelayMs)
+      ? shuffleLocalityWaitMs
+      : retryDelayMs;
+    this.retryThread = this.retryDelayMs > 0
+      ? Optional.of(Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "TaskDispatcher retry thread");
+        thread.setDaemon(true);
+        return thread;
+      }))
+      : Optional.empty();
+    this.isRetryScheduled = new AtomicBoolean(false);
   }
 
   /**
@@ -82,15 +123,17 @@ final class TaskDispatcher {
    * @param pendingTaskCollectionPointer A pointer to the pending tasks to be executed later on.
    * @param executorRegistry Registry for the list of executors available.
    * @param planStateManager Manager for the state of the plan being executed.
+   * @param blockManagerMaster Manager for the blocks of the tasks.
    * @return a new instance of task dispatcher.
    */
   public static TaskDispatcher newInstance(final SchedulingConstraintRegistry schedulingConstraintRegistry,
                                            final SchedulingPolicy schedulingPolicy,
                                            final PendingTaskCollectionPointer pendingTaskCollectionPointer,
                                            final ExecutorRegistry executorRegistry,
-                                           final PlanStateManager planStateManager) {
+                                           final PlanStateManager planStateManager,
+                                           final BlockManagerMaster blockManagerMaster) {
     return new TaskDispatcher(schedulingConstraintRegistry, schedulingPolicy, pendingTaskCollectionPointer,
-      executorRegistry, planStateManager);
+      executorRegistry, planStateManager, blockManagerMaster, false, 0, 0);
   }
 
   /**
@@ -115,54 +158,143 @@ final class TaskDispatcher {
   }
 
   private void doScheduleTaskList() {
+    final List<Task> retriedTasks = retryTaskBatchesFailedToSend();
     final Optional<Collection<Task>> taskListOptional = pendingTaskCollectionPointer.getAndSetNull();
-    if (!taskListOptional.isPresent()) {
+    if (!taskListOptional.isPresent() && retriedTasks.isEmpty()) {
       // Task list is empty
       LOG.debug("PendingTaskCollectionPointer is empty. Awaiting for more Tasks...");
       return;
     }
 
-    final Collection<Task> taskList = taskListOptional.get();
+    final Collection<Task> taskList = new ArrayList<>(retriedTasks);
+    taskListOptional.ifPresent(taskList::addAll);
     final List<Task> couldNotSchedule = new ArrayList<>();
-    for (final Task task : taskList) {
-      if (!planStateManager.getTaskState(task.getTaskId()).equals(TaskState.State.READY)) {
-        // Guard against race conditions causing duplicate task launches
-        LOG.debug("Skipping {} as it is not READY", task.getTaskId());
-        continue;
-      }
+    final Map<ExecutorRepresenter, List<Task>> executorToTaskBatch = new HashMap<>();
+    executorRegistry.viewExecutors(executors -> {
+      // The tasks of a stage share the execution property map. For each map, the candidate executors that meet
+      // the constraints depending only on the execution properties are computed once in this dispatch iteration,
+      // along with the other constraints to test for each task.
+      final Map<ExecutionPropertyMap<VertexExecutionProperty>,
+        Pair<Set<ExecutorRepresenter>, List<SchedulingConstraint>>> propertiesToCandidates = new IdentityHashMap<>();
+
+      for (final Task task : taskList) {
+        if (!planStateManager.getTaskState(task.getTaskId()).equals(TaskState.State.READY)) {
+          // Guard against race conditions causing duplicate task launches
+          LOG.debug("Skipping {} as it is not READY", task.getTaskId());
+          continue;
+        }
 
-      executorRegistry.viewExecutors(executors -> {
-        final MutableObject<Set<ExecutorRepresenter>> candidateExecutors = new MutableObject<>(executors);
+        final Pair<Set<ExecutorRepresenter>, List<SchedulingConstraint>> candidatesAndConstraints =
+          propertiesToCandidates.computeIfAbsent(task.getExecutionProperties(), properties -> {
+            final List<SchedulingConstraint> propertyConstraints = new ArrayList<>();
+            final List<SchedulingConstraint> taskConstraints = new ArrayList<>();
+            properties.forEachProperties(property -> schedulingConstraintRegistry.get(property.getClass())
+              .ifPresent(constraint -> (constraint.dependsOnlyOnExecutionProperties()
+                ? propertyConstraints : taskConstraints).add(constraint)));
+            return Pair.of(filterExecutors(executors, propertyConstraints, task), taskConstraints);
+          });
         // Filter out the candidate executors that do not meet scheduling constraints.
-        task.getExecutionProperties().forEachProperties(property -> {
-          final Optional<SchedulingConstraint> constraint = schedulingConstraintRegistry.get(property.getClass());
-          if (constraint.isPresent() && !candidateExecutors.getValue().isEmpty()) {
-            candidateExecutors.setValue(candidateExecutors.getValue().stream()
-              .filter(e -> constraint.get().testSchedulability(e, task))
-              .collect(Collectors.toSet()));
-          }
-        });
-        if (!candidateExecutors.getValue().isEmpty()) {
+        final Set<ExecutorRepresenter> candidateExecutors =
+          filterExecutors(candidatesAndConstraints.left(), candidatesAndConstraints.right(), task);
+
+        if (!candidateExecutors.isEmpty()) {
           // Select executor
-          final ExecutorRepresenter selectedExecutor
-            = schedulingPolicy.selectExecutor(candidateExecutors.getValue(), task);
+          final ExecutorRepresenter selectedExecutor = schedulingPolicy.selectExecutor(candidateExecutors, task);
           // update metadata first
           planStateManager.onTaskStateChanged(task.getTaskId(), TaskState.State.EXECUTING);
+          blockManagerMaster.onConsumerTaskScheduled(task, selectedExecutor.getExecutorId());
 
           LOG.info("{} scheduled to {}", task.getTaskId(), selectedExecutor.getExecutorId());
-          // send the task
-          selectedExecutor.onTaskScheduled(task);
+          // send the task, or mark it to be sent with the other tasks scheduled to the executor in this iteration
+          candidatesAndConstraints.right().forEach(constraint -> constraint.onTaskScheduled(selectedExecutor, task));
+          if (batchTaskDispatch) {
+            selectedExecutor.onTaskScheduledInBatch(task);
+            executorToTaskBatch.computeIfAbsent(selectedExecutor, executor -> new ArrayList<>()).add(task);
+          } else {
+            selectedExecutor.onTaskScheduled(task);
+          }
         } else {
           couldNotSchedule.add(task);
         }
-      });
-    }
+      }
+    });
+
+    // Send the task batches without holding the executors, and retry the tasks that could not be sent.
+    executorToTaskBatch.forEach((executor, taskBatch) -> executor.sendTaskBatch().exceptionally(throwable -> {
+      taskBatchesFailedToSend.add(Pair.of(executor.getExecutorId(), taskBatch));
+      schedulingIteration.signal();
+      return null;
+    }));
 
     LOG.debug("All except {} were scheduled among {}", new Object[]{couldNotSchedule, taskList});
     if (couldNotSchedule.size() > 0) {
       // Try these again, if no new task list has been set
       pendingTaskCollectionPointer.setIfNull(couldNotSchedule);
+      scheduleRetry();
+    }
+  }
+
+  /**
+   * Marks the tasks that could not be sent to the executors to be retried, and creates their next attempts.
+   * The tasks have not run, as the executors have not received them.
+   *
+   * @return the next attempts of the tasks that could not be sent.
+   */
+  private List<Task> retryTaskBatchesFailedToSend() {
+    final Set<String> stageIdsToRetry = new HashSet<>();
+    Pair<String, List<Task>> taskBatch;
+    while ((taskBatch = taskBatchesFailedToSend.poll()) != null) {
+      final String executorId = taskBatch.left();
+      for (final Task task : taskBatch.right()) {
+        final String taskId = task.getTaskId();
+        if (!planStateManager.getTaskState(taskId).equals(TaskState.State.EXECUTING)) {
+          // Already retried, e.g., as the executor has been removed
+          continue;
+        }
+        LOG.warn("Retrying {} as it could not be sent to {}", taskId, executorId);
+        executorRegistry.updateExecutor(executorId, (executor, state) -> {
+          executor.onTaskExecutionFailed(taskId);
+          return Pair.of(executor, state);
+        });
+        blockManagerMaster.onProducerTaskFailed(taskId);
+        planStateManager.onTaskStateChanged(taskId, TaskState.State.SHOULD_RETRY);
+        stageIdsToRetry.add(RuntimeIdManager.getStageIdFromTaskId(taskId));
+      }
+    }
+
+    final List<Task> retriedTasks = new ArrayList<>();
+    stageIdsToRetry.forEach(stageId -> retriedTasks.addAll(BatchSchedulerUtils.selectSchedulableTasks(
+      planStateManager, blockManagerMaster, planStateManager.getPhysicalPlan().getStageDAG().getVertexById(stageId))));
+    return retriedTasks;
+  }
+
+  /**
+   * Signals a dispatch iteration after the retry delay, unless one is already scheduled.
+   */
+  private void scheduleRetry() {
+    if (retryThread.isPresent() && !isTerminated && isRetryScheduled.compareAndSet(false, true)) {
+      retryThread.get().schedule(() -> {
+        isRetryScheduled.set(false);
+        schedulingIteration.signal();
+      }, retryDelayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @param executors   the executors to filter.
+   * @param constraints the scheduling constraints to test.
+   * @param task        the task to schedule.
+   * @return the executors that meet all the constraints for the task.
+   */
+  private static Set<ExecutorRepresenter> filterExecutors(final Set<ExecutorRepresenter> executors,
+                                                          final List<SchedulingConstraint> constraints,
+                                                          final Task task) {
+    if (constraints.isEmpty() || executors.isEmpty()) {
+      return executors;
     }
+    return executors.stream()
+      .filter(e -> constraints.stream().allMatch(constraint -> constraint.testSchedulability(e, task)))
+      .collect(Collectors.toSet());
   }
 
   /**
@@ -192,6 +324,7 @@ final class TaskDispatcher {
 
   void terminate() {
     isTerminated = true;
+    retryThread.ifPresent(ScheduledExecutorService::shutdownNow);
     schedulingIteration.signal();
   }
 
@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.runtime.master.servlet;
 
+import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.metric.TaskMetric;
 import org.apache.nemo.runtime.master.metric.MetricStore;
 
@@ -28,6 +29,8 @@ import java.io.IOException;
 
 /**
  * Servlet which handles {@link TaskMetric} metric request.
+ * With the "aggregate" parameter set to a numeric field of the metric (e.g., taskDuration),
+ * it returns the statistics of the field in each stage instead of all the metrics.
  */
 public final class TaskMetricServlet extends HttpServlet {
 
@@ -37,6 +40,12 @@ public final class TaskMetricServlet extends HttpServlet {
     final MetricStore metricStore = MetricStore.getStore();
     response.setContentType("application/json");
     response.setStatus(HttpServletResponse.SC_OK);
-    response.getWriter().println(metricStore.dumpMetricToJson(TaskMetric.class));
+    final String fieldToAggregate = request.getParameter("aggregate");
+    if (fieldToAggregate == null) {
+      response.getWriter().println(metricStore.dumpMetricToJson(TaskMetric.class));
+    } else {
+      response.getWriter().println(metricStore.dumpAggregatedMetricToJson(TaskMetric.class, fieldToAggregate,
+        RuntimeIdManager::getStageIdFromTaskId));
+    }
   }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.nemo.runtime.master;
 
+import org.apache.nemo.common.HashRange;
 import org.apache.nemo.common.ir.IdManager;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.exception.AbsentBlockException;
@@ -29,8 +30,10 @@ import org.apache.reef.tang.Injector;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -159,6 +162,93 @@ public final class BlockManagerMasterTest {
     }
   }
 
+  /**
+   * Test scenario where the partitions of producer tasks are pushed to the executors of the consumer tasks.
+   */
+  @Test
+  public void testMergerLocations() {
+    final String edgeId = IdManager.newEdgeId();
+    final String firstExecutorId = RuntimeIdManager.generateExecutorId();
+    final String secondExecutorId = RuntimeIdManager.generateExecutorId();
+
+    // Only the scheduled consumer tasks take the partitions.
+    blockManagerMaster.initializeMergedBlock(edgeId, 0, firstExecutorId);
+    assertEquals(Arrays.asList(firstExecutorId, ""), blockManagerMaster.getMergerLocations(edgeId, 2));
+
+    // The merged block stays in the executor of the first attempt of the consumer task.
+    blockManagerMaster.initializeMergedBlock(edgeId, 0, secondExecutorId);
+    blockManagerMaster.initializeMergedBlock(edgeId, 1, secondExecutorId);
+    assertEquals(Arrays.asList(firstExecutorId, secondExecutorId), blockManagerMaster.getMergerLocations(edgeId, 2));
+
+    // A push fails, and the merged block does not take the partitions anymore.
+    blockManagerMaster.onMergedBlockAppended(edgeId, RuntimeIdManager.generateTaskId("Stage0", 0, FIRST_ATTEMPT),
+      Collections.singletonList(0), Collections.emptyList(), Collections.singletonList(1));
+    assertEquals(Arrays.asList(firstExecutorId, ""), blockManagerMaster.getMergerLocations(edgeId, 2));
+
+    // The executor is removed along with its merged block.
+    blockManagerMaster.removeWorker(firstExecutorId);
+    assertEquals(Arrays.asList("", ""), blockManagerMaster.getMergerLocations(edgeId, 2));
+  }
+
+  /**
+   * Test scenario where the merged blocks are invalidated as the consumer stage completes.
+   */
+  @Test
+  public void testInvalidateMergedBlocks() {
+    final String edgeId = IdManager.newEdgeId();
+    final String executorId = RuntimeIdManager.generateExecutorId();
+
+    // No merged block is created.
+    assertFalse(blockManagerMaster.invalidateMergedBlocks(IdManager.newEdgeId()));
+
+    // The merged blocks do not take the partitions after being invalidated, and are invalidated only once.
+    blockManagerMaster.initializeMergedBlock(edgeId, 0, executorId);
+    assertEquals(Collections.singletonList(executorId), blockManagerMaster.getMergerLocations(edgeId, 1));
+    assertTrue(blockManagerMaster.invalidateMergedBlocks(edgeId));
+    assertEquals(Collections.singletonList(""), blockManagerMaster.getMergerLocations(edgeId, 1));
+    assertFalse(blockManagerMaster.invalidateMergedBlocks(edgeId));
+
+    // Nor are they created again for a re-executed consumer task.
+    blockManagerMaster.initializeMergedBlock(edgeId, 0, executorId);
+    assertEquals(Collections.singletonList(""), blockManagerMaster.getMergerLocations(edgeId, 1));
+  }
+
+  /**
+   * Test scenario where the committed bytes of the partitions of shuffle blocks are summed up by location.
+   */
+  @Test
+  public void testCommittedBytesByLocation() {
+    final String edgeId = IdManager.newEdgeId();
+    final String firstExecutorId = RuntimeIdManager.generateExecutorId();
+    final String secondExecutorId = RuntimeIdManager.generateExecutorId();
+    final String firstTaskId = RuntimeIdManager.generateTaskId("Stage0", 0, FIRST_ATTEMPT);
+    final String secondTaskId = RuntimeIdManager.generateTaskId("Stage0", 1, FIRST_ATTEMPT);
+    final String firstBlockId = RuntimeIdManager.generateBlockId(edgeId, firstTaskId);
+    final String secondBlockId = RuntimeIdManager.generateBlockId(edgeId, secondTaskId);
+    blockManagerMaster.onProducerTaskScheduled(firstTaskId, Collections.singleton(firstBlockId));
+    blockManagerMaster.onProducerTaskScheduled(secondTaskId, Collections.singleton(secondBlockId));
+
+    // The sizes are unknown until the blocks are committed.
+    assertTrue(blockManagerMaster.getCommittedBytesByLocation(edgeId, 2, HashRange.of(0, 4)).isEmpty());
+
+    blockManagerMaster.onBlockStateChanged(firstBlockId, BlockState.State.AVAILABLE, firstExecutorId,
+      new long[]{10, 20, 30});
+    blockManagerMaster.onBlockStateChanged(secondBlockId, BlockState.State.AVAILABLE, secondExecutorId,
+      new long[]{1, 2, 3, 4});
+    final Map<String, Long> locationToBytes =
+      blockManagerMaster.getCommittedBytesByLocation(edgeId, 2, HashRange.of(1, 4));
+    assertEquals(2, locationToBytes.size());
+    assertEquals(50L, (long) locationToBytes.get(firstExecutorId));
+    assertEquals(9L, (long) locationToBytes.get(secondExecutorId));
+    assertEquals(Collections.singletonMap(secondExecutorId, 4L),
+      blockManagerMaster.getCommittedBytesByLocation(edgeId, 2, HashRange.of(3, 5)));
+
+    // The sizes of lost blocks are not counted.
+    blockManagerMaster.removeWorker(firstExecutorId);
+    assertEquals(Collections.singletonMap(secondExecutorId, 9L),
+      blockManagerMaster.getCommittedBytesByLocation(edgeId, 2, HashRange.of(1, 4)));
+  }
+
   private Future<String> getSingleLocationFuture(final String blockId, final BlockState.State state) {
     final List<BlockManagerMaster.BlockRequestHandler> handlerList = blockManagerMaster.getBlockHandlers(blockId, state);
     assertEquals(1, handlerList.size());
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.master;
+
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link MergedBlockMetadata}.
+ */
+public final class MergedBlockMetadataTest {
+  private static final String EDGE_ID = "SEdge0";
+  private static final String OWNER_EXECUTOR_ID = "Executor0";
+  private static final String PRODUCER_EXECUTOR_ID = "Executor1";
+  private MergedBlockMetadata mergedBlock;
+  private List<ControlMessage.MergedBlockLocationInfoMsg> replies;
+  private MessageContext messageContext;
+
+  @Before
+  public void setUp() {
+    mergedBlock = new MergedBlockMetadata(RuntimeIdManager.generateMergedBlockId(EDGE_ID, 0), OWNER_EXECUTOR_ID);
+    replies = new ArrayList<>();
+    messageContext = new MessageContext() {
+      @Override
+      public <U> void reply(final U replyMessage) {
+        replies.add(((ControlMessage.Message) replyMessage).getMergedBlockLocationInfoMsg());
+      }
+    };
+  }
+
+  /**
+   * Test scenario where the location request is replied once the announced pushes are done.
+   */
+  @Test
+  public void testReplyAfterPushes() {
+    // The report of a push can arrive before its announcement.
+    mergedBlock.onPushDone(getBlockId(1, 0), 1, MergedBlockMetadata.PushResult.APPENDED);
+    mergedBlock.onPushAnnounced(getBlockId(0, 0), PRODUCER_EXECUTOR_ID);
+    mergedBlock.onPushAnnounced(getBlockId(1, 0), PRODUCER_EXECUTOR_ID);
+    assertEquals(OWNER_EXECUTOR_ID, mergedBlock.getMergerLocation());
+
+    mergedBlock.registerLocationRequest(0, messageContext);
+    assertTrue(replies.isEmpty());
+    mergedBlock.onPushDone(getBlockId(0, 0), 0, MergedBlockMetadata.PushResult.APPENDED);
+    assertEquals(1, replies.size());
+    assertEquals(OWNER_EXECUTOR_ID, replies.get(0).getOwnerExecutorId());
+    assertEquals(new HashSet<>(Arrays.asList(0, 1)), new HashSet<>(replies.get(0).getMergedProducerTaskIndicesList()));
+
+    // The merged block is sealed, and a skipped push does not change it.
+    assertEquals("", mergedBlock.getMergerLocation());
+    mergedBlock.onPushDone(getBlockId(2, 0), 2, MergedBlockMetadata.PushResult.SKIPPED);
+    mergedBlock.registerLocationRequest(1, messageContext);
+    assertEquals(2, replies.size());
+    assertEquals(OWNER_EXECUTOR_ID, replies.get(1).getOwnerExecutorId());
+    assertEquals(2, replies.get(1).getMergedProducerTaskIndicesCount());
+  }
+
+  /**
+   * Test scenario where the partitions are appended after the merged block is sealed.
+   */
+  @Test
+  public void testAppendAfterSeal() {
+    mergedBlock.registerLocationRequest(0, messageContext);
+    assertEquals(OWNER_EXECUTOR_ID, replies.get(0).getOwnerExecutorId());
+    mergedBlock.onPushDone(getBlockId(0, 0), 0, MergedBlockMetadata.PushResult.APPENDED);
+    mergedBlock.registerLocationRequest(1, messageContext);
+    assertFalse(replies.get(1).hasOwnerExecutorId());
+  }
+
+  /**
+   * Test scenario where the partitions of multiple attempts of a producer task are appended.
+   */
+  @Test
+  public void testDuplicateAppend() {
+    mergedBlock.onPushDone(getBlockId(0, 0), 0, MergedBlockMetadata.PushResult.APPENDED);
+    mergedBlock.onPushDone(getBlockId(0, 1), 0, MergedBlockMetadata.PushResult.APPENDED);
+    mergedBlock.registerLocationRequest(0, messageContext);
+    assertFalse(replies.get(0).hasOwnerExecutorId());
+  }
+
+  /**
+   * Test scenario where the pending location request is replied without waiting for the pushes
+   * as the merged block cannot be read anyway.
+   */
+  @Test
+  public void testReplyOnFailure() {
+    mergedBlock.onPushAnnounced(getBlockId(0, 0), PRODUCER_EXECUTOR_ID);
+    mergedBlock.onPushAnnounced(getBlockId(1, 0), PRODUCER_EXECUTOR_ID);
+    mergedBlock.registerLocationRequest(0, messageContext);
+    assertTrue(replies.isEmpty());
+    mergedBlock.onPushDone(getBlockId(0, 0), 0, MergedBlockMetadata.PushResult.FAILED);
+    assertEquals(1, replies.size());
+    assertFalse(replies.get(0).hasOwnerExecutorId());
+    assertEquals("", mergedBlock.getMergerLocation());
+  }
+
+  /**
+   * Test scenario where the executors pushing to or holding the merged block are removed.
+   */
+  @Test
+  public void testExecutorRemoved() {
+    mergedBlock.onPushAnnounced(getBlockId(0, 0), PRODUCER_EXECUTOR_ID);
+    mergedBlock.registerLocationRequest(0, messageContext);
+    mergedBlock.onExecutorRemoved("Executor2");
+    assertTrue(replies.isEmpty());
+    mergedBlock.onExecutorRemoved(PRODUCER_EXECUTOR_ID);
+    assertEquals(1, replies.size());
+    assertFalse(replies.get(0).hasOwnerExecutorId());
+
+    final MergedBlockMetadata lostMergedBlock =
+      new MergedBlockMetadata(RuntimeIdManager.generateMergedBlockId(EDGE_ID, 1), OWNER_EXECUTOR_ID);
+    lostMergedBlock.onExecutorRemoved(OWNER_EXECUTOR_ID);
+    assertEquals("", lostMergedBlock.getMergerLocation());
+  }
+
+  /**
+   * @param producerTaskIndex of the block.
+   * @param attempt           of the producer task.
+   * @return the ID of the block produced by the producer task attempt.
+   */
+  private static String getBlockId(final int producerTaskIndex, final int attempt) {
+    return RuntimeIdManager.generateBlockId(EDGE_ID,
+      RuntimeIdManager.generateTaskId("Stage0", producerTaskIndex, attempt));
+  }
+}
@@ -20,12 +20,21 @@ package org.apache.nemo.runtime.master;
 
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.metric.JobMetric;
+import org.apache.nemo.runtime.common.metric.TaskMetric;
 import org.apache.nemo.runtime.master.metric.MetricStore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -53,4 +62,37 @@ public final class MetricStoreTest {
     final TreeNode fieldNode = metricNode.get("id");
     assertTrue(fieldNode.isValueNode());
   }
+
+  @Test
+  public void testNumericMetricMessages() {
+    final MetricStore metricStore = MetricStore.newInstance();
+
+    // The type and the id are omitted if they are the same as the previous message's,
+    // and the numeric values are the deltas from the previous numeric values of the same metric objects
+    metricStore.processMetricMessages(Arrays.asList(
+      ControlMessage.Metric.newBuilder().setMetricType("TaskMetric").setMetricId("Stage0-0-0")
+        .setMetricField("taskDuration").setNumericValue(10).build(),
+      ControlMessage.Metric.newBuilder().setMetricField("taskSizeRatio").setNumericValue(-8).build(),
+      ControlMessage.Metric.newBuilder().setMetricId("Stage0-1-0")
+        .setMetricField("taskDuration").setNumericValue(30).build(),
+      ControlMessage.Metric.newBuilder().setMetricId("Stage1-0-0")
+        .setMetricField("taskDuration").setNumericValue(5).build(),
+      // Java-serialized values of the numeric fields are kept in the same columns
+      ControlMessage.Metric.newBuilder().setMetricId("Stage1-1-0").setMetricField("taskDuration")
+        .setMetricValue(ByteString.copyFrom(SerializationUtils.serialize(7L))).build()));
+
+    final TaskMetric taskMetric = metricStore.getMetricWithId(TaskMetric.class, "Stage0-0-0");
+    assertEquals(10, taskMetric.getTaskDuration());
+    assertEquals(2, taskMetric.getTaskSizeRatio());
+    assertEquals(30, metricStore.getMetricWithId(TaskMetric.class, "Stage0-1-0").getTaskDuration());
+    assertEquals(-1, metricStore.getMetricWithId(TaskMetric.class, "Stage1-0-0").getTaskCPUTime());
+
+    final Map<String, LongSummaryStatistics> stageToDuration =
+      metricStore.aggregateNumericMetric(TaskMetric.class, "taskDuration", RuntimeIdManager::getStageIdFromTaskId);
+    assertEquals(2, stageToDuration.size());
+    assertEquals(2, stageToDuration.get("Stage0").getCount());
+    assertEquals(40, stageToDuration.get("Stage0").getSum());
+    assertEquals(2, stageToDuration.get("Stage1").getCount());
+    assertEquals(7, stageToDuration.get("Stage1").getMax());
+  }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.master;
+
+import org.apache.nemo.common.dag.DAG;
+import org.apache.nemo.common.dag.DAGBuilder;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.executionproperty.VertexExecutionProperty;
+import org.apache.nemo.common.ir.vertex.IRVertex;
+import org.apache.nemo.common.ir.vertex.executionproperty.ParallelismProperty;
+import org.apache.nemo.common.ir.vertex.executionproperty.ScheduleGroupProperty;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.plan.PhysicalPlan;
+import org.apache.nemo.runtime.common.plan.RuntimeEdge;
+import org.apache.nemo.runtime.common.plan.Stage;
+import org.apache.nemo.runtime.common.plan.StageEdge;
+import org.apache.nemo.runtime.common.state.PlanState;
+import org.apache.nemo.runtime.common.state.TaskState;
+import org.apache.nemo.runtime.master.metric.MetricStore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.apache.nemo.common.dag.DAG.EMPTY_DAG_DIRECTORY;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Benchmarks {@link PlanStateManager} with 1M task state transitions,
+ * reported concurrently for the stages of a plan as the message handler threads of the master do.
+ * Not run with the unit tests. Run it with -Dtest=PlanStateManagerBenchmark.
+ */
+public final class PlanStateManagerBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(PlanStateManagerBenchmark.class.getName());
+  private static final int NUM_STAGES = 8;
+  private static final int NUM_TASKS_PER_STAGE = 62500;
+  private static final int NUM_TRANSITIONS_PER_TASK = 2; // READY -> EXECUTING -> COMPLETE
+
+  static {
+    // Do not log each task completion.
+    System.setProperty("org.slf4j.simpleLogger.log." + PlanStateManager.class.getName(), "warn");
+  }
+
+  @Test
+  public void benchmarkTaskStateTransitions() throws Exception {
+    final PlanStateManager planStateManager = PlanStateManager.newInstance(EMPTY_DAG_DIRECTORY);
+    planStateManager.setMetricStore(MetricStore.newInstance());
+    final PhysicalPlan physicalPlan = generatePhysicalPlan();
+    planStateManager.updatePlan(physicalPlan, 1);
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(NUM_STAGES);
+    final long startNano = System.nanoTime();
+    final List<Future<?>> futures = new ArrayList<>();
+    for (final Stage stage : physicalPlan.getStageDAG().getVertices()) {
+      futures.add(executorService.submit(() -> {
+        final List<String> taskIds = planStateManager.getTaskAttemptsToSchedule(stage.getId());
+        for (final String taskId : taskIds) {
+          planStateManager.onTaskStateChanged(taskId, TaskState.State.EXECUTING);
+        }
+        for (final String taskId : taskIds) {
+          if (planStateManager.getTaskState(taskId).equals(TaskState.State.EXECUTING)) {
+            planStateManager.onTaskStateChanged(taskId, TaskState.State.COMPLETE);
+          }
+        }
+      }));
+    }
+    for (final Future<?> future : futures) {
+      future.get();
+    }
+    final long endNano = System.nanoTime();
+    executorService.shutdown();
+
+    assertEquals(PlanState.State.COMPLETE, planStateManager.getPlanState());
+    LOG.info("PlanStateManager - {} task state transitions in millis: {}",
+      NUM_STAGES * NUM_TASKS_PER_STAGE * NUM_TRANSITIONS_PER_TASK, (endNano - startNano) / 1000000);
+  }
+
+  /**
+   * @return a physical plan of independent stages, without any IR vertex to execute.
+   */
+  private static PhysicalPlan generatePhysicalPlan() {
+    final DAG<IRVertex, RuntimeEdge<IRVertex>> emptyIRDag =
+      new DAGBuilder<IRVertex, RuntimeEdge<IRVertex>>().buildWithoutSourceSinkCheck();
+    final List<Integer> taskIndices =
+      IntStream.range(0, NUM_TASKS_PER_STAGE).boxed().collect(Collectors.toList());
+    final DAGBuilder<Stage, StageEdge> stageDagBuilder = new DAGBuilder<>();
+    for (int i = 0; i < NUM_STAGES; i++) {
+      final String stageId = RuntimeIdManager.generateStageId(i);
+      final ExecutionPropertyMap<VertexExecutionProperty> executionProperties = new ExecutionPropertyMap<>(stageId);
+      executionProperties.put(ParallelismProperty.of(NUM_TASKS_PER_STAGE));
+      executionProperties.put(ScheduleGroupProperty.of(i));
+      stageDagBuilder.addVertex(new Stage(stageId, taskIndices, emptyIRDag, executionProperties,
+        Collections.emptyList()));
+    }
+    return new PhysicalPlan("BenchmarkPlan", stageDagBuilder.buildWithoutSourceSinkCheck());
+  }
+}
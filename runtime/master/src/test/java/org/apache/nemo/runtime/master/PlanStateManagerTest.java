@@ -20,6 +20,9 @@ package org.apache.nemo.runtime.master;
 
 import org.apache.nemo.conf.JobConf;
 import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.metric.JobMetric;
+import org.apache.nemo.runtime.common.metric.StageMetric;
+import org.apache.nemo.runtime.common.metric.TaskMetric;
 import org.apache.nemo.runtime.common.message.MessageEnvironment;
 import org.apache.nemo.runtime.common.message.local.LocalMessageDispatcher;
 import org.apache.nemo.runtime.common.message.local.LocalMessageEnvironment;
@@ -30,6 +33,7 @@ import org.apache.nemo.runtime.common.state.PlanState;
 import org.apache.nemo.runtime.common.state.StageState;
 import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.nemo.runtime.master.metric.MetricMessageHandler;
+import org.apache.nemo.runtime.master.metric.MetricStore;
 import org.apache.reef.tang.Injector;
 import org.junit.Before;
 import org.junit.Test;
@@ -125,4 +129,35 @@ public final class PlanStateManagerTest {
     final PlanState.State completedState = planStateManager.waitUntilFinish();
     assertEquals(PlanState.State.COMPLETE, completedState);
   }
+
+  /**
+   * Test whether the state transition events, recorded off the transition path, are all in the metric store
+   * once the plan is finished.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 4000)
+  public void testStateTransitionEventsRecordedWhenPlanFinishes() throws Exception {
+    final MetricStore metricStore = MetricStore.newInstance();
+    planStateManager.setMetricStore(metricStore);
+    final PhysicalPlan physicalPlan =
+      TestPlanGenerator.generatePhysicalPlan(TestPlanGenerator.PlanType.TwoVerticesJoined, false);
+    planStateManager.updatePlan(physicalPlan, MAX_SCHEDULE_ATTEMPT);
+
+    final List<String> tasks = physicalPlan.getStageDAG().getTopologicalSort().stream()
+      .flatMap(stage -> planStateManager.getTaskAttemptsToSchedule(stage.getId()).stream())
+      .collect(Collectors.toList());
+    tasks.forEach(taskId -> planStateManager.onTaskStateChanged(taskId, TaskState.State.EXECUTING));
+    tasks.forEach(taskId -> planStateManager.onTaskStateChanged(taskId, TaskState.State.COMPLETE));
+    assertEquals(PlanState.State.COMPLETE, planStateManager.waitUntilFinish());
+
+    // READY -> EXECUTING -> COMPLETE
+    tasks.forEach(taskId -> assertEquals(2,
+      metricStore.getMetricWithId(TaskMetric.class, taskId).getStateTransitionEvents().size()));
+    physicalPlan.getStageDAG().getVertices().forEach(stage -> assertEquals(StageState.State.COMPLETE,
+      metricStore.getMetricWithId(StageMetric.class, stage.getId()).getStateTransitionEvents().get(0).getNewState()));
+    // READY -> EXECUTING -> COMPLETE
+    assertEquals(2, metricStore.getMetricWithId(JobMetric.class, planStateManager.getPlanId())
+      .getStateTransitionEvents().size());
+  }
 }
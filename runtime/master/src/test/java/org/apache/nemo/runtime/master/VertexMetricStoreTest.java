@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.master;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.master.metric.VertexMetricStore;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for {@link VertexMetricStore}
+ */
+public final class VertexMetricStoreTest {
+  private static ControlMessage.VertexMetricSamplesMsg samples(final String executorId,
+                                                               final long timestamp,
+                                                               final ControlMessage.VertexMetricSampleMsg sample) {
+    return ControlMessage.VertexMetricSamplesMsg.newBuilder()
+      .setExecutorId(executorId).setTimestamp(timestamp).addSamples(sample).build();
+  }
+
+  private static ControlMessage.VertexMetricSampleMsg.Builder sample(final long recordsIn) {
+    return ControlMessage.VertexMetricSampleMsg.newBuilder()
+      .setVertexId("vertex1").setRecordsIn(recordsIn).setRecordsOut(recordsIn).setProcessingTimeNs(recordsIn * 10);
+  }
+
+  @Test
+  public void testMergeSamplesOfExecutors() throws IOException {
+    final VertexMetricStore store = VertexMetricStore.newInstance();
+    assertNull(store.dumpUpdatesToJson());
+
+    store.onSamples(samples("executor1", 1000, sample(3).setWatermarkLagMs(50).build()));
+    store.onSamples(samples("executor2", 1000, sample(4).setWatermarkLagMs(200).build()));
+    store.onSamples(samples("executor1", 2000, sample(1).build()));
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final JsonNode updates = objectMapper.readTree(store.dumpUpdatesToJson());
+    assertEquals("VertexMetricTimeSeries", updates.get("metricType").asText());
+    final JsonNode buckets = updates.get("data").get("vertex1");
+    assertEquals(2, buckets.size());
+    assertEquals(1000, buckets.get(0).get("timestamp").asLong());
+    assertEquals(7, buckets.get(0).get("recordsIn").asLong());
+    assertEquals(70, buckets.get(0).get("processingTimeNs").asLong());
+    assertEquals(200, buckets.get(0).get("watermarkLagMs").asLong());
+    assertFalse(buckets.get(1).has("watermarkLagMs"));
+
+    // Only the updated bucket is dumped again
+    assertNull(store.dumpUpdatesToJson());
+    store.onSamples(samples("executor2", 2000, sample(2).build()));
+    final JsonNode secondUpdates = objectMapper.readTree(store.dumpUpdatesToJson()).get("data").get("vertex1");
+    assertEquals(1, secondUpdates.size());
+    assertEquals(3, secondUpdates.get(0).get("recordsIn").asLong());
+
+    assertEquals(2, objectMapper.readTree(store.dumpAllToJson()).get("data").get("vertex1").size());
+  }
+}
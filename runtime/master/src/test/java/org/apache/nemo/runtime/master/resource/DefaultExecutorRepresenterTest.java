@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.nemo.runtime.master.resource;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.nemo.common.ir.executionproperty.ExecutionPropertyMap;
+import org.apache.nemo.common.ir.executionproperty.ResourceSpecification;
+import org.apache.nemo.common.ir.vertex.executionproperty.ResourcePriorityProperty;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
+import org.apache.nemo.runtime.common.comm.ControlMessage;
+import org.apache.nemo.runtime.common.message.MessageSender;
+import org.apache.nemo.runtime.common.plan.Task;
+import org.apache.reef.driver.context.ActiveContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests {@link DefaultExecutorRepresenter}.
+ */
+public final class DefaultExecutorRepresenterTest {
+  private static final int EXECUTOR_CAPACITY = 4;
+  private final List<ControlMessage.Message> sentMessages = new ArrayList<>();
+  private ExecutorService serializationExecutorService;
+  private MessageSender<ControlMessage.Message> messageSender;
+  private DefaultExecutorRepresenter executorRepresenter;
+  private volatile boolean failToSend;
+
+  @Before
+  public void setUp() {
+    serializationExecutorService = Executors.newFixedThreadPool(2);
+    messageSender = mock(MessageSender.class);
+    doAnswer(invocationOnMock -> {
+      if (failToSend) {
+        throw new RuntimeException("Failed to send");
+      }
+      sentMessages.add(invocationOnMock.getArgument(0));
+      return null;
+    }).when(messageSender).send(any());
+    executorRepresenter = new DefaultExecutorRepresenter("executor",
+      new ResourceSpecification(ResourcePriorityProperty.COMPUTE, EXECUTOR_CAPACITY, 0),
+      messageSender, mock(ActiveContext.class), serializationExecutorService, "node");
+  }
+
+  @After
+  public void tearDown() {
+    serializationExecutorService.shutdown();
+  }
+
+  /**
+   * Tests that the tasks scheduled in batch are sent in a single message, with each IR DAG attached only once.
+   */
+  @Test(timeout = 10000)
+  public void testSendTaskBatch() {
+    final List<Task> tasks = Arrays.asList(
+      createTask("Stage0", 0, "dag0"), createTask("Stage0", 1, "dag0"), createTask("Stage1", 0, "dag1"));
+    tasks.forEach(executorRepresenter::onTaskScheduledInBatch);
+    assertEquals(tasks.size(), executorRepresenter.getNumOfRunningTasks());
+
+    executorRepresenter.sendTaskBatch().join();
+    assertEquals(1, sentMessages.size());
+    final ControlMessage.Message message = sentMessages.get(0);
+    assertEquals(ControlMessage.MessageType.ScheduleTasks, message.getType());
+    final List<ControlMessage.ScheduleTaskMsg> scheduleTaskMsgs = message.getScheduleTasksMsg().getTasksList();
+    assertEquals(tasks.stream().map(Task::getTaskId).collect(Collectors.toList()), getTaskIds(scheduleTaskMsgs));
+    assertEquals(2, scheduleTaskMsgs.stream().filter(ControlMessage.ScheduleTaskMsg::hasIrDag).count());
+
+    // The IR DAGs already sent are not attached again, and an empty batch is not sent.
+    executorRepresenter.onTaskScheduledInBatch(createTask("Stage0", 2, "dag0"));
+    executorRepresenter.sendTaskBatch().join();
+    executorRepresenter.sendTaskBatch().join();
+    assertEquals(2, sentMessages.size());
+    assertFalse(sentMessages.get(1).getScheduleTasksMsg().getTasks(0).hasIrDag());
+  }
+
+  /**
+   * Tests that the failure to send tasks is reported, and the IR DAGs of the tasks are attached again afterwards.
+   */
+  @Test(timeout = 10000)
+  public void testFailureToSendTaskBatch() {
+    failToSend = true;
+    executorRepresenter.onTaskScheduledInBatch(createTask("Stage0", 0, "dag0"));
+    try {
+      executorRepresenter.sendTaskBatch().join();
+      fail("The failure to send the tasks should be reported");
+    } catch (final CompletionException e) {
+      assertTrue(sentMessages.isEmpty());
+    }
+
+    failToSend = false;
+    executorRepresenter.onTaskScheduledInBatch(createTask("Stage0", 1, "dag0"));
+    executorRepresenter.sendTaskBatch().join();
+    assertEquals(1, sentMessages.size());
+    assertTrue(sentMessages.get(0).getScheduleTasksMsg().getTasks(0).hasIrDag());
+  }
+
+  /**
+   * Tests that the load reported by the executor and the tasks scheduled since the report are normalized
+   * by the capacity of the executor.
+   */
+  @Test
+  public void testLoad() {
+    assertEquals(0, executorRepresenter.getLoad(), 0);
+    executorRepresenter.onLoadReported(2);
+    assertEquals(2.0 / EXECUTOR_CAPACITY, executorRepresenter.getLoad(), 0);
+    executorRepresenter.onTaskScheduledInBatch(createTask("Stage0", 0, "dag0"));
+    executorRepresenter.onTaskScheduledInBatch(createTask("Stage0", 1, "dag0"));
+    assertEquals(4.0 / EXECUTOR_CAPACITY, executorRepresenter.getLoad(), 0);
+    executorRepresenter.onLoadReported(1);
+    assertEquals(1.0 / EXECUTOR_CAPACITY, executorRepresenter.getLoad(), 0);
+  }
+
+  private static Task createTask(final String stageId, final int index, final String irDag) {
+    return new Task("plan", RuntimeIdManager.generateTaskId(stageId, index, 0),
+      new ExecutionPropertyMap<>(stageId), irDag.getBytes(), Collections.emptyList(), Collections.emptyList(),
+      Collections.emptyMap());
+  }
+
+  private static List<String> getTaskIds(final List<ControlMessage.ScheduleTaskMsg> scheduleTaskMsgs) {
+    return scheduleTaskMsgs.stream()
+      .map(msg -> ((Task) SerializationUtils.deserialize(msg.getTask().toByteArray())).getTaskId())
+      .collect(Collectors.toList());
+  }
+}
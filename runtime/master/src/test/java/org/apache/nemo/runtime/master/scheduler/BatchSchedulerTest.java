@@ -18,13 +18,17 @@
  */
 package org.apache.nemo.runtime.master.scheduler;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.nemo.common.dag.DAG;
 import org.apache.nemo.common.eventhandler.PubSubEventHandlerWrapper;
 import org.apache.nemo.common.ir.vertex.executionproperty.ResourcePriorityProperty;
 import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.common.RuntimeIdManager;
 import org.apache.nemo.runtime.common.comm.ControlMessage;
 import org.apache.nemo.runtime.common.message.MessageSender;
 import org.apache.nemo.runtime.common.plan.*;
+import org.apache.nemo.runtime.common.state.StageState;
+import org.apache.nemo.runtime.common.state.TaskState;
 import org.apache.nemo.runtime.master.BlockManagerMaster;
 import org.apache.nemo.runtime.master.PlanStateManager;
 import org.apache.nemo.runtime.master.metric.MetricMessageHandler;
@@ -45,14 +49,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -74,7 +84,14 @@ public final class BatchSchedulerTest {
 
   @Before
   public void setUp() throws Exception {
+    setUpScheduler(false, false);
+  }
+
+  private void setUpScheduler(final boolean pipelinedStageExecution,
+                              final boolean batchTaskDispatch) throws Exception {
     final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(JobConf.PipelinedStageExecution.class, pipelinedStageExecution);
+    injector.bindVolatileParameter(JobConf.BatchTaskDispatch.class, batchTaskDispatch);
     final PlanRewriter planRewriter = mock(PlanRewriter.class);
     injector.bindVolatileInstance(PlanRewriter.class, planRewriter);
     injector.bindVolatileParameter(JobConf.DAGDirectory.class, "");
@@ -141,9 +158,135 @@ public final class BatchSchedulerTest {
       TestPlanGenerator.generatePhysicalPlan(TestPlanGenerator.PlanType.TwoVerticesJoined, true));
   }
 
+  /**
+   * Same as {@link #testPull()}, but the stages of each ScheduleGroup may start before the previous one completes.
+   * Tests that the consumer tasks are dispatched once a slot is released, while the producer stages are incomplete.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testPullPipelined() throws Exception {
+    setUpScheduler(true, false);
+    final PhysicalPlan plan =
+      TestPlanGenerator.generatePhysicalPlan(TestPlanGenerator.PlanType.TwoVerticesJoined, false);
+    scheduler.schedulePlan(plan, 1);
+
+    // All tasks of the producer stages are dispatched.
+    final List<Stage> producerStages = filterStagesWithAScheduleGroup(plan.getStageDAG(), 0);
+    while (!areAllTasksExecuting(producerStages)) {
+    }
+
+    // Completing a single producer task starts the consumer stages, before the producer stages complete.
+    final String completedTaskId =
+      planStateManager.getAllTaskAttemptsOfStage(producerStages.get(0).getId()).iterator().next();
+    SchedulerTestUtil.sendTaskStateEventToScheduler(
+      scheduler, executorRegistry, completedTaskId, TaskState.State.COMPLETE, SCHEDULE_ATTEMPT_INDEX);
+    final List<Stage> consumerStages = filterStagesWithAScheduleGroup(plan.getStageDAG(), 1);
+    while (!areAllTasksExecuting(consumerStages)) {
+    }
+    producerStages.forEach(stage ->
+      assertEquals(StageState.State.INCOMPLETE, planStateManager.getStageState(stage.getId())));
+
+    checkPlanTermination(plan);
+  }
+
+  /**
+   * Tests that the tasks are sent to the executors in batches, with each IR DAG attached at most once per executor.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testBatchTaskDispatch() throws Exception {
+    setUpScheduler(false, true);
+    final List<ControlMessage.Message> sentMessages = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocationOnMock -> {
+      sentMessages.add(invocationOnMock.getArgument(0));
+      return null;
+    }).when(mockMsgSender).send(any());
+
+    final PhysicalPlan plan =
+      TestPlanGenerator.generatePhysicalPlan(TestPlanGenerator.PlanType.TwoVerticesJoined, false);
+    scheduler.schedulePlan(plan, 1);
+    final List<Stage> stages = filterStagesWithAScheduleGroup(plan.getStageDAG(), 0);
+    final int numOfTasks = stages.stream().mapToInt(stage -> stage.getTaskIndices().size()).sum();
+    while (getSentTaskIds(sentMessages).size() < numOfTasks) {
+    }
+
+    final List<String> sentTaskIds = getSentTaskIds(sentMessages);
+    assertEquals(numOfTasks, sentTaskIds.size());
+    assertEquals(numOfTasks, new HashSet<>(sentTaskIds).size());
+    sentTaskIds.forEach(taskId ->
+      assertEquals(TaskState.State.EXECUTING, planStateManager.getTaskState(taskId)));
+    final AtomicInteger numOfExecutors = new AtomicInteger();
+    executorRegistry.viewExecutors(executors -> numOfExecutors.set(executors.size()));
+    synchronized (sentMessages) {
+      sentMessages.forEach(message -> assertEquals(ControlMessage.MessageType.ScheduleTasks, message.getType()));
+      final long numOfIRDagsSent = sentMessages.stream()
+        .flatMap(message -> message.getScheduleTasksMsg().getTasksList().stream())
+        .filter(ControlMessage.ScheduleTaskMsg::hasIrDag)
+        .count();
+      assertTrue(numOfIRDagsSent <= (long) stages.size() * numOfExecutors.get());
+    }
+  }
+
+  /**
+   * Tests that the tasks which could not be sent to the executors are retried.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test(timeout = 10000)
+  public void testRetryTasksFailedToSend() throws Exception {
+    setUpScheduler(false, true);
+    final List<ControlMessage.Message> sentMessages = Collections.synchronizedList(new ArrayList<>());
+    final List<ControlMessage.Message> failedMessages = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocationOnMock -> {
+      synchronized (failedMessages) {
+        if (failedMessages.isEmpty()) {
+          failedMessages.add(invocationOnMock.getArgument(0));
+          throw new RuntimeException("Failed to send");
+        }
+      }
+      sentMessages.add(invocationOnMock.getArgument(0));
+      return null;
+    }).when(mockMsgSender).send(any());
+
+    scheduler.schedulePlan(
+      TestPlanGenerator.generatePhysicalPlan(TestPlanGenerator.PlanType.TwoVerticesJoined, false), 1);
+    while (failedMessages.isEmpty()) {
+    }
+
+    // The next attempts of the tasks failed to be sent are sent.
+    final List<String> failedTaskIds = getSentTaskIds(failedMessages);
+    assertTrue(failedTaskIds.size() > 0);
+    final Set<String> retriedTaskIds = failedTaskIds.stream()
+      .map(taskId -> RuntimeIdManager.generateTaskId(RuntimeIdManager.getStageIdFromTaskId(taskId),
+        RuntimeIdManager.getIndexFromTaskId(taskId), RuntimeIdManager.getAttemptFromTaskId(taskId) + 1))
+      .collect(Collectors.toSet());
+    while (!getSentTaskIds(sentMessages).containsAll(retriedTaskIds)) {
+    }
+    failedTaskIds.forEach(taskId ->
+      assertEquals(TaskState.State.SHOULD_RETRY, planStateManager.getTaskState(taskId)));
+    retriedTaskIds.forEach(taskId ->
+      assertEquals(TaskState.State.EXECUTING, planStateManager.getTaskState(taskId)));
+    assertTrue(failedTaskIds.stream().noneMatch(taskId -> executorRegistry.findExecutorForTask(taskId).isPresent()));
+  }
+
+  private static List<String> getSentTaskIds(final List<ControlMessage.Message> messages) {
+    synchronized (messages) {
+      return messages.stream()
+        .flatMap(message -> message.getScheduleTasksMsg().getTasksList().stream())
+        .map(scheduleTaskMsg ->
+          ((Task) SerializationUtils.deserialize(scheduleTaskMsg.getTask().toByteArray())).getTaskId())
+        .collect(Collectors.toList());
+    }
+  }
+
   private void scheduleAndCheckPlanTermination(final PhysicalPlan plan) throws InjectionException {
     scheduler.schedulePlan(plan, 1);
+    checkPlanTermination(plan);
+  }
 
+  private void checkPlanTermination(final PhysicalPlan plan) {
     // For each ScheduleGroup, test if the tasks of the next ScheduleGroup are scheduled
     // after the stages of each ScheduleGroup are made "complete".
     for (int i = 0; i < getNumScheduleGroups(plan.getStageDAG()); i++) {
@@ -163,6 +306,14 @@ public final class BatchSchedulerTest {
     assertTrue(planStateManager.isPlanDone());
   }
 
+  private boolean areAllTasksExecuting(final List<Stage> stages) {
+    return stages.stream().allMatch(stage -> {
+      final Set<String> taskIds = planStateManager.getAllTaskAttemptsOfStage(stage.getId());
+      return !taskIds.isEmpty() && taskIds.stream()
+        .allMatch(taskId -> TaskState.State.EXECUTING.equals(planStateManager.getTaskState(taskId)));
+    });
+  }
+
   private List<Stage> filterStagesWithAScheduleGroup(
     final DAG<Stage, StageEdge> physicalDAG, final int scheduleGroup) {
     final Set<Stage> stageSet = new HashSet<>(physicalDAG.filterVertices(
@@ -18,8 +18,15 @@
  */
 package org.apache.nemo.runtime.master.scheduler;
 
+import org.apache.nemo.common.HashRange;
+import org.apache.nemo.common.KeyRange;
 import org.apache.nemo.common.ir.Readable;
+import org.apache.nemo.common.ir.edge.executionproperty.CommunicationPatternProperty;
+import org.apache.nemo.common.ir.edge.executionproperty.DuplicateEdgeGroupProperty;
 import org.apache.nemo.common.ir.vertex.executionproperty.ResourceLocalityProperty;
+import org.apache.nemo.conf.JobConf;
+import org.apache.nemo.runtime.common.plan.Stage;
+import org.apache.nemo.runtime.common.plan.StageEdge;
 import org.apache.nemo.runtime.common.plan.Task;
 import org.apache.nemo.runtime.master.BlockManagerMaster;
 import org.apache.nemo.runtime.master.resource.ExecutorRepresenter;
@@ -38,6 +45,9 @@ import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -45,7 +55,8 @@ import static org.mockito.Mockito.when;
  * Test cases for {@link LocalitySchedulingConstraint}.
  */
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({ExecutorRepresenter.class, Task.class, Readable.class, BlockManagerMaster.class})
+@PrepareForTest({ExecutorRepresenter.class, Task.class, Readable.class, BlockManagerMaster.class,
+  StageEdge.class, Stage.class})
 public final class LocalitySchedulingConstraintTest {
   private Injector injector;
   private static final String SITE_0 = "SEOUL";
@@ -58,6 +69,12 @@ public final class LocalitySchedulingConstraintTest {
     return executorRepresenter;
   }
 
+  private static ExecutorRepresenter mockExecutorRepresenter(final String executorId, final String nodeName) {
+    final ExecutorRepresenter executorRepresenter = mockExecutorRepresenter(nodeName);
+    when(executorRepresenter.getExecutorId()).thenReturn(executorId);
+    return executorRepresenter;
+  }
+
   @Before
   public void setUp() throws Exception {
     injector = Tang.Factory.getTang().newInjector();
@@ -115,6 +132,127 @@ public final class LocalitySchedulingConstraintTest {
   }
 
 
+  /**
+   * {@link LocalitySchedulingConstraint} should schedule a shuffle consumer {@link Task} to the executor
+   * that holds the largest share of its input, while waiting for it.
+   *
+   * @throws InjectionException exception on the way.
+   */
+  @Test
+  public void testShuffleInputLocalityAwareScheduling() throws InjectionException {
+    final ExecutorRepresenter e0 = mockExecutorRepresenter("Executor0", SITE_0);
+    final ExecutorRepresenter e1 = mockExecutorRepresenter("Executor1", SITE_0);
+    final ExecutorRepresenter e2 = mockExecutorRepresenter("Executor2", SITE_1);
+
+    final BlockManagerMaster blockManagerMaster = mock(BlockManagerMaster.class);
+    final Map<String, Long> executorIdToBytes = new HashMap<>();
+    executorIdToBytes.put("Executor1", 300L);
+    executorIdToBytes.put("Executor2", 100L);
+    when(blockManagerMaster.getCommittedBytesByLocation(eq("SEdge0"), anyInt(), any()))
+      .thenReturn(executorIdToBytes);
+
+    final Stage srcStage = mock(Stage.class);
+    when(srcStage.getParallelism()).thenReturn(2);
+    final StageEdge shuffleEdge = mock(StageEdge.class);
+    when(shuffleEdge.getId()).thenReturn("SEdge0");
+    when(shuffleEdge.getSrc()).thenReturn(srcStage);
+    when(shuffleEdge.getPropertyValue(CommunicationPatternProperty.class))
+      .thenReturn(Optional.of(CommunicationPatternProperty.Value.SHUFFLE));
+    when(shuffleEdge.getPropertyValue(DuplicateEdgeGroupProperty.class)).thenReturn(Optional.empty());
+    when(shuffleEdge.getKeyRanges()).thenReturn(Collections.<KeyRange>singletonList(HashRange.of(0, 1)));
+    final Task task = mock(Task.class);
+    when(task.getTaskId()).thenReturn("Stage1-0-0");
+    when(task.getTaskIncomingEdges()).thenReturn(Collections.singletonList(shuffleEdge));
+
+    // Waiting for the input-local executor
+    final Injector waitingInjector = Tang.Factory.getTang().newInjector(Tang.Factory.getTang().newConfigurationBuilder()
+      .bindNamedParameter(JobConf.ShuffleLocalityWaitMs.class, "60000").build());
+    waitingInjector.bindVolatileInstance(BlockManagerMaster.class, blockManagerMaster);
+    final ExecutorRegistry executorRegistry = waitingInjector.getInstance(ExecutorRegistry.class);
+    Arrays.asList(e0, e1, e2).forEach(executorRegistry::registerExecutor);
+    final SchedulingConstraint waitingConstraint = waitingInjector.getInstance(LocalitySchedulingConstraint.class);
+    assertEquals(Collections.singleton(e1), Arrays.asList(e0, e1, e2).stream()
+      .filter(e -> waitingConstraint.testSchedulability(e, task))
+      .collect(Collectors.toSet()));
+
+    // Not waiting
+    final Injector notWaitingInjector = Tang.Factory.getTang().newInjector(
+      Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(JobConf.ShuffleLocalityWaitMs.class, "0").build());
+    notWaitingInjector.bindVolatileInstance(BlockManagerMaster.class, blockManagerMaster);
+    final SchedulingConstraint notWaitingConstraint =
+      notWaitingInjector.getInstance(LocalitySchedulingConstraint.class);
+    assertEquals(new HashSet<>(Arrays.asList(e0, e1, e2)), Arrays.asList(e0, e1, e2).stream()
+      .filter(e -> notWaitingConstraint.testSchedulability(e, task))
+      .collect(Collectors.toSet()));
+  }
+
+  /**
+   * Tests that the tasks of a stage wait again after a task is scheduled to a preferred executor,
+   * and that the wait of a stage is dropped when the stage completes.
+   *
+   * @throws Exception exception on the way.
+   */
+  @Test
+  public void testShuffleLocalityWaitReset() throws Exception {
+    final long waitMs = 500;
+    final ExecutorRepresenter e0 = mockExecutorRepresenter("Executor0", SITE_0);
+    final ExecutorRepresenter e1 = mockExecutorRepresenter("Executor1", SITE_0);
+    final ExecutorRepresenter e2 = mockExecutorRepresenter("Executor2", SITE_1);
+    final List<ExecutorRepresenter> executors = Arrays.asList(e0, e1, e2);
+
+    final BlockManagerMaster blockManagerMaster = mock(BlockManagerMaster.class);
+    when(blockManagerMaster.getCommittedBytesByLocation(eq("SEdge0"), anyInt(), any()))
+      .thenReturn(Collections.singletonMap("Executor1", 300L));
+    final Stage srcStage = mock(Stage.class);
+    when(srcStage.getParallelism()).thenReturn(2);
+    final StageEdge shuffleEdge = mock(StageEdge.class);
+    when(shuffleEdge.getId()).thenReturn("SEdge0");
+    when(shuffleEdge.getSrc()).thenReturn(srcStage);
+    when(shuffleEdge.getPropertyValue(CommunicationPatternProperty.class))
+      .thenReturn(Optional.of(CommunicationPatternProperty.Value.SHUFFLE));
+    when(shuffleEdge.getPropertyValue(DuplicateEdgeGroupProperty.class)).thenReturn(Optional.empty());
+    when(shuffleEdge.getKeyRanges()).thenReturn(Arrays.<KeyRange>asList(HashRange.of(0, 1), HashRange.of(1, 2)));
+    final Task firstTask = mockShuffleTask("Stage1-0-0", shuffleEdge);
+    final Task secondTask = mockShuffleTask("Stage1-1-0", shuffleEdge);
+
+    final Injector waitingInjector = Tang.Factory.getTang().newInjector(Tang.Factory.getTang().newConfigurationBuilder()
+      .bindNamedParameter(JobConf.ShuffleLocalityWaitMs.class, String.valueOf(waitMs)).build());
+    waitingInjector.bindVolatileInstance(BlockManagerMaster.class, blockManagerMaster);
+    final ExecutorRegistry executorRegistry = waitingInjector.getInstance(ExecutorRegistry.class);
+    executors.forEach(executorRegistry::registerExecutor);
+    final SchedulingConstraint constraint = waitingInjector.getInstance(LocalitySchedulingConstraint.class);
+
+    // After waiting for the input-local executor, the task waits for the input-local node.
+    assertEquals(Collections.singleton(e1), filter(constraint, executors, firstTask));
+    Thread.sleep(waitMs + 100);
+    assertEquals(new HashSet<>(Arrays.asList(e0, e1)), filter(constraint, executors, firstTask));
+
+    // A task is scheduled to the input-local executor, so the other task waits for it again.
+    constraint.onTaskScheduled(e1, firstTask);
+    assertEquals(Collections.singleton(e1), filter(constraint, executors, secondTask));
+
+    // The wait of the completed stage is dropped, and a new wait starts for the stage.
+    Thread.sleep(waitMs + 100);
+    constraint.onStageComplete("Stage1");
+    assertEquals(Collections.singleton(e1), filter(constraint, executors, secondTask));
+  }
+
+  private static Task mockShuffleTask(final String taskId, final StageEdge shuffleEdge) {
+    final Task task = mock(Task.class);
+    when(task.getTaskId()).thenReturn(taskId);
+    when(task.getTaskIncomingEdges()).thenReturn(Collections.singletonList(shuffleEdge));
+    return task;
+  }
+
+  private static Set<ExecutorRepresenter> filter(final SchedulingConstraint constraint,
+                                                 final List<ExecutorRepresenter> executors,
+                                                 final Task task) {
+    return executors.stream()
+      .filter(e -> constraint.testSchedulability(e, task))
+      .collect(Collectors.toSet());
+  }
+
   /**
    * Utility for creating {@link Task}.
    */
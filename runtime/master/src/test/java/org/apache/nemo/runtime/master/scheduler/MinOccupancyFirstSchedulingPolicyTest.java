@@ -51,10 +51,16 @@ public final class MinOccupancyFirstSchedulingPolicyTest {
   }
 
   private static ExecutorRepresenter mockExecutorRepresenter(final int numRunningTasks) {
+    return mockExecutorRepresenter(numRunningTasks, 0);
+  }
+
+  private static ExecutorRepresenter mockExecutorRepresenter(final int numRunningTasks, final double load) {
     final ExecutorRepresenter executorRepresenter = mock(ExecutorRepresenter.class);
     final Set<Task> runningTasks = new HashSet<>();
     IntStream.range(0, numRunningTasks).forEach(i -> runningTasks.add(mockTask(String.valueOf(i))));
     when(executorRepresenter.getRunningTasks()).thenReturn(runningTasks);
+    when(executorRepresenter.getNumOfRunningTasks()).thenReturn(numRunningTasks);
+    when(executorRepresenter.getLoad()).thenReturn(load);
     return executorRepresenter;
   }
 
@@ -72,5 +78,20 @@ public final class MinOccupancyFirstSchedulingPolicyTest {
 
     assertEquals(a0, schedulingPolicy.selectExecutor(executorRepresenterList, task));
   }
+
+  @Test
+  public void testLoad() throws InjectionException {
+    final SchedulingPolicy schedulingPolicy = Tang.Factory.getTang().newInjector()
+      .getInstance(MinOccupancyFirstSchedulingPolicy.class);
+    final ExecutorRepresenter a0 = mockExecutorRepresenter(1, 0.9);
+    final ExecutorRepresenter a1 = mockExecutorRepresenter(3, 0.5);
+    final ExecutorRepresenter a2 = mockExecutorRepresenter(2, 0.5);
+
+    final Task task = mock(Task.class);
+
+    // The executor with the minimum load is chosen, then the one with the fewest running tasks.
+    assertEquals(a2, schedulingPolicy.selectExecutor(Arrays.asList(a0, a1, a2), task));
+    assertEquals(a0, schedulingPolicy.selectExecutor(Arrays.asList(a0), task));
+  }
 }
 